@@ -0,0 +1,45 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream;
+
+/**
+ * Producer callback notified once per publish confirm or error, for all the messages it covers.
+ *
+ * <p>This is an alternative to a per-message {@link ConfirmationHandler} for applications that do
+ * not need the original {@link Message}, e.g. to track a high-water mark of confirmed publishing
+ * IDs. No {@link ConfirmationStatus} is created for messages sent with a <code>null</code> {@link
+ * ConfirmationHandler}.
+ *
+ * <p>With sub-entry batching, the publishing ID of a sub-entry is the publishing ID of its last
+ * message.
+ *
+ * <p>The callback runs on the connection thread, it should be as short as possible and must not
+ * keep a reference to the publishing ID array.
+ *
+ * @see ProducerBuilder#batchConfirmationHandler(BatchConfirmationHandler)
+ */
+@FunctionalInterface
+public interface BatchConfirmationHandler {
+
+  /**
+   * Callback for a set of confirmed or failed messages.
+   *
+   * @param confirmed whether the messages are confirmed or not
+   * @param code the status code, see {@link Constants}
+   * @param publishingIds the publishing IDs of the confirmed or failed entries, publishing IDs the
+   *     producer does not know about (e.g. already timed out) are not included
+   * @param messageCount the number of messages the publishing IDs stand for
+   */
+  void handle(boolean confirmed, short code, long[] publishingIds, int messageCount);
+}
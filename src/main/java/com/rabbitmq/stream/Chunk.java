@@ -0,0 +1,150 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream;
+
+import com.rabbitmq.stream.compression.Compression;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+/**
+ * Read-only view of a chunk delivered by the broker.
+ *
+ * <p>A chunk is the storage unit of a stream: a header followed by entries. An entry is either a
+ * single message or a sub-entry batch, which contains several messages and can be compressed.
+ *
+ * <p>The view and the buffers it returns reference the memory of the received frame. They are valid
+ * only during the {@link ChunkHandler} call: applications must copy what they need to keep
+ * afterwards.
+ *
+ * <p>This is an experimental API, subject to change.
+ *
+ * @see ChunkHandler
+ */
+public interface Chunk {
+
+  /**
+   * The offset of the first message of the chunk.
+   *
+   * @return offset of the first message
+   */
+  long firstOffset();
+
+  /**
+   * The offset of the last message of the chunk.
+   *
+   * @return offset of the last message
+   */
+  long lastOffset();
+
+  /**
+   * The timestamp of the chunk (milliseconds since epoch).
+   *
+   * @return the chunk timestamp
+   */
+  long timestamp();
+
+  /**
+   * The epoch of the chunk.
+   *
+   * @return the chunk epoch
+   */
+  long epoch();
+
+  /**
+   * The number of entries in the chunk.
+   *
+   * @return the number of entries
+   */
+  int entryCount();
+
+  /**
+   * The number of messages in the chunk, including the messages of sub-entry batches.
+   *
+   * @return the number of messages
+   */
+  long messageCount();
+
+  /**
+   * The CRC32 of the chunk data, already checked by the library.
+   *
+   * @return the CRC of the chunk data
+   */
+  long crc();
+
+  /**
+   * The raw data of the chunk, that is all the entries, as they were stored by the broker.
+   *
+   * @return read-only buffer with the chunk data
+   */
+  ByteBuffer data();
+
+  /**
+   * Iterator over the entries of the chunk.
+   *
+   * @return iterator over the entries
+   */
+  Iterator<Entry> entries();
+
+  /** An entry of a chunk: a single message or a sub-entry batch. */
+  interface Entry {
+
+    /**
+     * The offset of the first message of the entry.
+     *
+     * @return offset of the first message
+     */
+    long offset();
+
+    /**
+     * The number of messages in the entry, 1 for a simple entry.
+     *
+     * @return the number of messages
+     */
+    int messageCount();
+
+    /**
+     * Whether the entry is a sub-entry batch.
+     *
+     * @return true for a sub-entry batch, false for a simple entry
+     */
+    boolean isBatch();
+
+    /**
+     * The compression of the entry data. Simple entries are never compressed.
+     *
+     * @return the compression
+     */
+    Compression compression();
+
+    /**
+     * The raw data of the entry, compressed if the entry is compressed.
+     *
+     * <p>The data of a simple entry is the encoded message. The data of a sub-entry batch is a
+     * sequence of size-prefixed encoded messages, possibly compressed.
+     *
+     * @return read-only buffer with the entry data
+     */
+    ByteBuffer data();
+
+    /**
+     * Iterator over the encoded messages of the entry.
+     *
+     * <p>The entry is decompressed on the first call if necessary.
+     *
+     * @return iterator over the encoded messages
+     * @see Codec#decode(ByteBuffer)
+     */
+    Iterator<ByteBuffer> messages();
+  }
+}
@@ -0,0 +1,73 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream;
+
+/**
+ * Callback API for inbound chunks.
+ *
+ * <p>A chunk handler receives whole chunks instead of decoded messages. This is useful for
+ * applications that do not need to decode messages one by one, e.g. to archive or forward chunks.
+ *
+ * <p>This is an experimental API, subject to change.
+ *
+ * @see ConsumerBuilder#chunkHandler(ChunkHandler)
+ * @see Chunk
+ */
+public interface ChunkHandler {
+
+  /**
+   * Callback for an inbound chunk.
+   *
+   * <p>The chunk is valid only during the call.
+   *
+   * @param context context on the chunk
+   * @param chunk the chunk
+   */
+  void handle(Context context, Chunk chunk);
+
+  /** Information about the chunk. */
+  interface Context {
+
+    /**
+     * Shortcut to send a store order for the offset of the last message of the chunk.
+     *
+     * @see Consumer#store(long)
+     */
+    void storeOffset();
+
+    /**
+     * The ID (offset) of the committed chunk (block of messages) in the stream.
+     *
+     * <p>This requires RabbitMQ 3.11 or more. The method always returns 0 otherwise.
+     *
+     * @return committed chunk ID in this stream
+     * @see MessageHandler.Context#committedChunkId()
+     */
+    long committedChunkId();
+
+    /**
+     * The stream the chunk comes from.
+     *
+     * @return the stream the chunk comes from
+     */
+    String stream();
+
+    /**
+     * The consumer that receives the chunk.
+     *
+     * @return the consumer instance
+     */
+    Consumer consumer();
+  }
+}
@@ -13,6 +13,10 @@
 // info@rabbitmq.com.
 package com.rabbitmq.stream;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.ByteBuffer;
+
 /**
  * Codec to encode and decode messages.
  *
@@ -26,8 +30,35 @@ public interface Codec {
 
   Message decode(byte[] data);
 
+  /**
+   * Decode a message from the content of a {@link ByteBuffer}, between its position and its limit.
+   *
+   * <p>The library uses this method to decode messages directly from the memory of the received
+   * chunk, without copying each message in an intermediary array first. The buffer memory is
+   * released or reused once the message has been dispatched, so implementations must not keep a
+   * reference to the buffer (or to its backing array) in the returned message.
+   *
+   * <p>The default implementation copies the content in a byte array and calls {@link
+   * #decode(byte[])}.
+   *
+   * @param buffer the buffer to read from, its position may be changed by the method
+   * @return the decoded message
+   */
+  default Message decode(ByteBuffer buffer) {
+    byte[] data = new byte[buffer.remaining()];
+    buffer.get(data);
+    return decode(data);
+  }
+
   MessageBuilder messageBuilder();
 
+  /**
+   * An encoded message.
+   *
+   * <p>The library writes the encoded message in the outbound frame buffer with {@link
+   * #write(ByteBuf)}. Codecs that know the exact size of a message before encoding it can extend
+   * this class to write the message directly in the frame buffer, without intermediary array.
+   */
   class EncodedMessage {
 
     private final int size;
@@ -38,12 +69,76 @@ public interface Codec {
       this.data = data;
     }
 
+    /**
+     * Constructor for subclasses that write the message directly in the outbound buffer.
+     *
+     * <p>Such subclasses must override {@link #write(ByteBuf)}.
+     *
+     * @param size the exact size of the encoded message
+     */
+    protected EncodedMessage(int size) {
+      this(size, null);
+    }
+
+    /**
+     * The encoded message as an array.
+     *
+     * <p>Subclasses that write the message directly in the outbound buffer create the array on each
+     * call, the library calls this method only when a copy cannot be avoided (e.g. for
+     * compression).
+     *
+     * @return the encoded message, only the first {@link #getSize()} bytes are meaningful
+     */
     public byte[] getData() {
-      return data;
+      if (this.data == null) {
+        byte[] array = new byte[this.size];
+        write(Unpooled.wrappedBuffer(array).writerIndex(0));
+        return array;
+      } else {
+        return data;
+      }
     }
 
     public int getSize() {
       return size;
     }
+
+    /**
+     * Write the encoded message in the buffer.
+     *
+     * <p>Exactly {@link #getSize()} bytes must be written. The method can be called several times,
+     * e.g. if the message is re-published.
+     *
+     * @param buffer the buffer to write to
+     */
+    public void write(ByteBuf buffer) {
+      buffer.writeBytes(this.data, 0, this.size);
+    }
+
+    /**
+     * The last bytes of the encoded message, if they can be added to the outbound frame without
+     * being copied.
+     *
+     * <p>When this method returns a buffer, the library writes the first bytes with {@link
+     * #writeHead(ByteBuf)} and adds a slice of the returned buffer to the frame. The readable bytes
+     * of the returned buffer must not change until the message is confirmed.
+     *
+     * <p>Default is <code>null</code>, meaning the whole message is written with {@link
+     * #write(ByteBuf)}.
+     *
+     * @return the tail of the encoded message, or null
+     */
+    public ByteBuf tail() {
+      return null;
+    }
+
+    /**
+     * Write the encoded message without its {@link #tail()}.
+     *
+     * @param buffer the buffer to write to
+     */
+    public void writeHead(ByteBuf buffer) {
+      write(buffer);
+    }
   }
 }
@@ -0,0 +1,47 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream;
+
+/**
+ * How a {@link Producer} keeps track of the confirmation of its outbound messages.
+ *
+ * @see ProducerBuilder#confirmMode(ConfirmMode)
+ */
+public enum ConfirmMode {
+
+  /**
+   * Each message is tracked until the broker confirms it, the broker rejects it, or the confirm
+   * timeout is reached. The {@link ConfirmationHandler} of the message is then called. Unconfirmed
+   * messages are published again after a connection recovery. This is the default.
+   */
+  TRACK,
+
+  /**
+   * Messages are not tracked, which means at-most-once delivery.
+   *
+   * <p>Confirmation handlers are called only when a message cannot be sent, e.g. because the
+   * producer is closed or the enqueue timeout is reached. The {@link BatchConfirmationHandler} is
+   * not called. Unconfirmed messages are lost if the connection closes, there is no confirm
+   * timeout, and the byte limits of producers and of the environment do not apply. {@link
+   * Producer#sendAsync(Message)} is not supported, it throws an {@link
+   * UnsupportedOperationException}.
+   *
+   * <p>The broker confirmations are still counted, in the metrics and to apply backpressure: {@link
+   * ProducerBuilder#maxUnconfirmedMessages(int)} limits the number of unconfirmed publishing IDs,
+   * that is the number of messages, or the number of sub-entries with sub-entry batching.
+   *
+   * <p>This is the fastest publishing path, for data like metrics or telemetry that tolerate loss.
+   */
+  NONE
+}
@@ -14,6 +14,7 @@
 package com.rabbitmq.stream;
 
 import java.time.Duration;
+import java.util.concurrent.Executor;
 
 /** API to configure and create a {@link Consumer}. */
 public interface ConsumerBuilder {
@@ -59,6 +60,26 @@ public interface ConsumerBuilder {
    */
   ConsumerBuilder messageHandler(MessageHandler messageHandler);
 
+  /**
+   * The callback for inbound chunks.
+   *
+   * <p>The handler receives a read-only view of each chunk instead of decoded messages. It replaces
+   * the {@link MessageHandler}, only one of them can be set.
+   *
+   * <p>Automatic offset tracking and super streams are not supported with a chunk handler. If a
+   * name is set, the tracking strategy is manual by default.
+   *
+   * <p>Note the first chunk can contain messages before the requested offset, as the broker
+   * delivers whole chunks.
+   *
+   * <p>This is an experimental API, subject to change.
+   *
+   * @param chunkHandler
+   * @return this builder instance
+   * @see Chunk
+   */
+  ConsumerBuilder chunkHandler(ChunkHandler chunkHandler);
+
   /**
    * The logical name of the {@link Consumer}.
    *
@@ -156,6 +177,8 @@ public interface ConsumerBuilder {
    *
    * <p>This is an experimental API, subject to change.
    *
+   * <p>This is equivalent to {@link ConsumerFlowStrategy#creditOnChunkArrival(int, int)}.
+   *
    * @param initial the initial number of credits, default is 10
    * @param onChunkDelivery the number of credits provided on each chunk delivery, default is 1
    * @return this builder instance
@@ -163,6 +186,42 @@ public interface ConsumerBuilder {
    */
   ConsumerBuilder credits(int initial, int onChunkDelivery);
 
+  /**
+   * Define how the subscription is provided with credits.
+   *
+   * <p>The broker delivers a chunk for each credit, so the strategy controls how many chunks the
+   * consumer prefetches. The default strategy provides credits as soon as chunks arrive, which does
+   * not bound the prefetch of slow consumers. Use {@link
+   * ConsumerFlowStrategy#creditWhenChunkProcessed(int)} or {@link
+   * ConsumerFlowStrategy#adaptive(int, int)} to provide credits only once chunks have been handled.
+   *
+   * <p>This setting overrides {@link #credits(int, int)}, which is equivalent to {@link
+   * ConsumerFlowStrategy#creditOnChunkArrival(int, int)}.
+   *
+   * @param flowStrategy the flow strategy
+   * @return this builder instance
+   * @see ConsumerFlowStrategy
+   */
+  ConsumerBuilder flowStrategy(ConsumerFlowStrategy flowStrategy);
+
+  /**
+   * Executor to decompress the sub-entries of chunks in parallel.
+   *
+   * <p>By default, the compressed sub-entries of a chunk are decompressed one at a time by the
+   * thread that dispatches messages, which limits the throughput of a consumer reading a compressed
+   * stream (e.g. replaying it from the beginning) to one core. With an executor (e.g. {@link
+   * java.util.concurrent.ForkJoinPool#commonPool()}), the sub-entries of a chunk are decompressed
+   * concurrently. Messages still reach the {@link MessageHandler} one at a time, in offset order.
+   *
+   * <p>Useful only for streams published with sub-entry batching and compression. Default is no
+   * executor.
+   *
+   * @param executor
+   * @return this builder instance
+   * @see ProducerBuilder#compressionExecutor(Executor)
+   */
+  ConsumerBuilder decompressionExecutor(Executor executor);
+
   /**
    * Create the configured {@link Consumer}
    *
@@ -0,0 +1,356 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream;
+
+import java.time.Duration;
+
+/**
+ * Contract to provide credits to a consumer subscription.
+ *
+ * <p>The broker delivers a chunk for each credit of a subscription, so the credits control how many
+ * chunks a consumer can prefetch.
+ *
+ * <p>A strategy instance can be shared between consumers: it creates a new {@link ChunkCallback}
+ * for each subscription, this is where the per-subscription state lives.
+ *
+ * @see ConsumerBuilder#flowStrategy(ConsumerFlowStrategy)
+ */
+public interface ConsumerFlowStrategy {
+
+  /**
+   * Provide credits as soon as a chunk arrives, before its messages are dispatched.
+   *
+   * <p>This is the historical behavior: prefetch is not bounded if the consumer is slower than the
+   * publishers.
+   *
+   * @param initialCredits the initial number of credits
+   * @param additionalCredits the number of credits provided on each chunk arrival
+   * @return the strategy
+   */
+  static ConsumerFlowStrategy creditOnChunkArrival(int initialCredits, int additionalCredits) {
+    return new CreditOnChunkArrivalConsumerFlowStrategy(initialCredits, additionalCredits);
+  }
+
+  /**
+   * Provide a credit once all the messages of a chunk have been handled.
+   *
+   * <p>There are at most <code>initialCredits</code> chunks in flight or waiting to be handled.
+   *
+   * @param initialCredits the initial number of credits, that is the maximum number of prefetched
+   *     chunks
+   * @return the strategy
+   */
+  static ConsumerFlowStrategy creditWhenChunkProcessed(int initialCredits) {
+    return creditWhenChunkProcessed(initialCredits, 1);
+  }
+
+  /**
+   * Provide credits once all the messages of a chunk have been handled, in batches.
+   *
+   * <p>Credits are provided every <code>creditBatchSize</code> handled chunks, in one frame. This
+   * reduces the number of small frames sent to the broker.
+   *
+   * @param initialCredits the initial number of credits, that is the maximum number of prefetched
+   *     chunks
+   * @param creditBatchSize the number of handled chunks before providing credits, must not be
+   *     greater than <code>initialCredits</code>
+   * @return the strategy
+   */
+  static ConsumerFlowStrategy creditWhenChunkProcessed(int initialCredits, int creditBatchSize) {
+    return new CreditWhenChunkProcessedConsumerFlowStrategy(initialCredits, creditBatchSize);
+  }
+
+  /**
+   * Adapt the number of prefetched chunks to the processing rate of the consumer.
+   *
+   * <p>Uses a 1-second prefetch and no limit on the size of prefetched chunks.
+   *
+   * @param minCredits the minimum number of prefetched chunks
+   * @param maxCredits the maximum number of prefetched chunks
+   * @return the strategy
+   * @see #adaptive(int, int, Duration, ByteCapacity)
+   */
+  static ConsumerFlowStrategy adaptive(int minCredits, int maxCredits) {
+    return adaptive(minCredits, maxCredits, Duration.ofSeconds(1), null);
+  }
+
+  /**
+   * Adapt the number of prefetched chunks to the processing rate of the consumer.
+   *
+   * <p>The strategy measures the time it takes to handle a chunk and keeps enough chunks in flight
+   * to feed the consumer for the <code>prefetch</code> duration. The window is also bounded by
+   * <code>maxPrefetchSize</code> divided by the average chunk size. Credits are provided once
+   * chunks have been handled, in batches of a quarter of the window.
+   *
+   * @param minCredits the minimum number of prefetched chunks
+   * @param maxCredits the maximum number of prefetched chunks
+   * @param prefetch the processing time the prefetched chunks should cover
+   * @param maxPrefetchSize the maximum size of prefetched chunks, can be null
+   * @return the strategy
+   */
+  static ConsumerFlowStrategy adaptive(
+      int minCredits, int maxCredits, Duration prefetch, ByteCapacity maxPrefetchSize) {
+    return new AdaptiveConsumerFlowStrategy(minCredits, maxCredits, prefetch, maxPrefetchSize);
+  }
+
+  /**
+   * The number of credits to use when subscribing.
+   *
+   * @return initial number of credits
+   */
+  int initialCredits();
+
+  /**
+   * Create the credit logic of a new subscription.
+   *
+   * <p>Called each time the consumer subscribes, including after a connection recovery or a stream
+   * topology change.
+   *
+   * @param context the subscription context, to provide credits
+   * @return the callback for the chunks of the subscription
+   */
+  ChunkCallback start(Context context);
+
+  /** Subscription context. */
+  interface Context {
+
+    /**
+     * Provide credits to the subscription.
+     *
+     * @param credits the number of credits
+     */
+    void credits(int credits);
+  }
+
+  /**
+   * Callback for the chunks of a subscription.
+   *
+   * <p>Calls for a given subscription are sequential and happen on the thread that dispatches the
+   * messages to the application.
+   */
+  interface ChunkCallback {
+
+    /**
+     * A chunk has arrived, its messages are about to be dispatched.
+     *
+     * @param messageCount the number of messages in the chunk
+     * @param dataSize the size of the chunk data in bytes
+     */
+    void chunkArrived(long messageCount, long dataSize);
+
+    /**
+     * All the messages of a chunk have been dispatched to the application.
+     *
+     * @param messageCount the number of messages in the chunk
+     * @param dataSize the size of the chunk data in bytes
+     */
+    void chunkProcessed(long messageCount, long dataSize);
+  }
+
+  class CreditOnChunkArrivalConsumerFlowStrategy implements ConsumerFlowStrategy {
+
+    private final int initialCredits;
+    private final int additionalCredits;
+
+    private CreditOnChunkArrivalConsumerFlowStrategy(int initialCredits, int additionalCredits) {
+      if (initialCredits <= 0 || additionalCredits <= 0) {
+        throw new IllegalArgumentException("Credits must be positive");
+      }
+      this.initialCredits = initialCredits;
+      this.additionalCredits = additionalCredits;
+    }
+
+    @Override
+    public int initialCredits() {
+      return this.initialCredits;
+    }
+
+    @Override
+    public ChunkCallback start(Context context) {
+      return new ChunkCallback() {
+        @Override
+        public void chunkArrived(long messageCount, long dataSize) {
+          context.credits(additionalCredits);
+        }
+
+        @Override
+        public void chunkProcessed(long messageCount, long dataSize) {}
+      };
+    }
+
+    @Override
+    public String toString() {
+      return "CreditOnChunkArrivalConsumerFlowStrategy{"
+          + "initialCredits="
+          + initialCredits
+          + ", additionalCredits="
+          + additionalCredits
+          + '}';
+    }
+  }
+
+  class CreditWhenChunkProcessedConsumerFlowStrategy implements ConsumerFlowStrategy {
+
+    private final int initialCredits;
+    private final int creditBatchSize;
+
+    private CreditWhenChunkProcessedConsumerFlowStrategy(int initialCredits, int creditBatchSize) {
+      if (initialCredits <= 0 || creditBatchSize <= 0) {
+        throw new IllegalArgumentException("Credits must be positive");
+      }
+      if (creditBatchSize > initialCredits) {
+        throw new IllegalArgumentException(
+            "The credit batch size cannot be greater than the initial credits");
+      }
+      this.initialCredits = initialCredits;
+      this.creditBatchSize = creditBatchSize;
+    }
+
+    @Override
+    public int initialCredits() {
+      return this.initialCredits;
+    }
+
+    @Override
+    public ChunkCallback start(Context context) {
+      return new ChunkCallback() {
+
+        private int processed = 0;
+
+        @Override
+        public void chunkArrived(long messageCount, long dataSize) {}
+
+        @Override
+        public void chunkProcessed(long messageCount, long dataSize) {
+          if (++this.processed == creditBatchSize) {
+            this.processed = 0;
+            context.credits(creditBatchSize);
+          }
+        }
+      };
+    }
+
+    @Override
+    public String toString() {
+      return "CreditWhenChunkProcessedConsumerFlowStrategy{"
+          + "initialCredits="
+          + initialCredits
+          + ", creditBatchSize="
+          + creditBatchSize
+          + '}';
+    }
+  }
+
+  class AdaptiveConsumerFlowStrategy implements ConsumerFlowStrategy {
+
+    // weight of the last measure in the moving average of the processing time
+    private static final double PROCESSING_TIME_WEIGHT = 0.2;
+
+    private final int minCredits;
+    private final int maxCredits;
+    private final long prefetchInNanos;
+    private final long maxPrefetchSize;
+
+    private AdaptiveConsumerFlowStrategy(
+        int minCredits, int maxCredits, Duration prefetch, ByteCapacity maxPrefetchSize) {
+      if (minCredits <= 0 || maxCredits <= 0) {
+        throw new IllegalArgumentException("Credits must be positive");
+      }
+      if (minCredits > maxCredits) {
+        throw new IllegalArgumentException(
+            "The minimum credits cannot be greater than the maximum credits");
+      }
+      if (prefetch == null || prefetch.isNegative() || prefetch.isZero()) {
+        throw new IllegalArgumentException("The prefetch duration must be positive");
+      }
+      if (maxPrefetchSize != null && maxPrefetchSize.toBytes() <= 0) {
+        throw new IllegalArgumentException("The maximum prefetch size must be positive");
+      }
+      this.minCredits = minCredits;
+      this.maxCredits = maxCredits;
+      this.prefetchInNanos = prefetch.toNanos();
+      this.maxPrefetchSize = maxPrefetchSize == null ? Long.MAX_VALUE : maxPrefetchSize.toBytes();
+    }
+
+    @Override
+    public int initialCredits() {
+      return this.minCredits;
+    }
+
+    @Override
+    public ChunkCallback start(Context context) {
+      return new AdaptiveChunkCallback(context);
+    }
+
+    private final class AdaptiveChunkCallback implements ChunkCallback {
+
+      private final Context context;
+      // credits provided and not consumed by a processed chunk yet
+      private long outstanding = minCredits;
+      private long arrivedAt;
+      private double processingTime = -1;
+      private double chunkSize = -1;
+
+      private AdaptiveChunkCallback(Context context) {
+        this.context = context;
+      }
+
+      @Override
+      public void chunkArrived(long messageCount, long dataSize) {
+        this.arrivedAt = System.nanoTime();
+      }
+
+      @Override
+      public void chunkProcessed(long messageCount, long dataSize) {
+        long time = System.nanoTime() - this.arrivedAt;
+        if (this.processingTime < 0) {
+          this.processingTime = time;
+          this.chunkSize = dataSize;
+        } else {
+          this.processingTime += PROCESSING_TIME_WEIGHT * (time - this.processingTime);
+          this.chunkSize += PROCESSING_TIME_WEIGHT * (dataSize - this.chunkSize);
+        }
+        this.outstanding--;
+        int window = window(this.processingTime, this.chunkSize);
+        long missing = window - this.outstanding;
+        if (missing >= Math.max(1, window / 4)) {
+          this.outstanding += missing;
+          this.context.credits((int) missing);
+        }
+      }
+    }
+
+    private int window(double processingTime, double chunkSize) {
+      double window = processingTime <= 0 ? maxCredits : prefetchInNanos / processingTime;
+      if (chunkSize > 0) {
+        window = Math.min(window, maxPrefetchSize / chunkSize);
+      }
+      return (int) Math.max(minCredits, Math.min(maxCredits, Math.ceil(window)));
+    }
+
+    @Override
+    public String toString() {
+      return "AdaptiveConsumerFlowStrategy{"
+          + "minCredits="
+          + minCredits
+          + ", maxCredits="
+          + maxCredits
+          + ", prefetch="
+          + Duration.ofNanos(prefetchInNanos)
+          + ", maxPrefetchSize="
+          + maxPrefetchSize
+          + '}';
+    }
+  }
+}
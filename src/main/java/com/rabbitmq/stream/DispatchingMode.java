@@ -0,0 +1,45 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream;
+
+/**
+ * How frames received from the broker (message deliveries, publish confirms, responses, etc) are
+ * dispatched to the client code.
+ *
+ * @see EnvironmentBuilder#dispatchingMode(DispatchingMode)
+ */
+public enum DispatchingMode {
+
+  /**
+   * Frames are handled directly on the Netty event loop thread of the connection.
+   *
+   * <p>This offers the lowest latency, but application callbacks (e.g. {@link MessageHandler},
+   * {@link ConfirmationHandler}) must never block: blocking them blocks all the connections sharing
+   * the same event loop thread.
+   */
+  EVENT_LOOP,
+
+  /**
+   * Frames are handled by a shared pool of threads, each connection being assigned to one thread of
+   * the pool.
+   *
+   * <p>Frames of a given connection are still handled in order, but the number of threads does not
+   * grow with the number of connections. A blocking application callback blocks the other
+   * connections assigned to the same thread.
+   */
+  SHARED_POOL,
+
+  /** Each connection has its own thread to handle frames. This is the default. */
+  DEDICATED_THREAD
+}
@@ -285,6 +285,92 @@ public interface EnvironmentBuilder {
    */
   EnvironmentBuilder maxConsumersByConnection(int maxConsumersByConnection);
 
+  /**
+   * How frames received from the broker are dispatched to the client code (message handlers,
+   * confirmation handlers, etc).
+   *
+   * <p>Default is {@link DispatchingMode#DEDICATED_THREAD}, that is one thread per connection.
+   *
+   * @param dispatchingMode the dispatching mode
+   * @return this builder instance
+   * @see DispatchingMode
+   */
+  EnvironmentBuilder dispatchingMode(DispatchingMode dispatchingMode);
+
+  /**
+   * The number of threads of the shared dispatcher pool.
+   *
+   * <p>Used only with {@link DispatchingMode#SHARED_POOL}. Default is the number of available
+   * processors.
+   *
+   * @param dispatcherPoolSize number of dispatching threads
+   * @return this builder instance
+   */
+  EnvironmentBuilder dispatcherPoolSize(int dispatcherPoolSize);
+
+  /**
+   * The maximum amount of inbound data a connection can buffer before it stops reading from the
+   * socket.
+   *
+   * <p>Frames are accounted for from the moment they are read until the application code (e.g.
+   * message handler) is done with them. The connection stops reading when the budget is exceeded
+   * and resumes when the backlog goes below half of the budget, which makes the broker slow down
+   * thanks to TCP flow control.
+   *
+   * <p>Default is no limit.
+   *
+   * @param inboundBudget the maximum inbound backlog of a connection
+   * @return this builder instance
+   * @see #inboundBudget(ByteCapacity)
+   */
+  EnvironmentBuilder inboundBudgetByConnection(ByteCapacity inboundBudget);
+
+  /**
+   * The maximum amount of inbound data all the connections of the environment can buffer before
+   * they stop reading from their socket.
+   *
+   * <p>This budget is shared by all the connections of the environment and can be combined with
+   * {@link #inboundBudgetByConnection(ByteCapacity)}.
+   *
+   * <p>Default is no limit.
+   *
+   * @param inboundBudget the maximum inbound backlog of the environment
+   * @return this builder instance
+   * @see #inboundBudgetByConnection(ByteCapacity)
+   */
+  EnvironmentBuilder inboundBudget(ByteCapacity inboundBudget);
+
+  /**
+   * The maximum amount of outbound data all the producers of the environment can hold.
+   *
+   * <p>Messages are accounted for from the moment they are sent until they are confirmed or failed.
+   * When the budget is exhausted, {@link Producer#send(Message, ConfirmationHandler)} blocks until
+   * bytes are released, or fails the message with {@link Constants#CODE_MESSAGE_ENQUEUEING_FAILED}
+   * after the {@link ProducerBuilder#enqueueTimeout(Duration)}.
+   *
+   * <p>Default is no limit.
+   *
+   * @param outboundBudget the maximum outbound data of the environment
+   * @return this builder instance
+   * @see ProducerBuilder#maxUnconfirmedBytes(ByteCapacity)
+   */
+  EnvironmentBuilder outboundBudget(ByteCapacity outboundBudget);
+
+  /**
+   * When the frames of producers are flushed to the socket.
+   *
+   * <p>Producers share connections. A policy that does not flush every frame coalesces the frames
+   * of several producers in one flush, which means fewer system calls. The <code>flushed_frames
+   * </code> metric shows the number of frames per flush.
+   *
+   * <p>Default is {@link FlushPolicy#everyFrame()}.
+   *
+   * @param flushPolicy the flush policy
+   * @return this builder instance
+   * @see FlushPolicy
+   */
+  EnvironmentBuilder flushPolicy(FlushPolicy flushPolicy);
+
   /**
    * Set the {@link ScheduledExecutorService} used to:
    *
@@ -446,6 +532,51 @@ public interface EnvironmentBuilder {
      */
     NettyConfiguration bootstrapCustomizer(Consumer<Bootstrap> bootstrapCustomizer);
 
+    /**
+     * The Netty transport to use when the environment creates its own {@link EventLoopGroup}.
+     *
+     * <p>The default, {@link NettyTransport#AUTO}, uses native epoll if it is available and Java
+     * NIO otherwise. The environment falls back to NIO if the requested native transport is not
+     * available. The transport of connections is the one of the {@link EventLoopGroup} when it is
+     * provided with {@link #eventLoopGroup(EventLoopGroup)}.
+     *
+     * <p>The client enables <code>TCP_NODELAY</code> and, with native transports, <code>
+     * TCP_QUICKACK</code>.
+     *
+     * @param transport the Netty transport
+     * @return the Netty configuration helper
+     * @see NettyTransport
+     */
+    NettyConfiguration transport(NettyTransport transport);
+
+    /**
+     * Busy poll duration for sockets (<code>SO_BUSY_POLL</code>).
+     *
+     * <p>Busy polling can lower latency at the cost of CPU usage. It is supported only by the
+     * native epoll transport and is disabled by default.
+     *
+     * @param busyPoll the busy poll duration
+     * @return the Netty configuration helper
+     */
+    NettyConfiguration busyPoll(Duration busyPoll);
+
+    /**
+     * Write buffer water marks of connections, to apply backpressure on producers.
+     *
+     * <p>A connection becomes unwritable when its outbound buffer goes over the high water mark and
+     * writable again when it goes under the low water mark. While a connection is unwritable,
+     * {@link Producer#send(Message, ConfirmationHandler)} waits for it to be writable, or fails the
+     * message with {@link Constants#CODE_MESSAGE_ENQUEUEING_FAILED} after the {@link
+     * ProducerBuilder#enqueueTimeout(Duration)}.
+     *
+     * <p>Default is the Netty water marks, with no backpressure on producers.
+     *
+     * @param low the low water mark
+     * @param high the high water mark
+     * @return the Netty configuration helper
+     */
+    NettyConfiguration writeBufferWaterMark(ByteCapacity low, ByteCapacity high);
+
     /**
      * Go back to the environment builder
      *
@@ -0,0 +1,119 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream;
+
+import java.time.Duration;
+
+/**
+ * API to specify when the outbound frames of producers are flushed to the socket.
+ *
+ * <p>Producers share connections, flushing less often coalesces their frames and reduces the number
+ * of system calls, at the cost of some latency.
+ *
+ * @see EnvironmentBuilder#flushPolicy(FlushPolicy)
+ */
+public class FlushPolicy {
+
+  private static final short TYPE_EVERY_FRAME = 0;
+  private static final short TYPE_AFTER_FRAMES = 1;
+  private static final short TYPE_END_OF_EVENT_LOOP_BATCH = 2;
+
+  private static final FlushPolicy EVERY_FRAME =
+      new FlushPolicy(TYPE_EVERY_FRAME, 1, Duration.ZERO);
+  private static final FlushPolicy END_OF_EVENT_LOOP_BATCH =
+      new FlushPolicy(TYPE_END_OF_EVENT_LOOP_BATCH, Integer.MAX_VALUE, Duration.ZERO);
+
+  private final short type;
+  private final int frames;
+  private final Duration maxDelay;
+
+  private FlushPolicy(short type, int frames, Duration maxDelay) {
+    this.type = type;
+    this.frames = frames;
+    this.maxDelay = maxDelay;
+  }
+
+  /**
+   * Flush each frame as soon as it is written.
+   *
+   * <p>Flushes are still consolidated when the connection is busy reading. This is the default.
+   *
+   * @return the every-frame flush policy
+   */
+  public static FlushPolicy everyFrame() {
+    return EVERY_FRAME;
+  }
+
+  /**
+   * Flush once a given number of frames have been written or after a maximum delay.
+   *
+   * <p>The delay starts when the first frame is written after a flush.
+   *
+   * @param frames the number of frames that triggers a flush
+   * @param maxDelay the maximum time a frame can wait before being flushed
+   * @return the after-frames flush policy
+   */
+  public static FlushPolicy afterFrames(int frames, Duration maxDelay) {
+    if (frames <= 0) {
+      throw new IllegalArgumentException("The number of frames must be positive");
+    }
+    if (maxDelay == null || maxDelay.isNegative() || maxDelay.isZero()) {
+      throw new IllegalArgumentException("The maximum flush delay must be positive");
+    }
+    return new FlushPolicy(TYPE_AFTER_FRAMES, frames, maxDelay);
+  }
+
+  /**
+   * Flush once all the frames written when the connection event loop was busy have been handled.
+   *
+   * <p>Frames written concurrently by several producers end up in the same flush, without any
+   * delay.
+   *
+   * @return the end-of-event-loop-batch flush policy
+   */
+  public static FlushPolicy endOfEventLoopBatch() {
+    return END_OF_EVENT_LOOP_BATCH;
+  }
+
+  public boolean isEveryFrame() {
+    return this.type == TYPE_EVERY_FRAME;
+  }
+
+  public boolean isAfterFrames() {
+    return this.type == TYPE_AFTER_FRAMES;
+  }
+
+  public boolean isEndOfEventLoopBatch() {
+    return this.type == TYPE_END_OF_EVENT_LOOP_BATCH;
+  }
+
+  public int getFrames() {
+    return this.frames;
+  }
+
+  public Duration getMaxDelay() {
+    return this.maxDelay;
+  }
+
+  @Override
+  public String toString() {
+    if (isEveryFrame()) {
+      return "FlushPolicy{everyFrame}";
+    } else if (isEndOfEventLoopBatch()) {
+      return "FlushPolicy{endOfEventLoopBatch}";
+    } else {
+      return "FlushPolicy{afterFrames=" + frames + ", maxDelay=" + maxDelay + '}';
+    }
+  }
+}
@@ -13,7 +13,10 @@
 // info@rabbitmq.com.
 package com.rabbitmq.stream;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.util.UUID;
 
 /**
@@ -79,6 +82,44 @@ public interface MessageBuilder {
    */
   MessageBuilder addData(byte[] data);
 
+  /**
+   * Set binary data of the message from the content of a {@link ByteBuffer}.
+   *
+   * <p>The content between the position and the limit of the buffer is used, the position of the
+   * buffer does not change. Codecs that support it use the buffer as-is, without copying it in an
+   * array: the content of the buffer must not change until the message is confirmed.
+   *
+   * <p>The default implementation copies the content in an array and calls {@link
+   * #addData(byte[])}.
+   *
+   * @param data the message body
+   * @return this builder instance
+   * @see Message#getBodyAsBinary()
+   */
+  default MessageBuilder addData(ByteBuffer data) {
+    byte[] array = new byte[data.remaining()];
+    data.duplicate().get(array);
+    return addData(array);
+  }
+
+  /**
+   * Set binary data of the message from the readable bytes of a {@link ByteBuf}.
+   *
+   * <p>The indexes of the buffer do not change and its reference count is not modified. Codecs that
+   * support it use the buffer as-is, without copying it in an array: the buffer must not be changed
+   * or released until the message is confirmed.
+   *
+   * <p>The default implementation copies the content in an array and calls {@link
+   * #addData(byte[])}.
+   *
+   * @param data the message body
+   * @return this builder instance
+   * @see Message#getBodyAsBinary()
+   */
+  default MessageBuilder addData(ByteBuf data) {
+    return addData(ByteBufUtil.getBytes(data));
+  }
+
   /**
    * API to set application properties.
    *
@@ -0,0 +1,44 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream;
+
+/**
+ * The Netty transport used for connections.
+ *
+ * <p>Native transports need their Netty dependency on the classpath (e.g. <code>
+ * netty-transport-native-epoll</code> with the <code>linux-x86_64</code> classifier). NIO is used
+ * when the requested native transport is not available.
+ *
+ * @see EnvironmentBuilder.NettyConfiguration#transport(NettyTransport)
+ */
+public enum NettyTransport {
+
+  /** Native epoll if available, NIO otherwise. This is the default. */
+  AUTO,
+
+  /** Java NIO, available on all platforms. */
+  NIO,
+
+  /** Native epoll, Linux only. */
+  EPOLL,
+
+  /**
+   * Native io_uring, Linux only (recent kernels).
+   *
+   * <p>This requires the Netty incubator io_uring transport (<code>
+   * io.netty.incubator:netty-incubator-transport-native-io_uring</code>). The client falls back to
+   * {@link #AUTO} if it is not available.
+   */
+  IO_URING
+}
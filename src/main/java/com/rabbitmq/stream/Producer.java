@@ -13,6 +13,9 @@
 // info@rabbitmq.com.
 package com.rabbitmq.stream;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * API to send message to a RabbitMQ Stream.
  *
@@ -53,6 +56,42 @@ public interface Producer extends AutoCloseable {
    */
   void send(Message message, ConfirmationHandler confirmationHandler);
 
+  /**
+   * Publish a batch of messages.
+   *
+   * <p>The messages are enqueued as a unit: the implementation can acquire the publishing permits
+   * once for the whole batch and write the messages without going through the accumulator. The
+   * confirmation handler is called once for each message.
+   *
+   * <p>The default implementation calls {@link #send(Message, ConfirmationHandler)} for each
+   * message.
+   *
+   * @param messages the messages
+   * @param confirmationHandler the callback when a message is confirmed or failed
+   */
+  default void send(List<Message> messages, ConfirmationHandler confirmationHandler) {
+    for (Message message : messages) {
+      send(message, confirmationHandler);
+    }
+  }
+
+  /**
+   * Publish a message and return a {@link CompletableFuture} of its confirmation.
+   *
+   * <p>The future completes normally for both confirmed and failed messages, {@link
+   * ConfirmationStatus#isConfirmed()} and {@link ConfirmationStatus#getCode()} tell the outcome.
+   *
+   * @param message the message
+   * @return the future confirmation status of the message
+   * @throws UnsupportedOperationException if the producer does not track confirmations, see {@link
+   *     ConfirmMode#NONE}
+   */
+  default CompletableFuture<ConfirmationStatus> sendAsync(Message message) {
+    CompletableFuture<ConfirmationStatus> result = new CompletableFuture<>();
+    send(message, result::complete);
+    return result;
+  }
+
   /** Close the producer. */
   @Override
   void close();
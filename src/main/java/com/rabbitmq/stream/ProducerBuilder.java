@@ -14,7 +14,9 @@
 package com.rabbitmq.stream;
 
 import com.rabbitmq.stream.compression.Compression;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.function.ToIntFunction;
 
@@ -76,6 +78,25 @@ public interface ProducerBuilder {
    */
   ProducerBuilder compression(Compression compression);
 
+  /**
+   * Executor to compress sub-entries in parallel.
+   *
+   * <p>By default, sub-entries are compressed by the thread that publishes them, one at a time,
+   * which limits the throughput of a producer with compression to one core. With an executor (e.g.
+   * {@link java.util.concurrent.ForkJoinPool#commonPool()}), sub-entries are compressed
+   * concurrently and published as soon as they are ready, in the order of their publishing IDs.
+   *
+   * <p>At most 2 x {@link #batchSize(int)} sub-entries can wait for compression or publishing,
+   * sending blocks until some room is available, within the limit of the {@link
+   * #enqueueTimeout(Duration)}.
+   *
+   * <p>Only applies when {@link #compression(Compression)} is set. Default is no executor.
+   *
+   * @param executor
+   * @return this builder instance
+   */
+  ProducerBuilder compressionExecutor(Executor executor);
+
   /**
    * The maximum number of messages to accumulate before sending them to the broker.
    *
@@ -96,6 +117,36 @@ public interface ProducerBuilder {
    */
   ProducerBuilder batchPublishingDelay(Duration batchPublishingDelay);
 
+  /**
+   * Enable adaptive batching, with the maximum time a message can wait before being sent.
+   *
+   * <p>Accumulated messages are sent as soon as the connection can write them, without waiting for
+   * a timer. While the connection cannot keep up, the batch grows until it reaches the {@link
+   * #batchSize(int)} or until the oldest accumulated message has waited for this maximum latency.
+   *
+   * <p>The {@link #batchPublishingDelay(Duration)} is not used when adaptive batching is enabled.
+   *
+   * <p>Default is {@link Duration#ZERO}, which means adaptive batching is disabled.
+   *
+   * @param maxLatency maximum time a message can wait before being sent
+   * @return this builder instance
+   */
+  ProducerBuilder linger(Duration maxLatency);
+
+  /**
+   * The maximum number of bytes of messages in a batch.
+   *
+   * <p>A batch is sent when it reaches {@link #batchSize(int)} messages or this number of bytes,
+   * whichever comes first. This avoids large messages making a batch too big for the broker frame
+   * size. The size of a message is the size of its encoded form.
+   *
+   * <p>Default is no limit.
+   *
+   * @param maxBatchBytes the maximum number of bytes in a batch
+   * @return this builder instance
+   */
+  ProducerBuilder maxBatchBytes(ByteCapacity maxBatchBytes);
+
   /**
    * The maximum number of unconfirmed outbound messages.
    *
@@ -109,6 +160,21 @@ public interface ProducerBuilder {
    */
   ProducerBuilder maxUnconfirmedMessages(int maxUnconfirmedMessages);
 
+  /**
+   * The maximum number of bytes of unconfirmed outbound messages.
+   *
+   * <p>{@link Producer#send(Message, ConfirmationHandler)} will start blocking when the limit is
+   * reached, like with {@link #maxUnconfirmedMessages(int)}. The size of a message is the size of
+   * its encoded form.
+   *
+   * <p>Default is no limit.
+   *
+   * @param maxUnconfirmedBytes the maximum number of unconfirmed bytes
+   * @return this builder instance
+   * @see EnvironmentBuilder#outboundBudget(ByteCapacity)
+   */
+  ProducerBuilder maxUnconfirmedBytes(ByteCapacity maxUnconfirmedBytes);
+
   /**
    * Time before the client calls the confirm callback to signal outstanding unconfirmed messages
    * timed out.
@@ -132,6 +198,100 @@ public interface ProducerBuilder {
    */
   ProducerBuilder enqueueTimeout(Duration timeout);
 
+  /**
+   * Callback notified once per publish confirm or error, for all the messages it covers.
+   *
+   * <p>The handler is called in addition to the {@link ConfirmationHandler} passed in to {@link
+   * Producer#send(Message, ConfirmationHandler)}. Use a <code>null</code> per-message handler to
+   * avoid the creation of a {@link ConfirmationStatus} for each message.
+   *
+   * <p>Default is no batch confirmation handler.
+   *
+   * @param handler the batch confirmation handler
+   * @return this builder instance
+   * @see BatchConfirmationHandler
+   */
+  ProducerBuilder batchConfirmationHandler(BatchConfirmationHandler handler);
+
+  /**
+   * How the producer keeps track of the confirmation of its messages.
+   *
+   * <p>Use {@link ConfirmMode#NONE} to skip the tracking of messages when at-most-once delivery is
+   * acceptable.
+   *
+   * <p>Default is {@link ConfirmMode#TRACK}.
+   *
+   * @param confirmMode the confirm mode
+   * @return this builder instance
+   * @see ConfirmMode
+   */
+  ProducerBuilder confirmMode(ConfirmMode confirmMode);
+
+  /**
+   * Directory to spill the messages sent while the producer is not available.
+   *
+   * <p>The producer becomes unavailable when it loses its connection, e.g. when the stream leader
+   * restarts. Messages sent in the meantime are then stored in memory-mapped files in this
+   * directory, instead of being failed with {@link Constants#CODE_PRODUCER_NOT_AVAILABLE}. They are
+   * published in publishing ID order when the producer is available again.
+   *
+   * <p>The encoded messages are off the heap, only their confirmation handlers stay in memory, to
+   * be notified once the messages are confirmed. The message of the {@link ConfirmationStatus} of a
+   * spilled message is decoded from the spilled bytes, it is not the sent instance. Messages are
+   * failed as usual once the {@link #maxSpillSize(ByteCapacity)} is reached. Spilled messages that
+   * are not published yet when the producer closes are failed with {@link
+   * Constants#CODE_PRODUCER_CLOSED}.
+   *
+   * <p>Default is no spilling.
+   *
+   * @param directory the directory to store spilled messages in
+   * @return this builder instance
+   */
+  ProducerBuilder spillDirectory(Path directory);
+
+  /**
+   * The maximum size of the messages spilled to disk.
+   *
+   * <p>Default is 1 GB.
+   *
+   * @param maxSpillSize the maximum size of spilled messages
+   * @return this builder instance
+   * @see #spillDirectory(Path)
+   */
+  ProducerBuilder maxSpillSize(ByteCapacity maxSpillSize);
+
+  /**
+   * Number of publishers to spread the messages over.
+   *
+   * <p>The returned {@link Producer} uses <code>concurrency</code> publishers on the stream, each
+   * on its own connection, to go beyond the throughput of a single publisher. Each message goes to
+   * the publisher assigned to the sending thread, so the messages of a given thread are published
+   * in order. Use {@link #concurrency(int, Function)} to preserve the order per routing key
+   * instead.
+   *
+   * <p>Publishing IDs are assigned by each publisher, they are not unique across the publishers.
+   * Deduplication, that is setting a {@link #name(String)}, is not supported with a concurrency
+   * greater than 1.
+   *
+   * <p>Default is 1.
+   *
+   * @param concurrency the number of publishers
+   * @return this builder instance
+   */
+  ProducerBuilder concurrency(int concurrency);
+
+  /**
+   * Number of publishers to spread the messages over, with routing key affinity.
+   *
+   * <p>Messages with the same routing key go to the same publisher, so they are published in order.
+   *
+   * @param concurrency the number of publishers
+   * @param routingKeyExtractor the function to extract the routing key from a message
+   * @return this builder instance
+   * @see #concurrency(int)
+   */
+  ProducerBuilder concurrency(int concurrency, Function<Message, String> routingKeyExtractor);
+
   /**
    * Create the {@link Producer} instance.
    *
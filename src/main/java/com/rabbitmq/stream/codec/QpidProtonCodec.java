@@ -17,6 +17,9 @@ import com.rabbitmq.stream.Codec;
 import com.rabbitmq.stream.Message;
 import com.rabbitmq.stream.MessageBuilder;
 import com.rabbitmq.stream.Properties;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import java.nio.ByteBuffer;
 import java.util.Date;
 import java.util.LinkedHashMap;
@@ -32,6 +35,9 @@ import org.apache.qpid.proton.codec.ReadableBuffer;
 import org.apache.qpid.proton.codec.WritableBuffer;
 
 public class QpidProtonCodec implements Codec {
+
+  // the sections before the body are usually small
+  private static final int SECTIONS_BUFFER_SIZE = 256;
   private static final Function<String, String> MESSAGE_ANNOTATIONS_STRING_KEY_EXTRACTOR = k -> k;
   private static final Function<Symbol, String> MESSAGE_ANNOTATIONS_SYMBOL_KEY_EXTRACTOR =
       Symbol::toString;
@@ -107,8 +113,10 @@ public class QpidProtonCodec implements Codec {
   @Override
   public EncodedMessage encode(Message message) {
     org.apache.qpid.proton.message.Message qpidMessage;
+    ByteBuf body = null;
     if (message instanceof QpidProtonAmqpMessageWrapper) {
       qpidMessage = ((QpidProtonAmqpMessageWrapper) message).message;
+      body = ((QpidProtonAmqpMessageWrapper) message).body;
     } else {
       qpidMessage = org.apache.qpid.proton.message.Message.Factory.create();
       if (message.getProperties() != null) {
@@ -235,22 +243,80 @@ public class QpidProtonCodec implements Codec {
         qpidMessage.setBody(new Data(new Binary(message.getBodyAsBinary())));
       }
     }
-    int bufferSize;
-    if (qpidMessage.getBody() instanceof Data) {
-      bufferSize = (int) (((Data) qpidMessage.getBody()).getValue().getLength() * 1.5);
-    } else {
-      bufferSize = 8192;
+    if (body == null && qpidMessage.getBody() instanceof Data) {
+      Binary binary = ((Data) qpidMessage.getBody()).getValue();
+      body = Unpooled.wrappedBuffer(binary.getArray(), binary.getArrayOffset(), binary.getLength());
+    }
+    if (body != null) {
+      return encodeWithDataBody(qpidMessage, body);
     }
-    ByteArrayWritableBuffer writableBuffer = new ByteArrayWritableBuffer(bufferSize);
+    ByteArrayWritableBuffer writableBuffer = new ByteArrayWritableBuffer(8192);
     qpidMessage.encode(writableBuffer);
     return new EncodedMessage(writableBuffer.getArrayLength(), writableBuffer.getArray());
   }
 
+  /*
+  The body is not encoded by Proton, it is written as-is in the outbound buffer, after the
+  sections that precede it and the header of the data section.
+  This gives the exact size of the encoded message without copying the body.
+   */
+  private EncodedMessage encodeWithDataBody(
+      org.apache.qpid.proton.message.Message qpidMessage, ByteBuf body) {
+    ByteArrayWritableBuffer head = new ByteArrayWritableBuffer(SECTIONS_BUFFER_SIZE);
+    org.apache.qpid.proton.message.Message.Factory.create(
+            qpidMessage.getHeader(),
+            qpidMessage.getDeliveryAnnotations(),
+            qpidMessage.getMessageAnnotations(),
+            qpidMessage.getProperties(),
+            qpidMessage.getApplicationProperties(),
+            null,
+            null)
+        .encode(head);
+    int bodyLength = body.readableBytes();
+    // described type with the data section descriptor (small ulong 0x75)
+    head.put((byte) 0x00);
+    head.put((byte) 0x53);
+    head.put((byte) 0x75);
+    if (bodyLength <= 255) {
+      head.put((byte) 0xa0); // vbin8
+      head.put((byte) bodyLength);
+    } else {
+      head.put((byte) 0xb0); // vbin32
+      head.putInt(bodyLength);
+    }
+    ByteArrayWritableBuffer footer = null;
+    if (qpidMessage.getFooter() != null) {
+      footer = new ByteArrayWritableBuffer(SECTIONS_BUFFER_SIZE);
+      org.apache.qpid.proton.message.Message.Factory.create(
+              null, null, null, null, null, null, qpidMessage.getFooter())
+          .encode(footer);
+    }
+    return new DataBodyEncodedMessage(
+        head.getArray(),
+        head.getArrayLength(),
+        body,
+        footer == null ? null : footer.getArray(),
+        footer == null ? 0 : footer.getArrayLength());
+  }
+
   @Override
   public Message decode(byte[] data) {
     org.apache.qpid.proton.message.Message message =
         org.apache.qpid.proton.message.Message.Factory.create();
     message.decode(data, 0, data.length);
+    return createMessage(message);
+  }
+
+  @Override
+  public Message decode(ByteBuffer buffer) {
+    org.apache.qpid.proton.message.Message message =
+        org.apache.qpid.proton.message.Message.Factory.create();
+    // the decoder copies binary and string values, the message does not reference the buffer
+    message.decode(ReadableBuffer.ByteBufferReader.wrap(buffer));
+    return createMessage(message);
+  }
+
+  private Message createMessage(org.apache.qpid.proton.message.Message message) {
     return new QpidProtonMessage(
         message,
         createProperties(message),
@@ -511,6 +577,8 @@ public class QpidProtonCodec implements Codec {
     private final boolean hasPublishingId;
     private final long publishingId;
     private final org.apache.qpid.proton.message.Message message;
+    // body provided as a buffer, not set in the Proton message to avoid a copy
+    private final ByteBuf body;
     private Properties properties;
     private Map<String, Object> applicationProperties;
     private Map<String, Object> messageAnnotations;
@@ -519,9 +587,18 @@ public class QpidProtonCodec implements Codec {
         boolean hasPublishingId,
         long publishingId,
         org.apache.qpid.proton.message.Message message) {
+      this(hasPublishingId, publishingId, message, null);
+    }
+
+    QpidProtonAmqpMessageWrapper(
+        boolean hasPublishingId,
+        long publishingId,
+        org.apache.qpid.proton.message.Message message,
+        ByteBuf body) {
       this.hasPublishingId = hasPublishingId;
       this.publishingId = publishingId;
       this.message = message;
+      this.body = body;
     }
 
     @Override
@@ -536,11 +613,17 @@ public class QpidProtonCodec implements Codec {
 
     @Override
     public byte[] getBodyAsBinary() {
+      if (this.body != null) {
+        return ByteBufUtil.getBytes(this.body);
+      }
       return message.getBody() == null ? null : ((Data) message.getBody()).getValue().getArray();
     }
 
     @Override
     public Object getBody() {
+      if (this.body != null) {
+        return new Data(new Binary(ByteBufUtil.getBytes(this.body)));
+      }
       return message.getBody();
     }
 
@@ -581,6 +664,58 @@ public class QpidProtonCodec implements Codec {
     }
   }
 
+  private static final class DataBodyEncodedMessage extends EncodedMessage {
+
+    // below this size, copying the body is cheaper than adding it to a composite buffer
+    private static final int ZERO_COPY_THRESHOLD = 4096;
+
+    private final byte[] head;
+    private final int headLength;
+    private final ByteBuf body;
+    private final byte[] footer;
+    private final int footerLength;
+
+    private DataBodyEncodedMessage(
+        byte[] head, int headLength, ByteBuf body, byte[] footer, int footerLength) {
+      super(headLength + body.readableBytes() + footerLength);
+      this.head = head;
+      this.headLength = headLength;
+      this.body = body;
+      this.footer = footer;
+      this.footerLength = footerLength;
+    }
+
+    @Override
+    public void write(ByteBuf buffer) {
+      buffer.writeBytes(this.head, 0, this.headLength);
+      buffer.writeBytes(this.body, this.body.readerIndex(), this.body.readableBytes());
+      if (this.footer != null) {
+        buffer.writeBytes(this.footer, 0, this.footerLength);
+      }
+    }
+
+    @Override
+    public ByteBuf tail() {
+      // heap buffers would be copied to a direct buffer by the transport anyway
+      if (this.footer == null
+          && this.body.isDirect()
+          && this.body.readableBytes() >= ZERO_COPY_THRESHOLD) {
+        return this.body;
+      } else {
+        return null;
+      }
+    }
+
+    @Override
+    public void writeHead(ByteBuf buffer) {
+      if (tail() == null) {
+        write(buffer);
+      } else {
+        buffer.writeBytes(this.head, 0, this.headLength);
+      }
+    }
+  }
+
   // from
   // https://github.com/apache/activemq/blob/master/activemq-amqp/src/main/java/org/apache/activemq/transport/amqp/message/AmqpWritableBuffer.java
   private class ByteArrayWritableBuffer implements WritableBuffer {
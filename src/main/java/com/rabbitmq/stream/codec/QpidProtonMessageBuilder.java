@@ -15,7 +15,10 @@ package com.rabbitmq.stream.codec;
 
 import com.rabbitmq.stream.Message;
 import com.rabbitmq.stream.MessageBuilder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -38,6 +41,7 @@ class QpidProtonMessageBuilder implements MessageBuilder {
   private final AtomicBoolean built = new AtomicBoolean(false);
   private boolean hasPublishingId = false;
   private long publishingId = 0;
+  private ByteBuf body;
   private QpidProtonjPropertiesBuilder propertiesBuilder;
   private QpidProtonjApplicationPropertiesBuilder applicationPropertiesBuilder;
   private QpidProtonjMessageAnnotationsBuilder messageAnnotationsBuilder;
@@ -57,7 +61,7 @@ class QpidProtonMessageBuilder implements MessageBuilder {
             new MessageAnnotations(messageAnnotationsBuilder.messageAnnotations));
       }
       return new QpidProtonCodec.QpidProtonAmqpMessageWrapper(
-          hasPublishingId, publishingId, message);
+          hasPublishingId, publishingId, message, body);
     } else {
       throw new IllegalStateException("A message builder can build only one message");
     }
@@ -97,6 +101,19 @@ class QpidProtonMessageBuilder implements MessageBuilder {
   @Override
   public MessageBuilder addData(byte[] data) {
     message.setBody(new Data(new Binary(data)));
+    this.body = null;
+    return this;
+  }
+
+  @Override
+  public MessageBuilder addData(ByteBuffer data) {
+    return addData(Unpooled.wrappedBuffer(data));
+  }
+
+  @Override
+  public MessageBuilder addData(ByteBuf data) {
+    message.setBody(null);
+    this.body = data;
     return this;
   }
 
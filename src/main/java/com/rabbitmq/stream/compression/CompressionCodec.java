@@ -13,6 +13,10 @@
 // info@rabbitmq.com.
 package com.rabbitmq.stream.compression;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 
@@ -43,6 +47,66 @@ public interface CompressionCodec {
    */
   InputStream decompress(InputStream source);
 
+  /**
+   * Compresses the readable bytes of a buffer into another buffer.
+   *
+   * <p>The reader index of the source and the writer index of the destination are advanced. The
+   * destination is expanded if necessary, but callers should allocate {@link
+   * #maxCompressedLength(int)} bytes to avoid any resizing.
+   *
+   * <p>The default implementation uses the stream API, codecs are encouraged to override it to
+   * compress the whole block at once.
+   *
+   * @param source the plain data
+   * @param destination the buffer to write compressed data to
+   */
+  default void compress(ByteBuf source, ByteBuf destination) {
+    try (OutputStream outputStream = compress(new ByteBufOutputStream(destination))) {
+      // some stream implementations do not support writes larger than their block size
+      while (source.isReadable()) {
+        source.readBytes(outputStream, Math.min(source.readableBytes(), 8192));
+      }
+    } catch (IOException e) {
+      throw new CompressionException("Error while compressing block", e);
+    }
+  }
+
+  /**
+   * Decompresses the readable bytes of a buffer into another buffer.
+   *
+   * <p>All the readable bytes of the source are consumed and the writer index of the destination is
+   * advanced.
+   *
+   * <p>The default implementation uses the stream API, codecs are encouraged to override it to
+   * decompress the whole block at once.
+   *
+   * @param source the compressed data
+   * @param destination the buffer to write plain data to
+   * @param uncompressedSize the size of the plain data
+   */
+  default void decompress(ByteBuf source, ByteBuf destination, int uncompressedSize) {
+    destination.ensureWritable(uncompressedSize);
+    try (InputStream inputStream = decompress(new ByteBufInputStream(source))) {
+      int remaining = uncompressedSize;
+      int read;
+      while (remaining > 0 && (read = destination.writeBytes(inputStream, remaining)) != -1) {
+        remaining -= read;
+      }
+      if (remaining != 0) {
+        throw new CompressionException(
+            "Block decompressed to "
+                + (uncompressedSize - remaining)
+                + " byte(s) instead of "
+                + uncompressedSize,
+            null);
+      }
+      // the stream may not read trailing bytes (end mark, checksum) once it is done
+      source.skipBytes(source.readableBytes());
+    } catch (IOException e) {
+      throw new CompressionException("Error while decompressing block", e);
+    }
+  }
+
   /**
    * Return the code for this type of codec.
    *
@@ -14,17 +14,36 @@
 package com.rabbitmq.stream.compression;
 
 import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdDecompressCtx;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdException;
 import com.github.luben.zstd.ZstdInputStream;
 import com.github.luben.zstd.ZstdOutputStream;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
 import net.jpountz.lz4.LZ4FrameInputStream;
 import net.jpountz.lz4.LZ4FrameOutputStream;
 import net.jpountz.lz4.LZ4FrameOutputStream.BLOCKSIZE;
 import net.jpountz.lz4.LZ4FrameOutputStream.FLG;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import net.jpountz.xxhash.XXHash32;
+import net.jpountz.xxhash.XXHashFactory;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
 import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
@@ -45,6 +64,89 @@ public final class CompressionUtils {
 
   private CompressionUtils() {}
 
+  private static final int ZSTD_MAGIC_NUMBER = 0xFD2FB528;
+  // magic number, frame header descriptor, window descriptor, dictionary ID
+  private static final int ZSTD_FRAME_HEADER_DICTIONARY_ID_END = 4 + 1 + 1 + 4;
+
+  /**
+   * Train a Zstd dictionary from a sample of messages.
+   *
+   * <p>The sample should be representative of the messages of the stream, e.g. a few thousand
+   * messages encoded with the {@link com.rabbitmq.stream.Codec} of the environment. A dictionary of
+   * about 100 times smaller than the sample is a good start (e.g. 16 KB).
+   *
+   * <p>The dictionary must be shared by the publishing and consuming applications, see {@link
+   * ZstdDictionaryCompressionCodecFactory}.
+   *
+   * @param samples the messages to train the dictionary on
+   * @param dictionarySize the maximum size of the dictionary, in bytes
+   * @return the dictionary
+   * @throws CompressionException if the training fails, e.g. because the sample is too small
+   */
+  public static byte[] trainZstdDictionary(Collection<byte[]> samples, int dictionarySize) {
+    if (samples == null || samples.isEmpty()) {
+      throw new IllegalArgumentException("Samples cannot be empty");
+    }
+    if (dictionarySize <= 0) {
+      throw new IllegalArgumentException("Dictionary size must be positive");
+    }
+    byte[] dictionary = new byte[dictionarySize];
+    long size;
+    try {
+      size = Zstd.trainFromBuffer(samples.toArray(new byte[0][]), dictionary);
+    } catch (ZstdException e) {
+      throw new CompressionException("Error while training Zstd dictionary", e);
+    }
+    if (Zstd.isError(size)) {
+      throw new CompressionException(
+          "Error while training Zstd dictionary: " + Zstd.getErrorName(size), null);
+    }
+    return Arrays.copyOf(dictionary, (int) size);
+  }
+
+  /**
+   * The ID of a Zstd dictionary.
+   *
+   * @param dictionary the dictionary
+   * @return the ID, 0 if the dictionary does not have any
+   */
+  public static long zstdDictionaryId(byte[] dictionary) {
+    return Zstd.getDictIdFromDict(dictionary);
+  }
+
+  /**
+   * The ID of the dictionary a Zstd frame (e.g. a sub-entry) has been compressed with.
+   *
+   * @param frame the frame, starting at the reader index of the buffer (which does not change)
+   * @return the dictionary ID, 0 if the frame has been compressed without dictionary
+   * @throws CompressionException if the buffer does not start with a Zstd frame header
+   */
+  public static long zstdFrameDictionaryId(ByteBuf frame) {
+    int index = frame.readerIndex();
+    if (frame.readableBytes() < 5 || frame.getIntLE(index) != ZSTD_MAGIC_NUMBER) {
+      throw new CompressionException("Not a Zstd frame", null);
+    }
+    byte descriptor = frame.getByte(index + 4);
+    int dictionaryIdFlag = descriptor & 0x03;
+    boolean singleSegment = (descriptor & 0x20) != 0;
+    // no window descriptor for single segment frames
+    int dictionaryIdIndex = index + 5 + (singleSegment ? 0 : 1);
+    int dictionaryIdSize = dictionaryIdFlag == 3 ? 4 : dictionaryIdFlag;
+    if (frame.writerIndex() < dictionaryIdIndex + dictionaryIdSize) {
+      throw new CompressionException("Truncated Zstd frame header", null);
+    }
+    switch (dictionaryIdFlag) {
+      case 0:
+        return 0;
+      case 1:
+        return frame.getUnsignedByte(dictionaryIdIndex);
+      case 2:
+        return frame.getUnsignedShortLE(dictionaryIdIndex);
+      default:
+        return frame.getUnsignedIntLE(dictionaryIdIndex);
+    }
+  }
+
   public static class GzipCompressionCodec implements CompressionCodec {
 
     @Override
@@ -83,6 +185,12 @@ public final class CompressionUtils {
 
   public static class ZstdJniCompressionCodec implements CompressionCodec {
 
+    // contexts are expensive to create, each thread keeps its own
+    private static final ThreadLocal<ZstdCompressCtx> COMPRESS_CONTEXT =
+        ThreadLocal.withInitial(ZstdCompressCtx::new);
+    private static final ThreadLocal<ZstdDecompressCtx> DECOMPRESS_CONTEXT =
+        ThreadLocal.withInitial(ZstdDecompressCtx::new);
+
     @Override
     public int maxCompressedLength(int sourceLength) {
       return (int) Zstd.compressBound(sourceLength);
@@ -106,6 +214,20 @@ public final class CompressionUtils {
       }
     }
 
+    @Override
+    public void compress(ByteBuf source, ByteBuf destination) {
+      if (!zstdCompress(COMPRESS_CONTEXT.get(), source, destination)) {
+        CompressionCodec.super.compress(source, destination);
+      }
+    }
+
+    @Override
+    public void decompress(ByteBuf source, ByteBuf destination, int uncompressedSize) {
+      if (!zstdDecompress(DECOMPRESS_CONTEXT.get(), source, destination, uncompressedSize)) {
+        CompressionCodec.super.decompress(source, destination, uncompressedSize);
+      }
+    }
+
     @Override
     public byte code() {
       return Compression.ZSTD.code;
@@ -117,14 +239,220 @@ public final class CompressionUtils {
     }
   }
 
+  /**
+   * Zstd codec using pre-trained dictionaries, to improve the compression ratio of small messages.
+   *
+   * <p>Frames are compressed with one dictionary and contain its ID. Frames are decompressed with
+   * the dictionary their ID designates, so consumers can read sub-entries compressed with any of
+   * the dictionaries they know about (e.g. during a dictionary rotation), as well as sub-entries
+   * compressed without a dictionary.
+   *
+   * @see #trainZstdDictionary(Collection, int)
+   * @see ZstdDictionaryCompressionCodecFactory
+   */
+  public static class ZstdJniDictionaryCompressionCodec implements CompressionCodec {
+
+    private final ZstdDictCompress compressionDictionary;
+    private final long[] dictionaryIds;
+    private final ZstdDictDecompress[] decompressionDictionaries;
+    private final ThreadLocal<ZstdCompressCtx> compressContext;
+    // one context per dictionary, the last one without dictionary
+    private final ThreadLocal<ZstdDecompressCtx[]> decompressContexts;
+
+    /**
+     * Create a codec with the dictionary to compress with and the dictionaries to decompress with.
+     *
+     * <p>The compression dictionary can be decompressed with, no need to add it to the
+     * decompression dictionaries.
+     *
+     * @param compressionDictionary the dictionary to compress with, can be null to compress without
+     *     dictionary
+     * @param decompressionDictionaries the other dictionaries to decompress with
+     */
+    public ZstdJniDictionaryCompressionCodec(
+        byte[] compressionDictionary, Collection<byte[]> decompressionDictionaries) {
+      Map<Long, byte[]> dictionaries = new LinkedHashMap<>();
+      if (compressionDictionary != null) {
+        dictionaries.put(checkDictionary(compressionDictionary), compressionDictionary);
+      }
+      if (decompressionDictionaries != null) {
+        for (byte[] dictionary : decompressionDictionaries) {
+          byte[] existing = dictionaries.putIfAbsent(checkDictionary(dictionary), dictionary);
+          if (existing != null && !Arrays.equals(existing, dictionary)) {
+            throw new IllegalArgumentException(
+                "Different dictionaries have the same ID: " + zstdDictionaryId(dictionary));
+          }
+        }
+      }
+      if (dictionaries.isEmpty()) {
+        throw new IllegalArgumentException("At least one dictionary must be specified");
+      }
+      this.compressionDictionary =
+          compressionDictionary == null
+              ? null
+              : new ZstdDictCompress(compressionDictionary, Zstd.defaultCompressionLevel());
+      this.dictionaryIds = new long[dictionaries.size()];
+      this.decompressionDictionaries = new ZstdDictDecompress[dictionaries.size()];
+      int i = 0;
+      for (Map.Entry<Long, byte[]> dictionary : dictionaries.entrySet()) {
+        this.dictionaryIds[i] = dictionary.getKey();
+        this.decompressionDictionaries[i] = new ZstdDictDecompress(dictionary.getValue());
+        i++;
+      }
+      this.compressContext =
+          ThreadLocal.withInitial(
+              () -> {
+                ZstdCompressCtx context = new ZstdCompressCtx();
+                if (this.compressionDictionary != null) {
+                  context.loadDict(this.compressionDictionary);
+                }
+                return context;
+              });
+      this.decompressContexts =
+          ThreadLocal.withInitial(() -> new ZstdDecompressCtx[this.dictionaryIds.length + 1]);
+    }
+
+    private static long checkDictionary(byte[] dictionary) {
+      if (dictionary == null) {
+        throw new IllegalArgumentException("Dictionary cannot be null");
+      }
+      long id = zstdDictionaryId(dictionary);
+      if (id == 0) {
+        throw new IllegalArgumentException(
+            "Dictionary has no ID, only dictionaries in the Zstd format are supported");
+      }
+      return id;
+    }
+
+    private int dictionaryIndex(long dictionaryId) {
+      if (dictionaryId == 0) {
+        return this.dictionaryIds.length;
+      }
+      for (int i = 0; i < this.dictionaryIds.length; i++) {
+        if (this.dictionaryIds[i] == dictionaryId) {
+          return i;
+        }
+      }
+      throw new CompressionException("Unknown Zstd dictionary: " + dictionaryId, null);
+    }
+
+    private ZstdDecompressCtx decompressContext(long dictionaryId) {
+      int index = dictionaryIndex(dictionaryId);
+      ZstdDecompressCtx[] contexts = this.decompressContexts.get();
+      ZstdDecompressCtx context = contexts[index];
+      if (context == null) {
+        context = new ZstdDecompressCtx();
+        if (index < this.decompressionDictionaries.length) {
+          context.loadDict(this.decompressionDictionaries[index]);
+        }
+        contexts[index] = context;
+      }
+      return context;
+    }
+
+    @Override
+    public int maxCompressedLength(int sourceLength) {
+      return (int) Zstd.compressBound(sourceLength);
+    }
+
+    @Override
+    public OutputStream compress(OutputStream outputStream) {
+      try {
+        ZstdOutputStream zstdOutputStream = new ZstdOutputStream(outputStream);
+        if (this.compressionDictionary != null) {
+          zstdOutputStream.setDict(this.compressionDictionary);
+        }
+        return zstdOutputStream;
+      } catch (IOException e) {
+        throw new CompressionException("Error while creating Zstd compression output stream", e);
+      }
+    }
+
+    @Override
+    public InputStream decompress(InputStream inputStream) {
+      try {
+        // the frame header tells which dictionary to use
+        BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStream);
+        byte[] header = new byte[ZSTD_FRAME_HEADER_DICTIONARY_ID_END];
+        bufferedInputStream.mark(header.length);
+        int read = 0;
+        int count;
+        while (read < header.length
+            && (count = bufferedInputStream.read(header, read, header.length - read)) != -1) {
+          read += count;
+        }
+        bufferedInputStream.reset();
+        int index = dictionaryIndex(zstdFrameDictionaryId(Unpooled.wrappedBuffer(header, 0, read)));
+        ZstdInputStream zstdInputStream = new ZstdInputStream(bufferedInputStream);
+        if (index < this.decompressionDictionaries.length) {
+          zstdInputStream.setDict(this.decompressionDictionaries[index]);
+        }
+        return zstdInputStream;
+      } catch (IOException e) {
+        throw new CompressionException("Error while creating Zstd compression input stream", e);
+      }
+    }
+
+    @Override
+    public void compress(ByteBuf source, ByteBuf destination) {
+      if (!zstdCompress(this.compressContext.get(), source, destination)) {
+        CompressionCodec.super.compress(source, destination);
+      }
+    }
+
+    @Override
+    public void decompress(ByteBuf source, ByteBuf destination, int uncompressedSize) {
+      ZstdDecompressCtx context = decompressContext(zstdFrameDictionaryId(source));
+      if (!zstdDecompress(context, source, destination, uncompressedSize)) {
+        CompressionCodec.super.decompress(source, destination, uncompressedSize);
+      }
+    }
+
+    @Override
+    public byte code() {
+      return Compression.ZSTD.code;
+    }
+
+    @Override
+    public String toString() {
+      return "Zstd dictionary codec (JNI)";
+    }
+  }
+
   public static class Lz4JavaCompressionCodec implements CompressionCodec {
 
     private static final FLG.Bits[] DEFAULT_FEATURES = new FLG.Bits[] {FLG.Bits.BLOCK_INDEPENDENCE};
 
+    // frame format constants, see https://github.com/lz4/lz4/blob/dev/doc/lz4_Frame_format.md
+    private static final int FRAME_MAGIC = 0x184D2204;
+    private static final int BLOCK_SIZE = 64 * 1024;
+    private static final int UNCOMPRESSED_BLOCK = 0x80000000;
+    // magic, FLG, BD, header checksum, end mark
+    private static final int MIN_FRAME_SIZE = 4 + 1 + 1 + 1 + 4;
+    private static final int FLG_VERSION_MASK = 0xC0;
+    private static final int FLG_VERSION = 0x40;
+    private static final int FLG_BLOCK_INDEPENDENCE = 0x20;
+    private static final int FLG_BLOCK_CHECKSUM = 0x10;
+    private static final int FLG_CONTENT_SIZE = 0x08;
+    private static final int FLG_CONTENT_CHECKSUM = 0x04;
+    private static final int FLG_RESERVED = 0x02;
+    private static final int FLG_DICTIONARY_ID = 0x01;
+    // same settings as the stream API: independent blocks of 64 KB, no checksums
+    private static final int FRAME_FLG = FLG_VERSION | FLG_BLOCK_INDEPENDENCE;
+    private static final int FRAME_BD = 0x40;
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4SafeDecompressor DECOMPRESSOR =
+        LZ4Factory.fastestInstance().safeDecompressor();
+    private static final XXHash32 HASH = XXHashFactory.fastestInstance().hash32();
+    private static final int FRAME_HEADER_CHECKSUM =
+        (HASH.hash(new byte[] {(byte) FRAME_FLG, (byte) FRAME_BD}, 0, 2, 0) >> 8) & 0xFF;
+
     @Override
     public int maxCompressedLength(int sourceLength) {
-      // from LZ4Utils.maxCompressedLength(int)
-      return sourceLength + sourceLength / 255 + 16;
+      int blockCount = Math.max(1, (sourceLength + BLOCK_SIZE - 1) / BLOCK_SIZE);
+      // LZ4Utils.maxCompressedLength(int) for each block, plus block headers and frame overhead
+      return sourceLength + sourceLength / 255 + blockCount * (16 + 4) + MIN_FRAME_SIZE;
     }
 
     @Override
@@ -145,6 +473,139 @@ public final class CompressionUtils {
       }
     }
 
+    @Override
+    public void compress(ByteBuf source, ByteBuf destination) {
+      int length = source.readableBytes();
+      destination.ensureWritable(maxCompressedLength(length));
+      if (destination.nioBufferCount() != 1) {
+        CompressionCodec.super.compress(source, destination);
+        return;
+      }
+      destination
+          .writeIntLE(FRAME_MAGIC)
+          .writeByte(FRAME_FLG)
+          .writeByte(FRAME_BD)
+          .writeByte(FRAME_HEADER_CHECKSUM);
+      ByteBuffer src = source.nioBuffer(source.readerIndex(), length);
+      int written = 0;
+      try {
+        while (written < length) {
+          int blockLength = Math.min(length - written, BLOCK_SIZE);
+          int maxBlockLength = COMPRESSOR.maxCompressedLength(blockLength);
+          ByteBuffer dst = destination.nioBuffer(destination.writerIndex() + 4, maxBlockLength);
+          int compressedLength =
+              COMPRESSOR.compress(
+                  src, src.position() + written, blockLength, dst, dst.position(), maxBlockLength);
+          if (compressedLength < blockLength) {
+            destination.writeIntLE(compressedLength);
+            destination.writerIndex(destination.writerIndex() + compressedLength);
+          } else {
+            // incompressible data, the block is stored as is
+            destination.writeIntLE(blockLength | UNCOMPRESSED_BLOCK);
+            destination.writeBytes(source, source.readerIndex() + written, blockLength);
+          }
+          written += blockLength;
+        }
+      } catch (LZ4Exception e) {
+        throw new CompressionException("Error while compressing block with LZ4", e);
+      }
+      destination.writeIntLE(0);
+      source.skipBytes(length);
+    }
+
+    @Override
+    public void decompress(ByteBuf source, ByteBuf destination, int uncompressedSize) {
+      destination.ensureWritable(uncompressedSize);
+      if (destination.nioBufferCount() != 1) {
+        CompressionCodec.super.decompress(source, destination, uncompressedSize);
+        return;
+      }
+      int start = destination.writerIndex();
+      try {
+        while (source.isReadable()) {
+          if (!supportedFrame(source)) {
+            // dependent blocks, dictionary, skippable frame: let the stream API deal with it
+            CompressionCodec.super.decompress(
+                source, destination, uncompressedSize - (destination.writerIndex() - start));
+            return;
+          }
+          decompressFrame(source, destination, start + uncompressedSize);
+        }
+      } catch (LZ4Exception e) {
+        throw new CompressionException("Error while decompressing block with LZ4", e);
+      }
+      if (destination.writerIndex() - start != uncompressedSize) {
+        throw blockSizeMismatch(destination.writerIndex() - start, uncompressedSize);
+      }
+    }
+
+    private static boolean supportedFrame(ByteBuf source) {
+      if (source.readableBytes() < MIN_FRAME_SIZE
+          || source.getIntLE(source.readerIndex()) != FRAME_MAGIC) {
+        return false;
+      }
+      int flg = source.getUnsignedByte(source.readerIndex() + 4);
+      return (flg & FLG_VERSION_MASK) == FLG_VERSION
+          && (flg & FLG_BLOCK_INDEPENDENCE) != 0
+          && (flg & (FLG_RESERVED | FLG_DICTIONARY_ID)) == 0;
+    }
+
+    private static void decompressFrame(ByteBuf source, ByteBuf destination, int limit) {
+      int flg = source.getUnsignedByte(source.readerIndex() + 4);
+      int descriptorLength = (flg & FLG_CONTENT_SIZE) == 0 ? 2 : 10;
+      int expectedHeaderChecksum =
+          source.getUnsignedByte(source.readerIndex() + 4 + descriptorLength);
+      if (headerChecksum(source, source.readerIndex() + 4, descriptorLength)
+          != expectedHeaderChecksum) {
+        throw new CompressionException("LZ4 frame header checksum mismatch", null);
+      }
+      source.skipBytes(4 + descriptorLength + 1);
+      boolean blockChecksum = (flg & FLG_BLOCK_CHECKSUM) != 0;
+      int frameStart = destination.writerIndex();
+      int blockHeader;
+      while ((blockHeader = source.readIntLE()) != 0) {
+        int blockLength = blockHeader & ~UNCOMPRESSED_BLOCK;
+        if (blockChecksum
+            && hash(source, source.readerIndex(), blockLength)
+                != source.getIntLE(source.readerIndex() + blockLength)) {
+          throw new CompressionException("LZ4 block checksum mismatch", null);
+        }
+        int remaining = limit - destination.writerIndex();
+        if ((blockHeader & UNCOMPRESSED_BLOCK) != 0) {
+          if (blockLength > remaining) {
+            throw new CompressionException(
+                "LZ4 block larger than expected uncompressed size", null);
+          }
+          destination.writeBytes(source, blockLength);
+        } else {
+          ByteBuffer src = source.nioBuffer(source.readerIndex(), blockLength);
+          ByteBuffer dst = destination.nioBuffer(destination.writerIndex(), remaining);
+          int decompressedLength =
+              DECOMPRESSOR.decompress(
+                  src, src.position(), blockLength, dst, dst.position(), remaining);
+          source.skipBytes(blockLength);
+          destination.writerIndex(destination.writerIndex() + decompressedLength);
+        }
+        if (blockChecksum) {
+          source.skipBytes(4);
+        }
+      }
+      if ((flg & FLG_CONTENT_CHECKSUM) != 0
+          && hash(destination, frameStart, destination.writerIndex() - frameStart)
+              != source.readIntLE()) {
+        throw new CompressionException("LZ4 content checksum mismatch", null);
+      }
+    }
+
+    private static int headerChecksum(ByteBuf buffer, int index, int length) {
+      return (hash(buffer, index, length) >> 8) & 0xFF;
+    }
+
+    private static int hash(ByteBuf buffer, int index, int length) {
+      ByteBuffer nioBuffer = buffer.nioBuffer(index, length);
+      return HASH.hash(nioBuffer, nioBuffer.position(), length, 0);
+    }
+
     @Override
     public byte code() {
       return Compression.LZ4.code;
@@ -340,4 +801,91 @@ public final class CompressionUtils {
       return "Zstd codec (Commons Compress)";
     }
   }
+
+  /**
+   * Compresses a block with a Zstd context.
+   *
+   * @return false if the buffers cannot be accessed in one block (mix of heap and direct buffers)
+   */
+  private static boolean zstdCompress(
+      ZstdCompressCtx context, ByteBuf source, ByteBuf destination) {
+    int length = source.readableBytes();
+    destination.ensureWritable((int) Zstd.compressBound(length));
+    int compressedLength;
+    try {
+      if (source.hasArray() && destination.hasArray()) {
+        compressedLength =
+            context.compressByteArray(
+                destination.array(),
+                destination.arrayOffset() + destination.writerIndex(),
+                destination.writableBytes(),
+                source.array(),
+                source.arrayOffset() + source.readerIndex(),
+                length);
+      } else if (isDirect(source) && isDirect(destination)) {
+        ByteBuffer src = source.nioBuffer(source.readerIndex(), length);
+        ByteBuffer dst =
+            destination.nioBuffer(destination.writerIndex(), destination.writableBytes());
+        compressedLength =
+            context.compressDirectByteBuffer(
+                dst, dst.position(), dst.remaining(), src, src.position(), length);
+      } else {
+        return false;
+      }
+    } catch (ZstdException e) {
+      throw new CompressionException("Error while compressing block with Zstd", e);
+    }
+    source.skipBytes(length);
+    destination.writerIndex(destination.writerIndex() + compressedLength);
+    return true;
+  }
+
+  /**
+   * Decompresses a block with a Zstd context.
+   *
+   * @return false if the buffers cannot be accessed in one block (mix of heap and direct buffers)
+   */
+  private static boolean zstdDecompress(
+      ZstdDecompressCtx context, ByteBuf source, ByteBuf destination, int uncompressedSize) {
+    int length = source.readableBytes();
+    destination.ensureWritable(uncompressedSize);
+    int decompressedLength;
+    try {
+      if (source.hasArray() && destination.hasArray()) {
+        decompressedLength =
+            context.decompressByteArray(
+                destination.array(),
+                destination.arrayOffset() + destination.writerIndex(),
+                uncompressedSize,
+                source.array(),
+                source.arrayOffset() + source.readerIndex(),
+                length);
+      } else if (isDirect(source) && isDirect(destination)) {
+        ByteBuffer src = source.nioBuffer(source.readerIndex(), length);
+        ByteBuffer dst = destination.nioBuffer(destination.writerIndex(), uncompressedSize);
+        decompressedLength =
+            context.decompressDirectByteBuffer(
+                dst, dst.position(), uncompressedSize, src, src.position(), length);
+      } else {
+        return false;
+      }
+    } catch (ZstdException e) {
+      throw new CompressionException("Error while decompressing block with Zstd", e);
+    }
+    if (decompressedLength != uncompressedSize) {
+      throw blockSizeMismatch(decompressedLength, uncompressedSize);
+    }
+    source.skipBytes(length);
+    destination.writerIndex(destination.writerIndex() + decompressedLength);
+    return true;
+  }
+
+  private static boolean isDirect(ByteBuf buffer) {
+    return buffer.isDirect() && buffer.nioBufferCount() == 1;
+  }
+
+  private static CompressionException blockSizeMismatch(int actual, int expected) {
+    return new CompressionException(
+        "Block decompressed to " + actual + " byte(s) instead of " + expected, null);
+  }
 }
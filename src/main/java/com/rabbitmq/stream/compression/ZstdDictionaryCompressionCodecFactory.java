@@ -0,0 +1,72 @@
+// Copyright (c) 2020-2021 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.compression;
+
+import com.rabbitmq.stream.compression.CompressionUtils.ZstdJniDictionaryCompressionCodec;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * {@link CompressionCodecFactory} using pre-trained dictionaries for the ZSTD codec.
+ *
+ * <p>Dictionaries improve the compression ratio of sub-entries of small messages (a few hundred
+ * bytes), as the content the messages share does not need to be in each sub-entry. Use {@link
+ * CompressionUtils#trainZstdDictionary(Collection, int)} to create a dictionary from a sample of
+ * messages.
+ *
+ * <p>Publishing and consuming applications must use the factory with the same dictionaries.
+ * Sub-entries contain the ID of the dictionary they have been compressed with (see {@link
+ * CompressionUtils#zstdFrameDictionaryId(io.netty.buffer.ByteBuf)}), so consumers can use several
+ * dictionaries, e.g. to read sub-entries compressed with the current and the previous dictionary.
+ * Consumers can also read sub-entries compressed without dictionary.
+ *
+ * <p>The other codecs are the ones of the {@link DefaultCompressionCodecFactory}.
+ *
+ * @see ZstdJniDictionaryCompressionCodec
+ */
+public class ZstdDictionaryCompressionCodecFactory implements CompressionCodecFactory {
+
+  private final CompressionCodec[] codecs = new CompressionCodec[5];
+
+  /**
+   * Create a factory to compress and decompress with a dictionary.
+   *
+   * @param dictionary the dictionary
+   */
+  public ZstdDictionaryCompressionCodecFactory(byte[] dictionary) {
+    this(dictionary, Collections.emptyList());
+  }
+
+  /**
+   * Create a factory to compress with a dictionary and decompress with other dictionaries as well.
+   *
+   * @param compressionDictionary the dictionary to compress with, can be null to compress without
+   *     dictionary
+   * @param decompressionDictionaries other dictionaries to decompress with
+   */
+  public ZstdDictionaryCompressionCodecFactory(
+      byte[] compressionDictionary, Collection<byte[]> decompressionDictionaries) {
+    DefaultCompressionCodecFactory defaultFactory = new DefaultCompressionCodecFactory();
+    codecs[1] = defaultFactory.get(Compression.GZIP);
+    codecs[2] = defaultFactory.get(Compression.SNAPPY);
+    codecs[3] = defaultFactory.get(Compression.LZ4);
+    codecs[4] =
+        new ZstdJniDictionaryCompressionCodec(compressionDictionary, decompressionDictionaries);
+  }
+
+  @Override
+  public CompressionCodec get(Compression compression) {
+    return codecs[compression.code];
+  }
+}
@@ -52,12 +52,16 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 
 import com.rabbitmq.stream.AuthenticationFailureException;
 import com.rabbitmq.stream.ByteCapacity;
+import com.rabbitmq.stream.Chunk;
 import com.rabbitmq.stream.ChunkChecksum;
 import com.rabbitmq.stream.Codec;
 import com.rabbitmq.stream.Codec.EncodedMessage;
+import com.rabbitmq.stream.DispatchingMode;
 import com.rabbitmq.stream.Environment;
+import com.rabbitmq.stream.FlushPolicy;
 import com.rabbitmq.stream.Message;
 import com.rabbitmq.stream.MessageBuilder;
+import com.rabbitmq.stream.NettyTransport;
 import com.rabbitmq.stream.OffsetSpecification;
 import com.rabbitmq.stream.Producer;
 import com.rabbitmq.stream.StreamCreator.LeaderLocator;
@@ -66,6 +70,10 @@ import com.rabbitmq.stream.compression.Compression;
 import com.rabbitmq.stream.compression.CompressionCodec;
 import com.rabbitmq.stream.compression.CompressionCodecFactory;
 import com.rabbitmq.stream.impl.Client.ShutdownContext.ShutdownReason;
+import com.rabbitmq.stream.impl.DeliverFrameDecoder.ChunkFragment;
+import com.rabbitmq.stream.impl.DeliverFrameDecoder.ChunkHeader;
+import com.rabbitmq.stream.impl.Dispatchers.Dispatcher;
+import com.rabbitmq.stream.impl.Dispatchers.DispatcherPool;
 import com.rabbitmq.stream.impl.ServerFrameHandler.FrameHandler;
 import com.rabbitmq.stream.impl.ServerFrameHandler.FrameHandlerInfo;
 import com.rabbitmq.stream.metrics.MetricsCollector;
@@ -79,7 +87,7 @@ import com.rabbitmq.stream.sasl.UsernamePasswordCredentialsProvider;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
-import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
@@ -90,19 +98,15 @@ import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.ConnectTimeoutException;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.DecoderException;
-import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.handler.timeout.IdleStateHandler;
-import java.io.IOException;
-import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.net.ConnectException;
 import java.net.InetSocketAddress;
@@ -117,13 +121,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -131,6 +136,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.function.ToLongFunction;
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLHandshakeException;
@@ -157,19 +163,35 @@ public class Client implements AutoCloseable {
       new OutboundMessageWriteCallback();
   static final OutboundEntityWriteCallback OUTBOUND_MESSAGE_BATCH_WRITE_CALLBACK =
       new OutboundMessageBatchWriteCallback();
-  static final String NETTY_HANDLER_FRAME_DECODER =
-      LengthFieldBasedFrameDecoder.class.getSimpleName();
+  static final String NETTY_HANDLER_FRAME_DECODER = DeliverFrameDecoder.class.getSimpleName();
   static final String NETTY_HANDLER_IDLE_STATE = IdleStateHandler.class.getSimpleName();
   static final Duration DEFAULT_RPC_TIMEOUT = Duration.ofSeconds(10);
+  static final int DEFAULT_CHUNK_STREAMING_THRESHOLD = 1024 * 1024;
   private static final PublishConfirmListener NO_OP_PUBLISH_CONFIRM_LISTENER =
       (publisherId, publishingId) -> {};
   private static final PublishErrorListener NO_OP_PUBLISH_ERROR_LISTENER =
       (publisherId, publishingId, errorCode) -> {};
+  private static final RawChunkListener NO_OP_RAW_CHUNK_LISTENER =
+      new RawChunkListener() {
+        @Override
+        public boolean handle(
+            Client client, byte subscriptionId, long committedChunkId, Chunk chunk) {
+          return false;
+        }
+
+        @Override
+        public boolean consumesChunks(byte subscriptionId) {
+          return false;
+        }
+      };
   private static final Logger LOGGER = LoggerFactory.getLogger(Client.class);
   final PublishConfirmListener publishConfirmListener;
   final PublishErrorListener publishErrorListener;
   final ChunkListener chunkListener;
   final MessageListener messageListener;
+  final RawChunkListener rawChunkListener;
+  final DecompressionExecutorResolver decompressionExecutorResolver;
+  final StreamedChunkHandler streamedChunkHandler = new StreamedChunkHandler(this);
   final CreditNotification creditNotification;
   final ConsumerUpdateListener consumerUpdateListener;
   final MetadataListener metadataListener;
@@ -178,12 +200,13 @@ public class Client implements AutoCloseable {
   final ConcurrentMap<Integer, OutstandingRequest<?>> outstandingRequests =
       new ConcurrentHashMap<>();
   final List<SubscriptionOffset> subscriptionOffsets = new CopyOnWriteArrayList<>();
-  final ExecutorService executorService;
+  final Dispatcher dispatcher;
   final TuneState tuneState;
   final AtomicBoolean closing = new AtomicBoolean(false);
   final ChunkChecksum chunkChecksum;
   final MetricsCollector metricsCollector;
   final CompressionCodecFactory compressionCodecFactory;
+  private final FlushCoalescer flushCoalescer;
   private final Consumer<ShutdownContext.ShutdownReason> shutdownListenerCallback;
   private final ToLongFunction<Object> publishSequenceFunction =
       new ToLongFunction<Object>() {
@@ -195,7 +218,7 @@ public class Client implements AutoCloseable {
         }
       };
   private final AtomicInteger correlationSequence = new AtomicInteger(0);
-  private final Runnable executorServiceClosing;
+  private final Runnable dispatcherClosing;
   private final SaslConfiguration saslConfiguration;
   private final CredentialsProvider credentialsProvider;
   private final Runnable nettyClosing;
@@ -213,6 +236,17 @@ public class Client implements AutoCloseable {
   private final Duration rpcTimeout;
   private volatile ShutdownReason shutdownReason = null;
   private final Runnable exchangeCommandVersionsCheck;
+  private final InboundBudget connectionInboundBudget;
+  private final InboundBudget environmentInboundBudget;
+  private final boolean inboundBudgeted;
+  // bytes dispatched but not handled yet, accounted only with an inbound budget
+  private final AtomicLong inboundBacklog = new AtomicLong(0);
+  private final InboundBudget.Reader inboundReader = new ChannelInboundReader();
+  // senders wait for the channel to be writable only when the water marks are set
+  private final boolean writabilityBackpressure;
+  private final Object writabilityMonitor = new Object();
+  // accessed only in the event loop
+  private long unwritableSince;
 
   public Client() {
     this(new ClientParameters());
@@ -223,12 +257,15 @@ public class Client implements AutoCloseable {
     this.publishErrorListener = parameters.publishErrorListener;
     this.chunkListener = parameters.chunkListener;
     this.messageListener = parameters.messageListener;
+    this.rawChunkListener = parameters.rawChunkListener;
+    this.decompressionExecutorResolver = parameters.decompressionExecutorResolver;
     this.creditNotification = parameters.creditNotification;
     this.codec = parameters.codec == null ? Codecs.DEFAULT : parameters.codec;
     this.saslConfiguration = parameters.saslConfiguration;
     this.credentialsProvider = parameters.credentialsProvider;
     this.chunkChecksum = parameters.chunkChecksum;
     this.metricsCollector = parameters.metricsCollector;
+    this.flushCoalescer = FlushCoalescer.create(parameters.flushPolicy);
     this.metadataListener = parameters.metadataListener;
     this.consumerUpdateListener = parameters.consumerUpdateListener;
     this.compressionCodecFactory =
@@ -236,6 +273,14 @@ public class Client implements AutoCloseable {
             ? compression -> null
             : parameters.compressionCodecFactory;
     this.rpcTimeout = parameters.rpcTimeout == null ? DEFAULT_RPC_TIMEOUT : parameters.rpcTimeout;
+    this.connectionInboundBudget =
+        parameters.inboundBudget == null
+            ? null
+            : new InboundBudget(parameters.inboundBudget.toBytes());
+    this.environmentInboundBudget = parameters.environmentInboundBudget;
+    this.inboundBudgeted =
+        this.connectionInboundBudget != null || this.environmentInboundBudget != null;
+    this.writabilityBackpressure = parameters.writeBufferHighWaterMark != null;
     final ShutdownListener shutdownListener = parameters.shutdownListener;
     final AtomicBoolean started = new AtomicBoolean(false);
     this.shutdownListenerCallback =
@@ -259,7 +304,7 @@ public class Client implements AutoCloseable {
     if (b.config().group() == null) {
       EventLoopGroup eventLoopGroup;
       if (parameters.eventLoopGroup == null) {
-        this.eventLoopGroup = new NioEventLoopGroup();
+        this.eventLoopGroup = NettyTransports.eventLoopGroup(parameters.transport);
         eventLoopGroup = this.eventLoopGroup;
       } else {
         this.eventLoopGroup = null;
@@ -270,11 +315,24 @@ public class Client implements AutoCloseable {
       this.eventLoopGroup = null;
     }
     if (b.config().channelFactory() == null) {
-      b.channel(NioSocketChannel.class);
+      Class<? extends Channel> channelClass = NettyTransports.channelClass(b.config().group());
+      b.channel(channelClass);
+      NettyTransports.configureNativeOptions(b, channelClass, parameters.busyPoll);
     }
     if (!b.config().options().containsKey(ChannelOption.SO_KEEPALIVE)) {
       b.option(ChannelOption.SO_KEEPALIVE, true);
     }
+    if (!b.config().options().containsKey(ChannelOption.TCP_NODELAY)) {
+      b.option(ChannelOption.TCP_NODELAY, true);
+    }
+    if (this.writabilityBackpressure
+        && !b.config().options().containsKey(ChannelOption.WRITE_BUFFER_WATER_MARK)) {
+      b.option(
+          ChannelOption.WRITE_BUFFER_WATER_MARK,
+          new WriteBufferWaterMark(
+              (int) parameters.writeBufferLowWaterMark.toBytes(),
+              (int) parameters.writeBufferHighWaterMark.toBytes()));
+    }
     if (!b.config().options().containsKey(ChannelOption.ALLOCATOR)) {
       b.option(
           ChannelOption.ALLOCATOR,
@@ -289,15 +347,23 @@ public class Client implements AutoCloseable {
         new ChannelInitializer<SocketChannel>() {
           @Override
           public void initChannel(SocketChannel ch) {
-            ch.pipeline()
-                .addFirst(
-                    NETTY_HANDLER_FLUSH_CONSOLIDATION,
-                    new FlushConsolidationHandler(
-                        FlushConsolidationHandler.DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES, true));
+            if (parameters.flushPolicy.isEveryFrame()) {
+              ch.pipeline()
+                  .addFirst(
+                      NETTY_HANDLER_FLUSH_CONSOLIDATION,
+                      new FlushConsolidationHandler(
+                          FlushConsolidationHandler.DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES, true));
+            }
+            // closer to the socket than the flush consolidation, to see the actual flushes
+            // only worth the extra handler when flushing is tuned or its metrics are collected
+            if (!parameters.flushPolicy.isEveryFrame()
+                || !(metricsCollector instanceof NoOpMetricsCollector)) {
+              ch.pipeline().addFirst(new FlushMetricsHandler(metricsCollector));
+            }
             ch.pipeline()
                 .addLast(
                     NETTY_HANDLER_FRAME_DECODER,
-                    new LengthFieldBasedFrameDecoder(Integer.MAX_VALUE, 0, 4, 0, 4));
+                    new DeliverFrameDecoder(parameters.chunkStreamingThreshold));
             ch.pipeline().addLast(NETTY_HANDLER_STREAM, new StreamHandler());
             ch.pipeline().addLast(new MetricsHandler(metricsCollector));
             if (parameters.sslContext != null) {
@@ -348,8 +414,8 @@ public class Client implements AutoCloseable {
 
     this.channel = f.channel();
     this.nettyClosing = Utils.makeIdempotent(this::closeNetty);
-    this.executorService = Executors.newSingleThreadExecutor();
-    this.executorServiceClosing = Utils.makeIdempotent(this.executorService::shutdownNow);
+    this.dispatcher = Dispatchers.dispatcher(parameters.dispatchingMode, parameters.dispatcherPool);
+    this.dispatcherClosing = Utils.makeIdempotent(this.dispatcher::close);
     try {
       this.tuneState =
           new TuneState(
@@ -402,6 +468,32 @@ public class Client implements AutoCloseable {
     }
   }
 
+  private static class FlushMetricsHandler extends ChannelOutboundHandlerAdapter {
+
+    private final MetricsCollector metricsCollector;
+    private int writesSinceFlush = 0;
+
+    private FlushMetricsHandler(MetricsCollector metricsCollector) {
+      this.metricsCollector = metricsCollector;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+        throws Exception {
+      this.writesSinceFlush++;
+      super.write(ctx, msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+      if (this.writesSinceFlush > 0) {
+        this.metricsCollector.flush(this.writesSinceFlush);
+        this.writesSinceFlush = 0;
+      }
+      super.flush(ctx);
+    }
+  }
+
   private static Map<String, String> clientProperties(Map<String, String> fromParameters) {
     fromParameters = fromParameters == null ? Collections.emptyMap() : fromParameters;
     Map<String, String> clientProperties = new HashMap<>(fromParameters);
@@ -425,6 +517,52 @@ public class Client implements AutoCloseable {
     return this.maxFrameSize;
   }
 
+  Channel channel() {
+    return this.channel;
+  }
+
+  /**
+   * Wait for the channel to be writable, if the write buffer water marks are set.
+   *
+   * <p>Returns immediately if the channel is writable or no longer active. Returns immediately as
+   * well on the event loop of the channel: its writability cannot change while the event loop
+   * waits.
+   *
+   * @param timeoutMs the maximum time to wait, 0 to wait until the channel is writable
+   * @return true if the channel is writable, false if the timeout occurred
+   * @throws InterruptedException if interrupted while waiting
+   */
+  boolean awaitWritable(long timeoutMs) throws InterruptedException {
+    if (!this.writabilityBackpressure
+        || this.channel.isWritable()
+        || this.channel.eventLoop().inEventLoop()) {
+      return true;
+    }
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    synchronized (this.writabilityMonitor) {
+      while (!this.channel.isWritable() && this.channel.isActive()) {
+        if (timeoutMs == 0) {
+          this.writabilityMonitor.wait();
+        } else {
+          long remaining = deadline - System.nanoTime();
+          if (remaining <= 0) {
+            return false;
+          }
+          TimeUnit.NANOSECONDS.timedWait(this.writabilityMonitor, remaining);
+        }
+      }
+    }
+    return true;
+  }
+
+  private void writabilityChanged() {
+    if (this.writabilityBackpressure) {
+      synchronized (this.writabilityMonitor) {
+        this.writabilityMonitor.notifyAll();
+      }
+    }
+  }
+
   private Map<String, String> peerProperties() {
     int clientPropertiesSize = 4; // size of the map, always there
     if (!clientProperties.isEmpty()) {
@@ -715,26 +853,10 @@ public class Client implements AutoCloseable {
   }
 
   public Map<String, StreamMetadata> metadata(String... streams) {
-    if (streams == null || streams.length == 0) {
-      throw new IllegalArgumentException("At least one stream must be specified");
-    }
-    int length = 2 + 2 + 4 + 4; // API code, version, correlation ID, size of array
-    for (String stream : streams) {
-      length += 2;
-      length += stream.length();
-    }
+    checkMetadataArguments(streams);
     int correlationId = correlationSequence.incrementAndGet();
     try {
-      ByteBuf bb = allocate(length + 4);
-      bb.writeInt(length);
-      bb.writeShort(encodeRequestCode(COMMAND_METADATA));
-      bb.writeShort(VERSION_1);
-      bb.writeInt(correlationId);
-      bb.writeInt(streams.length);
-      for (String stream : streams) {
-        bb.writeShort(stream.length());
-        bb.writeBytes(stream.getBytes(StandardCharsets.UTF_8));
-      }
+      ByteBuf bb = metadataFrame(correlationId, streams);
       OutstandingRequest<Map<String, StreamMetadata>> request = outstandingRequest();
       outstandingRequests.put(correlationId, request);
       channel.writeAndFlush(bb);
@@ -750,30 +872,53 @@ public class Client implements AutoCloseable {
     }
   }
 
-  public Response declarePublisher(byte publisherId, String publisherReference, String stream) {
-    int publisherReferenceSize =
-        (publisherReference == null || publisherReference.isEmpty()
-            ? 0
-            : publisherReference.length());
-    if (publisherReferenceSize > 256) {
-      throw new IllegalArgumentException(
-          "If specified, publisher reference must less than 256 characters");
+  /**
+   * Asynchronous version of {@link #metadata(String...)}.
+   *
+   * @param streams the streams to get metadata for
+   * @return a future of the metadata
+   */
+  public CompletableFuture<Map<String, StreamMetadata>> metadataAsync(String... streams) {
+    checkMetadataArguments(streams);
+    int correlationId = correlationSequence.incrementAndGet();
+    return requestAsync(
+        correlationId,
+        () -> metadataFrame(correlationId, streams),
+        () -> format("Error while getting metadata for stream(s) '%s'", join(",", streams)));
+  }
+
+  private static void checkMetadataArguments(String... streams) {
+    if (streams == null || streams.length == 0) {
+      throw new IllegalArgumentException("At least one stream must be specified");
     }
-    int length = 2 + 2 + 4 + 1 + 2 + publisherReferenceSize + 2 + stream.length();
-    int correlationId = correlationSequence.getAndIncrement();
-    try {
-      ByteBuf bb = allocate(length + 4);
-      bb.writeInt(length);
-      bb.writeShort(encodeRequestCode(COMMAND_DECLARE_PUBLISHER));
-      bb.writeShort(VERSION_1);
-      bb.writeInt(correlationId);
-      bb.writeByte(publisherId);
-      bb.writeShort(publisherReferenceSize);
-      if (publisherReferenceSize > 0) {
-        bb.writeBytes(publisherReference.getBytes(StandardCharsets.UTF_8));
-      }
+  }
+
+  private ByteBuf metadataFrame(int correlationId, String... streams) {
+    int length = 2 + 2 + 4 + 4; // API code, version, correlation ID, size of array
+    for (String stream : streams) {
+      length += 2;
+      length += stream.length();
+    }
+    ByteBuf bb = allocate(length + 4);
+    bb.writeInt(length);
+    bb.writeShort(encodeRequestCode(COMMAND_METADATA));
+    bb.writeShort(VERSION_1);
+    bb.writeInt(correlationId);
+    bb.writeInt(streams.length);
+    for (String stream : streams) {
       bb.writeShort(stream.length());
       bb.writeBytes(stream.getBytes(StandardCharsets.UTF_8));
+    }
+    return bb;
+  }
+
+  public Response declarePublisher(byte publisherId, String publisherReference, String stream) {
+    int publisherReferenceSize = publisherReferenceSize(publisherReference);
+    int correlationId = correlationSequence.getAndIncrement();
+    try {
+      ByteBuf bb =
+          declarePublisherFrame(
+              correlationId, publisherId, publisherReference, publisherReferenceSize, stream);
       OutstandingRequest<Response> request = outstandingRequest();
       outstandingRequests.put(correlationId, request);
       channel.writeAndFlush(bb);
@@ -789,6 +934,60 @@ public class Client implements AutoCloseable {
     }
   }
 
+  /**
+   * Asynchronous version of {@link #declarePublisher(byte, String, String)}.
+   *
+   * @param publisherId the publisher ID
+   * @param publisherReference the optional publisher reference
+   * @param stream the stream to publish to
+   * @return a future of the response
+   */
+  public CompletableFuture<Response> declarePublisherAsync(
+      byte publisherId, String publisherReference, String stream) {
+    int publisherReferenceSize = publisherReferenceSize(publisherReference);
+    int correlationId = correlationSequence.getAndIncrement();
+    return requestAsync(
+        correlationId,
+        () ->
+            declarePublisherFrame(
+                correlationId, publisherId, publisherReference, publisherReferenceSize, stream),
+        () -> format("Error while declaring publisher for stream '%s'", stream));
+  }
+
+  private static int publisherReferenceSize(String publisherReference) {
+    int publisherReferenceSize =
+        (publisherReference == null || publisherReference.isEmpty()
+            ? 0
+            : publisherReference.length());
+    if (publisherReferenceSize > 256) {
+      throw new IllegalArgumentException(
+          "If specified, publisher reference must less than 256 characters");
+    }
+    return publisherReferenceSize;
+  }
+
+  private ByteBuf declarePublisherFrame(
+      int correlationId,
+      byte publisherId,
+      String publisherReference,
+      int publisherReferenceSize,
+      String stream) {
+    int length = 2 + 2 + 4 + 1 + 2 + publisherReferenceSize + 2 + stream.length();
+    ByteBuf bb = allocate(length + 4);
+    bb.writeInt(length);
+    bb.writeShort(encodeRequestCode(COMMAND_DECLARE_PUBLISHER));
+    bb.writeShort(VERSION_1);
+    bb.writeInt(correlationId);
+    bb.writeByte(publisherId);
+    bb.writeShort(publisherReferenceSize);
+    if (publisherReferenceSize > 0) {
+      bb.writeBytes(publisherReference.getBytes(StandardCharsets.UTF_8));
+    }
+    bb.writeShort(stream.length());
+    bb.writeBytes(stream.getBytes(StandardCharsets.UTF_8));
+    return bb;
+  }
+
   public Response deletePublisher(byte publisherId) {
     int length = 2 + 2 + 4 + 1;
     int correlationId = correlationSequence.getAndIncrement();
@@ -962,8 +1161,41 @@ public class Client implements AutoCloseable {
       List<Object> encodedEntities,
       OutboundEntityWriteCallback callback,
       ToLongFunction<Object> publishSequenceFunction) {
-    int frameHeaderLength = 2 + 2 + 1 + 4;
     List<Long> sequences = new ArrayList<>(encodedEntities.size());
+    publishInternal(ch, publisherId, encodedEntities, callback, publishSequenceFunction, sequences);
+    return sequences;
+  }
+
+  /**
+   * Same as {@link #publishInternal(byte, List, OutboundEntityWriteCallback, ToLongFunction)}, but
+   * does not collect the publishing sequences.
+   */
+  void publishEntities(
+      byte publisherId,
+      List<Object> encodedEntities,
+      OutboundEntityWriteCallback callback,
+      ToLongFunction<Object> publishSequenceFunction) {
+    this.publishEntities(
+        this.channel, publisherId, encodedEntities, callback, publishSequenceFunction);
+  }
+
+  void publishEntities(
+      Channel ch,
+      byte publisherId,
+      List<Object> encodedEntities,
+      OutboundEntityWriteCallback callback,
+      ToLongFunction<Object> publishSequenceFunction) {
+    publishInternal(ch, publisherId, encodedEntities, callback, publishSequenceFunction, null);
+  }
+
+  private void publishInternal(
+      Channel ch,
+      byte publisherId,
+      List<Object> encodedEntities,
+      OutboundEntityWriteCallback callback,
+      ToLongFunction<Object> publishSequenceFunction,
+      List<Long> sequences) {
+    int frameHeaderLength = 2 + 2 + 1 + 4;
     int length = frameHeaderLength;
     int currentIndex = 0;
     int startIndex = 0;
@@ -997,8 +1229,6 @@ public class Client implements AutoCloseable {
         callback,
         sequences,
         publishSequenceFunction);
-
-    return sequences;
   }
 
   private void sendEntityBatch(
@@ -1009,25 +1239,60 @@ public class Client implements AutoCloseable {
       int toExcluded,
       List<Object> messages,
       OutboundEntityWriteCallback callback,
-      List<Long> sequences,
+      List<Long> sequences, // can be null
       ToLongFunction<Object> publishSequenceFunction) {
+    // the tails of the messages are added to the frame as they are, they are not copied
+    int tailsLength = 0;
+    for (int i = fromIncluded; i < toExcluded; i++) {
+      ByteBuf tail = callback.tail(messages.get(i));
+      if (tail != null) {
+        tailsLength += tail.readableBytes();
+      }
+    }
     // no check because it's been done already
-    ByteBuf out = allocateNoCheck(ch.alloc(), frameLength + 4);
+    ByteBuf out = allocateNoCheck(ch.alloc(), frameLength + 4 - tailsLength);
     out.writeInt(frameLength);
     out.writeShort(encodeRequestCode(COMMAND_PUBLISH));
     out.writeShort(VERSION_1);
     out.writeByte(publisherId);
     int messageCount = 0;
     out.writeInt(toExcluded - fromIncluded);
+    CompositeByteBuf frame = null;
+    int segmentStart = 0;
     for (int i = fromIncluded; i < toExcluded; i++) {
       Object message = messages.get(i);
       long sequence = publishSequenceFunction.applyAsLong(message);
       out.writeLong(sequence);
       messageCount += callback.write(out, message, sequence);
-      sequences.add(sequence);
+      if (sequences != null) {
+        sequences.add(sequence);
+      }
+      if (tailsLength > 0) {
+        ByteBuf tail = callback.tail(message);
+        if (tail != null) {
+          if (frame == null) {
+            frame = ch.alloc().compositeBuffer(Integer.MAX_VALUE);
+          }
+          frame.addComponent(
+              true, out.retainedSlice(segmentStart, out.writerIndex() - segmentStart));
+          frame.addComponent(true, tail.retainedSlice());
+          segmentStart = out.writerIndex();
+        }
+      }
+    }
+    ByteBuf toWrite;
+    if (frame == null) {
+      toWrite = out;
+    } else {
+      if (out.writerIndex() > segmentStart) {
+        frame.addComponent(true, out.retainedSlice(segmentStart, out.writerIndex() - segmentStart));
+      }
+      out.release();
+      toWrite = frame;
     }
     int msgCount = messageCount;
-    ch.writeAndFlush(out)
+    this.flushCoalescer
+        .write(ch, toWrite)
         .addListener(
             future -> {
               if (future.isSuccess()) {
@@ -1094,45 +1359,12 @@ public class Client implements AutoCloseable {
       OffsetSpecification offsetSpecification,
       int credit,
       Map<String, String> properties) {
-    if (credit < 0 || credit > Short.MAX_VALUE) {
-      throw new IllegalArgumentException("Credit value must be between 0 and " + Short.MAX_VALUE);
-    }
-    int length = 2 + 2 + 4 + 1 + 2 + stream.length() + 2 + 2; // misses the offset
-    if (offsetSpecification.isOffset() || offsetSpecification.isTimestamp()) {
-      length += 8;
-    }
-    int propertiesSize = 0;
-    if (properties != null && !properties.isEmpty()) {
-      propertiesSize = 4; // size of the map
-      for (Map.Entry<String, String> entry : properties.entrySet()) {
-        propertiesSize += 2 + entry.getKey().length() + 2 + entry.getValue().length();
-      }
-    }
-    length += propertiesSize;
+    checkCredit(credit);
     int correlationId = correlationSequence.getAndIncrement();
     try {
-      ByteBuf bb = allocate(length + 4);
-      bb.writeInt(length);
-      bb.writeShort(encodeRequestCode(COMMAND_SUBSCRIBE));
-      bb.writeShort(VERSION_1);
-      bb.writeInt(correlationId);
-      bb.writeByte(subscriptionId);
-      bb.writeShort(stream.length());
-      bb.writeBytes(stream.getBytes(StandardCharsets.UTF_8));
-      bb.writeShort(offsetSpecification.getType());
-      if (offsetSpecification.isOffset() || offsetSpecification.isTimestamp()) {
-        bb.writeLong(offsetSpecification.getOffset());
-      }
-      bb.writeShort(credit);
-      if (properties != null && !properties.isEmpty()) {
-        bb.writeInt(properties.size());
-        for (Map.Entry<String, String> entry : properties.entrySet()) {
-          bb.writeShort(entry.getKey().length())
-              .writeBytes(entry.getKey().getBytes(StandardCharsets.UTF_8))
-              .writeShort(entry.getValue().length())
-              .writeBytes(entry.getValue().getBytes(StandardCharsets.UTF_8));
-        }
-      }
+      ByteBuf bb =
+          subscribeFrame(
+              correlationId, subscriptionId, stream, offsetSpecification, credit, properties);
       OutstandingRequest<Response> request = outstandingRequest();
       outstandingRequests.put(correlationId, request);
       if (offsetSpecification.isOffset()) {
@@ -1152,6 +1384,97 @@ public class Client implements AutoCloseable {
     }
   }
 
+  /**
+   * Asynchronous version of {@link #subscribe(byte, String, OffsetSpecification, int, Map)}.
+   *
+   * @param subscriptionId identifier to correlate inbound messages to this subscription
+   * @param stream the stream to consume from
+   * @param offsetSpecification the specification of the offset to consume from
+   * @param credit the initial number of credits
+   * @param properties some optional properties to describe the subscription
+   * @return a future of the subscription confirmation
+   */
+  public CompletableFuture<Response> subscribeAsync(
+      byte subscriptionId,
+      String stream,
+      OffsetSpecification offsetSpecification,
+      int credit,
+      Map<String, String> properties) {
+    checkCredit(credit);
+    int correlationId = correlationSequence.getAndIncrement();
+    SubscriptionOffset subscriptionOffset =
+        offsetSpecification.isOffset()
+            ? new SubscriptionOffset(subscriptionId, offsetSpecification.getOffset())
+            : null;
+    return requestAsync(
+        correlationId,
+        () -> {
+          ByteBuf bb =
+              subscribeFrame(
+                  correlationId, subscriptionId, stream, offsetSpecification, credit, properties);
+          if (subscriptionOffset != null) {
+            subscriptionOffsets.add(subscriptionOffset);
+          }
+          return bb;
+        },
+        () -> format("Error while trying to subscribe to stream '%s'", stream),
+        () -> {
+          if (subscriptionOffset != null) {
+            subscriptionOffsets.remove(subscriptionOffset);
+          }
+        });
+  }
+
+  private static void checkCredit(int credit) {
+    if (credit < 0 || credit > Short.MAX_VALUE) {
+      throw new IllegalArgumentException("Credit value must be between 0 and " + Short.MAX_VALUE);
+    }
+  }
+
+  private ByteBuf subscribeFrame(
+      int correlationId,
+      byte subscriptionId,
+      String stream,
+      OffsetSpecification offsetSpecification,
+      int credit,
+      Map<String, String> properties) {
+    int length = 2 + 2 + 4 + 1 + 2 + stream.length() + 2 + 2; // misses the offset
+    if (offsetSpecification.isOffset() || offsetSpecification.isTimestamp()) {
+      length += 8;
+    }
+    int propertiesSize = 0;
+    if (properties != null && !properties.isEmpty()) {
+      propertiesSize = 4; // size of the map
+      for (Map.Entry<String, String> entry : properties.entrySet()) {
+        propertiesSize += 2 + entry.getKey().length() + 2 + entry.getValue().length();
+      }
+    }
+    length += propertiesSize;
+    ByteBuf bb = allocate(length + 4);
+    bb.writeInt(length);
+    bb.writeShort(encodeRequestCode(COMMAND_SUBSCRIBE));
+    bb.writeShort(VERSION_1);
+    bb.writeInt(correlationId);
+    bb.writeByte(subscriptionId);
+    bb.writeShort(stream.length());
+    bb.writeBytes(stream.getBytes(StandardCharsets.UTF_8));
+    bb.writeShort(offsetSpecification.getType());
+    if (offsetSpecification.isOffset() || offsetSpecification.isTimestamp()) {
+      bb.writeLong(offsetSpecification.getOffset());
+    }
+    bb.writeShort(credit);
+    if (properties != null && !properties.isEmpty()) {
+      bb.writeInt(properties.size());
+      for (Map.Entry<String, String> entry : properties.entrySet()) {
+        bb.writeShort(entry.getKey().length())
+            .writeBytes(entry.getKey().getBytes(StandardCharsets.UTF_8))
+            .writeShort(entry.getValue().length())
+            .writeBytes(entry.getValue().getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    return bb;
+  }
+
   public void storeOffset(String reference, String stream, long offset) {
     if (reference == null || reference.isEmpty() || reference.length() > 256) {
       throw new IllegalArgumentException(
@@ -1174,26 +1497,10 @@ public class Client implements AutoCloseable {
   }
 
   public QueryOffsetResponse queryOffset(String reference, String stream) {
-    if (reference == null || reference.isEmpty() || reference.length() > 256) {
-      throw new IllegalArgumentException(
-          "Reference must a non-empty string of less than 256 characters");
-    }
-    if (stream == null || stream.isEmpty()) {
-      throw new IllegalArgumentException("Stream cannot be null or empty");
-    }
-
-    int length = 2 + 2 + 4 + 2 + reference.length() + 2 + stream.length();
+    checkReferenceAndStream(reference, stream, "Reference");
     int correlationId = correlationSequence.getAndIncrement();
     try {
-      ByteBuf bb = allocate(length + 4);
-      bb.writeInt(length);
-      bb.writeShort(encodeRequestCode(COMMAND_QUERY_OFFSET));
-      bb.writeShort(VERSION_1);
-      bb.writeInt(correlationId);
-      bb.writeShort(reference.length());
-      bb.writeBytes(reference.getBytes(StandardCharsets.UTF_8));
-      bb.writeShort(stream.length());
-      bb.writeBytes(stream.getBytes(StandardCharsets.UTF_8));
+      ByteBuf bb = referenceAndStreamFrame(COMMAND_QUERY_OFFSET, correlationId, reference, stream);
       OutstandingRequest<QueryOffsetResponse> request = outstandingRequest();
       outstandingRequests.put(correlationId, request);
       channel.writeAndFlush(bb);
@@ -1212,40 +1519,37 @@ public class Client implements AutoCloseable {
     }
   }
 
-  public long queryPublisherSequence(String publisherReference, String stream) {
-    if (publisherReference == null
-        || publisherReference.isEmpty()
-        || publisherReference.length() > 256) {
-      throw new IllegalArgumentException(
-          "Publisher reference must a non-empty string of less than 256 characters");
-    }
-    if (stream == null || stream.isEmpty()) {
-      throw new IllegalArgumentException("Stream cannot be null or empty");
-    }
+  /**
+   * Asynchronous version of {@link #queryOffset(String, String)}.
+   *
+   * @param reference the consumer reference
+   * @param stream the stream
+   * @return a future of the response
+   */
+  public CompletableFuture<QueryOffsetResponse> queryOffsetAsync(String reference, String stream) {
+    checkReferenceAndStream(reference, stream, "Reference");
+    int correlationId = correlationSequence.getAndIncrement();
+    return requestAsync(
+        correlationId,
+        () -> referenceAndStreamFrame(COMMAND_QUERY_OFFSET, correlationId, reference, stream),
+        () ->
+            format(
+                "Error while querying offset for reference '%s' on stream '%s'",
+                reference, stream));
+  }
 
-    int length = 2 + 2 + 4 + 2 + publisherReference.length() + 2 + stream.length();
+  public long queryPublisherSequence(String publisherReference, String stream) {
+    checkReferenceAndStream(publisherReference, stream, "Publisher reference");
     int correlationId = correlationSequence.getAndIncrement();
     try {
-      ByteBuf bb = allocate(length + 4);
-      bb.writeInt(length);
-      bb.writeShort(encodeRequestCode(COMMAND_QUERY_PUBLISHER_SEQUENCE));
-      bb.writeShort(VERSION_1);
-      bb.writeInt(correlationId);
-      bb.writeShort(publisherReference.length());
-      bb.writeBytes(publisherReference.getBytes(StandardCharsets.UTF_8));
-      bb.writeShort(stream.length());
-      bb.writeBytes(stream.getBytes(StandardCharsets.UTF_8));
+      ByteBuf bb =
+          referenceAndStreamFrame(
+              COMMAND_QUERY_PUBLISHER_SEQUENCE, correlationId, publisherReference, stream);
       OutstandingRequest<QueryPublisherSequenceResponse> request = outstandingRequest();
       outstandingRequests.put(correlationId, request);
       channel.writeAndFlush(bb);
       request.block();
-      QueryPublisherSequenceResponse response = request.response.get();
-      if (!response.isOk()) {
-        LOGGER.info(
-            "Query publisher sequence failed with code {}",
-            formatConstant(response.getResponseCode()));
-      }
-      return response.getSequence();
+      return publisherSequence(request.response.get());
     } catch (StreamException e) {
       outstandingRequests.remove(correlationId);
       throw e;
@@ -1259,6 +1563,64 @@ public class Client implements AutoCloseable {
     }
   }
 
+  /**
+   * Asynchronous version of {@link #queryPublisherSequence(String, String)}.
+   *
+   * @param publisherReference the publisher reference
+   * @param stream the stream
+   * @return a future of the publisher sequence
+   */
+  public CompletableFuture<Long> queryPublisherSequenceAsync(
+      String publisherReference, String stream) {
+    checkReferenceAndStream(publisherReference, stream, "Publisher reference");
+    int correlationId = correlationSequence.getAndIncrement();
+    CompletableFuture<QueryPublisherSequenceResponse> response =
+        requestAsync(
+            correlationId,
+            () ->
+                referenceAndStreamFrame(
+                    COMMAND_QUERY_PUBLISHER_SEQUENCE, correlationId, publisherReference, stream),
+            () ->
+                format(
+                    "Error while querying publisher sequence for '%s' on stream '%s'",
+                    publisherReference, stream));
+    return response.thenApply(Client::publisherSequence);
+  }
+
+  private static long publisherSequence(QueryPublisherSequenceResponse response) {
+    if (!response.isOk()) {
+      LOGGER.info(
+          "Query publisher sequence failed with code {}",
+          formatConstant(response.getResponseCode()));
+    }
+    return response.getSequence();
+  }
+
+  private static void checkReferenceAndStream(String reference, String stream, String label) {
+    if (reference == null || reference.isEmpty() || reference.length() > 256) {
+      throw new IllegalArgumentException(
+          label + " must a non-empty string of less than 256 characters");
+    }
+    if (stream == null || stream.isEmpty()) {
+      throw new IllegalArgumentException("Stream cannot be null or empty");
+    }
+  }
+
+  private ByteBuf referenceAndStreamFrame(
+      short command, int correlationId, String reference, String stream) {
+    int length = 2 + 2 + 4 + 2 + reference.length() + 2 + stream.length();
+    ByteBuf bb = allocate(length + 4);
+    bb.writeInt(length);
+    bb.writeShort(encodeRequestCode(command));
+    bb.writeShort(VERSION_1);
+    bb.writeInt(correlationId);
+    bb.writeShort(reference.length());
+    bb.writeBytes(reference.getBytes(StandardCharsets.UTF_8));
+    bb.writeShort(stream.length());
+    bb.writeBytes(stream.getBytes(StandardCharsets.UTF_8));
+    return bb;
+  }
+
   public Response unsubscribe(byte subscriptionId) {
     int length = 2 + 2 + 4 + 1;
     int correlationId = correlationSequence.getAndIncrement();
@@ -1299,8 +1661,10 @@ public class Client implements AutoCloseable {
     if (reason != null) {
       this.shutdownListenerCallback.accept(reason);
     }
+    this.failOutstandingAsyncRequests();
+    this.releaseInboundBacklog();
     this.nettyClosing.run();
-    this.executorServiceClosing.run();
+    this.dispatcherClosing.run();
   }
 
   private void closeNetty() {
@@ -1374,28 +1738,10 @@ public class Client implements AutoCloseable {
   }
 
   public List<String> route(String routingKey, String superStream) {
-    if (routingKey == null || superStream == null) {
-      throw new IllegalArgumentException("routing key and stream must not be null");
-    }
-    int length =
-        2
-            + 2
-            + 4
-            + 2
-            + routingKey.length()
-            + 2
-            + superStream.length(); // API code, version, correlation ID, 2 strings
+    checkRouteArguments(routingKey, superStream);
     int correlationId = correlationSequence.incrementAndGet();
     try {
-      ByteBuf bb = allocate(length + 4);
-      bb.writeInt(length);
-      bb.writeShort(encodeRequestCode(COMMAND_ROUTE));
-      bb.writeShort(VERSION_1);
-      bb.writeInt(correlationId);
-      bb.writeShort(routingKey.length());
-      bb.writeBytes(routingKey.getBytes(StandardCharsets.UTF_8));
-      bb.writeShort(superStream.length());
-      bb.writeBytes(superStream.getBytes(StandardCharsets.UTF_8));
+      ByteBuf bb = routeFrame(correlationId, routingKey, superStream);
       OutstandingRequest<List<String>> request = outstandingRequest();
       outstandingRequests.put(correlationId, request);
       channel.writeAndFlush(bb);
@@ -1414,21 +1760,57 @@ public class Client implements AutoCloseable {
     }
   }
 
-  public List<String> partitions(String superStream) {
-    if (superStream == null) {
-      throw new IllegalArgumentException("stream must not be null");
+  /**
+   * Asynchronous version of {@link #route(String, String)}.
+   *
+   * @param routingKey the routing key
+   * @param superStream the super stream
+   * @return a future of the streams the routing key routes to
+   */
+  public CompletableFuture<List<String>> routeAsync(String routingKey, String superStream) {
+    checkRouteArguments(routingKey, superStream);
+    int correlationId = correlationSequence.incrementAndGet();
+    return requestAsync(
+        correlationId,
+        () -> routeFrame(correlationId, routingKey, superStream),
+        () ->
+            format(
+                "Error while querying route for routing key '%s' on super stream '%s'",
+                routingKey, superStream));
+  }
+
+  private static void checkRouteArguments(String routingKey, String superStream) {
+    if (routingKey == null || superStream == null) {
+      throw new IllegalArgumentException("routing key and stream must not be null");
     }
+  }
+
+  private ByteBuf routeFrame(int correlationId, String routingKey, String superStream) {
     int length =
-        2 + 2 + 4 + 2 + superStream.length(); // API code, version, correlation ID, 1 string
+        2
+            + 2
+            + 4
+            + 2
+            + routingKey.length()
+            + 2
+            + superStream.length(); // API code, version, correlation ID, 2 strings
+    ByteBuf bb = allocate(length + 4);
+    bb.writeInt(length);
+    bb.writeShort(encodeRequestCode(COMMAND_ROUTE));
+    bb.writeShort(VERSION_1);
+    bb.writeInt(correlationId);
+    bb.writeShort(routingKey.length());
+    bb.writeBytes(routingKey.getBytes(StandardCharsets.UTF_8));
+    bb.writeShort(superStream.length());
+    bb.writeBytes(superStream.getBytes(StandardCharsets.UTF_8));
+    return bb;
+  }
+
+  public List<String> partitions(String superStream) {
+    checkStreamNotNull(superStream);
     int correlationId = correlationSequence.incrementAndGet();
     try {
-      ByteBuf bb = allocate(length + 4);
-      bb.writeInt(length);
-      bb.writeShort(encodeRequestCode(COMMAND_PARTITIONS));
-      bb.writeShort(VERSION_1);
-      bb.writeInt(correlationId);
-      bb.writeShort(superStream.length());
-      bb.writeBytes(superStream.getBytes(StandardCharsets.UTF_8));
+      ByteBuf bb = streamFrame(COMMAND_PARTITIONS, correlationId, superStream);
       OutstandingRequest<List<String>> request = outstandingRequest();
       outstandingRequests.put(correlationId, request);
       channel.writeAndFlush(bb);
@@ -1444,6 +1826,21 @@ public class Client implements AutoCloseable {
     }
   }
 
+  /**
+   * Asynchronous version of {@link #partitions(String)}.
+   *
+   * @param superStream the super stream
+   * @return a future of the partitions of the super stream
+   */
+  public CompletableFuture<List<String>> partitionsAsync(String superStream) {
+    checkStreamNotNull(superStream);
+    int correlationId = correlationSequence.incrementAndGet();
+    return requestAsync(
+        correlationId,
+        () -> streamFrame(COMMAND_PARTITIONS, correlationId, superStream),
+        () -> format("Error while querying partitions for super stream '%s'", superStream));
+  }
+
   List<FrameHandlerInfo> exchangeCommandVersions() {
     List<FrameHandlerInfo> commandVersions = ServerFrameHandler.commandVersions();
     int length = 2 + 2 + 4 + 4; // API code, version, correlation ID, array size
@@ -1477,19 +1874,10 @@ public class Client implements AutoCloseable {
 
   StreamStatsResponse streamStats(String stream) {
     this.exchangeCommandVersionsCheck.run();
-    if (stream == null) {
-      throw new IllegalArgumentException("stream must not be null");
-    }
-    int length = 2 + 2 + 4 + 2 + stream.length(); // API code, version, correlation ID, 1 string
+    checkStreamNotNull(stream);
     int correlationId = correlationSequence.incrementAndGet();
     try {
-      ByteBuf bb = allocate(length + 4);
-      bb.writeInt(length);
-      bb.writeShort(encodeRequestCode(COMMAND_STREAM_STATS));
-      bb.writeShort(VERSION_1);
-      bb.writeInt(correlationId);
-      bb.writeShort(stream.length());
-      bb.writeBytes(stream.getBytes(StandardCharsets.UTF_8));
+      ByteBuf bb = streamFrame(COMMAND_STREAM_STATS, correlationId, stream);
       OutstandingRequest<StreamStatsResponse> request = outstandingRequest();
       outstandingRequests.put(correlationId, request);
       channel.writeAndFlush(bb);
@@ -1505,6 +1893,194 @@ public class Client implements AutoCloseable {
     }
   }
 
+  CompletableFuture<StreamStatsResponse> streamStatsAsync(String stream) {
+    this.exchangeCommandVersionsCheck.run();
+    checkStreamNotNull(stream);
+    int correlationId = correlationSequence.incrementAndGet();
+    return requestAsync(
+        correlationId,
+        () -> streamFrame(COMMAND_STREAM_STATS, correlationId, stream),
+        () -> format("Error while querying statistics for stream '%s'", stream));
+  }
+
+  private static void checkStreamNotNull(String stream) {
+    if (stream == null) {
+      throw new IllegalArgumentException("stream must not be null");
+    }
+  }
+
+  private ByteBuf streamFrame(short command, int correlationId, String stream) {
+    int length = 2 + 2 + 4 + 2 + stream.length(); // API code, version, correlation ID, 1 string
+    ByteBuf bb = allocate(length + 4);
+    bb.writeInt(length);
+    bb.writeShort(encodeRequestCode(command));
+    bb.writeShort(VERSION_1);
+    bb.writeInt(correlationId);
+    bb.writeShort(stream.length());
+    bb.writeBytes(stream.getBytes(StandardCharsets.UTF_8));
+    return bb;
+  }
+
+  /**
+   * Sends a request frame and returns a future completed by the response.
+   *
+   * <p>The request shares the correlation map with blocking requests. It does not park the calling
+   * thread: the RPC timeout is enforced by a task scheduled on the channel event loop.
+   */
+  private <T> CompletableFuture<T> requestAsync(
+      int correlationId, Supplier<ByteBuf> frame, Supplier<String> errorMessage) {
+    return requestAsync(correlationId, frame, errorMessage, () -> {});
+  }
+
+  /**
+   * Sends a request frame and returns a future completed by the response.
+   *
+   * <p>The failure callback undoes the side effects of the frame supplier when the request cannot
+   * be sent (connection closing, write failure).
+   */
+  private <T> CompletableFuture<T> requestAsync(
+      int correlationId,
+      Supplier<ByteBuf> frame,
+      Supplier<String> errorMessage,
+      Runnable sendFailureCallback) {
+    AsyncOutstandingRequest<T> request =
+        new AsyncOutstandingRequest<>(this.rpcTimeout, this.host + ":" + this.port);
+    if (closing.get()) {
+      request.completeExceptionally(connectionClosedException(errorMessage));
+      return request.future();
+    }
+    try {
+      ByteBuf bb = frame.get();
+      outstandingRequests.put(correlationId, request);
+      // the closing sequence may have failed the outstanding requests before the registration
+      if (closing.get() && outstandingRequests.remove(correlationId, request)) {
+        bb.release();
+        sendFailureCallback.run();
+        request.completeExceptionally(connectionClosedException(errorMessage));
+        return request.future();
+      }
+      ScheduledFuture<?> timeoutTask =
+          channel
+              .eventLoop()
+              .schedule(
+                  () -> {
+                    if (outstandingRequests.remove(correlationId, request)) {
+                      request.timeout();
+                    }
+                  },
+                  this.rpcTimeout.toMillis(),
+                  TimeUnit.MILLISECONDS);
+      request.future().whenComplete((response, error) -> timeoutTask.cancel(false));
+      channel
+          .writeAndFlush(bb)
+          .addListener(
+              f -> {
+                if (!f.isSuccess() && outstandingRequests.remove(correlationId, request)) {
+                  sendFailureCallback.run();
+                  request.completeExceptionally(new StreamException(errorMessage.get(), f.cause()));
+                }
+              });
+    } catch (RuntimeException e) {
+      outstandingRequests.remove(correlationId);
+      sendFailureCallback.run();
+      request.completeExceptionally(
+          e instanceof StreamException ? e : new StreamException(errorMessage.get(), e));
+    }
+    return request.future();
+  }
+
+  private StreamException connectionClosedException(Supplier<String> errorMessage) {
+    return new StreamException(
+        format("%s: connection to %s:%d is closing", errorMessage.get(), this.host, this.port));
+  }
+
+  private void failOutstandingAsyncRequests() {
+    for (Map.Entry<Integer, OutstandingRequest<?>> entry : outstandingRequests.entrySet()) {
+      if (entry.getValue() instanceof AsyncOutstandingRequest
+          && outstandingRequests.remove(entry.getKey(), entry.getValue())) {
+        entry
+            .getValue()
+            .completeExceptionally(
+                new StreamException(
+                    format("Connection to %s:%d closed before response", this.host, this.port)));
+      }
+    }
+  }
+
+  private void dispatchInbound(int size, Runnable task) {
+    if (this.inboundBudgeted) {
+      this.inboundBacklog.addAndGet(size);
+      if (this.connectionInboundBudget != null) {
+        this.connectionInboundBudget.acquire(this.inboundReader, size);
+      }
+      if (this.environmentInboundBudget != null) {
+        this.environmentInboundBudget.acquire(this.inboundReader, size);
+      }
+      this.metricsCollector.inboundBacklog(size);
+      this.dispatcher.dispatch(
+          () -> {
+            try {
+              task.run();
+            } finally {
+              inboundHandled(size);
+            }
+          });
+    } else {
+      this.dispatcher.dispatch(task);
+    }
+  }
+
+  private void inboundHandled(long size) {
+    // the backlog is negative once released on closing, the budgets have been released already
+    if (this.inboundBacklog.addAndGet(-size) >= 0) {
+      releaseInboundBudgets(size);
+    }
+  }
+
+  private void releaseInboundBacklog() {
+    if (this.inboundBudgeted) {
+      // tasks may never run once the connection is closed, their bytes must go back to the budget
+      long remaining = this.inboundBacklog.getAndSet(Long.MIN_VALUE / 2);
+      if (remaining > 0) {
+        releaseInboundBudgets(remaining);
+      }
+    }
+  }
+
+  private void releaseInboundBudgets(long size) {
+    if (this.connectionInboundBudget != null) {
+      this.connectionInboundBudget.release(size);
+    }
+    if (this.environmentInboundBudget != null) {
+      this.environmentInboundBudget.release(size);
+    }
+    this.metricsCollector.inboundBacklog(-size);
+  }
+
+  private final class ChannelInboundReader implements InboundBudget.Reader {
+
+    private int pausingBudgets = 0;
+    private long pausedSince;
+
+    @Override
+    public synchronized void pauseReading() {
+      if (this.pausingBudgets++ == 0) {
+        this.pausedSince = System.nanoTime();
+        channel.config().setAutoRead(false);
+        LOGGER.debug("Inbound budget exceeded, pausing reading on connection {}", connectionName());
+      }
+    }
+
+    @Override
+    public synchronized void resumeReading() {
+      if (--this.pausingBudgets == 0) {
+        channel.config().setAutoRead(true);
+        metricsCollector.inboundPaused(System.nanoTime() - this.pausedSince);
+        LOGGER.debug("Resuming reading on connection {}", connectionName());
+      }
+    }
+  }
+
   public void consumerUpdateResponse(
       int correlationId, short responseCode, OffsetSpecification offsetSpecification) {
     offsetSpecification =
@@ -1596,11 +2172,37 @@ public class Client implements AutoCloseable {
     int write(ByteBuf bb, Object entity, long publishingId);
 
     int fragmentLength(Object entity);
+
+    /**
+     * The last bytes of the entity, to add to the frame without copying them.
+     *
+     * <p>When not null, {@link #write(ByteBuf, Object, long)} must not write these bytes.
+     *
+     * @param entity the entity
+     * @return the tail of the entity, or null
+     */
+    default ByteBuf tail(Object entity) {
+      return null;
+    }
   }
 
   public interface PublishConfirmListener {
 
     void handle(byte publisherId, long publishingId);
+
+    /**
+     * Handles all the publishing IDs of a confirm frame.
+     *
+     * <p>The default implementation calls {@link #handle(byte, long)} for each publishing ID.
+     *
+     * @param publisherId the publisher ID
+     * @param publishingIds the confirmed publishing IDs
+     */
+    default void handle(byte publisherId, long[] publishingIds) {
+      for (long publishingId : publishingIds) {
+        handle(publisherId, publishingId);
+      }
+    }
   }
 
   public interface PublishErrorListener {
@@ -1629,6 +2231,65 @@ public class Client implements AutoCloseable {
      * @param dataSize the size in bytes of the data in the chunk
      */
     void handle(Client client, byte subscriptionId, long offset, long messageCount, long dataSize);
+
+    /**
+     * Callback when all the messages of a chunk have been dispatched.
+     *
+     * <p>The message listener calls for the chunk have returned when this method is called. It is
+     * called even if the handling of the chunk fails.
+     *
+     * @param client the client instance (e.g. to ask for more credit)
+     * @param subscriptionId the subscription ID to correlate with a callback
+     * @param offset the first offset in the chunk
+     * @param messageCount the total number of messages in the chunk
+     * @param dataSize the size in bytes of the data in the chunk
+     */
+    default void chunkProcessed(
+        Client client, byte subscriptionId, long offset, long messageCount, long dataSize) {}
+  }
+
+  public interface RawChunkListener {
+
+    /**
+     * Callback when a chunk is received, before its messages are dispatched.
+     *
+     * <p>The chunk is valid only during the call.
+     *
+     * @param client the client instance
+     * @param subscriptionId the subscription ID to correlate with a callback
+     * @param committedChunkId the ID of the last committed chunk in the stream
+     * @param chunk the chunk
+     * @return true if the chunk has been handled, false to dispatch its messages to the {@link
+     *     MessageListener}
+     */
+    boolean handle(Client client, byte subscriptionId, long committedChunkId, Chunk chunk);
+
+    /**
+     * Whether chunks of the subscription may be handled by this listener.
+     *
+     * <p>Chunks of such subscriptions are always aggregated before being handed to the listener.
+     * Chunks of other subscriptions can be dispatched while they are still arriving.
+     *
+     * @param subscriptionId the subscription ID
+     * @return true if the listener may handle the chunks of the subscription
+     */
+    default boolean consumesChunks(byte subscriptionId) {
+      return true;
+    }
+  }
+
+  public interface DecompressionExecutorResolver {
+
+    /**
+     * The executor to decompress the sub-entries of the subscription chunks with.
+     *
+     * <p>The sub-entries of a chunk are then decompressed in parallel, their messages are still
+     * dispatched in offset order.
+     *
+     * @param subscriptionId the subscription ID
+     * @return the executor, or null to decompress sub-entries on the dispatching thread
+     */
+    Executor executor(byte subscriptionId);
   }
 
   public interface MessageListener {
@@ -1676,6 +2337,9 @@ public class Client implements AutoCloseable {
 
     void write(ByteBuf bb);
 
+    /** Release the resources of a batch that is not going to be written. */
+    void release();
+
     int batchSize();
 
     int sizeInBytes();
@@ -1719,6 +2383,12 @@ public class Client implements AutoCloseable {
       OriginalAndEncodedOutboundEntity wrapper = (OriginalAndEncodedOutboundEntity) entity;
       return delegate.fragmentLength(wrapper.encoded);
     }
+
+    @Override
+    public ByteBuf tail(Object entity) {
+      OriginalAndEncodedOutboundEntity wrapper = (OriginalAndEncodedOutboundEntity) entity;
+      return delegate.tail(wrapper.encoded);
+    }
   }
 
   private static class PlainEncodedMessageBatch implements EncodedMessageBatch {
@@ -1742,10 +2412,13 @@ public class Client implements AutoCloseable {
     @Override
     public void write(ByteBuf bb) {
       for (Codec.EncodedMessage message : messages) {
-        bb.writeInt(message.getSize()).writeBytes(message.getData(), 0, message.getSize());
+        message.write(bb.writeInt(message.getSize()));
       }
     }
 
+    @Override
+    public void release() {}
+
     @Override
     public int batchSize() {
       return this.messages.size();
@@ -1801,22 +2474,21 @@ public class Client implements AutoCloseable {
 
     @Override
     public void close() {
-      int maxCompressedLength = codec.maxCompressedLength(this.uncompressedByteSize);
-      this.buffer = allocator.buffer(maxCompressedLength);
-      OutputStream outputStream = this.codec.compress(new ByteBufOutputStream(buffer));
+      ByteBuf plain = allocator.buffer(this.uncompressedByteSize);
       try {
         for (int i = 0; i < messages.size(); i++) {
           final int size = messages.get(i).getSize();
-          outputStream.write((size >>> 24) & 0xFF);
-          outputStream.write((size >>> 16) & 0xFF);
-          outputStream.write((size >>> 8) & 0xFF);
-          outputStream.write((size >>> 0) & 0xFF);
-          outputStream.write(messages.get(i).getData(), 0, size);
+          plain.writeInt(size).writeBytes(messages.get(i).getData(), 0, size);
+        }
+        this.buffer = allocator.buffer(codec.maxCompressedLength(this.uncompressedByteSize));
+        this.codec.compress(plain, this.buffer);
+      } catch (RuntimeException e) {
+        if (this.buffer != null) {
+          this.buffer.release();
         }
-        outputStream.flush();
-        outputStream.close();
-      } catch (IOException e) {
-        throw new StreamException("Error while closing compressing output stream", e);
+        throw e;
+      } finally {
+        plain.release();
       }
     }
 
@@ -1826,6 +2498,13 @@ public class Client implements AutoCloseable {
       this.buffer.release();
     }
 
+    @Override
+    public void release() {
+      if (this.buffer != null && this.buffer.refCnt() > 0) {
+        this.buffer.release();
+      }
+    }
+
     @Override
     public int batchSize() {
       return this.messages.size();
@@ -1853,10 +2532,19 @@ public class Client implements AutoCloseable {
     public int write(ByteBuf bb, Object entity, long publishingId) {
       Codec.EncodedMessage messageToPublish = (Codec.EncodedMessage) entity;
       bb.writeInt(messageToPublish.getSize());
-      bb.writeBytes(messageToPublish.getData(), 0, messageToPublish.getSize());
+      if (messageToPublish.tail() == null) {
+        messageToPublish.write(bb);
+      } else {
+        messageToPublish.writeHead(bb);
+      }
       return 1;
     }
 
+    @Override
+    public ByteBuf tail(Object entity) {
+      return ((Codec.EncodedMessage) entity).tail();
+    }
+
     @Override
     public int fragmentLength(Object entity) {
       return 8 + 4 + ((Codec.EncodedMessage) entity).getSize(); // publish ID + message size
@@ -2183,6 +2871,8 @@ public class Client implements AutoCloseable {
         (client, correlationId, offset, messageCount, dataSize) -> {};
     private MessageListener messageListener =
         (correlationId, offset, chunkTimestamp, committedOffset, message) -> {};
+    private RawChunkListener rawChunkListener = NO_OP_RAW_CHUNK_LISTENER;
+    private DecompressionExecutorResolver decompressionExecutorResolver = subscriptionId -> null;
     private MetadataListener metadataListener = (stream, code) -> {};
     private CreditNotification creditNotification =
         (subscriptionId, responseCode) ->
@@ -2204,6 +2894,16 @@ public class Client implements AutoCloseable {
     private Duration rpcTimeout;
     private Consumer<Channel> channelCustomizer = noOpConsumer();
     private Consumer<Bootstrap> bootstrapCustomizer = noOpConsumer();
+    private DispatchingMode dispatchingMode = DispatchingMode.DEDICATED_THREAD;
+    private int chunkStreamingThreshold = DEFAULT_CHUNK_STREAMING_THRESHOLD;
+    private FlushPolicy flushPolicy = FlushPolicy.everyFrame();
+    private NettyTransport transport = NettyTransport.AUTO;
+    private Duration busyPoll;
+    private ByteCapacity inboundBudget;
+    private ByteCapacity writeBufferLowWaterMark, writeBufferHighWaterMark;
+    InboundBudget environmentInboundBudget;
+    OutboundBudget environmentOutboundBudget;
+    DispatcherPool dispatcherPool;
 
     public ClientParameters host(String host) {
       this.host = host;
@@ -2235,6 +2935,143 @@ public class Client implements AutoCloseable {
       return this;
     }
 
+    public ClientParameters rawChunkListener(RawChunkListener rawChunkListener) {
+      this.rawChunkListener = rawChunkListener;
+      return this;
+    }
+
+    public ClientParameters decompressionExecutorResolver(
+        DecompressionExecutorResolver decompressionExecutorResolver) {
+      this.decompressionExecutorResolver = decompressionExecutorResolver;
+      return this;
+    }
+
+    /**
+     * Maximum number of inbound bytes received but not handled yet.
+     *
+     * <p>The connection stops reading from the socket when this budget is exceeded, and resumes
+     * once half of it has been handled. This bounds the memory used when the application handles
+     * messages slower than they arrive. Default is no limit.
+     *
+     * @param inboundBudget the maximum backlog of inbound bytes
+     * @return this parameters instance
+     */
+    public ClientParameters inboundBudget(ByteCapacity inboundBudget) {
+      if (inboundBudget != null && inboundBudget.toBytes() <= 0) {
+        throw new IllegalArgumentException("The inbound budget must be positive");
+      }
+      this.inboundBudget = inboundBudget;
+      return this;
+    }
+
+    ClientParameters environmentInboundBudget(InboundBudget environmentInboundBudget) {
+      this.environmentInboundBudget = environmentInboundBudget;
+      return this;
+    }
+
+    ClientParameters environmentOutboundBudget(OutboundBudget environmentOutboundBudget) {
+      this.environmentOutboundBudget = environmentOutboundBudget;
+      return this;
+    }
+
+    /**
+     * Size from which deliver frames are dispatched while they are still arriving.
+     *
+     * <p>The entries of such frames are dispatched as soon as their bytes are in, instead of
+     * waiting for the whole chunk. The chunk checksum is still validated over the whole chunk, once
+     * its last entry has been dispatched. Default is 1 MiB. Use {@link Integer#MAX_VALUE} to always
+     * wait for whole chunks.
+     *
+     * @param chunkStreamingThreshold the size in bytes
+     * @return this parameters instance
+     */
+    public ClientParameters chunkStreamingThreshold(int chunkStreamingThreshold) {
+      if (chunkStreamingThreshold <= 0) {
+        throw new IllegalArgumentException("The chunk streaming threshold must be positive");
+      }
+      this.chunkStreamingThreshold = chunkStreamingThreshold;
+      return this;
+    }
+
+    /**
+     * The Netty transport to use when the client creates its own event loop group.
+     *
+     * <p>Default is {@link NettyTransport#AUTO}.
+     *
+     * @param transport the Netty transport
+     * @return this parameters instance
+     */
+    public ClientParameters transport(NettyTransport transport) {
+      if (transport == null) {
+        throw new IllegalArgumentException("The transport cannot be null");
+      }
+      this.transport = transport;
+      return this;
+    }
+
+    /**
+     * Busy poll duration for the socket (<code>SO_BUSY_POLL</code>, native epoll transport only).
+     *
+     * <p>Default is no busy polling.
+     *
+     * @param busyPoll the busy poll duration
+     * @return this parameters instance
+     */
+    public ClientParameters busyPoll(Duration busyPoll) {
+      if (busyPoll != null && busyPoll.isNegative()) {
+        throw new IllegalArgumentException("The busy poll duration cannot be negative");
+      }
+      this.busyPoll = busyPoll;
+      return this;
+    }
+
+    /**
+     * Write buffer water marks of the connection.
+     *
+     * <p>The connection becomes unwritable when its outbound buffer goes over the high water mark
+     * and writable again when it goes under the low water mark. Producers wait for the connection
+     * to be writable before accumulating messages when the water marks are set.
+     *
+     * <p>Default is the Netty water marks, with no waiting.
+     *
+     * @param low the low water mark
+     * @param high the high water mark
+     * @return this parameters instance
+     */
+    public ClientParameters writeBufferWaterMark(ByteCapacity low, ByteCapacity high) {
+      if (low == null || high == null) {
+        this.writeBufferLowWaterMark = null;
+        this.writeBufferHighWaterMark = null;
+        return this;
+      }
+      if (low.toBytes() <= 0 || high.toBytes() > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("The water marks must be between 1 and 2 GB");
+      }
+      if (low.compareTo(high) > 0) {
+        throw new IllegalArgumentException(
+            "The low water mark cannot be greater than the high water mark");
+      }
+      this.writeBufferLowWaterMark = low;
+      this.writeBufferHighWaterMark = high;
+      return this;
+    }
+
+    /**
+     * When the publish frames are flushed to the socket.
+     *
+     * <p>Default is {@link FlushPolicy#everyFrame()}.
+     *
+     * @param flushPolicy the flush policy
+     * @return this parameters instance
+     */
+    public ClientParameters flushPolicy(FlushPolicy flushPolicy) {
+      if (flushPolicy == null) {
+        throw new IllegalArgumentException("The flush policy cannot be null");
+      }
+      this.flushPolicy = flushPolicy;
+      return this;
+    }
+
     public ClientParameters creditNotification(CreditNotification creditNotification) {
       this.creditNotification = creditNotification;
       return this;
@@ -2329,6 +3166,10 @@ public class Client implements AutoCloseable {
       return this;
     }
 
+    MetricsCollector metricsCollector() {
+      return this.metricsCollector;
+    }
+
     public ClientParameters metadataListener(MetadataListener metadataListener) {
       this.metadataListener = metadataListener;
       return this;
@@ -2363,6 +3204,25 @@ public class Client implements AutoCloseable {
       return this;
     }
 
+    public ClientParameters dispatchingMode(DispatchingMode dispatchingMode) {
+      this.dispatchingMode =
+          dispatchingMode == null ? DispatchingMode.DEDICATED_THREAD : dispatchingMode;
+      return this;
+    }
+
+    ClientParameters dispatcherPool(DispatcherPool dispatcherPool) {
+      this.dispatcherPool = dispatcherPool;
+      return this;
+    }
+
+    DispatchingMode dispatchingMode() {
+      return this.dispatchingMode;
+    }
+
+    NettyTransport transport() {
+      return this.transport;
+    }
+
     String host() {
       return this.host;
     }
@@ -2433,8 +3293,7 @@ public class Client implements AutoCloseable {
         throw new StreamException("Interrupted while waiting for response");
       }
       if (!completed) {
-        throw new TimeoutStreamException(
-            format("Could not get response in %d ms from node %s", timeout.toMillis(), node));
+        throw timeoutException();
       }
     }
 
@@ -2454,6 +3313,40 @@ public class Client implements AutoCloseable {
     void countDown() {
       this.latch.countDown();
     }
+
+    TimeoutStreamException timeoutException() {
+      return new TimeoutStreamException(
+          format("Could not get response in %d ms from node %s", timeout.toMillis(), node));
+    }
+  }
+
+  static final class AsyncOutstandingRequest<T> extends OutstandingRequest<T> {
+
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+
+    private AsyncOutstandingRequest(Duration timeout, String node) {
+      super(timeout, node);
+    }
+
+    @Override
+    void completeExceptionally(Throwable cause) {
+      super.completeExceptionally(cause);
+      this.future.completeExceptionally(cause);
+    }
+
+    @Override
+    void countDown() {
+      super.countDown();
+      this.future.complete(response().get());
+    }
+
+    void timeout() {
+      this.completeExceptionally(timeoutException());
+    }
+
+    CompletableFuture<T> future() {
+      return this.future;
+    }
   }
 
   static final class SubscriptionOffset {
@@ -2559,6 +3452,13 @@ public class Client implements AutoCloseable {
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) {
+      if (msg instanceof ChunkHeader) {
+        streamedChunkHeaderRead(ctx, (ChunkHeader) msg);
+        return;
+      } else if (msg instanceof ChunkFragment) {
+        streamedChunkFragmentRead((ChunkFragment) msg);
+        return;
+      }
       ByteBuf m = (ByteBuf) msg;
       metricsCollector.readBytes(m.capacity() + 4); // 32-bits integer for size not included
       int frameSize = m.readableBytes();
@@ -2585,13 +3485,50 @@ public class Client implements AutoCloseable {
       }
 
       if (task != null) {
-        executorService.submit(task);
+        dispatchInbound(frameSize + 4, task);
+      }
+    }
+
+    private void streamedChunkHeaderRead(ChannelHandlerContext ctx, ChunkHeader chunkHeader) {
+      metricsCollector.readBytes(chunkHeader.header().capacity() + 4);
+      if (closing.get()) {
+        chunkHeader.header().release();
+      } else {
+        dispatchInbound(
+            chunkHeader.header().capacity() + 4,
+            () -> streamedChunkHandler.header(ctx, chunkHeader));
+      }
+    }
+
+    private void streamedChunkFragmentRead(ChunkFragment fragment) {
+      metricsCollector.readBytes(fragment.content().capacity());
+      if (closing.get()) {
+        fragment.content().release();
+      } else {
+        dispatchInbound(
+            fragment.content().capacity(), () -> streamedChunkHandler.fragment(fragment));
+      }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+      if (ctx.channel().isWritable()) {
+        if (unwritableSince != 0) {
+          metricsCollector.outboundUnwritable(System.nanoTime() - unwritableSince);
+          unwritableSince = 0;
+        }
+      } else {
+        unwritableSince = System.nanoTime();
       }
+      writabilityChanged();
+      ctx.fireChannelWritabilityChanged();
     }
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
       LOGGER.debug("Netty channel became inactive");
+      // senders waiting for the channel to be writable must not wait forever
+      writabilityChanged();
       // the TCP connection can get closed by server after a SERVER_CLOSE is sent
       // back from the client. The connection can then get inactive before
       // the event is actually dispatched to the listener, emitting
@@ -2599,7 +3536,7 @@ public class Client implements AutoCloseable {
       // because it will be handled later anyway.
       if (shutdownReason == null) {
         if (closing.compareAndSet(false, true)) {
-          executorService.submit(() -> closingSequence(ShutdownReason.UNKNOWN));
+          dispatcher.dispatchBlocking(() -> closingSequence(ShutdownReason.UNKNOWN));
         }
       }
     }
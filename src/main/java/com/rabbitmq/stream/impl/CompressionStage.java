@@ -0,0 +1,201 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import com.rabbitmq.stream.impl.Client.EncodedMessageBatch;
+import com.rabbitmq.stream.impl.MessageAccumulator.AccumulatedEntity;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compresses sub-entries on an executor and hands them back in submission order.
+ *
+ * <p>The producer submits sub-entries with its lock, they are compressed concurrently, and the
+ * producer polls them, with its lock as well, once they and all the sub-entries submitted before
+ * them are compressed. The callback runs outside of any lock after each compression, to let the
+ * producer publish the sub-entries that became ready.
+ *
+ * <p>The number of sub-entries in the stage is bounded, senders wait for capacity before
+ * accumulating messages.
+ */
+final class CompressionStage {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CompressionStage.class);
+
+  private final Executor executor;
+  private final int capacity;
+  private final Runnable compressedCallback;
+  private final Consumer<AccumulatedEntity> failureHandler;
+  private final Object monitor = new Object();
+  // guarded by the monitor
+  private final Deque<Entry> entries = new ArrayDeque<>();
+  private boolean closed = false;
+  // updated under the monitor, read without it for the fast path
+  private volatile int size = 0;
+
+  CompressionStage(
+      Executor executor,
+      int capacity,
+      Runnable compressedCallback,
+      Consumer<AccumulatedEntity> failureHandler) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("The capacity of the compression stage must be positive");
+    }
+    this.executor = executor;
+    this.capacity = capacity;
+    this.compressedCallback = compressedCallback;
+    this.failureHandler = failureHandler;
+  }
+
+  void submit(AccumulatedEntity entity) {
+    Entry entry = new Entry(entity);
+    synchronized (this.monitor) {
+      if (this.closed) {
+        return;
+      }
+      this.entries.add(entry);
+      this.size = this.entries.size();
+    }
+    try {
+      this.executor.execute(() -> compress(entry));
+    } catch (RejectedExecutionException e) {
+      // the executor is shutting down, the publishing thread does the work
+      compress(entry);
+    }
+  }
+
+  private void compress(Entry entry) {
+    boolean failed = false;
+    try {
+      ((EncodedMessageBatch) entry.entity.encodedEntity()).close();
+    } catch (RuntimeException e) {
+      LOGGER.warn("Error while compressing sub-entry: {}", e.getMessage());
+      failed = true;
+    }
+    boolean closed;
+    synchronized (this.monitor) {
+      entry.compressed = true;
+      entry.failed = failed;
+      closed = this.closed;
+    }
+    if (closed && !failed) {
+      release(entry.entity);
+    }
+    if (failed) {
+      this.failureHandler.accept(entry.entity);
+    }
+    if (!closed) {
+      this.compressedCallback.run();
+    }
+  }
+
+  /**
+   * Move the compressed sub-entries at the head of the stage to a list.
+   *
+   * @param target the list to add the sub-entries to
+   * @param max the maximum number of sub-entries to add
+   * @return the number of sub-entries added
+   */
+  int poll(List<Object> target, int max) {
+    int count = 0;
+    synchronized (this.monitor) {
+      Entry entry;
+      while (count < max && (entry = this.entries.peek()) != null && entry.compressed) {
+        this.entries.poll();
+        if (!entry.failed) {
+          target.add(entry.entity);
+          count++;
+        }
+      }
+      if (this.size != this.entries.size()) {
+        this.size = this.entries.size();
+        this.monitor.notifyAll();
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Wait for the stage to have room for more sub-entries.
+   *
+   * @param timeoutMs the maximum time to wait, 0 to wait until there is room
+   * @return true if there is room, false if the timeout occurred
+   * @throws InterruptedException if interrupted while waiting
+   */
+  boolean awaitCapacity(long timeoutMs) throws InterruptedException {
+    if (this.size < this.capacity) {
+      return true;
+    }
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    synchronized (this.monitor) {
+      while (!this.closed && this.entries.size() >= this.capacity) {
+        if (timeoutMs == 0) {
+          this.monitor.wait();
+        } else {
+          long remaining = deadline - System.nanoTime();
+          if (remaining <= 0) {
+            return false;
+          }
+          TimeUnit.NANOSECONDS.timedWait(this.monitor, remaining);
+        }
+      }
+      return true;
+    }
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  void close() {
+    synchronized (this.monitor) {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+      // the sub-entries still being compressed are released once they are done
+      for (Entry entry : this.entries) {
+        if (entry.compressed && !entry.failed) {
+          release(entry.entity);
+        }
+      }
+      this.entries.clear();
+      this.size = 0;
+      this.monitor.notifyAll();
+    }
+  }
+
+  private static void release(AccumulatedEntity entity) {
+    ((EncodedMessageBatch) entity.encodedEntity()).release();
+  }
+
+  private static final class Entry {
+
+    private final AccumulatedEntity entity;
+    // guarded by the monitor of the stage
+    private boolean compressed = false;
+    private boolean failed = false;
+
+    private Entry(AccumulatedEntity entity) {
+      this.entity = entity;
+    }
+  }
+}
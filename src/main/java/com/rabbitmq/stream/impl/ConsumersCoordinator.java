@@ -22,8 +22,11 @@ import static com.rabbitmq.stream.impl.Utils.namedRunnable;
 import static com.rabbitmq.stream.impl.Utils.quote;
 
 import com.rabbitmq.stream.BackOffDelayPolicy;
+import com.rabbitmq.stream.Chunk;
+import com.rabbitmq.stream.ChunkHandler;
 import com.rabbitmq.stream.Constants;
 import com.rabbitmq.stream.Consumer;
+import com.rabbitmq.stream.ConsumerFlowStrategy;
 import com.rabbitmq.stream.MessageHandler;
 import com.rabbitmq.stream.MessageHandler.Context;
 import com.rabbitmq.stream.OffsetSpecification;
@@ -37,9 +40,11 @@ import com.rabbitmq.stream.impl.Client.ChunkListener;
 import com.rabbitmq.stream.impl.Client.ClientParameters;
 import com.rabbitmq.stream.impl.Client.ConsumerUpdateListener;
 import com.rabbitmq.stream.impl.Client.CreditNotification;
+import com.rabbitmq.stream.impl.Client.DecompressionExecutorResolver;
 import com.rabbitmq.stream.impl.Client.MessageListener;
 import com.rabbitmq.stream.impl.Client.MetadataListener;
 import com.rabbitmq.stream.impl.Client.QueryOffsetResponse;
+import com.rabbitmq.stream.impl.Client.RawChunkListener;
 import com.rabbitmq.stream.impl.Client.ShutdownListener;
 import com.rabbitmq.stream.impl.Utils.ClientConnectionType;
 import com.rabbitmq.stream.impl.Utils.ClientFactory;
@@ -119,8 +124,7 @@ class ConsumersCoordinator {
       Runnable trackingClosingCallback,
       MessageHandler messageHandler,
       Map<String, String> subscriptionProperties,
-      int initialCredits,
-      int additionalCredits) {
+      ConsumerFlowStrategy flowStrategy) {
     List<Client.Broker> candidates = findBrokersForStream(stream);
     Client.Broker newNode = pickBroker(candidates);
     if (newNode == null) {
@@ -140,8 +144,7 @@ class ConsumersCoordinator {
             trackingClosingCallback,
             messageHandler,
             subscriptionProperties,
-            initialCredits,
-            additionalCredits);
+            flowStrategy);
 
     try {
       addToManager(newNode, subscriptionTracker, offsetSpecification, true);
@@ -391,8 +394,8 @@ class ConsumersCoordinator {
     private volatile ClientSubscriptionsManager manager;
     private volatile AtomicReference<SubscriptionState> state =
         new AtomicReference<>(SubscriptionState.OPENING);
-    private final int initialCredits;
-    private final int additionalCredits;
+    private final ConsumerFlowStrategy flowStrategy;
+    private volatile ConsumerFlowStrategy.ChunkCallback chunkCallback;
 
     private SubscriptionTracker(
         long id,
@@ -404,8 +407,7 @@ class ConsumersCoordinator {
         Runnable trackingClosingCallback,
         MessageHandler messageHandler,
         Map<String, String> subscriptionProperties,
-        int initialCredits,
-        int additionalCredits) {
+        ConsumerFlowStrategy flowStrategy) {
       this.id = id;
       this.consumer = consumer;
       this.stream = stream;
@@ -414,8 +416,7 @@ class ConsumersCoordinator {
       this.subscriptionListener = subscriptionListener;
       this.trackingClosingCallback = trackingClosingCallback;
       this.messageHandler = messageHandler;
-      this.initialCredits = initialCredits;
-      this.additionalCredits = additionalCredits;
+      this.flowStrategy = flowStrategy;
       if (this.offsetTrackingReference == null) {
         this.subscriptionProperties = subscriptionProperties;
       } else {
@@ -524,6 +525,39 @@ class ConsumersCoordinator {
     }
   }
 
+  private static final class ChunkHandlerContext implements ChunkHandler.Context {
+
+    private final long lastOffset;
+    private final long committedOffset;
+    private final StreamConsumer consumer;
+
+    private ChunkHandlerContext(long lastOffset, long committedOffset, StreamConsumer consumer) {
+      this.lastOffset = lastOffset;
+      this.committedOffset = committedOffset;
+      this.consumer = consumer;
+    }
+
+    @Override
+    public void storeOffset() {
+      this.consumer.store(this.lastOffset);
+    }
+
+    @Override
+    public long committedChunkId() {
+      return this.committedOffset;
+    }
+
+    @Override
+    public String stream() {
+      return this.consumer.stream();
+    }
+
+    @Override
+    public Consumer consumer() {
+      return this.consumer;
+    }
+  }
+
   /**
    * Maintains a set of {@link SubscriptionTracker} instances on a {@link Client}.
    *
@@ -554,15 +588,36 @@ class ConsumersCoordinator {
       this.trackerCount = 0;
       AtomicBoolean clientInitializedInManager = new AtomicBoolean(false);
       ChunkListener chunkListener =
-          (client, subscriptionId, offset, messageCount, dataSize) -> {
-            SubscriptionTracker subscriptionTracker =
-                subscriptionTrackers.get(subscriptionId & 0xFF);
-            if (subscriptionTracker != null && subscriptionTracker.consumer.isOpen()) {
-              client.credit(subscriptionId, subscriptionTracker.additionalCredits);
-            } else {
-              LOGGER.debug(
-                  "Could not find stream subscription {} or subscription closing, not providing credits",
-                  subscriptionId & 0xFF);
+          new ChunkListener() {
+            @Override
+            public void handle(
+                Client client, byte subscriptionId, long offset, long messageCount, long dataSize) {
+              ConsumerFlowStrategy.ChunkCallback chunkCallback = chunkCallback(subscriptionId);
+              if (chunkCallback != null) {
+                chunkCallback.chunkArrived(messageCount, dataSize);
+              }
+            }
+
+            @Override
+            public void chunkProcessed(
+                Client client, byte subscriptionId, long offset, long messageCount, long dataSize) {
+              ConsumerFlowStrategy.ChunkCallback chunkCallback = chunkCallback(subscriptionId);
+              if (chunkCallback != null) {
+                chunkCallback.chunkProcessed(messageCount, dataSize);
+              }
+            }
+
+            private ConsumerFlowStrategy.ChunkCallback chunkCallback(byte subscriptionId) {
+              SubscriptionTracker subscriptionTracker =
+                  subscriptionTrackers.get(subscriptionId & 0xFF);
+              if (subscriptionTracker != null && subscriptionTracker.consumer.isOpen()) {
+                return subscriptionTracker.chunkCallback;
+              } else {
+                LOGGER.debug(
+                    "Could not find stream subscription {} or subscription closing, not providing credits",
+                    subscriptionId & 0xFF);
+                return null;
+              }
             }
           };
 
@@ -592,6 +647,44 @@ class ConsumersCoordinator {
                   this.name);
             }
           };
+      RawChunkListener rawChunkListener =
+          new RawChunkListener() {
+            @Override
+            public boolean handle(
+                Client client, byte subscriptionId, long committedChunkId, Chunk chunk) {
+              SubscriptionTracker subscriptionTracker =
+                  subscriptionTrackers.get(subscriptionId & 0xFF);
+              ChunkHandler chunkHandler =
+                  subscriptionTracker == null ? null : subscriptionTracker.consumer.chunkHandler();
+              if (chunkHandler == null) {
+                return false;
+              } else {
+                subscriptionTracker.offset = chunk.lastOffset();
+                subscriptionTracker.hasReceivedSomething = true;
+                chunkHandler.handle(
+                    new ChunkHandlerContext(
+                        chunk.lastOffset(), committedChunkId, subscriptionTracker.consumer),
+                    chunk);
+                return true;
+              }
+            }
+
+            @Override
+            public boolean consumesChunks(byte subscriptionId) {
+              SubscriptionTracker subscriptionTracker =
+                  subscriptionTrackers.get(subscriptionId & 0xFF);
+              return subscriptionTracker != null
+                  && subscriptionTracker.consumer.chunkHandler() != null;
+            }
+          };
+      DecompressionExecutorResolver decompressionExecutorResolver =
+          subscriptionId -> {
+            SubscriptionTracker subscriptionTracker =
+                subscriptionTrackers.get(subscriptionId & 0xFF);
+            return subscriptionTracker == null
+                ? null
+                : subscriptionTracker.consumer.decompressionExecutor();
+          };
       ShutdownListener shutdownListener =
           shutdownContext -> {
 //            this.closed.set(true);
@@ -723,6 +816,8 @@ class ConsumersCoordinator {
                       .chunkListener(chunkListener)
                       .creditNotification(creditNotification)
                       .messageListener(messageListener)
+                      .rawChunkListener(rawChunkListener)
+                      .decompressionExecutorResolver(decompressionExecutorResolver)
                       .shutdownListener(shutdownListener)
                       .metadataListener(metadataListener)
                       .consumerUpdateListener(consumerUpdateListener))
@@ -943,8 +1038,14 @@ class ConsumersCoordinator {
             subscriptionContext.offsetSpecification());
 
         checkNotClosed();
-        // FIXME consider using fewer initial credits
         byte subId = subscriptionId;
+        subscriptionTracker.chunkCallback =
+            subscriptionTracker.flowStrategy.start(
+                credits -> {
+                  if (subscriptionTracker.consumer.isOpen()) {
+                    client.credit(subId, credits);
+                  }
+                });
         Client.Response subscribeResponse =
             Utils.callAndMaybeRetry(
                 () ->
@@ -952,7 +1053,7 @@ class ConsumersCoordinator {
                         subId,
                         subscriptionTracker.stream,
                         subscriptionContext.offsetSpecification(),
-                        subscriptionTracker.initialCredits,
+                        subscriptionTracker.flowStrategy.initialCredits(),
                         subscriptionTracker.subscriptionProperties),
                 RETRY_ON_TIMEOUT,
                 "Subscribe request for consumer %s on stream '%s'",
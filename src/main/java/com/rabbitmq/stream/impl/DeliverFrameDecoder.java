@@ -0,0 +1,181 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import static com.rabbitmq.stream.Constants.COMMAND_DELIVER;
+import static com.rabbitmq.stream.Constants.VERSION_1;
+import static com.rabbitmq.stream.Constants.VERSION_2;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import java.util.List;
+
+/**
+ * Frame decoder that streams large deliver frames.
+ *
+ * <p>Frames are length-prefixed, the decoder emits them without their length, like a {@link
+ * io.netty.handler.codec.LengthFieldBasedFrameDecoder} would.
+ *
+ * <p>Deliver frames larger than a threshold are not accumulated though. The decoder emits a {@link
+ * ChunkHeader} as soon as the chunk header is available, then {@link ChunkFragment}s made of
+ * complete entries as their bytes arrive. The last fragment contains the chunk trailer.
+ */
+final class DeliverFrameDecoder extends ByteToMessageDecoder {
+
+  private static final int CHUNK_HEADER_SIZE = 48;
+  private static final int DATA_LENGTH_INDEX_IN_CHUNK_HEADER = 36;
+  private static final int SIMPLE_ENTRY_HEADER_SIZE = 4;
+  private static final int SUB_ENTRY_HEADER_SIZE = 11;
+
+  private final int streamingThreshold;
+
+  private boolean streaming = false;
+  private long remainingData;
+  private long remainingTrailer;
+
+  DeliverFrameDecoder(int streamingThreshold) {
+    this.streamingThreshold = streamingThreshold;
+  }
+
+  @Override
+  protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+    if (this.streaming) {
+      decodeChunkData(in, out);
+    } else if (in.readableBytes() >= 4) {
+      int start = in.readerIndex();
+      int frameLength = in.getInt(start);
+      if (frameLength < 0) {
+        throw new CorruptedFrameException("Negative frame length: " + frameLength);
+      }
+      if (frameLength >= this.streamingThreshold) {
+        if (in.readableBytes() < 4 + 2 + 2) {
+          return;
+        }
+        short commandId = Utils.extractResponseCode(in.getShort(start + 4));
+        short version = in.getShort(start + 6);
+        if (commandId == COMMAND_DELIVER && (version == VERSION_1 || version == VERSION_2)) {
+          // command ID, version, subscription ID, committed chunk ID (version 2), chunk header
+          int headerSize = 2 + 2 + 1 + (version == VERSION_2 ? 8 : 0) + CHUNK_HEADER_SIZE;
+          if (in.readableBytes() < 4 + headerSize) {
+            return;
+          }
+          long dataLength =
+              in.getUnsignedInt(
+                  start + 4 + headerSize - CHUNK_HEADER_SIZE + DATA_LENGTH_INDEX_IN_CHUNK_HEADER);
+          long trailerLength = frameLength - headerSize - dataLength;
+          if (trailerLength < 0) {
+            throw new CorruptedFrameException(
+                "Chunk data length " + dataLength + " exceeds frame length " + frameLength);
+          }
+          if (dataLength > 0) {
+            in.skipBytes(4);
+            out.add(new ChunkHeader(in.readRetainedSlice(headerSize)));
+            this.streaming = true;
+            this.remainingData = dataLength;
+            this.remainingTrailer = trailerLength;
+            return;
+          }
+        }
+      }
+      if (in.readableBytes() >= 4 + frameLength) {
+        in.skipBytes(4);
+        out.add(in.readRetainedSlice(frameLength));
+      }
+    }
+  }
+
+  private void decodeChunkData(ByteBuf in, List<Object> out) {
+    int entries = completeEntriesSize(in);
+    this.remainingData -= entries;
+    int size = entries;
+    boolean last = false;
+    if (this.remainingData == 0 && in.readableBytes() - entries >= this.remainingTrailer) {
+      size += (int) this.remainingTrailer;
+      last = true;
+    }
+    if (size > 0) {
+      out.add(new ChunkFragment(in.readRetainedSlice(size), last));
+    }
+    if (last) {
+      this.streaming = false;
+    }
+  }
+
+  private int completeEntriesSize(ByteBuf in) {
+    int start = in.readerIndex();
+    long available = Math.min(in.readableBytes(), this.remainingData);
+    long size = 0;
+    while (size < available) {
+      int entryIndex = start + (int) size;
+      long left = available - size;
+      long entrySize;
+      if ((in.getByte(entryIndex) & 0x80) == 0) {
+        if (left < SIMPLE_ENTRY_HEADER_SIZE) {
+          break;
+        }
+        entrySize = SIMPLE_ENTRY_HEADER_SIZE + in.getUnsignedInt(entryIndex);
+      } else {
+        if (left < SUB_ENTRY_HEADER_SIZE) {
+          break;
+        }
+        entrySize = SUB_ENTRY_HEADER_SIZE + in.getUnsignedInt(entryIndex + 7);
+      }
+      if (size + entrySize > this.remainingData) {
+        throw new CorruptedFrameException(
+            "Chunk entry of " + entrySize + " byte(s) exceeds remaining chunk data");
+      }
+      if (entrySize > left) {
+        break;
+      }
+      size += entrySize;
+    }
+    return (int) size;
+  }
+
+  /** Beginning of a streamed deliver frame, up to the end of the chunk header. */
+  static final class ChunkHeader {
+
+    private final ByteBuf header;
+
+    private ChunkHeader(ByteBuf header) {
+      this.header = header;
+    }
+
+    ByteBuf header() {
+      return this.header;
+    }
+  }
+
+  /** Complete entries of a streamed chunk. */
+  static final class ChunkFragment {
+
+    private final ByteBuf content;
+    private final boolean last;
+
+    private ChunkFragment(ByteBuf content, boolean last) {
+      this.content = content;
+      this.last = last;
+    }
+
+    ByteBuf content() {
+      return this.content;
+    }
+
+    boolean isLast() {
+      return this.last;
+    }
+  }
+}
@@ -0,0 +1,303 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import com.rabbitmq.stream.Chunk;
+import com.rabbitmq.stream.StreamException;
+import com.rabbitmq.stream.compression.Compression;
+import com.rabbitmq.stream.compression.CompressionCodec;
+import com.rabbitmq.stream.compression.CompressionCodecFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link Chunk} implementation on top of the {@link ByteBuf} of a deliver frame.
+ *
+ * <p>It uses absolute indexes and does not change the reader index of the frame buffer.
+ */
+final class DeliveredChunk implements Chunk {
+
+  private final ByteBuf buffer;
+  private final int dataIndex;
+  private final int dataLength;
+  private final long firstOffset;
+  private final long timestamp;
+  private final long epoch;
+  private final int entryCount;
+  private final long messageCount;
+  private final long crc;
+  private final CompressionCodecFactory compressionCodecFactory;
+
+  DeliveredChunk(
+      ByteBuf buffer,
+      int dataIndex,
+      int dataLength,
+      long firstOffset,
+      long timestamp,
+      long epoch,
+      int entryCount,
+      long messageCount,
+      long crc,
+      CompressionCodecFactory compressionCodecFactory) {
+    this.buffer = buffer;
+    this.dataIndex = dataIndex;
+    this.dataLength = dataLength;
+    this.firstOffset = firstOffset;
+    this.timestamp = timestamp;
+    this.epoch = epoch;
+    this.entryCount = entryCount;
+    this.messageCount = messageCount;
+    this.crc = crc;
+    this.compressionCodecFactory = compressionCodecFactory;
+  }
+
+  @Override
+  public long firstOffset() {
+    return this.firstOffset;
+  }
+
+  @Override
+  public long lastOffset() {
+    return this.firstOffset + this.messageCount - 1;
+  }
+
+  @Override
+  public long timestamp() {
+    return this.timestamp;
+  }
+
+  @Override
+  public long epoch() {
+    return this.epoch;
+  }
+
+  @Override
+  public int entryCount() {
+    return this.entryCount;
+  }
+
+  @Override
+  public long messageCount() {
+    return this.messageCount;
+  }
+
+  @Override
+  public long crc() {
+    return this.crc;
+  }
+
+  @Override
+  public ByteBuffer data() {
+    return view(this.buffer, this.dataIndex, this.dataLength);
+  }
+
+  @Override
+  public Iterator<Entry> entries() {
+    return new EntryIterator();
+  }
+
+  private static ByteBuffer view(ByteBuf buffer, int index, int length) {
+    return buffer.nioBuffer(index, length).asReadOnlyBuffer();
+  }
+
+  private class EntryIterator implements Iterator<Entry> {
+
+    private final int limit = dataIndex + dataLength;
+    private int index = dataIndex;
+    private long offset = firstOffset;
+
+    @Override
+    public boolean hasNext() {
+      return this.index < this.limit;
+    }
+
+    @Override
+    public Entry next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      byte entryType = buffer.getByte(this.index);
+      Entry entry;
+      if ((entryType & 0x80) == 0) {
+        // <<0=SimpleEntryType:1, Size:31/unsigned, Data:Size/binary>>
+        int size = buffer.getInt(this.index);
+        entry = new SimpleEntry(this.offset, this.index + 4, size);
+        this.index += 4 + size;
+      } else {
+        // <<1=SubBatchEntryType:1, CompressionType:3, Reserved:4, NumRecords:16/unsigned,
+        // UncompressedLength:32/unsigned, Length:32/unsigned, Body:Length/binary>>
+        Compression compression = Compression.get((byte) ((entryType & 0x70) >> 4));
+        int count = buffer.getUnsignedShort(this.index + 1);
+        int uncompressedSize = buffer.getInt(this.index + 3);
+        int size = buffer.getInt(this.index + 7);
+        entry =
+            new BatchEntry(
+                this.offset, this.index + 11, size, count, compression, uncompressedSize);
+        this.index += 11 + size;
+      }
+      this.offset += entry.messageCount();
+      return entry;
+    }
+  }
+
+  private class SimpleEntry implements Entry {
+
+    private final long offset;
+    private final int index;
+    private final int size;
+
+    private SimpleEntry(long offset, int index, int size) {
+      this.offset = offset;
+      this.index = index;
+      this.size = size;
+    }
+
+    @Override
+    public long offset() {
+      return this.offset;
+    }
+
+    @Override
+    public int messageCount() {
+      return 1;
+    }
+
+    @Override
+    public boolean isBatch() {
+      return false;
+    }
+
+    @Override
+    public Compression compression() {
+      return Compression.NONE;
+    }
+
+    @Override
+    public ByteBuffer data() {
+      return view(buffer, this.index, this.size);
+    }
+
+    @Override
+    public Iterator<ByteBuffer> messages() {
+      return Collections.singletonList(data()).iterator();
+    }
+  }
+
+  private class BatchEntry implements Entry {
+
+    private final long offset;
+    private final int index;
+    private final int size;
+    private final int messageCount;
+    private final Compression compression;
+    private final int uncompressedSize;
+
+    private BatchEntry(
+        long offset,
+        int index,
+        int size,
+        int messageCount,
+        Compression compression,
+        int uncompressedSize) {
+      this.offset = offset;
+      this.index = index;
+      this.size = size;
+      this.messageCount = messageCount;
+      this.compression = compression;
+      this.uncompressedSize = uncompressedSize;
+    }
+
+    @Override
+    public long offset() {
+      return this.offset;
+    }
+
+    @Override
+    public int messageCount() {
+      return this.messageCount;
+    }
+
+    @Override
+    public boolean isBatch() {
+      return true;
+    }
+
+    @Override
+    public Compression compression() {
+      return this.compression;
+    }
+
+    @Override
+    public ByteBuffer data() {
+      return view(buffer, this.index, this.size);
+    }
+
+    @Override
+    public Iterator<ByteBuffer> messages() {
+      if (this.compression == Compression.NONE) {
+        return new MessageIterator(buffer, this.index, this.messageCount);
+      } else {
+        return new MessageIterator(Unpooled.wrappedBuffer(decompress()), 0, this.messageCount);
+      }
+    }
+
+    private byte[] decompress() {
+      CompressionCodec codec = compressionCodecFactory.get(this.compression);
+      byte[] uncompressed = new byte[this.uncompressedSize];
+      try {
+        codec.decompress(
+            buffer.slice(this.index, this.size),
+            Unpooled.wrappedBuffer(uncompressed).clear(),
+            this.uncompressedSize);
+      } catch (RuntimeException e) {
+        throw new StreamException("Error while uncompressing sub-entry", e);
+      }
+      return uncompressed;
+    }
+  }
+
+  private static class MessageIterator implements Iterator<ByteBuffer> {
+
+    private final ByteBuf records;
+    private int index;
+    private int remaining;
+
+    private MessageIterator(ByteBuf records, int index, int count) {
+      this.records = records;
+      this.index = index;
+      this.remaining = count;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.remaining > 0;
+    }
+
+    @Override
+    public ByteBuffer next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      int size = this.records.getInt(this.index);
+      ByteBuffer message = view(this.records, this.index + 4, size);
+      this.index += 4 + size;
+      this.remaining--;
+      return message;
+    }
+  }
+}
@@ -0,0 +1,228 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import com.rabbitmq.stream.DispatchingMode;
+import com.rabbitmq.stream.impl.Utils.NamedThreadFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Implementations of the way inbound frames are dispatched for a connection. */
+final class Dispatchers {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(Dispatchers.class);
+
+  private static volatile DispatcherPool DEFAULT_POOL;
+
+  // for potentially blocking tasks that cannot be executed on the event loop (e.g. connection
+  // closing), threads are created only when necessary and do not stay around for long
+  private static final ExecutorService BLOCKING_TASK_EXECUTOR =
+      new ThreadPoolExecutor(
+          0,
+          Integer.MAX_VALUE,
+          60L,
+          TimeUnit.SECONDS,
+          new SynchronousQueue<>(),
+          daemonThreadFactory("rabbitmq-stream-connection-closing-"));
+
+  private Dispatchers() {}
+
+  static Dispatcher dispatcher(DispatchingMode mode, DispatcherPool pool) {
+    if (mode == DispatchingMode.EVENT_LOOP) {
+      return new EventLoopDispatcher();
+    } else if (mode == DispatchingMode.SHARED_POOL) {
+      return (pool == null ? defaultPool() : pool).dispatcher();
+    } else {
+      return new DedicatedThreadDispatcher();
+    }
+  }
+
+  private static DispatcherPool defaultPool() {
+    if (DEFAULT_POOL == null) {
+      synchronized (Dispatchers.class) {
+        if (DEFAULT_POOL == null) {
+          DEFAULT_POOL =
+              new DispatcherPool(
+                  Runtime.getRuntime().availableProcessors(),
+                  daemonThreadFactory("rabbitmq-stream-default-dispatcher-"));
+        }
+      }
+    }
+    return DEFAULT_POOL;
+  }
+
+  private static ThreadFactory daemonThreadFactory(String prefix) {
+    ThreadFactory backingThreadFactory =
+        r -> {
+          Thread t = Executors.defaultThreadFactory().newThread(r);
+          t.setDaemon(true);
+          return t;
+        };
+    return new NamedThreadFactory(backingThreadFactory, prefix);
+  }
+
+  private static void runSafely(Runnable task) {
+    try {
+      task.run();
+    } catch (Exception e) {
+      LOGGER.warn("Error while dispatching inbound frame", e);
+    }
+  }
+
+  /** Dispatches the tasks related to the inbound frames of one connection. */
+  interface Dispatcher {
+
+    /**
+     * Dispatch a frame handling task.
+     *
+     * <p>Tasks must be executed in the submission order.
+     *
+     * @param task
+     */
+    void dispatch(Runnable task);
+
+    /**
+     * Dispatch a task that may block, like the closing sequence of the connection.
+     *
+     * <p>The task must not be executed on the event loop.
+     *
+     * @param task
+     */
+    void dispatchBlocking(Runnable task);
+
+    /** Stop dispatching tasks. Pending tasks may be discarded. */
+    void close();
+  }
+
+  private static final class DedicatedThreadDispatcher implements Dispatcher {
+
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+    @Override
+    public void dispatch(Runnable task) {
+      this.executorService.submit(task);
+    }
+
+    @Override
+    public void dispatchBlocking(Runnable task) {
+      this.executorService.submit(task);
+    }
+
+    @Override
+    public void close() {
+      this.executorService.shutdownNow();
+    }
+  }
+
+  private static final class EventLoopDispatcher implements Dispatcher {
+
+    private volatile boolean closed = false;
+
+    @Override
+    public void dispatch(Runnable task) {
+      if (!this.closed) {
+        runSafely(task);
+      }
+    }
+
+    @Override
+    public void dispatchBlocking(Runnable task) {
+      BLOCKING_TASK_EXECUTOR.execute(task);
+    }
+
+    @Override
+    public void close() {
+      this.closed = true;
+    }
+  }
+
+  /**
+   * Fixed-size pool of single-threaded executors.
+   *
+   * <p>Each connection is assigned one executor, so its frames are still handled in order, but the
+   * number of threads does not depend on the number of connections.
+   */
+  static final class DispatcherPool implements AutoCloseable {
+
+    private final ExecutorService[] executors;
+    private final AtomicInteger sequence = new AtomicInteger(0);
+
+    DispatcherPool(int size) {
+      this(size, new NamedThreadFactory("rabbitmq-stream-dispatcher-"));
+    }
+
+    private DispatcherPool(int size, ThreadFactory threadFactory) {
+      if (size <= 0) {
+        throw new IllegalArgumentException("The dispatcher pool size must be greater than 0");
+      }
+      this.executors = new ExecutorService[size];
+      for (int i = 0; i < size; i++) {
+        this.executors[i] = Executors.newSingleThreadExecutor(threadFactory);
+      }
+    }
+
+    Dispatcher dispatcher() {
+      int index = Math.abs(this.sequence.getAndIncrement() % this.executors.length);
+      return new StripeDispatcher(this.executors[index]);
+    }
+
+    int size() {
+      return this.executors.length;
+    }
+
+    @Override
+    public void close() {
+      for (ExecutorService executor : this.executors) {
+        executor.shutdownNow();
+      }
+    }
+  }
+
+  private static final class StripeDispatcher implements Dispatcher {
+
+    private final ExecutorService executorService;
+    private volatile boolean closed = false;
+
+    private StripeDispatcher(ExecutorService executorService) {
+      this.executorService = executorService;
+    }
+
+    @Override
+    public void dispatch(Runnable task) {
+      this.executorService.execute(
+          () -> {
+            if (!this.closed) {
+              runSafely(task);
+            }
+          });
+    }
+
+    @Override
+    public void dispatchBlocking(Runnable task) {
+      this.executorService.execute(() -> runSafely(task));
+    }
+
+    @Override
+    public void close() {
+      this.closed = true;
+    }
+  }
+}
@@ -0,0 +1,141 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import com.rabbitmq.stream.FlushPolicy;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes publish frames and decides when to flush them, according to a {@link FlushPolicy}.
+ *
+ * <p>With a coalescing policy, frames are written without flushing from the channel event loop, so
+ * the state of the coalescer is accessed by only one thread.
+ */
+abstract class FlushCoalescer {
+
+  static FlushCoalescer create(FlushPolicy policy) {
+    if (policy == null || policy.isEveryFrame()) {
+      return new EveryFrameFlushCoalescer();
+    } else if (policy.isEndOfEventLoopBatch()) {
+      return new EndOfEventLoopBatchFlushCoalescer();
+    } else {
+      return new AfterFramesFlushCoalescer(
+          policy.getFrames(), TimeUnit.NANOSECONDS.toMicros(policy.getMaxDelay().toNanos()));
+    }
+  }
+
+  abstract ChannelFuture write(Channel channel, ByteBuf frame);
+
+  private static final class EveryFrameFlushCoalescer extends FlushCoalescer {
+
+    @Override
+    ChannelFuture write(Channel channel, ByteBuf frame) {
+      return channel.writeAndFlush(frame);
+    }
+  }
+
+  private abstract static class DeferredFlushCoalescer extends FlushCoalescer {
+
+    @Override
+    ChannelFuture write(Channel channel, ByteBuf frame) {
+      ChannelPromise promise = channel.newPromise();
+      EventLoop eventLoop = channel.eventLoop();
+      if (eventLoop.inEventLoop()) {
+        doWrite(channel, frame, promise);
+      } else {
+        try {
+          eventLoop.execute(() -> doWrite(channel, frame, promise));
+        } catch (RejectedExecutionException e) {
+          frame.release();
+          promise.tryFailure(e);
+        }
+      }
+      return promise;
+    }
+
+    private void doWrite(Channel channel, ByteBuf frame, ChannelPromise promise) {
+      channel.write(frame, promise);
+      written(channel);
+    }
+
+    // called in the event loop
+    abstract void written(Channel channel);
+  }
+
+  private static final class EndOfEventLoopBatchFlushCoalescer extends DeferredFlushCoalescer {
+
+    private boolean flushScheduled = false;
+
+    @Override
+    void written(Channel channel) {
+      if (!this.flushScheduled) {
+        this.flushScheduled = true;
+        // runs after the tasks already in the queue, e.g. the writes of other producers
+        channel
+            .eventLoop()
+            .execute(
+                () -> {
+                  this.flushScheduled = false;
+                  channel.flush();
+                });
+      }
+    }
+  }
+
+  private static final class AfterFramesFlushCoalescer extends DeferredFlushCoalescer {
+
+    private final int frames;
+    private final long maxDelayInMicros;
+    private int unflushed = 0;
+    // a flush can make a scheduled flush unnecessary, the generation avoids flushing too early
+    private long generation = 0;
+
+    private AfterFramesFlushCoalescer(int frames, long maxDelayInMicros) {
+      this.frames = frames;
+      this.maxDelayInMicros = Math.max(1, maxDelayInMicros);
+    }
+
+    @Override
+    void written(Channel channel) {
+      this.unflushed++;
+      if (this.unflushed >= this.frames) {
+        flush(channel);
+      } else if (this.unflushed == 1) {
+        long scheduledGeneration = this.generation;
+        channel
+            .eventLoop()
+            .schedule(
+                () -> {
+                  if (this.generation == scheduledGeneration && this.unflushed > 0) {
+                    flush(channel);
+                  }
+                },
+                this.maxDelayInMicros,
+                TimeUnit.MICROSECONDS);
+      }
+    }
+
+    private void flush(Channel channel) {
+      this.unflushed = 0;
+      this.generation++;
+      channel.flush();
+    }
+  }
+}
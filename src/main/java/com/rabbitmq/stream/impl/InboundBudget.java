@@ -0,0 +1,76 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Budget of inbound bytes received but not dispatched yet.
+ *
+ * <p>A reader that makes the backlog go over the limit is paused. Paused readers are resumed once
+ * the backlog goes back to half the limit. A budget can be used by one connection or shared by all
+ * the connections of an environment.
+ */
+final class InboundBudget {
+
+  private final long limit;
+  private final long resumeThreshold;
+  private final AtomicLong backlog = new AtomicLong(0);
+  private final Set<Reader> pausedReaders = ConcurrentHashMap.newKeySet();
+
+  InboundBudget(long limit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("The inbound budget must be positive");
+    }
+    this.limit = limit;
+    this.resumeThreshold = limit / 2;
+  }
+
+  void acquire(Reader reader, long bytes) {
+    if (this.backlog.addAndGet(bytes) > this.limit && this.pausedReaders.add(reader)) {
+      reader.pauseReading();
+      // the backlog may have drained in the meantime, with no release to resume the reader
+      if (this.backlog.get() <= this.resumeThreshold) {
+        resumeReaders();
+      }
+    }
+  }
+
+  void release(long bytes) {
+    if (this.backlog.addAndGet(-bytes) <= this.resumeThreshold && !this.pausedReaders.isEmpty()) {
+      resumeReaders();
+    }
+  }
+
+  long backlog() {
+    return this.backlog.get();
+  }
+
+  private void resumeReaders() {
+    for (Reader reader : this.pausedReaders) {
+      if (this.pausedReaders.remove(reader)) {
+        reader.resumeReading();
+      }
+    }
+  }
+
+  interface Reader {
+
+    void pauseReading();
+
+    void resumeReading();
+  }
+}
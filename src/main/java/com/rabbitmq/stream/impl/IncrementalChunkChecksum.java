@@ -0,0 +1,40 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import com.rabbitmq.stream.ChunkChecksum;
+import com.rabbitmq.stream.ChunkChecksumValidationException;
+import io.netty.buffer.ByteBuf;
+import java.util.zip.Checksum;
+
+/** {@link ChunkChecksum} that can be computed over the successive fragments of a chunk. */
+interface IncrementalChunkChecksum extends ChunkChecksum {
+
+  Checksum create();
+
+  void update(Checksum checksum, ByteBuf byteBuf, int index, int length);
+
+  default void validate(Checksum checksum, long expected) {
+    if (expected != checksum.getValue()) {
+      throw new ChunkChecksumValidationException(expected, checksum.getValue());
+    }
+  }
+
+  @Override
+  default void checksum(ByteBuf byteBuf, long dataLength, long expected) {
+    Checksum checksum = create();
+    update(checksum, byteBuf, byteBuf.readerIndex(), byteBuf.readableBytes());
+    validate(checksum, expected);
+  }
+}
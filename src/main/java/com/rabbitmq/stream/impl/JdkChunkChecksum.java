@@ -14,7 +14,6 @@
 package com.rabbitmq.stream.impl;
 
 import com.rabbitmq.stream.ChunkChecksum;
-import com.rabbitmq.stream.ChunkChecksumValidationException;
 import com.rabbitmq.stream.StreamException;
 import io.netty.buffer.ByteBuf;
 import io.netty.util.ByteProcessor;
@@ -27,7 +26,7 @@ import java.util.zip.Checksum;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-class JdkChunkChecksum implements ChunkChecksum {
+class JdkChunkChecksum implements IncrementalChunkChecksum {
 
   static final ChunkChecksum CRC32_SINGLETON;
   private static final Logger LOGGER = LoggerFactory.getLogger(JdkChunkChecksum.class);
@@ -64,21 +63,20 @@ class JdkChunkChecksum implements ChunkChecksum {
   }
 
   @Override
-  public void checksum(ByteBuf byteBuf, long dataLength, long expected) {
-    Checksum checksum = checksumSupplier.get();
+  public Checksum create() {
+    return checksumSupplier.get();
+  }
+
+  @Override
+  public void update(Checksum checksum, ByteBuf byteBuf, int index, int length) {
     if (byteBuf.hasArray()) {
-      checksum.update(
-          byteBuf.array(), byteBuf.arrayOffset() + byteBuf.readerIndex(), byteBuf.readableBytes());
+      checksum.update(byteBuf.array(), byteBuf.arrayOffset() + index, length);
     } else {
-      byteBuf.forEachByte(
-          byteBuf.readerIndex(), byteBuf.readableBytes(), new UpdateProcessor(checksum));
-    }
-    if (expected != checksum.getValue()) {
-      throw new ChunkChecksumValidationException(expected, checksum.getValue());
+      byteBuf.forEachByte(index, length, new UpdateProcessor(checksum));
     }
   }
 
-  private static class ByteBufferDirectByteBufChecksum implements ChunkChecksum {
+  private static class ByteBufferDirectByteBufChecksum implements IncrementalChunkChecksum {
 
     private final Supplier<Checksum> checksumSupplier;
     private final Method updateMethod;
@@ -93,26 +91,23 @@ class JdkChunkChecksum implements ChunkChecksum {
     }
 
     @Override
-    public void checksum(ByteBuf byteBuf, long dataLength, long expected) {
-      Checksum checksum = checksumSupplier.get();
+    public Checksum create() {
+      return checksumSupplier.get();
+    }
+
+    @Override
+    public void update(Checksum checksum, ByteBuf byteBuf, int index, int length) {
       if (byteBuf.hasArray()) {
-        checksum.update(
-            byteBuf.array(),
-            byteBuf.arrayOffset() + byteBuf.readerIndex(),
-            byteBuf.readableBytes());
+        checksum.update(byteBuf.array(), byteBuf.arrayOffset() + index, length);
       } else {
         try {
-          this.updateMethod.invoke(
-              checksum, byteBuf.nioBuffer(byteBuf.readerIndex(), byteBuf.readableBytes()));
+          this.updateMethod.invoke(checksum, byteBuf.nioBuffer(index, length));
         } catch (IllegalAccessException e) {
           throw new StreamException("Error while calculating CRC", e);
         } catch (InvocationTargetException e) {
           throw new StreamException("Error while calculating CRC", e);
         }
       }
-      if (expected != checksum.getValue()) {
-        throw new ChunkChecksumValidationException(expected, checksum.getValue());
-      }
     }
   }
 
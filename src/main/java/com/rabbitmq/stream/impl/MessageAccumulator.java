@@ -13,6 +13,7 @@
 // info@rabbitmq.com.
 package com.rabbitmq.stream.impl;
 
+import com.rabbitmq.stream.Codec;
 import com.rabbitmq.stream.ConfirmationHandler;
 import com.rabbitmq.stream.Message;
 
@@ -20,6 +21,16 @@ interface MessageAccumulator {
 
   boolean add(Message message, ConfirmationHandler confirmationHandler);
 
+  AccumulatedEntity entity(Message message, ConfirmationHandler confirmationHandler);
+
+  AccumulatedEntity entity(
+      long publishingId,
+      Codec.EncodedMessage encodedMessage,
+      Message message,
+      ConfirmationHandler confirmationHandler);
+
+  boolean add(AccumulatedEntity entity);
+
   AccumulatedEntity get();
 
   boolean isEmpty();
@@ -34,6 +45,8 @@ interface MessageAccumulator {
 
     Object encodedEntity();
 
+    int encodedSize();
+
     StreamProducer.ConfirmationCallback confirmationCallback();
   }
 }
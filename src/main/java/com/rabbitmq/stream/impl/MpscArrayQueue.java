@@ -0,0 +1,110 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for several producer threads and one consumer thread at a time.
+ *
+ * <p>Each slot has a sequence number that tells whether it can be written or read for a given
+ * position, so producers only compete on a compare-and-set of the tail position. Consumers must be
+ * serialized by the caller, e.g. with a lock.
+ *
+ * @param <E> type of the elements
+ */
+final class MpscArrayQueue<E> {
+
+  private final int mask;
+  private final AtomicReferenceArray<E> elements;
+  private final AtomicLongArray sequences;
+  private final AtomicLong tail = new AtomicLong(0);
+  private volatile long head = 0;
+
+  MpscArrayQueue(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("The capacity must be positive");
+    }
+    int slotCount = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    if (slotCount <= 0) {
+      throw new IllegalArgumentException("The capacity is too large: " + capacity);
+    }
+    this.mask = slotCount - 1;
+    this.elements = new AtomicReferenceArray<>(slotCount);
+    this.sequences = new AtomicLongArray(slotCount);
+    for (int i = 0; i < slotCount; i++) {
+      this.sequences.set(i, i);
+    }
+  }
+
+  /**
+   * Adds an element to the queue, if it is not full.
+   *
+   * @param element the element
+   * @return true if the element has been added, false if the queue is full
+   */
+  boolean offer(E element) {
+    long position = this.tail.get();
+    while (true) {
+      int index = (int) position & this.mask;
+      long difference = this.sequences.get(index) - position;
+      if (difference == 0) {
+        if (this.tail.compareAndSet(position, position + 1)) {
+          this.elements.lazySet(index, element);
+          // makes the element visible to the consumer
+          this.sequences.set(index, position + 1);
+          return true;
+        }
+        position = this.tail.get();
+      } else if (difference < 0) {
+        return false;
+      } else {
+        // another producer took this position
+        position = this.tail.get();
+      }
+    }
+  }
+
+  /**
+   * Removes the head of the queue. Must not be called concurrently.
+   *
+   * @return the head of the queue, or null if the queue is empty
+   */
+  E poll() {
+    long position = this.head;
+    int index = (int) position & this.mask;
+    if (this.sequences.get(index) != position + 1) {
+      // empty, or the producer of this position has not written its element yet
+      return null;
+    }
+    E element = this.elements.get(index);
+    this.elements.lazySet(index, null);
+    this.sequences.set(index, position + this.mask + 1);
+    this.head = position + 1;
+    return element;
+  }
+
+  int size() {
+    // head first, so that the size cannot be negative
+    long currentHead = this.head;
+    long size = this.tail.get() - currentHead;
+    return (int) Math.max(0, Math.min(size, this.mask + 1));
+  }
+
+  boolean isEmpty() {
+    return size() == 0;
+  }
+}
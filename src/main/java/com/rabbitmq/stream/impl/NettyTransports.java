@@ -0,0 +1,215 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import com.rabbitmq.stream.NettyTransport;
+import com.rabbitmq.stream.StreamException;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Selection of the Netty transport (event loop group and channel class) and of its socket options.
+ *
+ * <p>Native transports are optional dependencies, so their classes are accessed only once their
+ * presence is checked. The io_uring transport is not a dependency of the library, it is accessed
+ * with reflection.
+ */
+final class NettyTransports {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(NettyTransports.class);
+
+  private static final boolean EPOLL_AVAILABLE = EpollSupport.available();
+
+  private static final IoUringSupport IO_URING = IoUringSupport.create();
+
+  private NettyTransports() {}
+
+  static NettyTransport resolve(NettyTransport requested) {
+    if (requested == null || requested == NettyTransport.AUTO) {
+      return EPOLL_AVAILABLE ? NettyTransport.EPOLL : NettyTransport.NIO;
+    } else if (requested == NettyTransport.EPOLL) {
+      if (EPOLL_AVAILABLE) {
+        return NettyTransport.EPOLL;
+      } else {
+        LOGGER.info("Native epoll transport is not available, using NIO");
+        return NettyTransport.NIO;
+      }
+    } else if (requested == NettyTransport.IO_URING) {
+      if (IO_URING != null) {
+        return NettyTransport.IO_URING;
+      } else {
+        NettyTransport fallback = resolve(NettyTransport.AUTO);
+        LOGGER.info("Native io_uring transport is not available, using {}", fallback);
+        return fallback;
+      }
+    } else {
+      return NettyTransport.NIO;
+    }
+  }
+
+  static EventLoopGroup eventLoopGroup(NettyTransport requested) {
+    NettyTransport transport = resolve(requested);
+    LOGGER.debug("Creating event loop group for {} transport", transport);
+    if (transport == NettyTransport.EPOLL) {
+      return EpollSupport.eventLoopGroup();
+    } else if (transport == NettyTransport.IO_URING) {
+      return IO_URING.eventLoopGroup();
+    } else {
+      return new NioEventLoopGroup();
+    }
+  }
+
+  /** The channel class that goes with the event loop group. */
+  static Class<? extends Channel> channelClass(EventLoopGroup eventLoopGroup) {
+    if (EPOLL_AVAILABLE && EpollSupport.isEpoll(eventLoopGroup)) {
+      return EpollSupport.channelClass();
+    } else if (IO_URING != null && IO_URING.isIoUring(eventLoopGroup)) {
+      return IO_URING.channelClass;
+    } else {
+      return NioSocketChannel.class;
+    }
+  }
+
+  /**
+   * Sets the options specific to the native channel class, if they are not set already.
+   *
+   * @param busyPoll the busy poll duration, <code>null</code> or zero to not use busy polling
+   */
+  static void configureNativeOptions(
+      Bootstrap bootstrap, Class<? extends Channel> channelClass, Duration busyPoll) {
+    if (EPOLL_AVAILABLE && EpollSupport.channelClass().equals(channelClass)) {
+      EpollSupport.configure(bootstrap, busyPoll);
+    } else if (IO_URING != null && IO_URING.channelClass.equals(channelClass)) {
+      IO_URING.configure(bootstrap);
+    }
+  }
+
+  private static <T> void optionIfAbsent(Bootstrap bootstrap, ChannelOption<T> option, T value) {
+    if (!bootstrap.config().options().containsKey(option)) {
+      bootstrap.option(option, value);
+    }
+  }
+
+  private static final class EpollSupport {
+
+    private static boolean available() {
+      try {
+        Class.forName(
+            "io.netty.channel.epoll.Epoll", false, NettyTransports.class.getClassLoader());
+        return Epoll.isAvailable();
+      } catch (ClassNotFoundException | LinkageError e) {
+        return false;
+      }
+    }
+
+    private static EventLoopGroup eventLoopGroup() {
+      return new EpollEventLoopGroup();
+    }
+
+    private static boolean isEpoll(EventLoopGroup eventLoopGroup) {
+      return eventLoopGroup instanceof EpollEventLoopGroup;
+    }
+
+    private static Class<? extends Channel> channelClass() {
+      return EpollSocketChannel.class;
+    }
+
+    private static void configure(Bootstrap bootstrap, Duration busyPoll) {
+      optionIfAbsent(bootstrap, EpollChannelOption.TCP_QUICKACK, true);
+      if (busyPoll != null && !busyPoll.isZero() && !busyPoll.isNegative()) {
+        optionIfAbsent(
+            bootstrap,
+            EpollChannelOption.SO_BUSY_POLL,
+            (int) Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toMicros(busyPoll.toNanos())));
+      }
+    }
+  }
+
+  private static final class IoUringSupport {
+
+    private static final String PACKAGE = "io.netty.incubator.channel.uring.";
+
+    private final Class<?> eventLoopGroupClass;
+    private final Class<? extends Channel> channelClass;
+    private final ChannelOption<Boolean> tcpQuickAck;
+
+    private IoUringSupport(
+        Class<?> eventLoopGroupClass,
+        Class<? extends Channel> channelClass,
+        ChannelOption<Boolean> tcpQuickAck) {
+      this.eventLoopGroupClass = eventLoopGroupClass;
+      this.channelClass = channelClass;
+      this.tcpQuickAck = tcpQuickAck;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static IoUringSupport create() {
+      try {
+        ClassLoader classLoader = NettyTransports.class.getClassLoader();
+        Class<?> ioUring = Class.forName(PACKAGE + "IOUring", true, classLoader);
+        if (!(Boolean) ioUring.getMethod("isAvailable").invoke(null)) {
+          return null;
+        }
+        Class<?> eventLoopGroupClass =
+            Class.forName(PACKAGE + "IOUringEventLoopGroup", true, classLoader);
+        Class<? extends Channel> channelClass =
+            (Class<? extends Channel>)
+                Class.forName(PACKAGE + "IOUringSocketChannel", true, classLoader);
+        ChannelOption<Boolean> tcpQuickAck;
+        try {
+          tcpQuickAck =
+              (ChannelOption<Boolean>)
+                  Class.forName(PACKAGE + "IOUringChannelOption", true, classLoader)
+                      .getField("TCP_QUICKACK")
+                      .get(null);
+        } catch (ReflectiveOperationException e) {
+          tcpQuickAck = null;
+        }
+        return new IoUringSupport(eventLoopGroupClass, channelClass, tcpQuickAck);
+      } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+        return null;
+      }
+    }
+
+    private EventLoopGroup eventLoopGroup() {
+      try {
+        return (EventLoopGroup) this.eventLoopGroupClass.getConstructor().newInstance();
+      } catch (ReflectiveOperationException e) {
+        throw new StreamException("Error while creating io_uring event loop group", e);
+      }
+    }
+
+    private boolean isIoUring(EventLoopGroup eventLoopGroup) {
+      return this.eventLoopGroupClass.isInstance(eventLoopGroup);
+    }
+
+    private void configure(Bootstrap bootstrap) {
+      if (this.tcpQuickAck != null) {
+        optionIfAbsent(bootstrap, this.tcpQuickAck, true);
+      }
+    }
+  }
+}
@@ -0,0 +1,106 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import com.rabbitmq.stream.metrics.MetricsCollector;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Budget of outbound bytes accumulated or waiting for confirmation.
+ *
+ * <p>Senders wait when the budget is exhausted, until enough bytes are released or a timeout
+ * occurs. An amount greater than the limit is accepted when nothing else is in use, so that a large
+ * message cannot wait forever. A budget can be used by one producer or shared by all the producers
+ * of an environment.
+ */
+final class OutboundBudget {
+
+  private final long limit;
+  private final AtomicLong used = new AtomicLong(0);
+  private final MetricsCollector metricsCollector;
+  private final Object monitor = new Object();
+  // incremented and decremented under the monitor
+  private volatile int waiters = 0;
+
+  OutboundBudget(long limit, MetricsCollector metricsCollector) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("The outbound budget must be positive");
+    }
+    this.limit = limit;
+    this.metricsCollector = metricsCollector;
+  }
+
+  boolean tryAcquire(long bytes) {
+    while (true) {
+      long current = this.used.get();
+      if (current > 0 && current + bytes > this.limit) {
+        return false;
+      }
+      if (this.used.compareAndSet(current, current + bytes)) {
+        this.metricsCollector.outboundBacklog(bytes);
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Acquire bytes, waiting for them to be available if necessary.
+   *
+   * @param bytes the number of bytes
+   * @param timeoutMs the maximum time to wait, 0 to wait until the bytes are available
+   * @return true if the bytes have been acquired, false if the timeout occurred
+   * @throws InterruptedException if interrupted while waiting
+   */
+  boolean acquire(long bytes, long timeoutMs) throws InterruptedException {
+    if (tryAcquire(bytes)) {
+      return true;
+    }
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    synchronized (this.monitor) {
+      this.waiters++;
+      try {
+        while (!tryAcquire(bytes)) {
+          if (timeoutMs == 0) {
+            this.monitor.wait();
+          } else {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+              return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this.monitor, remaining);
+          }
+        }
+        return true;
+      } finally {
+        this.waiters--;
+      }
+    }
+  }
+
+  void release(long bytes) {
+    this.used.addAndGet(-bytes);
+    this.metricsCollector.outboundBacklog(-bytes);
+    // a waiter registers before checking the budget, so it cannot miss this release
+    if (this.waiters > 0) {
+      synchronized (this.monitor) {
+        this.monitor.notifyAll();
+      }
+    }
+  }
+
+  long used() {
+    return this.used.get();
+  }
+}
@@ -137,7 +137,9 @@ class ProducersCoordinator {
           iterator.remove();
           pickedManager = null;
         } else {
-          if (node.equals(pickedManager.node) && !pickedManager.isFullFor(tracker)) {
+          if (node.equals(pickedManager.node)
+              && !pickedManager.isFullFor(tracker)
+              && !pickedManager.hasSiblingOf(tracker)) {
             // let's try this one
             break;
           } else {
@@ -564,12 +566,26 @@ class ProducersCoordinator {
       AtomicReference<Client> ref = new AtomicReference<>();
       AtomicBoolean clientInitializedInManager = new AtomicBoolean(false);
       PublishConfirmListener publishConfirmListener =
-          (publisherId, publishingId) -> {
-            ProducerTracker producerTracker = producers.get(publisherId);
-            if (producerTracker == null) {
-              LOGGER.info("Received publish confirm for unknown producer: {}", publisherId);
-            } else {
-              producerTracker.producer.confirm(publishingId);
+          new PublishConfirmListener() {
+            @Override
+            public void handle(byte publisherId, long publishingId) {
+              ProducerTracker producerTracker = producers.get(publisherId);
+              if (producerTracker == null) {
+                LOGGER.info("Received publish confirm for unknown producer: {}", publisherId);
+              } else {
+                producerTracker.producer.confirm(publishingId);
+              }
+            }
+
+            @Override
+            public void handle(byte publisherId, long[] publishingIds) {
+              // the producer is looked up once for the whole frame
+              ProducerTracker producerTracker = producers.get(publisherId);
+              if (producerTracker == null) {
+                LOGGER.info("Received publish confirm for unknown producer: {}", publisherId);
+              } else {
+                producerTracker.producer.confirm(publishingIds);
+              }
             }
           };
       PublishErrorListener publishErrorListener =
@@ -851,6 +867,21 @@ class ProducersCoordinator {
       }
     }
 
+    // producers of the same connection group, e.g. a striped producer, use different connections
+    boolean hasSiblingOf(AgentTracker tracker) {
+      if (tracker instanceof ProducerTracker) {
+        Object group = ((ProducerTracker) tracker).producer.connectionGroup();
+        if (group != null) {
+          for (ProducerTracker producerTracker : this.producers.values()) {
+            if (producerTracker.producer.connectionGroup() == group) {
+              return true;
+            }
+          }
+        }
+      }
+      return false;
+    }
+
     synchronized boolean isEmpty() {
       return producers.isEmpty() && trackingConsumerTrackers.isEmpty();
     }
@@ -62,6 +62,7 @@ import com.rabbitmq.stream.impl.Client.OpenResponse;
 import com.rabbitmq.stream.impl.Client.OutstandingRequest;
 import com.rabbitmq.stream.impl.Client.QueryOffsetResponse;
 import com.rabbitmq.stream.impl.Client.QueryPublisherSequenceResponse;
+import com.rabbitmq.stream.impl.Client.RawChunkListener;
 import com.rabbitmq.stream.impl.Client.Response;
 import com.rabbitmq.stream.impl.Client.SaslAuthenticateResponse;
 import com.rabbitmq.stream.impl.Client.ShutdownContext.ShutdownReason;
@@ -70,21 +71,25 @@ import com.rabbitmq.stream.impl.Client.StreamStatsResponse;
 import com.rabbitmq.stream.impl.Client.SubscriptionOffset;
 import com.rabbitmq.stream.metrics.MetricsCollector;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.timeout.IdleStateHandler;
-import java.io.IOException;
-import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -281,6 +286,13 @@ class ServerFrameHandler {
         if (read != frameSize) {
           LOGGER.warn("Read {} bytes in frame, expecting {}", read, frameSize);
         }
+      } catch (ChunkChecksumValidationException e) {
+        if (ctx == null) {
+          LOGGER.warn("Error while handling response from server", e);
+        } else {
+          // corrupted data, the connection gets closed
+          ctx.pipeline().fireExceptionCaught(e);
+        }
       } catch (Exception e) {
         LOGGER.warn("Error while handling response from server", e);
       } finally {
@@ -300,13 +312,12 @@ class ServerFrameHandler {
       int publishingIdCount = message.readInt();
       read += 4;
       client.metricsCollector.publishConfirm(publishingIdCount);
-      long publishingId;
-      while (publishingIdCount != 0) {
-        publishingId = message.readLong();
-        read += 8;
-        client.publishConfirmListener.handle(publisherId, publishingId);
-        publishingIdCount--;
+      long[] publishingIds = new long[publishingIdCount];
+      for (int i = 0; i < publishingIdCount; i++) {
+        publishingIds[i] = message.readLong();
       }
+      read += 8 * publishingIdCount;
+      client.publishConfirmListener.handle(publisherId, publishingIds);
       return read;
     }
   }
@@ -355,16 +366,16 @@ class ServerFrameHandler {
         byte subscriptionId) {
       int entrySize = bb.readInt();
       read += 4;
-      byte[] data = new byte[entrySize];
-      bb.readBytes(data);
-      read += entrySize;
 
       if (filter && Long.compareUnsigned(offset, offsetLimit) < 0) {
         messageFiltered.set(true);
       } else {
-        Message message = codec.decode(data);
+        // decoding from a view of the chunk, no need to copy the message in an array
+        Message message = codec.decode(bb.nioBuffer(bb.readerIndex(), entrySize));
         messageListener.handle(subscriptionId, offset, chunkTimestamp, committedChunkId, message);
       }
+      bb.skipBytes(entrySize);
+      read += entrySize;
       return read;
     }
 
@@ -373,6 +384,7 @@ class ServerFrameHandler {
         Client client,
         ChunkListener chunkListener,
         MessageListener messageListener,
+        RawChunkListener rawChunkListener,
         Codec codec,
         List<SubscriptionOffset> subscriptionOffsets,
         ChunkChecksum chunkChecksum,
@@ -382,6 +394,7 @@ class ServerFrameHandler {
           client,
           chunkListener,
           messageListener,
+          rawChunkListener,
           codec,
           subscriptionOffsets,
           chunkChecksum,
@@ -397,6 +410,7 @@ class ServerFrameHandler {
         Client client,
         ChunkListener chunkListener,
         MessageListener messageListener,
+        RawChunkListener rawChunkListener,
         Codec codec,
         List<SubscriptionOffset> subscriptionOffsets,
         ChunkChecksum chunkChecksum,
@@ -436,7 +450,7 @@ class ServerFrameHandler {
       read += 4;
       long chunkTimestamp = message.readLong(); // timestamp
       read += 8;
-      message.readLong(); // epoch, unsigned long
+      long epoch = message.readLong(); // unsigned long
       read += 8;
       long offset = message.readLong(); // unsigned long
       read += 8;
@@ -451,6 +465,63 @@ class ServerFrameHandler {
 
       chunkListener.handle(client, subscriptionId, offset, numRecords, dataLength);
 
+      try {
+        long offsetLimit = offsetLimit(subscriptionOffsets, subscriptionId);
+
+        try {
+          chunkChecksum.checksum(message, dataLength, crc);
+        } catch (ChunkChecksumValidationException e) {
+          LOGGER.warn(
+              "Checksum failure at offset {}, expecting {}, got {}",
+              offset,
+              e.getExpected(),
+              e.getComputed());
+          throw e;
+        }
+
+        metricsCollector.chunk(numEntries);
+
+        DeliveredChunk chunk =
+            new DeliveredChunk(
+                message,
+                message.readerIndex(),
+                (int) dataLength,
+                offset,
+                chunkTimestamp,
+                epoch,
+                numEntries,
+                numRecords,
+                crc,
+                client == null ? null : client.compressionCodecFactory);
+        if (rawChunkListener.handle(client, subscriptionId, committedOffset, chunk)) {
+          message.skipBytes((int) dataLength);
+          metricsCollector.consume(numRecords);
+          return read + (int) dataLength;
+        }
+
+        ChunkEntries entries =
+            new ChunkEntries(
+                client,
+                messageListener,
+                codec,
+                subscriptionId,
+                committedOffset,
+                chunkTimestamp,
+                offset,
+                numRecords,
+                offsetLimit,
+                client == null
+                    ? null
+                    : client.decompressionExecutorResolver.executor(subscriptionId));
+        read = entries.read(message, read);
+        metricsCollector.consume(entries.messagesRead());
+        return read;
+      } finally {
+        chunkListener.chunkProcessed(client, subscriptionId, offset, numRecords, dataLength);
+      }
+    }
+
+    static long offsetLimit(List<SubscriptionOffset> subscriptionOffsets, byte subscriptionId) {
       long offsetLimit = -1;
       if (!subscriptionOffsets.isEmpty()) {
         for (SubscriptionOffset subscriptionOffset : subscriptionOffsets) {
@@ -461,103 +532,154 @@ class ServerFrameHandler {
           }
         }
       }
+      return offsetLimit;
+    }
 
-      final boolean filter = offsetLimit != -1;
+    /**
+     * Reads and dispatches the entries of a chunk.
+     *
+     * <p>The entries can be read in several passes, as long as each pass contains only complete
+     * entries. This is what allows chunks to be dispatched as they arrive.
+     *
+     * <p>With a decompression executor, the compressed sub-entries of a pass are decompressed in
+     * parallel on the executor, while the dispatching thread decompresses the first one and hands
+     * out the messages in offset order. Only a few sub-entries ahead of the dispatching position
+     * are submitted at a time, their destination buffer is allocated on submission.
+     */
+    static final class ChunkEntries {
+
+      // number of compressed sub-entries decompressed ahead of the dispatching position
+      static final int DECOMPRESSION_WINDOW = 4;
+
+      private final Client client;
+      private final MessageListener messageListener;
+      private final Codec codec;
+      private final byte subscriptionId;
+      private final long committedOffset;
+      private final long chunkTimestamp;
+      private final long offsetLimit;
+      private final boolean filter;
+      private final AtomicBoolean messageFiltered = new AtomicBoolean(false);
+      private final Executor decompressionExecutor;
+      private final Deque<CompressedSubEntry> compressedSubEntries;
+      private long offset;
+      private long numRecords;
+      private long messagesRead = 0;
+
+      ChunkEntries(
+          Client client,
+          MessageListener messageListener,
+          Codec codec,
+          byte subscriptionId,
+          long committedOffset,
+          long chunkTimestamp,
+          long offset,
+          long numRecords,
+          long offsetLimit,
+          Executor decompressionExecutor) {
+        this.client = client;
+        this.messageListener = messageListener;
+        this.codec = codec;
+        this.subscriptionId = subscriptionId;
+        this.committedOffset = committedOffset;
+        this.chunkTimestamp = chunkTimestamp;
+        this.offset = offset;
+        this.numRecords = numRecords;
+        this.offsetLimit = offsetLimit;
+        this.filter = offsetLimit != -1;
+        this.decompressionExecutor = decompressionExecutor;
+        this.compressedSubEntries = decompressionExecutor == null ? null : new ArrayDeque<>();
+      }
 
-      try {
-        // TODO handle exception in exception handler
-        chunkChecksum.checksum(message, dataLength, crc);
-      } catch (ChunkChecksumValidationException e) {
-        LOGGER.warn(
-            "Checksum failure at offset {}, expecting {}, got {}",
-            offset,
-            e.getExpected(),
-            e.getComputed());
-        throw e;
+      int read(ByteBuf message, int read) {
+        if (this.decompressionExecutor != null) {
+          submitDecompressions(message);
+        }
+        try {
+          return doRead(message, read);
+        } finally {
+          if (this.compressedSubEntries != null) {
+            CompressedSubEntry subEntry;
+            while ((subEntry = this.compressedSubEntries.poll()) != null) {
+              subEntry.discard();
+            }
+          }
+        }
       }
 
-      metricsCollector.chunk(numEntries);
-      long messagesRead = 0;
-      AtomicBoolean messageFiltered = new AtomicBoolean(false);
-
-      while (numRecords != 0) {
-        byte entryType = message.readByte();
-        if ((entryType & 0x80) == 0) {
-          /*
-          %%   <<0=SimpleEntryType:1,
-          %%     Size:31/unsigned,
-          %%     Data:Size/binary>>
-           */
-          message.readerIndex(message.readerIndex() - 1);
-          read =
-              handleMessage(
-                  message,
-                  read,
-                  filter,
-                  messageFiltered,
-                  offset,
-                  offsetLimit,
-                  chunkTimestamp,
-                  committedOffset,
-                  codec,
-                  messageListener,
-                  subscriptionId);
-          if (messageFiltered.get()) {
-            messageFiltered.set(false);
+      /**
+       * Scans the entries of the pass for their compressed sub-entries and submits the first ones
+       * to the executor.
+       *
+       * <p>The reader index of the buffer does not change, the entries are then read as usual.
+       */
+      private void submitDecompressions(ByteBuf message) {
+        int index = message.readerIndex();
+        int end = message.writerIndex();
+        long records = this.numRecords;
+        while (records != 0 && index < end) {
+          byte entryType = message.getByte(index);
+          if ((entryType & 0x80) == 0) {
+            index += 4 + message.getInt(index);
+            records--;
           } else {
-            messagesRead++;
-          }
-          numRecords--;
-          offset++; // works even for unsigned long
-        } else {
-          /*
-          %%   |0              |1              |2              |3              | Bytes
-          %%   |0 1 2 3 4 5 6 7|0 1 2 3 4 5 6 7|0 1 2 3 4 5 6 7|0 1 2 3 4 5 6 7| Bits
-          %%   +-+-----+-------+---------------+---------------+---------------+
-          %%   |1| Cmp | Rsvd  | Number of records             | Length  (...) |
-          %%   +-+-----+-------+-------------------------------+---------------+
-          %%   | Length                                        | Body          |
-          %%   +-+---------------------------------------------+               +
-          %%   | Body                                                          |
-          %%   :                                                               :
-          %%   +---------------------------------------------------------------+
-                     */
-          byte compression = (byte) ((entryType & 0x70) >> 4);
-          read++;
-          Compression comp = Compression.get(compression);
-          int numRecordsInBatch = message.readUnsignedShort();
-          read += 2;
-          int uncompressedDataSize = message.readInt();
-          read += 4;
-          int dataSize = message.readInt();
-          read += 4;
-
-          int readBeforeSubEntries = read;
-          ByteBuf bbToReadFrom = message;
-          if (comp.code() != Compression.NONE.code()) {
-            CompressionCodec compressionCodec = client.compressionCodecFactory.get(comp);
-            ByteBuf outBb = client.channel.alloc().heapBuffer(uncompressedDataSize);
-            ByteBuf slice = message.slice(message.readerIndex(), dataSize);
-            InputStream inputStream = compressionCodec.decompress(new ByteBufInputStream(slice));
-            byte[] inBuffer = new byte[uncompressedDataSize < 1024 ? uncompressedDataSize : 1024];
-            int n;
-            try {
-              while (-1 != (n = inputStream.read(inBuffer))) {
-                outBb.writeBytes(inBuffer, 0, n);
-              }
-            } catch (IOException e) {
-              throw new StreamException("Error while uncompressing sub-entry", e);
+            Compression comp = Compression.get((byte) ((entryType & 0x70) >> 4));
+            int numRecordsInBatch = message.getUnsignedShort(index + 1);
+            int uncompressedDataSize = message.getInt(index + 3);
+            int dataSize = message.getInt(index + 7);
+            int dataIndex = index + 11;
+            if (comp.code() != Compression.NONE.code()) {
+              this.compressedSubEntries.add(
+                  compressedSubEntry(message, comp, dataIndex, dataSize, uncompressedDataSize));
             }
-            message.readerIndex(message.readerIndex() + dataSize);
-            bbToReadFrom = outBb;
+            index = dataIndex + dataSize;
+            records -= numRecordsInBatch;
+          }
+        }
+        // the dispatching thread decompresses the first one, it would wait for it anyway
+        submitAhead(1);
+      }
+
+      /**
+       * Submits the sub-entries of the window that are not submitted yet, skipping the first ones.
+       */
+      private void submitAhead(int skip) {
+        int position = 0;
+        for (CompressedSubEntry subEntry : this.compressedSubEntries) {
+          if (position == DECOMPRESSION_WINDOW + skip) {
+            break;
+          }
+          if (position >= skip && !subEntry.submitted()) {
+            subEntry.submit(this.decompressionExecutor);
           }
+          position++;
+        }
+      }
 
-          numRecords -= numRecordsInBatch;
+      private CompressedSubEntry compressedSubEntry(
+          ByteBuf message, Compression compression, int index, int size, int uncompressedSize) {
+        CompressionCodec compressionCodec = client.compressionCodecFactory.get(compression);
+        return new CompressedSubEntry(
+            compressionCodec,
+            message.slice(index, size),
+            client.channel.alloc(),
+            message.isDirect(),
+            uncompressedSize);
+      }
 
-          while (numRecordsInBatch != 0) {
+      private int doRead(ByteBuf message, int read) {
+        while (numRecords != 0 && message.isReadable()) {
+          byte entryType = message.readByte();
+          if ((entryType & 0x80) == 0) {
+            /*
+            %%   <<0=SimpleEntryType:1,
+            %%     Size:31/unsigned,
+            %%     Data:Size/binary>>
+             */
+            message.readerIndex(message.readerIndex() - 1);
             read =
                 handleMessage(
-                    bbToReadFrom,
+                    message,
                     read,
                     filter,
                     messageFiltered,
@@ -573,19 +695,172 @@ class ServerFrameHandler {
             } else {
               messagesRead++;
             }
-            numRecordsInBatch--;
+            numRecords--;
             offset++; // works even for unsigned long
+          } else {
+            /*
+            %%   |0              |1              |2              |3              | Bytes
+            %%   |0 1 2 3 4 5 6 7|0 1 2 3 4 5 6 7|0 1 2 3 4 5 6 7|0 1 2 3 4 5 6 7| Bits
+            %%   +-+-----+-------+---------------+---------------+---------------+
+            %%   |1| Cmp | Rsvd  | Number of records             | Length  (...) |
+            %%   +-+-----+-------+-------------------------------+---------------+
+            %%   | Length                                        | Body          |
+            %%   +-+---------------------------------------------+               +
+            %%   | Body                                                          |
+            %%   :                                                               :
+            %%   +---------------------------------------------------------------+
+                       */
+            byte compression = (byte) ((entryType & 0x70) >> 4);
+            read++;
+            Compression comp = Compression.get(compression);
+            int numRecordsInBatch = message.readUnsignedShort();
+            read += 2;
+            int uncompressedDataSize = message.readInt();
+            read += 4;
+            int dataSize = message.readInt();
+            read += 4;
+
+            int readBeforeSubEntries = read;
+            ByteBuf bbToReadFrom = message;
+            if (comp.code() != Compression.NONE.code()) {
+              CompressedSubEntry subEntry =
+                  this.compressedSubEntries == null
+                      ? compressedSubEntry(
+                          message, comp, message.readerIndex(), dataSize, uncompressedDataSize)
+                      : this.compressedSubEntries.poll();
+              if (this.compressedSubEntries != null) {
+                // keeps the executor busy while this sub-entry is dispatched
+                submitAhead(0);
+              }
+              bbToReadFrom = subEntry.get();
+              message.readerIndex(message.readerIndex() + dataSize);
+            }
+
+            numRecords -= numRecordsInBatch;
+
+            while (numRecordsInBatch != 0) {
+              read =
+                  handleMessage(
+                      bbToReadFrom,
+                      read,
+                      filter,
+                      messageFiltered,
+                      offset,
+                      offsetLimit,
+                      chunkTimestamp,
+                      committedOffset,
+                      codec,
+                      messageListener,
+                      subscriptionId);
+              if (messageFiltered.get()) {
+                messageFiltered.set(false);
+              } else {
+                messagesRead++;
+              }
+              numRecordsInBatch--;
+              offset++; // works even for unsigned long
+            }
+
+            if (comp.code() != Compression.NONE.code()) {
+              bbToReadFrom.release();
+              // to avoid a warning, we read more from what it's inside the frame with compression
+              read = readBeforeSubEntries + dataSize;
+            }
           }
+        }
+        return read;
+      }
 
-          if (comp.code() != Compression.NONE.code()) {
-            bbToReadFrom.release();
-            // to avoid a warning, we read more from what it's inside the frame with compression
-            read = readBeforeSubEntries + dataSize;
+      long messagesRead() {
+        return this.messagesRead;
+      }
+
+      private static final class CompressedSubEntry {
+
+        private final CompressionCodec codec;
+        private final ByteBuf source;
+        private final ByteBufAllocator allocator;
+        private final boolean direct;
+        private final int uncompressedSize;
+        // allocated when the decompression starts
+        private ByteBuf destination;
+        private boolean submitted = false;
+        private CompletableFuture<Void> decompression;
+
+        private CompressedSubEntry(
+            CompressionCodec codec,
+            ByteBuf source,
+            ByteBufAllocator allocator,
+            boolean direct,
+            int uncompressedSize) {
+          this.codec = codec;
+          this.source = source;
+          this.allocator = allocator;
+          this.direct = direct;
+          this.uncompressedSize = uncompressedSize;
+        }
+
+        private boolean submitted() {
+          return this.submitted;
+        }
+
+        private void submit(Executor executor) {
+          this.submitted = true;
+          allocate();
+          try {
+            this.decompression = CompletableFuture.runAsync(this::decompress, executor);
+          } catch (RejectedExecutionException e) {
+            // decompressed on the dispatching thread when its turn comes
+          }
+        }
+
+        private void allocate() {
+          // same kind of buffer as the frame, so codecs can decompress in one block
+          this.destination =
+              this.direct
+                  ? this.allocator.directBuffer(this.uncompressedSize)
+                  : this.allocator.heapBuffer(this.uncompressedSize);
+        }
+
+        private void decompress() {
+          this.codec.decompress(this.source, this.destination, this.uncompressedSize);
+        }
+
+        /** Returns the decompressed sub-entry, waiting for it if necessary. */
+        private ByteBuf get() {
+          if (this.destination == null) {
+            allocate();
+          }
+          try {
+            if (this.decompression == null) {
+              decompress();
+            } else {
+              this.decompression.join();
+            }
+          } catch (CompletionException e) {
+            this.destination.release();
+            throw new StreamException("Error while uncompressing sub-entry", e.getCause());
+          } catch (RuntimeException e) {
+            this.destination.release();
+            throw new StreamException("Error while uncompressing sub-entry", e);
+          }
+          return this.destination;
+        }
+
+        /** Releases a sub-entry that will not be read, once its decompression is over. */
+        private void discard() {
+          if (this.decompression != null) {
+            try {
+              this.decompression.join();
+            } catch (RuntimeException e) {
+              // ignored, the sub-entry is not read anyway
+            }
+          }
+          if (this.destination != null) {
+            this.destination.release();
           }
         }
       }
-      metricsCollector.consume(messagesRead);
-      return read;
     }
 
     @Override
@@ -595,6 +870,7 @@ class ServerFrameHandler {
           client,
           client.chunkListener,
           client.messageListener,
+          client.rawChunkListener,
           client.codec,
           client.subscriptionOffsets,
           client.chunkChecksum,
@@ -616,6 +892,7 @@ class ServerFrameHandler {
           client,
           client.chunkListener,
           client.messageListener,
+          client.rawChunkListener,
           client.codec,
           client.subscriptionOffsets,
           client.chunkChecksum,
@@ -673,7 +950,7 @@ class ServerFrameHandler {
           .addListener(
               future -> {
                 if (client.closing.compareAndSet(false, true)) {
-                  client.executorService.submit(
+                  client.dispatcher.dispatchBlocking(
                       () -> client.closingSequence(ShutdownReason.SERVER_CLOSE));
                 }
               });
@@ -18,28 +18,41 @@ import com.rabbitmq.stream.ConfirmationHandler;
 import com.rabbitmq.stream.ConfirmationStatus;
 import com.rabbitmq.stream.Message;
 import com.rabbitmq.stream.StreamException;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.ToLongFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 class SimpleMessageAccumulator implements MessageAccumulator {
 
-  protected final BlockingQueue<AccumulatedEntity> messages;
+  private static final Logger LOGGER = LoggerFactory.getLogger(SimpleMessageAccumulator.class);
+
+  private static final long OFFER_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(60);
+  private static final long OFFER_RETRY_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+  // several threads add, the producer lock serializes the reads
+  protected final MpscArrayQueue<AccumulatedEntity> messages;
   protected final Clock clock;
   private final int capacity;
   private final Codec codec;
   private final int maxFrameSize;
   private final ToLongFunction<Message> publishSequenceFunction;
+  // 0 when the accumulated bytes are not tracked
+  private final long maxBytes;
+  private final AtomicLong bytes = new AtomicLong(0);
 
   SimpleMessageAccumulator(
       int capacity,
       Codec codec,
       int maxFrameSize,
       ToLongFunction<Message> publishSequenceFunction,
-      Clock clock) {
+      Clock clock,
+      long maxBytes) {
     this.capacity = capacity;
-    this.messages = new LinkedBlockingQueue<>(capacity);
+    this.maxBytes = maxBytes;
+    this.messages = new MpscArrayQueue<>(capacity);
     this.codec = codec;
     this.maxFrameSize = maxFrameSize;
     this.publishSequenceFunction = publishSequenceFunction;
@@ -47,31 +60,63 @@ class SimpleMessageAccumulator implements MessageAccumulator {
   }
 
   public boolean add(Message message, ConfirmationHandler confirmationHandler) {
+    return add(entity(message, confirmationHandler));
+  }
+
+  @Override
+  public boolean add(AccumulatedEntity entity) {
+    if (!this.messages.offer(entity)) {
+      // full, the thread that filled the accumulator is publishing its content
+      long deadline = System.nanoTime() + OFFER_TIMEOUT_NANOS;
+      do {
+        if (Thread.interrupted()) {
+          throw new StreamException(
+              "Error while accumulating outbound message", new InterruptedException());
+        }
+        if (System.nanoTime() - deadline > 0) {
+          throw new StreamException("Could not accumulate outbound message");
+        }
+        LockSupport.parkNanos(OFFER_RETRY_PARK_NANOS);
+      } while (!this.messages.offer(entity));
+    }
+    if (this.maxBytes > 0 && this.bytes.addAndGet(entity.encodedSize()) >= this.maxBytes) {
+      return true;
+    }
+    return this.messages.size() >= this.capacity;
+  }
+
+  /** Encode the message and assign its publishing ID, without enqueueing it. */
+  @Override
+  public AccumulatedEntity entity(Message message, ConfirmationHandler confirmationHandler) {
     Codec.EncodedMessage encodedMessage = this.codec.encode(message);
     Client.checkMessageFitsInFrame(this.maxFrameSize, encodedMessage);
     long publishingId = this.publishSequenceFunction.applyAsLong(message);
-    try {
-      boolean offered =
-          messages.offer(
-              new SimpleAccumulatedEntity(
-                  clock.time(),
-                  publishingId,
-                  encodedMessage,
-                  new SimpleConfirmationCallback(message, confirmationHandler)),
-              60,
-              TimeUnit.SECONDS);
-      if (!offered) {
-        throw new StreamException("Could not accumulate outbound message");
-      }
-    } catch (InterruptedException e) {
-      throw new StreamException("Error while accumulating outbound message", e);
-    }
-    return this.messages.size() == this.capacity;
+    return new SimpleAccumulatedEntity(
+        clock.time(), publishingId, encodedMessage, message, confirmationHandler);
+  }
+
+  /** Entity for an already encoded message, with its publishing ID already assigned. */
+  @Override
+  public AccumulatedEntity entity(
+      long publishingId,
+      Codec.EncodedMessage encodedMessage,
+      Message message,
+      ConfirmationHandler confirmationHandler) {
+    return new SimpleAccumulatedEntity(
+        clock.time(), publishingId, encodedMessage, message, confirmationHandler);
   }
 
   @Override
   public AccumulatedEntity get() {
-    return this.messages.poll();
+    return poll();
+  }
+
+  protected AccumulatedEntity poll() {
+    AccumulatedEntity entity = this.messages.poll();
+    if (entity != null && this.maxBytes > 0) {
+      this.bytes.addAndGet(-entity.encodedSize());
+    }
+    return entity;
   }
 
   @Override
@@ -84,22 +129,27 @@ class SimpleMessageAccumulator implements MessageAccumulator {
     return messages.size();
   }
 
-  private static final class SimpleAccumulatedEntity implements AccumulatedEntity {
+  // the entity is its own confirmation callback, to allocate one object per message
+  private static final class SimpleAccumulatedEntity
+      implements AccumulatedEntity, StreamProducer.ConfirmationCallback {
 
     private final long time;
     private final long publishingId;
     private final Codec.EncodedMessage encodedMessage;
-    private final StreamProducer.ConfirmationCallback confirmationCallback;
+    private final Message message;
+    private final ConfirmationHandler confirmationHandler;
 
     private SimpleAccumulatedEntity(
         long time,
         long publishingId,
         Codec.EncodedMessage encodedMessage,
-        StreamProducer.ConfirmationCallback confirmationCallback) {
+        Message message,
+        ConfirmationHandler confirmationHandler) {
       this.time = time;
       this.publishingId = publishingId;
       this.encodedMessage = encodedMessage;
-      this.confirmationCallback = confirmationCallback;
+      this.message = message;
+      this.confirmationHandler = confirmationHandler;
     }
 
     @Override
@@ -112,6 +162,11 @@ class SimpleMessageAccumulator implements MessageAccumulator {
       return encodedMessage;
     }
 
+    @Override
+    public int encodedSize() {
+      return encodedMessage.getSize();
+    }
+
     @Override
     public long time() {
       return time;
@@ -119,24 +174,19 @@ class SimpleMessageAccumulator implements MessageAccumulator {
 
     @Override
     public StreamProducer.ConfirmationCallback confirmationCallback() {
-      return confirmationCallback;
-    }
-  }
-
-  private static final class SimpleConfirmationCallback
-      implements StreamProducer.ConfirmationCallback {
-
-    private final Message message;
-    private final ConfirmationHandler confirmationHandler;
-
-    private SimpleConfirmationCallback(Message message, ConfirmationHandler confirmationHandler) {
-      this.message = message;
-      this.confirmationHandler = confirmationHandler;
+      return this;
     }
 
     @Override
     public int handle(boolean confirmed, short code) {
-      confirmationHandler.handle(new ConfirmationStatus(message, confirmed, code));
+      if (confirmationHandler != StreamProducer.NO_OP_CONFIRMATION_HANDLER) {
+        // a failing handler must not prevent the accounting of the message and the next handlers
+        try {
+          confirmationHandler.handle(new ConfirmationStatus(message, confirmed, code));
+        } catch (Exception e) {
+          LOGGER.warn("Error in confirmation handler", e);
+        }
+      }
       return 1;
     }
   }
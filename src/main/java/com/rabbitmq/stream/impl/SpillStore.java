@@ -0,0 +1,315 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import static com.rabbitmq.stream.Constants.CODE_PRODUCER_CLOSED;
+
+import com.rabbitmq.stream.Codec;
+import com.rabbitmq.stream.ConfirmationHandler;
+import com.rabbitmq.stream.ConfirmationStatus;
+import com.rabbitmq.stream.Message;
+import com.rabbitmq.stream.StreamException;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local store for the messages sent while a producer is not available.
+ *
+ * <p>Messages are appended to memory-mapped segment files and read back in the same order. A
+ * segment file is deleted once all its messages have been read. Each record is the publishing ID (8
+ * bytes), the size of the encoded message (4 bytes), and the encoded message.
+ *
+ * <p>Only the confirmation handlers of the messages stay on the heap, in the same order as the
+ * records. The message of a handler is decoded from its record when the message is read back or
+ * failed, it is not the original instance.
+ *
+ * <p>The store does not survive the producer: the segment files are deleted on closing and the
+ * handlers of the remaining messages are notified of the failure.
+ */
+final class SpillStore implements AutoCloseable {
+
+  static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+  private static final int RECORD_HEADER_SIZE = 8 + 4;
+  private static final Logger LOGGER = LoggerFactory.getLogger(SpillStore.class);
+
+  private final Path directory;
+  private final String prefix;
+  private final Codec codec;
+  private final int segmentSize;
+  private final int maxSegments;
+  private final Deque<Segment> segments = new ArrayDeque<>();
+  private final Deque<ConfirmationHandler> confirmationHandlers = new ArrayDeque<>();
+  private long segmentSequence = 0;
+  private long count = 0;
+  private boolean closed = false;
+
+  SpillStore(Path directory, String prefix, Codec codec, long maxSize, int segmentSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("The maximum spill size must be positive");
+    }
+    this.directory = directory;
+    this.prefix = prefix;
+    this.codec = codec;
+    this.segmentSize = (int) Math.min(segmentSize, maxSize);
+    this.maxSegments = (int) Math.max(1, maxSize / this.segmentSize);
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new StreamException("Error while creating spill directory " + directory, e);
+    }
+  }
+
+  /**
+   * Append a message to the store.
+   *
+   * @return false if the store is full, closed, or if the message does not fit in a segment
+   */
+  boolean append(long publishingId, Codec.EncodedMessage encodedMessage) {
+    return append(publishingId, encodedMessage, StreamProducer.NO_OP_CONFIRMATION_HANDLER);
+  }
+
+  /**
+   * Append a message and its confirmation handler to the store.
+   *
+   * @return false if the store is full, closed, or if the message does not fit in a segment
+   */
+  synchronized boolean append(
+      long publishingId,
+      Codec.EncodedMessage encodedMessage,
+      ConfirmationHandler confirmationHandler) {
+    int recordSize = RECORD_HEADER_SIZE + encodedMessage.getSize();
+    if (this.closed || recordSize > this.segmentSize) {
+      return false;
+    }
+    Segment segment = this.segments.peekLast();
+    if (segment == null || segment.remaining() < recordSize) {
+      if (this.segments.size() == this.maxSegments) {
+        return false;
+      }
+      segment = newSegment();
+      this.segments.addLast(segment);
+    }
+    MappedByteBuffer buffer = segment.buffer;
+    buffer.position(segment.writePosition);
+    buffer.putLong(publishingId);
+    buffer.putInt(encodedMessage.getSize());
+    encodedMessage.write(Unpooled.wrappedBuffer(buffer.slice()).writerIndex(0));
+    segment.writePosition += recordSize;
+    this.confirmationHandlers.addLast(confirmationHandler);
+    this.count++;
+    return true;
+  }
+
+  /**
+   * Size of the encoded message {@link #poll()} would return.
+   *
+   * @return the size of the next encoded message, or -1 if the store is empty
+   */
+  synchronized int peekSize() {
+    for (Segment segment : this.segments) {
+      if (segment.readPosition < segment.writePosition) {
+        return segment.buffer.getInt(segment.readPosition + 8);
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Read the next message of the store.
+   *
+   * <p>The message is decoded only if it has a confirmation handler.
+   *
+   * @return the next message, or null if the store is empty
+   */
+  synchronized SpilledMessage poll() {
+    Segment segment = this.segments.peekFirst();
+    while (segment != null && segment.readPosition == segment.writePosition) {
+      if (segment == this.segments.peekLast()) {
+        // reuse the last segment from the beginning
+        segment.readPosition = 0;
+        segment.writePosition = 0;
+        return null;
+      }
+      this.segments.pollFirst();
+      segment.delete();
+      segment = this.segments.peekFirst();
+    }
+    if (segment == null) {
+      return null;
+    }
+    MappedByteBuffer buffer = segment.buffer;
+    buffer.position(segment.readPosition);
+    long publishingId = buffer.getLong();
+    int size = buffer.getInt();
+    byte[] data = new byte[size];
+    buffer.get(data);
+    segment.readPosition += RECORD_HEADER_SIZE + size;
+    this.count--;
+    ConfirmationHandler confirmationHandler = this.confirmationHandlers.pollFirst();
+    return new SpilledMessage(
+        publishingId,
+        new Codec.EncodedMessage(size, data),
+        confirmationHandler == StreamProducer.NO_OP_CONFIRMATION_HANDLER
+            ? null
+            : this.codec.decode(data),
+        confirmationHandler);
+  }
+
+  synchronized long size() {
+    return this.count;
+  }
+
+  synchronized boolean isEmpty() {
+    return this.count == 0;
+  }
+
+  @Override
+  public void close() {
+    close(CODE_PRODUCER_CLOSED);
+  }
+
+  /**
+   * Delete the segments and fail the remaining messages.
+   *
+   * @param code the code for the confirmation handlers of the remaining messages
+   */
+  void close(short code) {
+    List<ConfirmationHandler> handlers = new ArrayList<>();
+    List<ConfirmationStatus> statuses = new ArrayList<>();
+    synchronized (this) {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+      if (this.count > 0) {
+        LOGGER.info("Failing {} spilled message(s) from {}", this.count, this.directory);
+      }
+      // the messages of the handlers are decoded before the segments are deleted
+      for (Segment segment : this.segments) {
+        MappedByteBuffer buffer = segment.buffer;
+        buffer.position(segment.readPosition);
+        while (buffer.position() < segment.writePosition) {
+          buffer.getLong();
+          byte[] data = new byte[buffer.getInt()];
+          buffer.get(data);
+          ConfirmationHandler confirmationHandler = this.confirmationHandlers.pollFirst();
+          if (confirmationHandler != StreamProducer.NO_OP_CONFIRMATION_HANDLER) {
+            handlers.add(confirmationHandler);
+            statuses.add(new ConfirmationStatus(this.codec.decode(data), false, code));
+          }
+        }
+      }
+      this.segments.forEach(Segment::delete);
+      this.segments.clear();
+      this.confirmationHandlers.clear();
+      this.count = 0;
+    }
+    // handlers are called outside of the lock
+    for (int i = 0; i < handlers.size(); i++) {
+      try {
+        handlers.get(i).handle(statuses.get(i));
+      } catch (Exception e) {
+        LOGGER.warn("Error in confirmation handler of spilled message", e);
+      }
+    }
+  }
+
+  private Segment newSegment() {
+    Path file = this.directory.resolve(this.prefix + "-" + this.segmentSequence++ + ".spill");
+    try (FileChannel channel =
+        FileChannel.open(
+            file,
+            StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+      // the mapping stays valid after the channel is closed
+      return new Segment(file, channel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentSize));
+    } catch (IOException e) {
+      throw new StreamException("Error while creating spill segment " + file, e);
+    }
+  }
+
+  static final class SpilledMessage {
+
+    private final long publishingId;
+    private final Codec.EncodedMessage encodedMessage;
+    private final Message message;
+    private final ConfirmationHandler confirmationHandler;
+
+    private SpilledMessage(
+        long publishingId,
+        Codec.EncodedMessage encodedMessage,
+        Message message,
+        ConfirmationHandler confirmationHandler) {
+      this.publishingId = publishingId;
+      this.encodedMessage = encodedMessage;
+      this.message = message;
+      this.confirmationHandler = confirmationHandler;
+    }
+
+    long publishingId() {
+      return this.publishingId;
+    }
+
+    Codec.EncodedMessage encodedMessage() {
+      return this.encodedMessage;
+    }
+
+    Message message() {
+      return this.message;
+    }
+
+    ConfirmationHandler confirmationHandler() {
+      return this.confirmationHandler;
+    }
+  }
+
+  private static final class Segment {
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private int writePosition = 0;
+    private int readPosition = 0;
+
+    private Segment(Path file, MappedByteBuffer buffer) {
+      this.file = file;
+      this.buffer = buffer;
+    }
+
+    private int remaining() {
+      return this.buffer.capacity() - this.writePosition;
+    }
+
+    private void delete() {
+      try {
+        Files.deleteIfExists(this.file);
+      } catch (IOException e) {
+        // some platforms do not delete files that are still mapped
+        LOGGER.debug("Could not delete spill segment {}: {}", this.file, e.getMessage());
+        this.file.toFile().deleteOnExit();
+      }
+    }
+  }
+}
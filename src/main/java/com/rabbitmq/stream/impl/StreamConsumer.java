@@ -18,8 +18,10 @@ import static com.rabbitmq.stream.impl.AsyncRetry.asyncRetry;
 import static com.rabbitmq.stream.impl.Utils.offsetBefore;
 import static java.time.Duration.ofMillis;
 
+import com.rabbitmq.stream.ChunkHandler;
 import com.rabbitmq.stream.Constants;
 import com.rabbitmq.stream.Consumer;
+import com.rabbitmq.stream.ConsumerFlowStrategy;
 import com.rabbitmq.stream.ConsumerUpdateListener;
 import com.rabbitmq.stream.MessageHandler;
 import com.rabbitmq.stream.MessageHandler.Context;
@@ -36,6 +38,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -69,11 +72,14 @@ class StreamConsumer implements Consumer {
   private volatile boolean sacActive;
   private final boolean sac;
   private final OffsetSpecification initialOffsetSpecification;
+  private final ChunkHandler chunkHandler;
+  private final Executor decompressionExecutor;
 
   StreamConsumer(
       String stream,
       OffsetSpecification offsetSpecification,
       MessageHandler messageHandler,
+      ChunkHandler chunkHandler,
       String name,
       StreamEnvironment environment,
       TrackingConfiguration trackingConfiguration,
@@ -81,8 +87,8 @@ class StreamConsumer implements Consumer {
       SubscriptionListener subscriptionListener,
       Map<String, String> subscriptionProperties,
       ConsumerUpdateListener consumerUpdateListener,
-      int initialCredits,
-      int additionalCredits) {
+      ConsumerFlowStrategy flowStrategy,
+      Executor decompressionExecutor) {
 
     this.id = ID_SEQUENCE.getAndIncrement();
     Runnable trackingClosingCallback;
@@ -90,6 +96,7 @@ class StreamConsumer implements Consumer {
       this.name = name;
       this.stream = stream;
       this.environment = environment;
+      this.decompressionExecutor = decompressionExecutor;
       this.initialOffsetSpecification =
           offsetSpecification == null
               ? ConsumersCoordinator.DEFAULT_OFFSET_SPECIFICATION
@@ -235,6 +242,17 @@ class StreamConsumer implements Consumer {
         this.sac = false;
       }
 
+      if (chunkHandler == null) {
+        this.chunkHandler = null;
+      } else {
+        this.chunkHandler =
+            (context, chunk) -> {
+              if (!closed.get() && (!this.sac || this.sacActive)) {
+                chunkHandler.handle(context, chunk);
+              }
+            };
+      }
+
       MessageHandler computedMessageHandler = decoratedMessageHandler.get();
       MessageHandler closedAwareMessageHandler =
           (context, message) -> {
@@ -256,8 +274,7 @@ class StreamConsumer implements Consumer {
                     trackingClosingCallback,
                     closedAwareMessageHandler,
                     Collections.unmodifiableMap(subscriptionProperties),
-                    initialCredits,
-                    additionalCredits);
+                    flowStrategy);
 
             this.status = Status.RUNNING;
           };
@@ -460,6 +477,14 @@ class StreamConsumer implements Consumer {
     }
   }
 
+  ChunkHandler chunkHandler() {
+    return this.chunkHandler;
+  }
+
+  Executor decompressionExecutor() {
+    return this.decompressionExecutor;
+  }
+
   boolean isSac() {
     return this.sac;
   }
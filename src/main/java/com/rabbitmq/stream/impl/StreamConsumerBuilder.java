@@ -13,8 +13,10 @@
 // info@rabbitmq.com.
 package com.rabbitmq.stream.impl;
 
+import com.rabbitmq.stream.ChunkHandler;
 import com.rabbitmq.stream.Consumer;
 import com.rabbitmq.stream.ConsumerBuilder;
+import com.rabbitmq.stream.ConsumerFlowStrategy;
 import com.rabbitmq.stream.ConsumerUpdateListener;
 import com.rabbitmq.stream.MessageHandler;
 import com.rabbitmq.stream.OffsetSpecification;
@@ -25,6 +27,7 @@ import java.lang.reflect.Modifier;
 import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 class StreamConsumerBuilder implements ConsumerBuilder {
 
@@ -34,6 +37,7 @@ class StreamConsumerBuilder implements ConsumerBuilder {
   private String stream, superStream;
   private OffsetSpecification offsetSpecification = null;
   private MessageHandler messageHandler;
+  private ChunkHandler chunkHandler;
   private String name;
   private DefaultAutoTrackingStrategy autoTrackingStrategy;
   private DefaultManualTrackingStrategy manualTrackingStrategy;
@@ -42,8 +46,8 @@ class StreamConsumerBuilder implements ConsumerBuilder {
   private SubscriptionListener subscriptionListener = subscriptionContext -> {};
   private Map<String, String> subscriptionProperties = new ConcurrentHashMap<>();
   private ConsumerUpdateListener consumerUpdateListener;
-  private int initialCredits = 1;
-  private int additionalCredits = 1;
+  private ConsumerFlowStrategy flowStrategy = ConsumerFlowStrategy.creditOnChunkArrival(1, 1);
+  private Executor decompressionExecutor;
 
   public StreamConsumerBuilder(StreamEnvironment environment) {
     this.environment = environment;
@@ -77,6 +81,12 @@ class StreamConsumerBuilder implements ConsumerBuilder {
     return this.messageHandler;
   }
 
+  @Override
+  public ConsumerBuilder chunkHandler(ChunkHandler chunkHandler) {
+    this.chunkHandler = chunkHandler;
+    return this;
+  }
+
   @Override
   public ConsumerBuilder name(String name) {
     if (name == null || name.length() > NAME_MAX_SIZE) {
@@ -137,8 +147,22 @@ class StreamConsumerBuilder implements ConsumerBuilder {
     if (initial <= 0 || onChunkDelivery <= 0) {
       throw new IllegalArgumentException("Credits must be positive");
     }
-    this.initialCredits = initial;
-    this.additionalCredits = onChunkDelivery;
+    this.flowStrategy = ConsumerFlowStrategy.creditOnChunkArrival(initial, onChunkDelivery);
+    return this;
+  }
+
+  @Override
+  public ConsumerBuilder flowStrategy(ConsumerFlowStrategy flowStrategy) {
+    if (flowStrategy == null) {
+      throw new IllegalArgumentException("The flow strategy cannot be null");
+    }
+    this.flowStrategy = flowStrategy;
+    return this;
+  }
+
+  @Override
+  public ConsumerBuilder decompressionExecutor(Executor executor) {
+    this.decompressionExecutor = executor;
     return this;
   }
 
@@ -155,9 +179,22 @@ class StreamConsumerBuilder implements ConsumerBuilder {
     if (this.stream != null && this.superStream != null) {
       throw new IllegalArgumentException("Stream and superStream cannot be set at the same time");
     }
-    if (this.messageHandler == null) {
+    if (this.messageHandler == null && this.chunkHandler == null) {
       throw new IllegalArgumentException("A message handler must be set");
     }
+    if (this.chunkHandler != null) {
+      if (this.messageHandler != null) {
+        throw new IllegalArgumentException(
+            "A message handler and a chunk handler cannot be set at the same time");
+      }
+      if (this.superStream != null) {
+        throw new IllegalArgumentException("A chunk handler cannot be used with a super stream");
+      }
+      if (this.autoTrackingStrategy != null) {
+        throw new IllegalArgumentException(
+            "A chunk handler cannot be used with the automatic tracking strategy");
+      }
+    }
     if (this.name == null
         && !this.noTrackingStrategy
         && (this.autoTrackingStrategy != null || this.manualTrackingStrategy != null)) {
@@ -183,6 +220,10 @@ class StreamConsumerBuilder implements ConsumerBuilder {
               true, false, -1, Duration.ZERO, this.manualTrackingStrategy.checkInterval);
     } else if (this.noTrackingStrategy) {
       trackingConfiguration = DISABLED_TRACKING_CONFIGURATION;
+    } else if (this.name != null && this.chunkHandler != null) {
+      // no automatic tracking with chunks, using manual tracking
+      trackingConfiguration =
+          new TrackingConfiguration(true, false, -1, Duration.ZERO, Duration.ofSeconds(5));
     } else if (this.name != null) {
       // the default tracking strategy
       trackingConfiguration =
@@ -198,6 +239,7 @@ class StreamConsumerBuilder implements ConsumerBuilder {
               this.stream,
               this.offsetSpecification,
               this.messageHandler,
+              this.chunkHandler,
               this.name,
               this.environment,
               trackingConfiguration,
@@ -205,8 +247,8 @@ class StreamConsumerBuilder implements ConsumerBuilder {
               this.subscriptionListener,
               this.subscriptionProperties,
               this.consumerUpdateListener,
-              this.initialCredits,
-              this.additionalCredits);
+              this.flowStrategy,
+              this.decompressionExecutor);
       environment.addConsumer((StreamConsumer) consumer);
     } else {
       if (Utils.isSac(this.subscriptionProperties)) {
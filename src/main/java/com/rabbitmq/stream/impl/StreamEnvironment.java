@@ -24,6 +24,7 @@ import com.rabbitmq.stream.AddressResolver;
 import com.rabbitmq.stream.BackOffDelayPolicy;
 import com.rabbitmq.stream.Codec;
 import com.rabbitmq.stream.ConsumerBuilder;
+import com.rabbitmq.stream.ConsumerFlowStrategy;
 import com.rabbitmq.stream.Environment;
 import com.rabbitmq.stream.MessageHandler;
 import com.rabbitmq.stream.MessageHandler.Context;
@@ -44,7 +45,6 @@ import com.rabbitmq.stream.impl.StreamEnvironmentBuilder.DefaultTlsConfiguration
 import com.rabbitmq.stream.impl.Utils.ClientConnectionType;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import java.io.IOException;
@@ -193,7 +193,7 @@ class StreamEnvironment implements Environment {
     this.addresses.forEach(address -> this.locators.add(new Locator(address)));
 
     if (clientParametersPrototype.eventLoopGroup == null) {
-      this.eventLoopGroup = new NioEventLoopGroup();
+      this.eventLoopGroup = NettyTransports.eventLoopGroup(clientParametersPrototype.transport());
       this.clientParametersPrototype =
           clientParametersPrototype.duplicate().eventLoopGroup(this.eventLoopGroup);
     } else {
@@ -602,6 +602,9 @@ class StreamEnvironment implements Environment {
       }
 
       this.clockRefreshFuture.cancel(false);
+      if (this.clientParametersPrototype.dispatcherPool != null) {
+        this.clientParametersPrototype.dispatcherPool.close();
+      }
       if (privateScheduleExecutorService) {
         this.scheduledExecutorService.shutdownNow();
       }
@@ -642,6 +645,10 @@ class StreamEnvironment implements Environment {
     return this.clientParametersPrototype.compressionCodecFactory;
   }
 
+  OutboundBudget outboundBudget() {
+    return this.clientParametersPrototype.environmentOutboundBudget;
+  }
+
   Runnable registerConsumer(
       StreamConsumer consumer,
       String stream,
@@ -651,8 +658,7 @@ class StreamEnvironment implements Environment {
       Runnable trackingClosingCallback,
       MessageHandler messageHandler,
       Map<String, String> subscriptionProperties,
-      int initialCredits,
-      int additionalCredits) {
+      ConsumerFlowStrategy flowStrategy) {
     Runnable closingCallback =
         this.consumersCoordinator.subscribe(
             consumer,
@@ -663,8 +669,7 @@ class StreamEnvironment implements Environment {
             trackingClosingCallback,
             messageHandler,
             subscriptionProperties,
-            initialCredits,
-            additionalCredits);
+            flowStrategy);
     return closingCallback;
   }
 
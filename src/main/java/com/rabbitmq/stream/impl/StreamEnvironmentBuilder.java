@@ -17,12 +17,17 @@ import static com.rabbitmq.stream.impl.Utils.noOpConsumer;
 
 import com.rabbitmq.stream.AddressResolver;
 import com.rabbitmq.stream.BackOffDelayPolicy;
+import com.rabbitmq.stream.ByteCapacity;
 import com.rabbitmq.stream.ChunkChecksum;
 import com.rabbitmq.stream.Codec;
+import com.rabbitmq.stream.DispatchingMode;
 import com.rabbitmq.stream.Environment;
 import com.rabbitmq.stream.EnvironmentBuilder;
+import com.rabbitmq.stream.FlushPolicy;
+import com.rabbitmq.stream.NettyTransport;
 import com.rabbitmq.stream.StreamException;
 import com.rabbitmq.stream.compression.CompressionCodecFactory;
+import com.rabbitmq.stream.impl.Dispatchers.DispatcherPool;
 import com.rabbitmq.stream.impl.Utils.ClientConnectionType;
 import com.rabbitmq.stream.metrics.MetricsCollector;
 import com.rabbitmq.stream.sasl.CredentialsProvider;
@@ -69,6 +74,9 @@ public class StreamEnvironmentBuilder implements EnvironmentBuilder {
   private CompressionCodecFactory compressionCodecFactory;
   private boolean lazyInit = false;
   private Function<ClientConnectionType, String> connectionNamingStrategy;
+  private int dispatcherPoolSize = Runtime.getRuntime().availableProcessors();
+  private ByteCapacity inboundBudget;
+  private ByteCapacity outboundBudget;
 
   public StreamEnvironmentBuilder() {}
 
@@ -222,6 +230,51 @@ public class StreamEnvironmentBuilder implements EnvironmentBuilder {
     return this;
   }
 
+  @Override
+  public EnvironmentBuilder dispatchingMode(DispatchingMode dispatchingMode) {
+    this.clientParameters.dispatchingMode(dispatchingMode);
+    return this;
+  }
+
+  @Override
+  public EnvironmentBuilder dispatcherPoolSize(int dispatcherPoolSize) {
+    if (dispatcherPoolSize <= 0) {
+      throw new IllegalArgumentException("The dispatcher pool size must be greater than 0");
+    }
+    this.dispatcherPoolSize = dispatcherPoolSize;
+    return this;
+  }
+
+  @Override
+  public EnvironmentBuilder inboundBudgetByConnection(ByteCapacity inboundBudget) {
+    this.clientParameters.inboundBudget(inboundBudget);
+    return this;
+  }
+
+  @Override
+  public EnvironmentBuilder flushPolicy(FlushPolicy flushPolicy) {
+    this.clientParameters.flushPolicy(flushPolicy);
+    return this;
+  }
+
+  @Override
+  public EnvironmentBuilder outboundBudget(ByteCapacity outboundBudget) {
+    if (outboundBudget != null && outboundBudget.toBytes() <= 0) {
+      throw new IllegalArgumentException("The outbound budget must be positive");
+    }
+    this.outboundBudget = outboundBudget;
+    return this;
+  }
+
+  @Override
+  public EnvironmentBuilder inboundBudget(ByteCapacity inboundBudget) {
+    if (inboundBudget != null && inboundBudget.toBytes() <= 0) {
+      throw new IllegalArgumentException("The inbound budget must be positive");
+    }
+    this.inboundBudget = inboundBudget;
+    return this;
+  }
+
   public EnvironmentBuilder scheduledExecutorService(
       ScheduledExecutorService scheduledExecutorService) {
     this.scheduledExecutorService = scheduledExecutorService;
@@ -315,20 +368,45 @@ public class StreamEnvironmentBuilder implements EnvironmentBuilder {
     this.clientParameters.byteBufAllocator(this.netty.byteBufAllocator);
     this.clientParameters.channelCustomizer(this.netty.channelCustomizer);
     this.clientParameters.bootstrapCustomizer(this.netty.bootstrapCustomizer);
-    return new StreamEnvironment(
-        scheduledExecutorService,
-        clientParameters,
-        uris,
-        recoveryBackOffDelayPolicy,
-        topologyBackOffDelayPolicy,
-        addressResolver,
-        maxProducersByConnection,
-        maxTrackingConsumersByConnection,
-        maxConsumersByConnection,
-        tls,
-        netty.byteBufAllocator,
-        lazyInit,
-        connectionNamingStrategy);
+    this.clientParameters.transport(this.netty.transport);
+    this.clientParameters.busyPoll(this.netty.busyPoll);
+    this.clientParameters.writeBufferWaterMark(
+        this.netty.writeBufferLowWaterMark, this.netty.writeBufferHighWaterMark);
+    DispatcherPool dispatcherPool;
+    if (this.clientParameters.dispatchingMode() == DispatchingMode.SHARED_POOL) {
+      dispatcherPool = new DispatcherPool(this.dispatcherPoolSize);
+    } else {
+      dispatcherPool = null;
+    }
+    this.clientParameters.dispatcherPool(dispatcherPool);
+    this.clientParameters.environmentInboundBudget(
+        this.inboundBudget == null ? null : new InboundBudget(this.inboundBudget.toBytes()));
+    this.clientParameters.environmentOutboundBudget(
+        this.outboundBudget == null
+            ? null
+            : new OutboundBudget(
+                this.outboundBudget.toBytes(), this.clientParameters.metricsCollector()));
+    try {
+      return new StreamEnvironment(
+          scheduledExecutorService,
+          clientParameters,
+          uris,
+          recoveryBackOffDelayPolicy,
+          topologyBackOffDelayPolicy,
+          addressResolver,
+          maxProducersByConnection,
+          maxTrackingConsumersByConnection,
+          maxConsumersByConnection,
+          tls,
+          netty.byteBufAllocator,
+          lazyInit,
+          connectionNamingStrategy);
+    } catch (RuntimeException e) {
+      if (dispatcherPool != null) {
+        dispatcherPool.close();
+      }
+      throw e;
+    }
   }
 
   static final class DefaultTlsConfiguration implements TlsConfiguration {
@@ -407,6 +485,9 @@ public class StreamEnvironmentBuilder implements EnvironmentBuilder {
     private ByteBufAllocator byteBufAllocator = ByteBufAllocator.DEFAULT;
     private Consumer<Channel> channelCustomizer = noOpConsumer();
     private Consumer<Bootstrap> bootstrapCustomizer = noOpConsumer();
+    private NettyTransport transport = NettyTransport.AUTO;
+    private Duration busyPoll;
+    private ByteCapacity writeBufferLowWaterMark, writeBufferHighWaterMark;
 
     private DefaultNettyConfiguration(EnvironmentBuilder environmentBuilder) {
       this.environmentBuilder = environmentBuilder;
@@ -436,6 +517,38 @@ public class StreamEnvironmentBuilder implements EnvironmentBuilder {
       return this;
     }
 
+    @Override
+    public NettyConfiguration transport(NettyTransport transport) {
+      if (transport == null) {
+        throw new IllegalArgumentException("The transport cannot be null");
+      }
+      this.transport = transport;
+      return this;
+    }
+
+    @Override
+    public NettyConfiguration busyPoll(Duration busyPoll) {
+      if (busyPoll != null && busyPoll.isNegative()) {
+        throw new IllegalArgumentException("The busy poll duration cannot be negative");
+      }
+      this.busyPoll = busyPoll;
+      return this;
+    }
+
+    @Override
+    public NettyConfiguration writeBufferWaterMark(ByteCapacity low, ByteCapacity high) {
+      if (low == null || high == null) {
+        throw new IllegalArgumentException("The water marks cannot be null");
+      }
+      if (low.compareTo(high) > 0) {
+        throw new IllegalArgumentException(
+            "The low water mark cannot be greater than the high water mark");
+      }
+      this.writeBufferLowWaterMark = low;
+      this.writeBufferHighWaterMark = high;
+      return this;
+    }
+
     @Override
     public EnvironmentBuilder environmentBuilder() {
       return this.environmentBuilder;
@@ -19,7 +19,9 @@ import static com.rabbitmq.stream.Constants.CODE_PRODUCER_NOT_AVAILABLE;
 import static com.rabbitmq.stream.impl.Utils.formatConstant;
 import static com.rabbitmq.stream.impl.Utils.namedRunnable;
 
+import com.rabbitmq.stream.BatchConfirmationHandler;
 import com.rabbitmq.stream.Codec;
+import com.rabbitmq.stream.ConfirmMode;
 import com.rabbitmq.stream.ConfirmationHandler;
 import com.rabbitmq.stream.ConfirmationStatus;
 import com.rabbitmq.stream.Constants;
@@ -30,18 +32,20 @@ import com.rabbitmq.stream.StreamException;
 import com.rabbitmq.stream.compression.Compression;
 import com.rabbitmq.stream.impl.Client.Response;
 import com.rabbitmq.stream.impl.MessageAccumulator.AccumulatedEntity;
+import com.rabbitmq.stream.metrics.NoOpMetricsCollector;
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
-import java.util.SortedMap;
-import java.util.TreeMap;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
@@ -57,16 +61,20 @@ class StreamProducer implements Producer {
   private static final AtomicLong ID_SEQUENCE = new AtomicLong(0);
 
   private static final Logger LOGGER = LoggerFactory.getLogger(StreamProducer.class);
-  private static final ConfirmationHandler NO_OP_CONFIRMATION_HANDLER = confirmationStatus -> {};
+  // accumulated entities do not create confirmation statuses for this handler
+  static final ConfirmationHandler NO_OP_CONFIRMATION_HANDLER = confirmationStatus -> {};
   private final long id;
   private final MessageAccumulator accumulator;
-  // FIXME investigate a more optimized data structure to handle pending messages
-  private final ConcurrentMap<Long, AccumulatedEntity> unconfirmedMessages;
+  // batches are published without the accumulator, not possible with sub-entry batching
+  private final boolean directBatchPublishing;
+  private final UnconfirmedMessages unconfirmedMessages;
   private final int batchSize;
   private final String name;
   private final String stream;
   private final Client.OutboundEntityWriteCallback writeCallback;
   private final Semaphore unconfirmedMessagesSemaphore;
+  // reused for each published batch, guarded by the producer lock
+  private final List<Object> batch;
   private final Runnable closingCallback;
   private final StreamEnvironment environment;
   private final AtomicBoolean closed = new AtomicBoolean(false);
@@ -74,8 +82,38 @@ class StreamProducer implements Producer {
   private final Codec codec;
   private final ToLongFunction<Object> publishSequenceFunction =
       entity -> ((AccumulatedEntity) entity).publishindId();
+  // assigns publishing IDs, to call with the producer lock to publish in publishing ID order
+  private final ToLongFunction<Message> accumulatorPublishSequenceFunction;
+  private final int maxFrameSize;
   private final long enqueueTimeoutMs;
   private final boolean blockOnMaxUnconfirmed;
+  private final BatchConfirmationHandler batchConfirmationHandler;
+  // 0 when adaptive batching is disabled
+  private final long maxLingerNanos;
+  private final AtomicBoolean lingerFlushScheduled = new AtomicBoolean(false);
+  private final Runnable lingerFlushTask = this::lingerFlush;
+  private final Runnable lingerPublishTask = this::lingerPublish;
+  private volatile long lingerFlushScheduledTime;
+  private final Object connectionGroup;
+  // 0 when batches are not limited in bytes
+  private final long maxBatchBytes;
+  // null when there is no such limit
+  private final OutboundBudget unconfirmedBytesBudget, environmentBudget;
+  private final boolean trackBytes;
+  // bytes acquired from the budgets, given back on closing
+  private final Object heldBytesLock = new Object();
+  private long heldBytes = 0;
+  private boolean heldBytesReleased = false;
+  // false with ConfirmMode.NONE, only the number of unconfirmed publishing IDs is then tracked
+  private final boolean trackConfirms;
+  private final AtomicLong untrackedUnconfirmed = new AtomicLong(0);
+  private final Object untrackedMonitor = new Object();
+  // incremented and decremented under the monitor
+  private volatile int untrackedWaiters = 0;
+  // null when spilling is disabled
+  private final SpillStore spillStore;
+  // null when sub-entries are compressed by the publishing thread
+  private final CompressionStage compressionStage;
   private volatile Client client;
   private volatile byte publisherId;
   private volatile Status status;
@@ -87,21 +125,52 @@ class StreamProducer implements Producer {
       int subEntrySize,
       int batchSize,
       Compression compression,
+      Executor compressionExecutor,
       Duration batchPublishingDelay,
+      Duration linger,
+      long maxBatchBytes,
       int maxUnconfirmedMessages,
+      long maxUnconfirmedBytes,
       Duration confirmTimeout,
       Duration enqueueTimeout,
+      BatchConfirmationHandler batchConfirmationHandler,
+      ConfirmMode confirmMode,
+      Path spillDirectory,
+      long maxSpillSize,
+      Object connectionGroup,
       StreamEnvironment environment) {
     this.id = ID_SEQUENCE.getAndIncrement();
+    this.connectionGroup = connectionGroup;
     this.environment = environment;
     this.name = name;
     this.stream = stream;
     this.enqueueTimeoutMs = enqueueTimeout.toMillis();
     this.blockOnMaxUnconfirmed = enqueueTimeout.isZero();
+    this.trackConfirms = confirmMode != ConfirmMode.NONE;
+    this.spillStore =
+        spillDirectory == null
+            ? null
+            : new SpillStore(
+                spillDirectory,
+                "producer-" + UUID.randomUUID(),
+                environment.codec(),
+                maxSpillSize,
+                SpillStore.DEFAULT_SEGMENT_SIZE);
+    this.batchConfirmationHandler = this.trackConfirms ? batchConfirmationHandler : null;
+    this.maxLingerNanos = linger.toNanos();
+    this.maxBatchBytes = maxBatchBytes;
+    this.unconfirmedBytesBudget =
+        maxUnconfirmedBytes > 0
+            ? new OutboundBudget(maxUnconfirmedBytes, NoOpMetricsCollector.SINGLETON)
+            : null;
+    this.environmentBudget = this.trackConfirms ? environment.outboundBudget() : null;
+    this.trackBytes =
+        this.trackConfirms
+            && (this.unconfirmedBytesBudget != null || this.environmentBudget != null);
     this.closingCallback = environment.registerProducer(this, name, this.stream);
     final Client.OutboundEntityWriteCallback delegateWriteCallback;
     AtomicLong publishingSequence = new AtomicLong(computeFirstValueOfPublishingSequence());
-    ToLongFunction<Message> accumulatorPublishSequenceFunction =
+    this.accumulatorPublishSequenceFunction =
         msg -> {
           if (msg.hasPublishingId()) {
             return msg.getPublishingId();
@@ -109,16 +178,28 @@ class StreamProducer implements Producer {
             return publishingSequence.getAndIncrement();
           }
         };
+    this.maxFrameSize = client.maxFrameSize();
     if (subEntrySize <= 1) {
       this.accumulator =
           new SimpleMessageAccumulator(
               batchSize,
               environment.codec(),
               client.maxFrameSize(),
-              accumulatorPublishSequenceFunction,
-              this.environment.clock());
+              this.accumulatorPublishSequenceFunction,
+              this.environment.clock(),
+              maxBatchBytes);
       delegateWriteCallback = Client.OUTBOUND_MESSAGE_WRITE_CALLBACK;
+      this.directBatchPublishing = true;
+      this.compressionStage = null;
     } else {
+      this.compressionStage =
+          compression == Compression.NONE || compressionExecutor == null
+              ? null
+              : new CompressionStage(
+                  compressionExecutor,
+                  2 * batchSize,
+                  this::publishCompressedSubEntries,
+                  this::failCompression);
       this.accumulator =
           new SubEntryMessageAccumulator(
               subEntrySize,
@@ -129,14 +210,18 @@ class StreamProducer implements Producer {
               environment.codec(),
               this.environment.byteBufAllocator(),
               client.maxFrameSize(),
-              accumulatorPublishSequenceFunction,
-              this.environment.clock());
+              this.accumulatorPublishSequenceFunction,
+              this.environment.clock(),
+              maxBatchBytes,
+              this.compressionStage != null);
       delegateWriteCallback = Client.OUTBOUND_MESSAGE_BATCH_WRITE_CALLBACK;
+      this.directBatchPublishing = false;
     }
 
     this.maxUnconfirmedMessages = maxUnconfirmedMessages;
-    this.unconfirmedMessagesSemaphore = new Semaphore(maxUnconfirmedMessages, true);
-    this.unconfirmedMessages = new ConcurrentHashMap<>(this.maxUnconfirmedMessages, 0.75f, 2);
+    // not fair, fairness makes the permit accounting of concurrent senders much more expensive
+    this.unconfirmedMessagesSemaphore = new Semaphore(maxUnconfirmedMessages, false);
+    this.unconfirmedMessages = new UnconfirmedMessages(this.maxUnconfirmedMessages);
 
     this.writeCallback =
         new Client.OutboundEntityWriteCallback() {
@@ -144,7 +229,11 @@ class StreamProducer implements Producer {
           public int write(ByteBuf bb, Object entity, long publishingId) {
             MessageAccumulator.AccumulatedEntity accumulatedEntity =
                 (MessageAccumulator.AccumulatedEntity) entity;
-            unconfirmedMessages.put(publishingId, accumulatedEntity);
+            if (trackConfirms) {
+              unconfirmedMessages.put(publishingId, accumulatedEntity);
+            } else {
+              untrackedUnconfirmed.incrementAndGet();
+            }
             return delegateWriteCallback.write(bb, accumulatedEntity.encodedEntity(), publishingId);
           }
 
@@ -154,7 +243,9 @@ class StreamProducer implements Producer {
                 ((MessageAccumulator.AccumulatedEntity) entity).encodedEntity());
           }
         };
-    if (!batchPublishingDelay.isNegative() && !batchPublishingDelay.isZero()) {
+    if (this.maxLingerNanos == 0
+        && !batchPublishingDelay.isNegative()
+        && !batchPublishingDelay.isZero()) {
       AtomicReference<Runnable> taskReference = new AtomicReference<>();
       Runnable task =
           () -> {
@@ -189,8 +280,9 @@ class StreamProducer implements Producer {
               TimeUnit.MILLISECONDS);
     }
     this.batchSize = batchSize;
+    this.batch = new ArrayList<>(batchSize);
     this.codec = environment.codec();
-    if (!confirmTimeout.isZero()) {
+    if (this.trackConfirms && !confirmTimeout.isZero()) {
       AtomicReference<Runnable> taskReference = new AtomicReference<>();
       Runnable confirmTimeoutTask = confirmTimeoutTask(confirmTimeout);
       Runnable wrapperTask =
@@ -234,21 +326,21 @@ class StreamProducer implements Producer {
   private Runnable confirmTimeoutTask(Duration confirmTimeout) {
     return () -> {
       long limit = this.environment.clock().time() - confirmTimeout.toNanos();
-      SortedMap<Long, AccumulatedEntity> unconfirmedSnapshot =
-          new TreeMap<>(this.unconfirmedMessages);
+      long[] expired = this.unconfirmedMessages.publishingIdsOlderThan(limit);
       int count = 0;
-      for (Entry<Long, AccumulatedEntity> unconfirmedEntry : unconfirmedSnapshot.entrySet()) {
-        if (unconfirmedEntry.getValue().time() < limit) {
-          if (Thread.currentThread().isInterrupted()) {
-            return;
-          }
-          error(unconfirmedEntry.getKey(), Constants.CODE_PUBLISH_CONFIRM_TIMEOUT);
-          count++;
-        } else {
-          // everything else is after, so we can stop
+      int messageCount = 0;
+      for (long publishingId : expired) {
+        if (Thread.currentThread().isInterrupted()) {
           break;
         }
+        messageCount += fail(publishingId, Constants.CODE_PUBLISH_CONFIRM_TIMEOUT);
+        count++;
       }
+      notifyBatchConfirmationHandler(
+          false,
+          Constants.CODE_PUBLISH_CONFIRM_TIMEOUT,
+          count == expired.length ? expired : Arrays.copyOf(expired, count),
+          messageCount);
       if (count > 0) {
         LOGGER.debug(
             "{} outbound message(s) had reached the confirm timeout (limit {}) "
@@ -275,23 +367,206 @@ class StreamProducer implements Producer {
   }
 
   void confirm(long publishingId) {
+    if (!this.trackConfirms) {
+      untrackedAcknowledged(1);
+      return;
+    }
     AccumulatedEntity accumulatedEntity = this.unconfirmedMessages.remove(publishingId);
     if (accumulatedEntity != null) {
       int confirmedCount =
           accumulatedEntity.confirmationCallback().handle(true, Constants.RESPONSE_CODE_OK);
       this.unconfirmedMessagesSemaphore.release(confirmedCount);
+      releaseBytes(accumulatedEntity.encodedSize());
+      notifyBatchConfirmationHandler(
+          true, Constants.RESPONSE_CODE_OK, new long[] {publishingId}, confirmedCount);
     } else {
       this.unconfirmedMessagesSemaphore.release();
     }
   }
 
+  void confirm(long[] publishingIds) {
+    if (!this.trackConfirms) {
+      untrackedAcknowledged(publishingIds.length);
+      return;
+    }
+    AccumulatedEntity[] confirmed = new AccumulatedEntity[publishingIds.length];
+    this.unconfirmedMessages.remove(publishingIds, confirmed);
+    int permits = 0;
+    int confirmedCount = 0;
+    int unknownCount = 0;
+    long bytes = 0;
+    try {
+      // the entity callbacks do not throw, every removed entity is accounted for
+      for (AccumulatedEntity accumulatedEntity : confirmed) {
+        if (accumulatedEntity == null) {
+          permits++;
+          unknownCount++;
+        } else {
+          int count =
+              accumulatedEntity.confirmationCallback().handle(true, Constants.RESPONSE_CODE_OK);
+          permits += count;
+          confirmedCount += count;
+          bytes += accumulatedEntity.encodedSize();
+        }
+      }
+    } finally {
+      this.unconfirmedMessagesSemaphore.release(permits);
+      releaseBytes(bytes);
+    }
+    if (this.batchConfirmationHandler != null && unknownCount > 0 && confirmedCount > 0) {
+      // the handler gets only the publishing IDs its message count stands for
+      long[] confirmedIds = new long[publishingIds.length - unknownCount];
+      int index = 0;
+      for (int i = 0; i < publishingIds.length; i++) {
+        if (confirmed[i] != null) {
+          confirmedIds[index++] = publishingIds[i];
+        }
+      }
+      publishingIds = confirmedIds;
+    }
+    notifyBatchConfirmationHandler(true, Constants.RESPONSE_CODE_OK, publishingIds, confirmedCount);
+  }
+
   void error(long publishingId, short errorCode) {
+    if (!this.trackConfirms) {
+      untrackedAcknowledged(1);
+      return;
+    }
+    int nackedCount = fail(publishingId, errorCode);
+    notifyBatchConfirmationHandler(false, errorCode, new long[] {publishingId}, nackedCount);
+  }
+
+  private int fail(long publishingId, short errorCode) {
     AccumulatedEntity accumulatedEntity = unconfirmedMessages.remove(publishingId);
     if (accumulatedEntity != null) {
       int nackedCount = accumulatedEntity.confirmationCallback().handle(false, errorCode);
       this.unconfirmedMessagesSemaphore.release(nackedCount);
+      releaseBytes(accumulatedEntity.encodedSize());
+      return nackedCount;
     } else {
       unconfirmedMessagesSemaphore.release();
+      return 0;
+    }
+  }
+
+  private void untrackedAcknowledged(int count) {
+    this.untrackedUnconfirmed.addAndGet(-count);
+    wakeUpUntrackedWaiters();
+  }
+
+  private void wakeUpUntrackedWaiters() {
+    // a waiter registers before checking the count, so it cannot miss this notification
+    if (this.untrackedWaiters > 0) {
+      synchronized (this.untrackedMonitor) {
+        this.untrackedMonitor.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Wait for the number of unconfirmed publishing IDs to go under the limit, with {@link
+   * ConfirmMode#NONE}.
+   *
+   * @return false if the limit is still reached after the enqueue timeout
+   */
+  private boolean awaitUntrackedCapacity() throws InterruptedException {
+    if (this.untrackedUnconfirmed.get() < this.maxUnconfirmedMessages) {
+      return true;
+    }
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.enqueueTimeoutMs);
+    synchronized (this.untrackedMonitor) {
+      this.untrackedWaiters++;
+      try {
+        while (this.untrackedUnconfirmed.get() >= this.maxUnconfirmedMessages
+            && this.status != Status.CLOSED) {
+          if (this.blockOnMaxUnconfirmed) {
+            this.untrackedMonitor.wait();
+          } else {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+              return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this.untrackedMonitor, remaining);
+          }
+        }
+        return true;
+      } finally {
+        this.untrackedWaiters--;
+      }
+    }
+  }
+
+  /**
+   * Acquire bytes from the producer and environment budgets.
+   *
+   * @return false if the bytes could not be acquired before the enqueue timeout
+   */
+  private boolean acquireBytes(long bytes) throws InterruptedException {
+    return acquireBytes(bytes, this.enqueueTimeoutMs);
+  }
+
+  private boolean acquireBytes(long bytes, long timeoutMs) throws InterruptedException {
+    if (this.unconfirmedBytesBudget != null
+        && !this.unconfirmedBytesBudget.acquire(bytes, timeoutMs)) {
+      return false;
+    }
+    if (this.environmentBudget != null && !this.environmentBudget.acquire(bytes, timeoutMs)) {
+      if (this.unconfirmedBytesBudget != null) {
+        this.unconfirmedBytesBudget.release(bytes);
+      }
+      return false;
+    }
+    synchronized (this.heldBytesLock) {
+      if (!this.heldBytesReleased) {
+        this.heldBytes += bytes;
+        return true;
+      }
+    }
+    // closed in the meantime
+    releaseBudgets(bytes);
+    return false;
+  }
+
+  private void releaseBytes(long bytes) {
+    if (this.trackBytes && bytes > 0) {
+      synchronized (this.heldBytesLock) {
+        if (this.heldBytesReleased) {
+          return;
+        }
+        this.heldBytes -= bytes;
+      }
+      releaseBudgets(bytes);
+    }
+  }
+
+  private void releaseBudgets(long bytes) {
+    if (this.unconfirmedBytesBudget != null) {
+      this.unconfirmedBytesBudget.release(bytes);
+    }
+    if (this.environmentBudget != null) {
+      this.environmentBudget.release(bytes);
+    }
+  }
+
+  private void releaseHeldBytes() {
+    if (this.trackBytes) {
+      long bytes;
+      synchronized (this.heldBytesLock) {
+        bytes = this.heldBytesReleased ? 0 : this.heldBytes;
+        this.heldBytes = 0;
+        this.heldBytesReleased = true;
+      }
+      if (bytes > 0) {
+        // also wakes up senders waiting on the producer budget
+        releaseBudgets(bytes);
+      }
+    }
+  }
+
+  private void notifyBatchConfirmationHandler(
+      boolean confirmed, short code, long[] publishingIds, int messageCount) {
+    if (this.batchConfirmationHandler != null && messageCount > 0) {
+      this.batchConfirmationHandler.handle(confirmed, code, publishingIds, messageCount);
     }
   }
 
@@ -330,6 +605,22 @@ class StreamProducer implements Producer {
     }
     try {
       if (canSend()) {
+        if (!this.client.awaitWritable(this.enqueueTimeoutMs)
+            || (this.compressionStage != null
+                && !this.compressionStage.awaitCapacity(this.enqueueTimeoutMs))) {
+          confirmationHandler.handle(
+              new ConfirmationStatus(message, false, CODE_MESSAGE_ENQUEUEING_FAILED));
+          return;
+        }
+        if (!this.trackConfirms) {
+          if (awaitUntrackedCapacity()) {
+            doSendUntracked(message, confirmationHandler);
+          } else {
+            confirmationHandler.handle(
+                new ConfirmationStatus(message, false, CODE_MESSAGE_ENQUEUEING_FAILED));
+          }
+          return;
+        }
         if (this.blockOnMaxUnconfirmed) {
           unconfirmedMessagesSemaphore.acquire();
           doSend(message, confirmationHandler);
@@ -351,19 +642,315 @@ class StreamProducer implements Producer {
     }
   }
 
-  private void doSend(Message message, ConfirmationHandler confirmationHandler) {
+  @Override
+  public CompletableFuture<ConfirmationStatus> sendAsync(Message message) {
+    checkConfirmsTracked(this.trackConfirms);
+    return Producer.super.sendAsync(message);
+  }
+
+  static void checkConfirmsTracked(boolean trackConfirms) {
+    if (!trackConfirms) {
+      // the future would never complete for a message that is sent
+      throw new UnsupportedOperationException(
+          "Asynchronous sending requires confirm mode " + ConfirmMode.TRACK);
+    }
+  }
+
+  private void doSendUntracked(Message message, ConfirmationHandler confirmationHandler) {
     if (canSend()) {
-      if (accumulator.add(message, confirmationHandler)) {
+      if (accumulator.add(message, NO_OP_CONFIRMATION_HANDLER)) {
         synchronized (this) {
           publishBatch(true);
         }
+      } else if (this.maxLingerNanos > 0) {
+        scheduleLingerFlush();
       }
     } else {
       failPublishing(message, confirmationHandler);
     }
   }
 
+  private void doSend(Message message, ConfirmationHandler confirmationHandler)
+      throws InterruptedException {
+    if (canSend()) {
+      boolean full;
+      if (this.trackBytes) {
+        Codec.EncodedMessage encodedMessage = encode(message);
+        if (!acquireBytes(encodedMessage.getSize())) {
+          this.unconfirmedMessagesSemaphore.release();
+          confirmationHandler.handle(
+              new ConfirmationStatus(message, false, CODE_MESSAGE_ENQUEUEING_FAILED));
+          return;
+        }
+        // the publishing ID is assigned once the bytes are acquired, not before waiting for them
+        full =
+            accumulator.add(
+                accumulator.entity(
+                    this.accumulatorPublishSequenceFunction.applyAsLong(message),
+                    encodedMessage,
+                    message,
+                    confirmationHandler));
+      } else {
+        full = accumulator.add(message, confirmationHandler);
+      }
+      if (full) {
+        synchronized (this) {
+          publishBatch(true);
+        }
+      } else if (this.maxLingerNanos > 0) {
+        scheduleLingerFlush();
+      }
+    } else {
+      failPublishing(message, confirmationHandler);
+    }
+  }
+
+  @Override
+  public void send(List<Message> messages, ConfirmationHandler confirmationHandler) {
+    if (confirmationHandler == null) {
+      confirmationHandler = NO_OP_CONFIRMATION_HANDLER;
+    }
+    if (!this.trackConfirms) {
+      // no permits to acquire, the limit applies to publishing IDs
+      sendChunk(messages, confirmationHandler);
+      return;
+    }
+    // a chunk cannot ask for more permits than the semaphore can ever have
+    int size = messages.size();
+    int chunkSize = Math.min(size, this.maxUnconfirmedMessages);
+    for (int from = 0; from < size; from += chunkSize) {
+      sendChunk(messages.subList(from, Math.min(size, from + chunkSize)), confirmationHandler);
+    }
+  }
+
+  private void sendChunk(List<Message> messages, ConfirmationHandler confirmationHandler) {
+    int count = messages.size();
+    try {
+      if (canSend()) {
+        if (!this.client.awaitWritable(this.enqueueTimeoutMs)
+            || (this.compressionStage != null
+                && !this.compressionStage.awaitCapacity(this.enqueueTimeoutMs))) {
+          for (Message message : messages) {
+            confirmationHandler.handle(
+                new ConfirmationStatus(message, false, CODE_MESSAGE_ENQUEUEING_FAILED));
+          }
+          return;
+        }
+        if (!this.trackConfirms) {
+          if (awaitUntrackedCapacity()) {
+            doSendUntracked(messages, confirmationHandler);
+          } else {
+            for (Message message : messages) {
+              confirmationHandler.handle(
+                  new ConfirmationStatus(message, false, CODE_MESSAGE_ENQUEUEING_FAILED));
+            }
+          }
+          return;
+        }
+        if (this.blockOnMaxUnconfirmed) {
+          unconfirmedMessagesSemaphore.acquire(count);
+          doSend(messages, confirmationHandler);
+        } else {
+          if (unconfirmedMessagesSemaphore.tryAcquire(
+              count, this.enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+            doSend(messages, confirmationHandler);
+          } else {
+            for (Message message : messages) {
+              confirmationHandler.handle(
+                  new ConfirmationStatus(message, false, CODE_MESSAGE_ENQUEUEING_FAILED));
+            }
+          }
+        }
+      } else {
+        for (Message message : messages) {
+          failPublishing(message, confirmationHandler);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new StreamException("Interrupted while waiting to accumulate outbound messages", e);
+    }
+  }
+
+  private void doSend(List<Message> messages, ConfirmationHandler confirmationHandler)
+      throws InterruptedException {
+    if (this.directBatchPublishing) {
+      // encoding happens outside of the producer lock
+      List<Codec.EncodedMessage> encodedMessages = new ArrayList<>(messages.size());
+      long bytes = 0;
+      for (Message message : messages) {
+        Codec.EncodedMessage encodedMessage = encode(message);
+        bytes += encodedMessage.getSize();
+        encodedMessages.add(encodedMessage);
+      }
+      if (this.trackBytes && !acquireBytes(bytes)) {
+        this.unconfirmedMessagesSemaphore.release(messages.size());
+        for (Message message : messages) {
+          confirmationHandler.handle(
+              new ConfirmationStatus(message, false, CODE_MESSAGE_ENQUEUEING_FAILED));
+        }
+        return;
+      }
+      synchronized (this) {
+        if (canSend()) {
+          // messages accumulated before must go first
+          while (!this.accumulator.isEmpty()) {
+            publishBatch(false);
+          }
+          publishEntities(entities(messages, encodedMessages, confirmationHandler));
+          return;
+        }
+      }
+      this.unconfirmedMessagesSemaphore.release(messages.size());
+      if (this.trackBytes) {
+        releaseBytes(bytes);
+      }
+      for (Message message : messages) {
+        failPublishing(message, confirmationHandler);
+      }
+    } else {
+      for (Message message : messages) {
+        doSend(message, confirmationHandler);
+      }
+      // the batch is complete, no need to wait for the background publishing task
+      synchronized (this) {
+        while (canSend() && !this.accumulator.isEmpty()) {
+          publishBatch(false);
+        }
+      }
+    }
+  }
+
+  private Codec.EncodedMessage encode(Message message) {
+    Codec.EncodedMessage encodedMessage = this.codec.encode(message);
+    Client.checkMessageFitsInFrame(this.maxFrameSize, encodedMessage);
+    return encodedMessage;
+  }
+
+  /**
+   * Create the entities of a batch, to call with the producer lock.
+   *
+   * <p>Publishing IDs are assigned here and not when encoding, otherwise concurrent senders could
+   * publish their batches out of publishing ID order and the broker would drop messages it
+   * considers duplicates.
+   */
+  private List<Object> entities(
+      List<Message> messages,
+      List<Codec.EncodedMessage> encodedMessages,
+      ConfirmationHandler confirmationHandler) {
+    List<Object> entities = new ArrayList<>(messages.size());
+    for (int i = 0; i < messages.size(); i++) {
+      Message message = messages.get(i);
+      entities.add(
+          this.accumulator.entity(
+              this.accumulatorPublishSequenceFunction.applyAsLong(message),
+              encodedMessages.get(i),
+              message,
+              confirmationHandler));
+    }
+    return entities;
+  }
+
+  private void doSendUntracked(List<Message> messages, ConfirmationHandler confirmationHandler) {
+    if (this.directBatchPublishing) {
+      List<Codec.EncodedMessage> encodedMessages = new ArrayList<>(messages.size());
+      for (Message message : messages) {
+        encodedMessages.add(encode(message));
+      }
+      synchronized (this) {
+        if (canSend()) {
+          while (!this.accumulator.isEmpty()) {
+            publishBatch(false);
+          }
+          publishEntities(entities(messages, encodedMessages, NO_OP_CONFIRMATION_HANDLER));
+          return;
+        }
+      }
+      for (Message message : messages) {
+        failPublishing(message, confirmationHandler);
+      }
+    } else {
+      for (Message message : messages) {
+        doSendUntracked(message, confirmationHandler);
+      }
+      synchronized (this) {
+        while (canSend() && !this.accumulator.isEmpty()) {
+          publishBatch(false);
+        }
+      }
+    }
+  }
+
+  private void publishEntities(List<Object> entities) {
+    if (this.maxBatchBytes <= 0) {
+      client.publishEntities(
+          this.publisherId, entities, this.writeCallback, this.publishSequenceFunction);
+      return;
+    }
+    int from = 0;
+    long bytes = 0;
+    for (int i = 0; i < entities.size(); i++) {
+      bytes += ((AccumulatedEntity) entities.get(i)).encodedSize();
+      if (bytes >= this.maxBatchBytes || i == entities.size() - 1) {
+        client.publishEntities(
+            this.publisherId,
+            entities.subList(from, i + 1),
+            this.writeCallback,
+            this.publishSequenceFunction);
+        from = i + 1;
+        bytes = 0;
+      }
+    }
+  }
+
+  private void scheduleLingerFlush() {
+    // one flush at a time, the messages accumulated in the meantime go with it
+    if (this.lingerFlushScheduled.compareAndSet(false, true)) {
+      this.lingerFlushScheduledTime = System.nanoTime();
+      try {
+        this.client.channel().eventLoop().execute(this.lingerFlushTask);
+      } catch (RejectedExecutionException e) {
+        // the connection is closing, accumulated messages are published on recovery
+        this.lingerFlushScheduled.set(false);
+      }
+    }
+  }
+
+  private void lingerFlush() {
+    // runs on the event loop of the connection
+    Channel channel = this.client.channel();
+    long waited = System.nanoTime() - this.lingerFlushScheduledTime;
+    if (canSend()
+        && !channel.isWritable()
+        && waited < this.maxLingerNanos
+        && this.accumulator.size() < this.batchSize) {
+      // the connection is busy writing, let the batch grow
+      channel
+          .eventLoop()
+          .schedule(this.lingerFlushTask, this.maxLingerNanos - waited, TimeUnit.NANOSECONDS);
+      return;
+    }
+    this.lingerFlushScheduled.set(false);
+    // the producer lock can be held for a while (e.g. on recovery), the event loop must not wait
+    try {
+      this.environment.scheduledExecutorService().execute(this.lingerPublishTask);
+    } catch (RejectedExecutionException e) {
+      // the environment is closing
+    }
+  }
+
+  private void lingerPublish() {
+    synchronized (this) {
+      while (canSend() && !this.accumulator.isEmpty()) {
+        publishBatch(false);
+      }
+    }
+  }
+
   private void failPublishing(Message message, ConfirmationHandler confirmationHandler) {
+    if (this.status == Status.NOT_AVAILABLE && spill(message, confirmationHandler)) {
+      return;
+    }
     if (this.status == Status.NOT_AVAILABLE) {
       confirmationHandler.handle(
           new ConfirmationStatus(message, false, CODE_PRODUCER_NOT_AVAILABLE));
@@ -375,6 +962,102 @@ class StreamProducer implements Producer {
     }
   }
 
+  /**
+   * Store the message until the producer is available again.
+   *
+   * <p>The message gets its publishing ID with the producer lock, so all the spilled messages are
+   * re-published before the producer is running again and can assign newer publishing IDs.
+   *
+   * @return false if there is no spill store, if it is full, or if the producer is no longer
+   *     unavailable
+   */
+  private boolean spill(Message message, ConfirmationHandler confirmationHandler) {
+    if (this.spillStore == null) {
+      return false;
+    }
+    synchronized (this) {
+      if (this.status != Status.NOT_AVAILABLE) {
+        return false;
+      }
+      AccumulatedEntity entity = this.accumulator.entity(message, confirmationHandler);
+      return this.spillStore.append(
+          entity.publishindId(),
+          (Codec.EncodedMessage) entity.encodedEntity(),
+          confirmationHandler);
+    }
+  }
+
+  /**
+   * Publish the spilled messages, in publishing ID order, with the producer lock.
+   *
+   * @return false if the connection closed or the thread was interrupted in the meantime
+   */
+  private boolean publishSpilledMessages() {
+    int count = 0;
+    try {
+      while (!this.spillStore.isEmpty()) {
+        // the permit is acquired first, a message is not polled if the replay stops
+        if (this.trackConfirms) {
+          while (!this.unconfirmedMessagesSemaphore.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+            if (!this.client.isOpen()) {
+              LOGGER.debug(
+                  "Connection closed while re-publishing spilled messages of producer {}", this.id);
+              return false;
+            }
+            if (this.compressionStage != null) {
+              // the permits may be held by compressed sub-entries waiting to be published
+              publishCompressed();
+            }
+          }
+        }
+        // the bytes are released on confirm, like for any other message
+        int size = this.trackBytes ? this.spillStore.peekSize() : 0;
+        if (size > 0) {
+          while (!acquireBytes(size, 100)) {
+            if (!this.client.isOpen() || this.closed.get()) {
+              LOGGER.debug(
+                  "Connection closed while re-publishing spilled messages of producer {}", this.id);
+              this.unconfirmedMessagesSemaphore.release();
+              return false;
+            }
+            if (this.compressionStage != null) {
+              publishCompressed();
+            }
+          }
+        }
+        SpillStore.SpilledMessage spilledMessage = this.spillStore.poll();
+        if (spilledMessage == null) {
+          if (this.trackConfirms) {
+            this.unconfirmedMessagesSemaphore.release();
+          }
+          releaseBytes(size);
+          break;
+        }
+        AccumulatedEntity entity =
+            this.accumulator.entity(
+                spilledMessage.publishingId(),
+                spilledMessage.encodedMessage(),
+                spilledMessage.message(),
+                spilledMessage.confirmationHandler());
+        if (this.accumulator.add(entity)) {
+          publishBatch(false);
+        }
+        count++;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      while (!this.accumulator.isEmpty()) {
+        publishBatch(false);
+      }
+    }
+    if (count > 0) {
+      LOGGER.debug("Re-published {} spilled message(s) for producer {}", count, this.id);
+    }
+    return true;
+  }
+
   private boolean canSend() {
     return this.status == Status.RUNNING;
   }
@@ -403,26 +1086,47 @@ class StreamProducer implements Producer {
   void closeFromEnvironment() {
     this.closingCallback.run();
     cancelConfirmTimeoutTask();
+    releaseHeldBytes();
     this.closed.set(true);
     this.status = Status.CLOSED;
+    wakeUpUntrackedWaiters();
+    closeSpillStore(CODE_PRODUCER_CLOSED);
+    closeCompressionStage();
     LOGGER.debug("Closed publisher {} successfully", this.publisherId);
   }
 
   void closeAfterStreamDeletion(short code) {
     if (closed.compareAndSet(false, true)) {
-      if (!this.unconfirmedMessages.isEmpty()) {
-        Iterator<Entry<Long, AccumulatedEntity>> iterator =
-            unconfirmedMessages.entrySet().iterator();
-        while (iterator.hasNext()) {
-          AccumulatedEntity entry = iterator.next().getValue();
-          int confirmedCount = entry.confirmationCallback().handle(false, code);
-          this.unconfirmedMessagesSemaphore.release(confirmedCount);
-          iterator.remove();
-        }
+      List<AccumulatedEntity> entities = this.unconfirmedMessages.drain();
+      long[] publishingIds = new long[entities.size()];
+      int messageCount = 0;
+      for (int i = 0; i < publishingIds.length; i++) {
+        AccumulatedEntity entity = entities.get(i);
+        publishingIds[i] = entity.publishindId();
+        int confirmedCount = entity.confirmationCallback().handle(false, code);
+        this.unconfirmedMessagesSemaphore.release(confirmedCount);
+        messageCount += confirmedCount;
       }
+      notifyBatchConfirmationHandler(false, code, publishingIds, messageCount);
       cancelConfirmTimeoutTask();
+      releaseHeldBytes();
       this.environment.removeProducer(this);
       this.status = Status.CLOSED;
+      wakeUpUntrackedWaiters();
+      closeSpillStore(code);
+      closeCompressionStage();
+    }
+  }
+
+  private void closeCompressionStage() {
+    if (this.compressionStage != null) {
+      this.compressionStage.close();
+    }
+  }
+
+  private void closeSpillStore(short code) {
+    if (this.spillStore != null) {
+      this.spillStore.close(code);
     }
   }
 
@@ -433,28 +1137,84 @@ class StreamProducer implements Producer {
   }
 
   private void publishBatch(boolean stateCheck) {
+    if (this.compressionStage != null) {
+      if (!stateCheck || canSend()) {
+        AccumulatedEntity subEntry;
+        while ((subEntry = accumulator.get()) != null) {
+          this.compressionStage.submit(subEntry);
+        }
+        publishCompressed();
+      }
+      return;
+    }
     if ((!stateCheck || canSend()) && !accumulator.isEmpty()) {
-      List<Object> messages = new ArrayList<>(this.batchSize);
-      int batchCount = 0;
-      while (batchCount != this.batchSize) {
-        Object accMessage = accumulator.get();
-        if (accMessage == null) {
-          break;
+      List<Object> messages = this.batch;
+      try {
+        int batchCount = 0;
+        long batchBytes = 0;
+        while (batchCount != this.batchSize
+            && (this.maxBatchBytes <= 0 || batchBytes < this.maxBatchBytes)) {
+          AccumulatedEntity accMessage = accumulator.get();
+          if (accMessage == null) {
+            break;
+          }
+          messages.add(accMessage);
+          batchCount++;
+          batchBytes += accMessage.encodedSize();
         }
-        messages.add(accMessage);
-        batchCount++;
+        if (batchCount > 0) {
+          client.publishEntities(
+              this.publisherId, messages, this.writeCallback, this.publishSequenceFunction);
+        }
+      } finally {
+        messages.clear();
+      }
+    }
+  }
+
+  // called by the compression stage, outside of the producer lock
+  private void publishCompressedSubEntries() {
+    synchronized (this) {
+      if (canSend()) {
+        publishCompressed();
       }
-      client.publishInternal(
-          this.publisherId, messages, this.writeCallback, this.publishSequenceFunction);
     }
   }
 
+  // with the producer lock, publishes the sub-entries in the order they were accumulated
+  private void publishCompressed() {
+    List<Object> entities = this.batch;
+    try {
+      while (this.compressionStage.poll(entities, this.batchSize) > 0) {
+        publishEntities(entities);
+        entities.clear();
+      }
+    } finally {
+      entities.clear();
+    }
+  }
+
+  private void failCompression(AccumulatedEntity entity) {
+    int count = entity.confirmationCallback().handle(false, CODE_MESSAGE_ENQUEUEING_FAILED);
+    if (this.trackConfirms) {
+      this.unconfirmedMessagesSemaphore.release(count);
+      releaseBytes(entity.encodedSize());
+    }
+    notifyBatchConfirmationHandler(
+        false, CODE_MESSAGE_ENQUEUEING_FAILED, new long[] {entity.publishindId()}, count);
+  }
+
   boolean isOpen() {
     return !this.closed.get();
   }
 
   void unavailable() {
     this.status = Status.NOT_AVAILABLE;
+    if (!this.trackConfirms) {
+      // the confirms of the closed connection will never arrive
+      this.untrackedUnconfirmed.set(0);
+      wakeUpUntrackedWaiters();
+    }
   }
 
   void running() {
@@ -464,22 +1224,20 @@ class StreamProducer implements Producer {
           this.unconfirmedMessages.size(),
           this.accumulator.size());
       if (!this.unconfirmedMessages.isEmpty()) {
-        Map<Long, AccumulatedEntity> messagesToResend = new TreeMap<>(this.unconfirmedMessages);
-        this.unconfirmedMessages.clear();
-        Iterator<Entry<Long, AccumulatedEntity>> resendIterator =
-            messagesToResend.entrySet().iterator();
+        List<AccumulatedEntity> messagesToResend = this.unconfirmedMessages.drain();
+        Iterator<AccumulatedEntity> resendIterator = messagesToResend.iterator();
         while (resendIterator.hasNext()) {
           List<Object> messages = new ArrayList<>(this.batchSize);
           int batchCount = 0;
           while (batchCount != this.batchSize) {
-            Object accMessage = resendIterator.hasNext() ? resendIterator.next().getValue() : null;
+            Object accMessage = resendIterator.hasNext() ? resendIterator.next() : null;
             if (accMessage == null) {
               break;
             }
             messages.add(accMessage);
             batchCount++;
           }
-          client.publishInternal(
+          client.publishEntities(
               this.publisherId, messages, this.writeCallback, this.publishSequenceFunction);
         }
       }
@@ -494,8 +1252,17 @@ class StreamProducer implements Producer {
               this.unconfirmedMessages.size());
         }
       }
+      // spilling requires the producer lock, no message can be spilled after this replay
+      if (this.spillStore != null && !publishSpilledMessages()) {
+        // still not available, the next recovery publishes the rest
+        return;
+      }
+      this.status = Status.RUNNING;
+      if (this.compressionStage != null) {
+        // sub-entries compressed while the producer was not available
+        publishCompressed();
+      }
     }
-    this.status = Status.RUNNING;
   }
 
   synchronized void setClient(Client client) {
@@ -510,6 +1277,10 @@ class StreamProducer implements Producer {
     return this.status;
   }
 
+  Object connectionGroup() {
+    return this.connectionGroup;
+  }
+
   enum Status {
     RUNNING,
     NOT_AVAILABLE,
@@ -13,6 +13,9 @@
 // info@rabbitmq.com.
 package com.rabbitmq.stream.impl;
 
+import com.rabbitmq.stream.BatchConfirmationHandler;
+import com.rabbitmq.stream.ByteCapacity;
+import com.rabbitmq.stream.ConfirmMode;
 import com.rabbitmq.stream.Message;
 import com.rabbitmq.stream.Producer;
 import com.rabbitmq.stream.ProducerBuilder;
@@ -20,7 +23,9 @@ import com.rabbitmq.stream.RoutingStrategy;
 import com.rabbitmq.stream.StreamException;
 import com.rabbitmq.stream.compression.Compression;
 import java.lang.reflect.Field;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.function.ToIntFunction;
 
@@ -36,16 +41,39 @@ class StreamProducerBuilder implements ProducerBuilder {
 
   private Compression compression;
 
+  private Executor compressionExecutor;
+
   private int batchSize = 100;
 
   private Duration batchPublishingDelay = Duration.ofMillis(100);
 
+  private Duration linger = Duration.ZERO;
+
+  private ByteCapacity maxBatchBytes;
+
   private int maxUnconfirmedMessages = 10_000;
 
+  private ByteCapacity maxUnconfirmedBytes;
+
   private Duration confirmTimeout = Duration.ofSeconds(30);
 
   private Duration enqueueTimeout = Duration.ofSeconds(10);
 
+  private BatchConfirmationHandler batchConfirmationHandler;
+
+  private ConfirmMode confirmMode = ConfirmMode.TRACK;
+
+  private Path spillDirectory;
+
+  private ByteCapacity maxSpillSize = ByteCapacity.GB(1);
+
+  private int concurrency = 1;
+
+  private Function<Message, String> concurrencyRoutingKeyExtractor;
+
+  // producers with the same connection group go to different connections
+  private Object connectionGroup;
+
   private DefaultRoutingConfiguration routingConfiguration;
 
   StreamProducerBuilder(StreamEnvironment environment) {
@@ -92,11 +120,45 @@ class StreamProducerBuilder implements ProducerBuilder {
     return this;
   }
 
+  @Override
+  public ProducerBuilder compressionExecutor(Executor executor) {
+    this.compressionExecutor = executor;
+    return this;
+  }
+
   public StreamProducerBuilder batchPublishingDelay(Duration batchPublishingDelay) {
     this.batchPublishingDelay = batchPublishingDelay;
     return this;
   }
 
+  @Override
+  public ProducerBuilder linger(Duration maxLatency) {
+    if (maxLatency == null || maxLatency.isNegative()) {
+      throw new IllegalArgumentException("the linger cannot be negative");
+    }
+    this.linger = maxLatency;
+    return this;
+  }
+
+  @Override
+  public ProducerBuilder maxBatchBytes(ByteCapacity maxBatchBytes) {
+    if (maxBatchBytes != null && maxBatchBytes.toBytes() <= 0) {
+      throw new IllegalArgumentException("the maximum batch size in bytes must be greater than 0");
+    }
+    this.maxBatchBytes = maxBatchBytes;
+    return this;
+  }
+
+  @Override
+  public ProducerBuilder maxUnconfirmedBytes(ByteCapacity maxUnconfirmedBytes) {
+    if (maxUnconfirmedBytes != null && maxUnconfirmedBytes.toBytes() <= 0) {
+      throw new IllegalArgumentException(
+          "the maximum number of unconfirmed bytes must be greater than 0");
+    }
+    this.maxUnconfirmedBytes = maxUnconfirmedBytes;
+    return this;
+  }
+
   @Override
   public ProducerBuilder maxUnconfirmedMessages(int maxUnconfirmedMessages) {
     if (maxUnconfirmedMessages <= 0) {
@@ -128,6 +190,57 @@ class StreamProducerBuilder implements ProducerBuilder {
     return this;
   }
 
+  @Override
+  public ProducerBuilder batchConfirmationHandler(BatchConfirmationHandler handler) {
+    this.batchConfirmationHandler = handler;
+    return this;
+  }
+
+  @Override
+  public ProducerBuilder confirmMode(ConfirmMode confirmMode) {
+    if (confirmMode == null) {
+      throw new IllegalArgumentException("the confirm mode cannot be null");
+    }
+    this.confirmMode = confirmMode;
+    return this;
+  }
+
+  @Override
+  public ProducerBuilder spillDirectory(Path directory) {
+    this.spillDirectory = directory;
+    return this;
+  }
+
+  @Override
+  public ProducerBuilder maxSpillSize(ByteCapacity maxSpillSize) {
+    if (maxSpillSize == null || maxSpillSize.toBytes() <= 0) {
+      throw new IllegalArgumentException("the maximum spill size must be greater than 0");
+    }
+    this.maxSpillSize = maxSpillSize;
+    return this;
+  }
+
+  @Override
+  public StreamProducerBuilder concurrency(int concurrency) {
+    return this.concurrency(concurrency, null);
+  }
+
+  @Override
+  public StreamProducerBuilder concurrency(
+      int concurrency, Function<Message, String> routingKeyExtractor) {
+    if (concurrency <= 0) {
+      throw new IllegalArgumentException("the concurrency must be greater than 0");
+    }
+    this.concurrency = concurrency;
+    this.concurrencyRoutingKeyExtractor = routingKeyExtractor;
+    return this;
+  }
+
+  StreamProducerBuilder connectionGroup(Object connectionGroup) {
+    this.connectionGroup = connectionGroup;
+    return this;
+  }
+
   @Override
   public RoutingConfiguration routing(Function<Message, String> routingKeyExtractor) {
     this.routingConfiguration = new DefaultRoutingConfiguration(this);
@@ -135,6 +248,10 @@ class StreamProducerBuilder implements ProducerBuilder {
     return this.routingConfiguration;
   }
 
+  ConfirmMode confirmMode() {
+    return this.confirmMode;
+  }
+
   void resetRouting() {
     this.routingConfiguration = null;
   }
@@ -150,6 +267,10 @@ class StreamProducerBuilder implements ProducerBuilder {
       throw new IllegalArgumentException(
           "Sub-entry batching must be enabled to enable compression");
     }
+    if (concurrency > 1 && name != null) {
+      throw new IllegalArgumentException(
+          "Deduplication (producer name) is not supported with a concurrency greater than 1");
+    }
     if (subEntrySize > 1 && compression == null) {
       compression = Compression.NONE;
     }
@@ -171,7 +292,14 @@ class StreamProducerBuilder implements ProducerBuilder {
           "A routing configuration must specified when a super stream is set");
     }
 
-    if (this.stream != null) {
+    if (this.stream != null && this.concurrency > 1) {
+      producer =
+          StripedProducer.create(
+              this.duplicate().concurrency(1),
+              this.concurrency,
+              this.concurrencyRoutingKeyExtractor,
+              this.environment.codec());
+    } else if (this.stream != null) {
       producer =
           new StreamProducer(
               name,
@@ -179,10 +307,19 @@ class StreamProducerBuilder implements ProducerBuilder {
               subEntrySize,
               batchSize,
               compression,
+              compressionExecutor,
               batchPublishingDelay,
+              linger,
+              maxBatchBytes == null ? 0 : maxBatchBytes.toBytes(),
               maxUnconfirmedMessages,
+              maxUnconfirmedBytes == null ? 0 : maxUnconfirmedBytes.toBytes(),
               confirmTimeout,
               enqueueTimeout,
+              batchConfirmationHandler,
+              confirmMode,
+              spillDirectory,
+              maxSpillSize.toBytes(),
+              connectionGroup,
               environment);
       this.environment.addProducer((StreamProducer) producer);
     } else {
@@ -0,0 +1,243 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import static com.rabbitmq.stream.Constants.COMMAND_DELIVER;
+import static com.rabbitmq.stream.Constants.VERSION_2;
+
+import com.rabbitmq.stream.ChunkChecksum;
+import com.rabbitmq.stream.ChunkChecksumValidationException;
+import com.rabbitmq.stream.impl.DeliverFrameDecoder.ChunkFragment;
+import com.rabbitmq.stream.impl.DeliverFrameDecoder.ChunkHeader;
+import com.rabbitmq.stream.impl.ServerFrameHandler.DeliverVersion1FrameHandler;
+import com.rabbitmq.stream.impl.ServerFrameHandler.DeliverVersion1FrameHandler.ChunkEntries;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Checksum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Handles the chunks the {@link DeliverFrameDecoder} streams.
+ *
+ * <p>Entries are dispatched as their fragments arrive when the checksum is disabled. Otherwise the
+ * checksum is computed fragment after fragment and the fragments are held until it is validated
+ * over the whole chunk, entries are dispatched only for a valid chunk. A checksum failure is
+ * propagated to the channel pipeline, which closes the connection.
+ *
+ * <p>Chunks are aggregated (without copy) and handled as a whole when the checksum cannot be
+ * computed incrementally or when the subscription consumes raw chunks.
+ *
+ * <p>Not thread-safe, the methods must be called from the connection dispatching thread.
+ */
+final class StreamedChunkHandler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(StreamedChunkHandler.class);
+
+  private final Client client;
+
+  private CompositeByteBuf aggregate;
+  private ChannelHandlerContext aggregateContext;
+  private short aggregateVersion;
+
+  private ChunkEntries entries;
+  private IncrementalChunkChecksum chunkChecksum;
+  private Checksum checksum;
+  private long crc;
+  private long checksumRemaining;
+  private final List<ByteBuf> heldFragments = new ArrayList<>();
+  private ChannelHandlerContext chunkContext;
+  private long chunkOffset;
+  private boolean skipping = false;
+  // the chunk listener has been notified of the chunk arrival, it must be notified of its end
+  private boolean chunkStarted = false;
+  private byte chunkSubscriptionId;
+  private long chunkRecords;
+  private long chunkDataLength;
+
+  StreamedChunkHandler(Client client) {
+    this.client = client;
+  }
+
+  void header(ChannelHandlerContext ctx, ChunkHeader chunkHeader) {
+    ByteBuf header = chunkHeader.header();
+    reset();
+    boolean releaseHeader = true;
+    try {
+      header.readShort(); // command ID
+      short version = header.readShort();
+      byte subscriptionId = header.readByte();
+      long committedOffset = version == VERSION_2 ? header.readLong() : 0;
+      if (aggregate(subscriptionId)) {
+        this.aggregate = ctx.alloc().compositeBuffer(Integer.MAX_VALUE);
+        this.aggregate.addComponent(true, header.readerIndex(0));
+        releaseHeader = false;
+        this.aggregateContext = ctx;
+        this.aggregateVersion = version;
+        return;
+      }
+      header.readByte(); // magic and version
+      byte chunkType = header.readByte();
+      if (chunkType != 0) {
+        throw new IllegalStateException("Invalid chunk type: " + chunkType);
+      }
+      int numEntries = header.readUnsignedShort();
+      long numRecords = header.readUnsignedInt();
+      long chunkTimestamp = header.readLong();
+      header.readLong(); // epoch, unused here
+      long offset = header.readLong();
+      long crc = header.readUnsignedInt();
+      long dataLength = header.readUnsignedInt();
+
+      client.chunkListener.handle(client, subscriptionId, offset, numRecords, dataLength);
+      this.chunkStarted = true;
+      this.chunkSubscriptionId = subscriptionId;
+      this.chunkOffset = offset;
+      this.chunkRecords = numRecords;
+      this.chunkDataLength = dataLength;
+      long offsetLimit =
+          DeliverVersion1FrameHandler.offsetLimit(client.subscriptionOffsets, subscriptionId);
+      client.metricsCollector.chunk(numEntries);
+
+      this.entries =
+          new ChunkEntries(
+              client,
+              client.messageListener,
+              client.codec,
+              subscriptionId,
+              committedOffset,
+              chunkTimestamp,
+              offset,
+              numRecords,
+              offsetLimit,
+              client.decompressionExecutorResolver.executor(subscriptionId));
+      if (client.chunkChecksum instanceof IncrementalChunkChecksum) {
+        this.chunkChecksum = (IncrementalChunkChecksum) client.chunkChecksum;
+        this.checksum = this.chunkChecksum.create();
+        this.crc = crc;
+        this.checksumRemaining = dataLength;
+        this.chunkContext = ctx;
+      }
+    } catch (Exception e) {
+      LOGGER.warn("Error while handling chunk header", e);
+      this.skipping = true;
+    } finally {
+      if (releaseHeader) {
+        header.release();
+      }
+    }
+  }
+
+  void fragment(ChunkFragment fragment) {
+    ByteBuf content = fragment.content();
+    if (this.aggregate != null) {
+      this.aggregate.addComponent(true, content);
+      if (fragment.isLast()) {
+        CompositeByteBuf frame = this.aggregate;
+        this.aggregate = null;
+        int frameSize = frame.readableBytes();
+        frame.skipBytes(4); // command ID and version, like for regular frames
+        ServerFrameHandler.lookup(COMMAND_DELIVER, this.aggregateVersion, frame)
+            .handle(this.client, frameSize, this.aggregateContext, frame);
+        this.aggregateContext = null;
+      }
+      return;
+    }
+    boolean releaseContent = true;
+    try {
+      if (this.skipping || this.entries == null) {
+        return;
+      }
+      if (this.checksum == null) {
+        this.entries.read(content, 0);
+      } else {
+        // the last fragment contains the trailer, which is not part of the checksum
+        int length = (int) Math.min(content.readableBytes(), this.checksumRemaining);
+        this.chunkChecksum.update(this.checksum, content, content.readerIndex(), length);
+        this.checksumRemaining -= length;
+        this.heldFragments.add(content);
+        releaseContent = false;
+        if (fragment.isLast()) {
+          try {
+            this.chunkChecksum.validate(this.checksum, this.crc);
+          } catch (ChunkChecksumValidationException e) {
+            LOGGER.warn(
+                "Checksum failure at offset {}, expecting {}, got {}",
+                this.chunkOffset,
+                e.getExpected(),
+                e.getComputed());
+            this.skipping = true;
+            if (this.chunkContext != null) {
+              this.chunkContext.pipeline().fireExceptionCaught(e);
+            }
+            return;
+          }
+          for (ByteBuf heldFragment : this.heldFragments) {
+            this.entries.read(heldFragment, 0);
+          }
+        }
+      }
+      if (fragment.isLast()) {
+        this.client.metricsCollector.consume(this.entries.messagesRead());
+      }
+    } catch (Exception e) {
+      LOGGER.warn("Error while handling chunk fragment", e);
+      this.skipping = true;
+    } finally {
+      if (releaseContent) {
+        content.release();
+      }
+      if (fragment.isLast()) {
+        boolean chunkStarted = this.chunkStarted;
+        reset();
+        if (chunkStarted) {
+          this.client.chunkListener.chunkProcessed(
+              this.client,
+              this.chunkSubscriptionId,
+              this.chunkOffset,
+              this.chunkRecords,
+              this.chunkDataLength);
+        }
+      }
+    }
+  }
+
+  void reset() {
+    if (this.aggregate != null) {
+      this.aggregate.release();
+      this.aggregate = null;
+      this.aggregateContext = null;
+    }
+    for (ByteBuf heldFragment : this.heldFragments) {
+      heldFragment.release();
+    }
+    this.heldFragments.clear();
+    this.chunkContext = null;
+    this.entries = null;
+    this.chunkChecksum = null;
+    this.checksum = null;
+    this.skipping = false;
+    this.chunkStarted = false;
+  }
+
+  private boolean aggregate(byte subscriptionId) {
+    ChunkChecksum chunkChecksum = client.chunkChecksum;
+    return client.rawChunkListener.consumesChunks(subscriptionId)
+        || !(chunkChecksum == ChunkChecksum.NO_OP
+            || chunkChecksum instanceof IncrementalChunkChecksum);
+  }
+}
@@ -0,0 +1,179 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import com.rabbitmq.stream.Codec;
+import com.rabbitmq.stream.ConfirmationHandler;
+import com.rabbitmq.stream.ConfirmationStatus;
+import com.rabbitmq.stream.Constants;
+import com.rabbitmq.stream.Message;
+import com.rabbitmq.stream.MessageBuilder;
+import com.rabbitmq.stream.Producer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link Producer} that spreads messages over several publishers of the same stream.
+ *
+ * <p>A message goes to the publisher of the sending thread, or to the publisher of its routing key
+ * when there is a routing key extractor, so that per-thread or per-key ordering holds. The
+ * publishers have the same connection group, so they use different connections.
+ */
+class StripedProducer implements Producer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(StripedProducer.class);
+
+  private final Producer[] producers;
+  // null means thread affinity
+  private final Function<Message, String> routingKeyExtractor;
+  private final Codec codec;
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+  // threads get their producer in turn, so they spread evenly over the producers
+  private final AtomicInteger stripeSequence = new AtomicInteger(0);
+  private final ThreadLocal<Integer> threadStripe;
+
+  StripedProducer(
+      List<Producer> producers, Function<Message, String> routingKeyExtractor, Codec codec) {
+    this.producers = producers.toArray(new Producer[0]);
+    this.routingKeyExtractor = routingKeyExtractor;
+    this.codec = codec;
+    this.threadStripe =
+        ThreadLocal.withInitial(
+            () ->
+                Integer.remainderUnsigned(
+                    this.stripeSequence.getAndIncrement(), this.producers.length));
+  }
+
+  static StripedProducer create(
+      StreamProducerBuilder producerBuilder,
+      int concurrency,
+      Function<Message, String> routingKeyExtractor,
+      Codec codec) {
+    Object connectionGroup = new Object();
+    List<Producer> producers = new ArrayList<>(concurrency);
+    try {
+      for (int i = 0; i < concurrency; i++) {
+        producers.add(producerBuilder.duplicate().connectionGroup(connectionGroup).build());
+      }
+    } catch (RuntimeException e) {
+      closeAll(producers);
+      throw e;
+    }
+    return new StripedProducer(producers, routingKeyExtractor, codec);
+  }
+
+  @Override
+  public MessageBuilder messageBuilder() {
+    return codec.messageBuilder();
+  }
+
+  @Override
+  public long getLastPublishingId() {
+    throw new IllegalStateException("The producer has no name");
+  }
+
+  @Override
+  public void send(Message message, ConfirmationHandler confirmationHandler) {
+    if (canSend()) {
+      this.producers[index(message)].send(message, confirmationHandler);
+    } else if (confirmationHandler != null) {
+      confirmationHandler.handle(
+          new ConfirmationStatus(message, false, Constants.CODE_PRODUCER_CLOSED));
+    }
+  }
+
+  @Override
+  public CompletableFuture<ConfirmationStatus> sendAsync(Message message) {
+    if (canSend()) {
+      return this.producers[index(message)].sendAsync(message);
+    } else {
+      return CompletableFuture.completedFuture(
+          new ConfirmationStatus(message, false, Constants.CODE_PRODUCER_CLOSED));
+    }
+  }
+
+  @Override
+  public void send(List<Message> messages, ConfirmationHandler confirmationHandler) {
+    if (!canSend()) {
+      for (Message message : messages) {
+        send(message, confirmationHandler);
+      }
+    } else if (this.routingKeyExtractor == null) {
+      this.producers[threadIndex()].send(messages, confirmationHandler);
+    } else {
+      // keeps the order of the messages for each publisher
+      List<List<Message>> messagesByProducer = new ArrayList<>(this.producers.length);
+      for (int i = 0; i < this.producers.length; i++) {
+        messagesByProducer.add(null);
+      }
+      for (Message message : messages) {
+        int index = index(message);
+        List<Message> producerMessages = messagesByProducer.get(index);
+        if (producerMessages == null) {
+          producerMessages = new ArrayList<>();
+          messagesByProducer.set(index, producerMessages);
+        }
+        producerMessages.add(message);
+      }
+      for (int i = 0; i < this.producers.length; i++) {
+        List<Message> producerMessages = messagesByProducer.get(i);
+        if (producerMessages != null) {
+          this.producers[i].send(producerMessages, confirmationHandler);
+        }
+      }
+    }
+  }
+
+  private int index(Message message) {
+    if (this.routingKeyExtractor == null) {
+      return threadIndex();
+    } else {
+      String routingKey = this.routingKeyExtractor.apply(message);
+      int hash = HashUtils.MURMUR3.applyAsInt(routingKey == null ? "" : routingKey);
+      return Integer.remainderUnsigned(hash, this.producers.length);
+    }
+  }
+
+  private int threadIndex() {
+    return this.threadStripe.get();
+  }
+
+  private boolean canSend() {
+    return !this.closed.get();
+  }
+
+  @Override
+  public void close() {
+    if (this.closed.compareAndSet(false, true)) {
+      closeAll(Arrays.asList(this.producers));
+    }
+  }
+
+  private static void closeAll(Iterable<Producer> producers) {
+    for (Producer producer : producers) {
+      try {
+        producer.close();
+      } catch (Exception e) {
+        LOGGER.info("Error while closing publisher of striped producer: {}", e.getMessage());
+      }
+    }
+  }
+}
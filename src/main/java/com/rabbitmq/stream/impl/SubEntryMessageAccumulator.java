@@ -30,6 +30,8 @@ class SubEntryMessageAccumulator extends SimpleMessageAccumulator {
   private final CompressionCodec compressionCodec;
   private final ByteBufAllocator byteBufAllocator;
   private final byte compression;
+  // true when sub-entries are compressed later, outside of the accumulator
+  private final boolean deferCompression;
 
   public SubEntryMessageAccumulator(
       int subEntrySize,
@@ -39,8 +41,11 @@ class SubEntryMessageAccumulator extends SimpleMessageAccumulator {
       ByteBufAllocator byteBufAllocator,
       int maxFrameSize,
       ToLongFunction<Message> publishSequenceFunction,
-      Clock clock) {
-    super(subEntrySize * batchSize, codec, maxFrameSize, publishSequenceFunction, clock);
+      Clock clock,
+      long maxBytes,
+      boolean deferCompression) {
+    super(subEntrySize * batchSize, codec, maxFrameSize, publishSequenceFunction, clock, maxBytes);
+    this.deferCompression = deferCompression;
     this.subEntrySize = subEntrySize;
     this.compressionCodec = compressionCodec;
     this.compression = compressionCodec == null ? Compression.NONE.code() : compressionCodec.code();
@@ -63,12 +68,15 @@ class SubEntryMessageAccumulator extends SimpleMessageAccumulator {
     Batch batch = createBatch();
     AccumulatedEntity lastMessageInBatch = null;
     while (count != this.subEntrySize) {
-      AccumulatedEntity message = messages.poll();
+      AccumulatedEntity message = poll();
       if (message == null) {
         break;
       }
       lastMessageInBatch = message;
-      batch.add((EncodedMessage) message.encodedEntity(), message.confirmationCallback());
+      batch.add(
+          (EncodedMessage) message.encodedEntity(),
+          message.encodedSize(),
+          message.confirmationCallback());
       count++;
     }
     if (batch.isEmpty()) {
@@ -76,7 +84,9 @@ class SubEntryMessageAccumulator extends SimpleMessageAccumulator {
     } else {
       batch.time = lastMessageInBatch.time();
       batch.publishingId = lastMessageInBatch.publishindId();
-      batch.encodedMessageBatch.close();
+      if (!this.deferCompression) {
+        batch.encodedMessageBatch.close();
+      }
       return batch;
     }
   }
@@ -87,6 +97,7 @@ class SubEntryMessageAccumulator extends SimpleMessageAccumulator {
     private final CompositeConfirmationCallback confirmationCallback;
     private volatile long publishingId;
     private volatile long time;
+    private int encodedSize;
 
     private Batch(
         EncodedMessageBatch encodedMessageBatch,
@@ -97,8 +108,10 @@ class SubEntryMessageAccumulator extends SimpleMessageAccumulator {
 
     void add(
         Codec.EncodedMessage encodedMessage,
+        int encodedSize,
         StreamProducer.ConfirmationCallback confirmationCallback) {
       this.encodedMessageBatch.add(encodedMessage);
+      this.encodedSize += encodedSize;
       this.confirmationCallback.add(confirmationCallback);
     }
 
@@ -116,6 +129,12 @@ class SubEntryMessageAccumulator extends SimpleMessageAccumulator {
       return encodedMessageBatch;
     }
 
+    // size of the messages before compression, as accounted for when they were accumulated
+    @Override
+    public int encodedSize() {
+      return encodedSize;
+    }
+
     @Override
     public long time() {
       return time;
@@ -16,6 +16,7 @@ package com.rabbitmq.stream.impl;
 import static com.rabbitmq.stream.impl.Utils.namedFunction;
 
 import com.rabbitmq.stream.Codec;
+import com.rabbitmq.stream.ConfirmMode;
 import com.rabbitmq.stream.ConfirmationHandler;
 import com.rabbitmq.stream.ConfirmationStatus;
 import com.rabbitmq.stream.Constants;
@@ -27,6 +28,7 @@ import com.rabbitmq.stream.RoutingStrategy.Metadata;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -46,6 +48,7 @@ class SuperStreamProducer implements Producer {
   private final String name;
   private final Metadata superStreamMetadata;
   private final AtomicBoolean closed = new AtomicBoolean(false);
+  private final boolean trackConfirms;
 
   SuperStreamProducer(
       StreamProducerBuilder producerBuilder,
@@ -62,6 +65,7 @@ class SuperStreamProducer implements Producer {
     this.producerBuilder = producerBuilder.duplicate();
     this.producerBuilder.stream(null);
     this.producerBuilder.resetRouting();
+    this.trackConfirms = producerBuilder.confirmMode() == ConfirmMode.TRACK;
   }
 
   @Override
@@ -130,6 +134,12 @@ class SuperStreamProducer implements Producer {
     }
   }
 
+  @Override
+  public CompletableFuture<ConfirmationStatus> sendAsync(Message message) {
+    StreamProducer.checkConfirmsTracked(this.trackConfirms);
+    return Producer.super.sendAsync(message);
+  }
+
   private boolean canSend() {
     return !this.closed.get();
   }
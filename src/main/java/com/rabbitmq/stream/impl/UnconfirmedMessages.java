@@ -0,0 +1,217 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import com.rabbitmq.stream.impl.MessageAccumulator.AccumulatedEntity;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unconfirmed messages of a producer, indexed by publishing ID.
+ *
+ * <p>Publishing IDs are mostly contiguous, so entries are stored in a ring of slots indexed by the
+ * publishing ID, without boxing nor allocation. An entry goes to a map only when its slot is
+ * already taken, e.g. with sparse publishing IDs assigned by the application.
+ *
+ * <p>Entries are also kept in a FIFO, in the order they are put, which is the order of their {@link
+ * AccumulatedEntity#time()}. Looking up expired entries stops at the first entry that has not
+ * expired, so it costs O(expired) instead of a scan of all the entries. Removed entries stay in the
+ * FIFO until they reach its head or the FIFO gets compacted.
+ *
+ * <p>Operations are synchronized on the instance, operations on several entries take the lock only
+ * once.
+ */
+final class UnconfirmedMessages {
+
+  private static final Comparator<AccumulatedEntity> PUBLISHING_ID_COMPARATOR =
+      Comparator.comparingLong(AccumulatedEntity::publishindId);
+
+  private final int mask;
+  private final long[] publishingIds;
+  private final AccumulatedEntity[] entities;
+  private final Map<Long, AccumulatedEntity> sparse = new HashMap<>();
+  private final ArrayDeque<AccumulatedEntity> fifo;
+  private int size = 0;
+
+  UnconfirmedMessages(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("The capacity must be positive");
+    }
+    int slotCount = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    if (slotCount <= 0) {
+      // overflow, the capacity is greater than the greatest power of 2 for an int
+      slotCount = 1 << 30;
+    }
+    this.mask = slotCount - 1;
+    this.publishingIds = new long[slotCount];
+    this.entities = new AccumulatedEntity[slotCount];
+    this.fifo = new ArrayDeque<>(slotCount);
+  }
+
+  synchronized void put(long publishingId, AccumulatedEntity entity) {
+    int slot = slot(publishingId);
+    AccumulatedEntity current = this.entities[slot];
+    if (current == null) {
+      if (this.sparse.isEmpty() || this.sparse.remove(publishingId) == null) {
+        this.size++;
+      }
+      this.publishingIds[slot] = publishingId;
+      this.entities[slot] = entity;
+    } else if (this.publishingIds[slot] == publishingId) {
+      this.entities[slot] = entity;
+    } else if (this.sparse.put(publishingId, entity) == null) {
+      this.size++;
+    }
+    this.fifo.offerLast(entity);
+    trimFifo();
+    if (this.fifo.size() > 2 * Math.max(this.size, this.entities.length)) {
+      compactFifo();
+    }
+  }
+
+  synchronized AccumulatedEntity remove(long publishingId) {
+    return doRemove(publishingId);
+  }
+
+  /**
+   * Removes the entries of the publishing IDs.
+   *
+   * @param publishingIds the publishing IDs
+   * @param removed the removed entries, <code>null</code> when there is no entry for a publishing
+   *     ID, at the same index as the publishing ID
+   */
+  synchronized void remove(long[] publishingIds, AccumulatedEntity[] removed) {
+    for (int i = 0; i < publishingIds.length; i++) {
+      removed[i] = doRemove(publishingIds[i]);
+    }
+  }
+
+  private AccumulatedEntity doRemove(long publishingId) {
+    int slot = slot(publishingId);
+    AccumulatedEntity entity = this.entities[slot];
+    if (entity != null && this.publishingIds[slot] == publishingId) {
+      this.entities[slot] = null;
+      this.size--;
+      return entity;
+    } else if (this.sparse.isEmpty()) {
+      return null;
+    } else {
+      entity = this.sparse.remove(publishingId);
+      if (entity != null) {
+        this.size--;
+      }
+      return entity;
+    }
+  }
+
+  /**
+   * The publishing IDs of the entries older than a given time.
+   *
+   * <p>Entries are expected to be put in time order. An entry put after a more recent entry is
+   * returned once the more recent entry has expired or has been removed.
+   *
+   * @param time the time limit
+   * @return the publishing IDs, in ascending order
+   */
+  synchronized long[] publishingIdsOlderThan(long time) {
+    trimFifo();
+    long[] result = new long[Math.min(this.size, 16)];
+    int count = 0;
+    for (AccumulatedEntity entity : this.fifo) {
+      if (entity.time() >= time) {
+        break;
+      }
+      if (isPresent(entity)) {
+        if (count == result.length) {
+          result = Arrays.copyOf(result, Math.min(this.size, result.length * 2));
+        }
+        result[count++] = entity.publishindId();
+      }
+    }
+    result = count == result.length ? result : Arrays.copyOf(result, count);
+    Arrays.sort(result);
+    return result;
+  }
+
+  /**
+   * Removes all the entries.
+   *
+   * @return the entries, by ascending publishing ID
+   */
+  synchronized List<AccumulatedEntity> drain() {
+    List<AccumulatedEntity> result = new ArrayList<>(this.size);
+    if (this.size > 0) {
+      for (int i = 0; i < this.entities.length; i++) {
+        if (this.entities[i] != null) {
+          result.add(this.entities[i]);
+          this.entities[i] = null;
+        }
+      }
+      result.addAll(this.sparse.values());
+      this.sparse.clear();
+      this.size = 0;
+      result.sort(PUBLISHING_ID_COMPARATOR);
+    }
+    this.fifo.clear();
+    return result;
+  }
+
+  synchronized int size() {
+    return this.size;
+  }
+
+  synchronized boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  synchronized int fifoSize() {
+    return this.fifo.size();
+  }
+
+  private boolean isPresent(AccumulatedEntity entity) {
+    long publishingId = entity.publishindId();
+    int slot = slot(publishingId);
+    if (this.entities[slot] == entity && this.publishingIds[slot] == publishingId) {
+      return true;
+    } else {
+      return !this.sparse.isEmpty() && this.sparse.get(publishingId) == entity;
+    }
+  }
+
+  private void trimFifo() {
+    AccumulatedEntity head;
+    while ((head = this.fifo.peekFirst()) != null && !isPresent(head)) {
+      this.fifo.pollFirst();
+    }
+  }
+
+  // removes the entries that are no longer present but are stuck behind an unconfirmed one
+  private void compactFifo() {
+    for (int i = this.fifo.size(); i > 0; i--) {
+      AccumulatedEntity entity = this.fifo.pollFirst();
+      if (isPresent(entity)) {
+        this.fifo.offerLast(entity);
+      }
+    }
+  }
+
+  private int slot(long publishingId) {
+    return (int) publishingId & this.mask;
+  }
+}
@@ -17,6 +17,8 @@ import com.codahale.metrics.Counter;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import java.util.concurrent.TimeUnit;
 
 public class DropwizardMetricsCollector implements MetricsCollector {
 
@@ -31,6 +33,11 @@ public class DropwizardMetricsCollector implements MetricsCollector {
   private final Meter readBytes;
 
   private final Counter outstandingPublishConfirm;
+  private final Counter inboundBacklog;
+  private final Timer inboundPaused;
+  private final Counter outboundBacklog;
+  private final Timer outboundUnwritable;
+  private final Histogram flushedFrames;
   private final Histogram chunkSize;
 
   public DropwizardMetricsCollector(MetricRegistry registry, String metricsPrefix) {
@@ -45,6 +52,11 @@ public class DropwizardMetricsCollector implements MetricsCollector {
     this.readBytes = registry.meter(metricsPrefix + ".read_bytes");
     this.outstandingPublishConfirm =
         registry.counter(metricsPrefix + ".outstanding_publish_confirm");
+    this.inboundBacklog = registry.counter(metricsPrefix + ".inbound_backlog");
+    this.inboundPaused = registry.timer(metricsPrefix + ".inbound_paused");
+    this.outboundBacklog = registry.counter(metricsPrefix + ".outbound_backlog");
+    this.outboundUnwritable = registry.timer(metricsPrefix + ".outbound_unwritable");
+    this.flushedFrames = registry.histogram(metricsPrefix + ".flushed_frames");
   }
 
   public DropwizardMetricsCollector() {
@@ -103,4 +115,29 @@ public class DropwizardMetricsCollector implements MetricsCollector {
   public void readBytes(int readBytes) {
     this.readBytes.mark(readBytes);
   }
+
+  @Override
+  public void inboundBacklog(long delta) {
+    this.inboundBacklog.inc(delta);
+  }
+
+  @Override
+  public void outboundBacklog(long delta) {
+    this.outboundBacklog.inc(delta);
+  }
+
+  @Override
+  public void inboundPaused(long pausedNanos) {
+    this.inboundPaused.update(pausedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void outboundUnwritable(long unwritableNanos) {
+    this.outboundUnwritable.update(unwritableNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void flush(int frames) {
+    this.flushedFrames.update(frames);
+  }
 }
@@ -32,4 +32,46 @@ public interface MetricsCollector {
   void writtenBytes(int writtenBytes);
 
   void readBytes(int readBytes);
+
+  /**
+   * Change of the number of inbound bytes received but not handled yet.
+   *
+   * <p>Reported only when an inbound budget is set.
+   *
+   * @param delta the change, negative when bytes have been handled
+   */
+  default void inboundBacklog(long delta) {}
+
+  /**
+   * A connection resumed reading after its inbound budget was exceeded.
+   *
+   * @param pausedNanos the time reading was paused, in nanoseconds
+   */
+  default void inboundPaused(long pausedNanos) {}
+
+  /**
+   * Change of the number of outbound bytes accumulated or waiting for confirmation.
+   *
+   * <p>Reported only when an environment outbound budget is set.
+   *
+   * @param delta the change, negative when bytes have been confirmed or failed
+   */
+  default void outboundBacklog(long delta) {}
+
+  /**
+   * A connection became writable again after its outbound buffer went over the high water mark.
+   *
+   * @param unwritableNanos the time the connection was not writable, in nanoseconds
+   */
+  default void outboundUnwritable(long unwritableNanos) {}
+
+  /**
+   * A connection flushed its outbound frames to the socket.
+   *
+   * <p>A flush usually translates into a system call, the number of frames per flush shows how well
+   * writes are coalesced.
+   *
+   * @param frames the number of frames written since the previous flush
+   */
+  default void flush(int frames) {}
 }
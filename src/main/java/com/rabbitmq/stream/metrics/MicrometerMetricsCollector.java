@@ -15,6 +15,7 @@ package com.rabbitmq.stream.metrics;
 
 import io.micrometer.core.instrument.*;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class MicrometerMetricsCollector implements MetricsCollector {
@@ -29,6 +30,11 @@ public class MicrometerMetricsCollector implements MetricsCollector {
   private final Counter readBytes;
 
   private final AtomicLong outstandingPublishConfirm;
+  private final AtomicLong inboundBacklog;
+  private final AtomicLong outboundBacklog;
+  private final Timer inboundPaused;
+  private final Timer outboundUnwritable;
+  private final DistributionSummary flushedFrames;
   protected final DistributionSummary chunkSize;
 
   public MicrometerMetricsCollector(MeterRegistry registry) {
@@ -57,6 +63,12 @@ public class MicrometerMetricsCollector implements MetricsCollector {
     this.readBytes = registry.counter(prefix + ".read_bytes", tags);
     this.outstandingPublishConfirm =
         registry.gauge(prefix + ".outstanding_publish_confirm", tags, new AtomicLong(0));
+    this.inboundBacklog = registry.gauge(prefix + ".inbound_backlog", tags, new AtomicLong(0));
+    this.inboundPaused = registry.timer(prefix + ".inbound_paused", tags);
+    this.outboundBacklog = registry.gauge(prefix + ".outbound_backlog", tags, new AtomicLong(0));
+    this.outboundUnwritable = registry.timer(prefix + ".outbound_unwritable", tags);
+    this.flushedFrames =
+        DistributionSummary.builder(prefix + ".flushed_frames").tags(tags).register(registry);
   }
 
   protected Counter createChunkCounter(MeterRegistry registry, String prefix, Iterable<Tag> tags) {
@@ -116,4 +128,29 @@ public class MicrometerMetricsCollector implements MetricsCollector {
   public void readBytes(int readBytes) {
     this.readBytes.increment(readBytes);
   }
+
+  @Override
+  public void inboundBacklog(long delta) {
+    this.inboundBacklog.addAndGet(delta);
+  }
+
+  @Override
+  public void inboundPaused(long pausedNanos) {
+    this.inboundPaused.record(pausedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void outboundBacklog(long delta) {
+    this.outboundBacklog.addAndGet(delta);
+  }
+
+  @Override
+  public void outboundUnwritable(long unwritableNanos) {
+    this.outboundUnwritable.record(unwritableNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void flush(int frames) {
+    this.flushedFrames.record(frames);
+  }
 }
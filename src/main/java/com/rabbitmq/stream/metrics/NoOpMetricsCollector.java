@@ -45,4 +45,19 @@ public final class NoOpMetricsCollector implements MetricsCollector {
 
   @Override
   public void readBytes(int readBytes) {}
+
+  @Override
+  public void inboundBacklog(long delta) {}
+
+  @Override
+  public void inboundPaused(long pausedNanos) {}
+
+  @Override
+  public void outboundBacklog(long delta) {}
+
+  @Override
+  public void outboundUnwritable(long unwritableNanos) {}
+
+  @Override
+  public void flush(int frames) {}
 }
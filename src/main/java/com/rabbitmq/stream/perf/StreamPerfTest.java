@@ -26,14 +26,18 @@ import com.rabbitmq.stream.Address;
 import com.rabbitmq.stream.AddressResolver;
 import com.rabbitmq.stream.ByteCapacity;
 import com.rabbitmq.stream.Codec;
+import com.rabbitmq.stream.ConfirmMode;
 import com.rabbitmq.stream.ConfirmationHandler;
 import com.rabbitmq.stream.Constants;
 import com.rabbitmq.stream.Consumer;
 import com.rabbitmq.stream.ConsumerBuilder;
+import com.rabbitmq.stream.ConsumerFlowStrategy;
 import com.rabbitmq.stream.Environment;
 import com.rabbitmq.stream.EnvironmentBuilder;
 import com.rabbitmq.stream.EnvironmentBuilder.TlsConfiguration;
+import com.rabbitmq.stream.FlushPolicy;
 import com.rabbitmq.stream.MessageBuilder;
+import com.rabbitmq.stream.NettyTransport;
 import com.rabbitmq.stream.OffsetSpecification;
 import com.rabbitmq.stream.Producer;
 import com.rabbitmq.stream.ProducerBuilder;
@@ -54,14 +58,9 @@ import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
-import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufAllocatorMetric;
 import io.netty.buffer.ByteBufAllocatorMetricProvider;
-import io.netty.channel.EventLoopGroup;
-import io.netty.channel.epoll.EpollEventLoopGroup;
-import io.netty.channel.epoll.EpollSocketChannel;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.util.internal.PlatformDependent;
@@ -215,6 +214,22 @@ public class StreamPerfTest implements Callable<Integer> {
       converter = Utils.GreaterThanOrEqualToZeroIntegerTypeConverter.class)
   private int batchPublishingDelay;
 
+  @CommandLine.Option(
+      names = {"--linger", "-lg"},
+      description =
+          "Maximum time in milliseconds a message can wait before being sent with adaptive batching, "
+              + "0 to disable adaptive batching",
+      defaultValue = "0",
+      converter = Utils.GreaterThanOrEqualToZeroIntegerTypeConverter.class)
+  private int linger;
+
+  @CommandLine.Option(
+      names = {"--producer-concurrency", "-pcc"},
+      description = "number of publishers (and connections) each producer spreads messages over",
+      defaultValue = "1",
+      converter = Utils.PositiveIntegerTypeConverter.class)
+  private int producerConcurrency;
+
   @CommandLine.Option(
       names = {"--sub-entry-size", "-ses"},
       description = "number of messages packed into a normal message entry",
@@ -230,6 +245,24 @@ public class StreamPerfTest implements Callable<Integer> {
       converter = Utils.CompressionTypeConverter.class)
   private Compression compression;
 
+  @CommandLine.Option(
+      names = {"--compression-threads", "-cth"},
+      description =
+          "number of threads to compress sub-entries in parallel, "
+              + "0 to compress in the publishing thread",
+      defaultValue = "0",
+      converter = Utils.NotNegativeIntegerTypeConverter.class)
+  private int compressionThreads;
+
+  @CommandLine.Option(
+      names = {"--decompression-threads", "-dth"},
+      description =
+          "number of threads to decompress sub-entries in parallel, "
+              + "0 to decompress in the dispatching thread",
+      defaultValue = "0",
+      converter = Utils.NotNegativeIntegerTypeConverter.class)
+  private int decompressionThreads;
+
   @CommandLine.Option(
       names = {"--codec", "-cc"},
       description = "class of codec to use. Aliases: qpid, simple.",
@@ -371,6 +404,14 @@ public class StreamPerfTest implements Callable<Integer> {
       defaultValue = "false")
   private boolean confirmLatency;
 
+  @CommandLine.Option(
+      names = {"--no-confirm-tracking", "-nct"},
+      description =
+          "do not track the confirmation of messages (at-most-once), "
+              + "confirm rate and latency are not reported",
+      defaultValue = "false")
+  private boolean noConfirmTracking;
+
   @CommandLine.Option(
       names = {"--super-streams", "-sst"},
       description = "use super streams",
@@ -422,6 +463,23 @@ public class StreamPerfTest implements Callable<Integer> {
       converter = Utils.CreditsTypeConverter.class)
   private CreditSettings credits;
 
+  @CommandLine.Option(
+      names = {"--flow-strategy", "-fs"},
+      description =
+          "consumer flow strategy: arrival (credits on chunk arrival), "
+              + "processed (credits once chunks are handled, additional credits as batch size), "
+              + "adaptive (window between additional and initial credits)",
+      defaultValue = "arrival")
+  private String flowStrategy;
+
+  @CommandLine.Option(
+      names = {"--flush-policy", "-fp"},
+      description =
+          "when publish frames are flushed: every-frame, end-of-batch (end of event loop batch), "
+              + "or <frames>:<max-delay-in-micros> (e.g. 32:100)",
+      defaultValue = "every-frame")
+  private String flushPolicy;
+
   @CommandLine.Option(
       names = {"--requested-max-frame-size", "-rmfs"},
       description = "maximum frame size to request",
@@ -431,10 +489,24 @@ public class StreamPerfTest implements Callable<Integer> {
 
   @CommandLine.Option(
       names = {"--native-epoll", "-ne"},
-      description = "use Netty's native epoll transport (Linux x86-64 only)",
+      description = "use Netty's native epoll transport (same as --transport epoll)",
       defaultValue = "false")
   private boolean nativeEpoll;
 
+  @CommandLine.Option(
+      names = {"--transport", "-tr"},
+      description =
+          "Netty transport: auto (epoll if available, NIO otherwise), nio, epoll, io_uring "
+              + "(io_uring requires the Netty incubator transport on the classpath)",
+      defaultValue = "auto")
+  private String transport;
+
+  @CommandLine.Option(
+      names = {"--busy-poll", "-bp"},
+      description = "socket busy poll in microseconds (epoll only), 0 to disable",
+      defaultValue = "0")
+  private int busyPoll;
+
   @ArgGroup(exclusive = false, multiplicity = "0..1")
   InstanceSyncOptions instanceSyncOptions;
 
@@ -476,7 +548,6 @@ public class StreamPerfTest implements Callable<Integer> {
   private PerformanceMetrics performanceMetrics;
   private List<Monitoring> monitorings;
   private volatile Environment environment;
-  private volatile EventLoopGroup eventLoopGroup;
   // constructor for completion script generation
   public StreamPerfTest() {
     this(null, null, null, null);
@@ -564,6 +635,47 @@ public class StreamPerfTest implements Callable<Integer> {
     return uris.stream().anyMatch(uri -> uri.toLowerCase().startsWith("rabbitmq-stream+tls"));
   }
 
+  private ConsumerFlowStrategy flowStrategy() {
+    if ("arrival".equals(this.flowStrategy)) {
+      return ConsumerFlowStrategy.creditOnChunkArrival(
+          this.credits.initial(), this.credits.additional());
+    } else if ("processed".equals(this.flowStrategy)) {
+      return ConsumerFlowStrategy.creditWhenChunkProcessed(
+          this.credits.initial(), this.credits.additional());
+    } else if ("adaptive".equals(this.flowStrategy)) {
+      return ConsumerFlowStrategy.adaptive(this.credits.additional(), this.credits.initial());
+    } else {
+      throw new IllegalArgumentException("Unknown flow strategy: " + this.flowStrategy);
+    }
+  }
+
+  private NettyTransport transport() {
+    if (this.nativeEpoll) {
+      return NettyTransport.EPOLL;
+    }
+    try {
+      return NettyTransport.valueOf(this.transport.toUpperCase(Locale.ENGLISH).replace('-', '_'));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unknown transport: " + this.transport);
+    }
+  }
+
+  private FlushPolicy flushPolicy() {
+    if ("every-frame".equals(this.flushPolicy)) {
+      return FlushPolicy.everyFrame();
+    } else if ("end-of-batch".equals(this.flushPolicy)) {
+      return FlushPolicy.endOfEventLoopBatch();
+    } else {
+      String[] framesAndDelay = this.flushPolicy.split(":");
+      if (framesAndDelay.length != 2) {
+        throw new IllegalArgumentException("Unknown flush policy: " + this.flushPolicy);
+      }
+      return FlushPolicy.afterFrames(
+          Integer.parseInt(framesAndDelay[0]),
+          Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(Long.parseLong(framesAndDelay[1]))));
+    }
+  }
+
   private static String stream(List<String> streams, int i) {
     return streams.get(i % streams.size());
   }
@@ -680,6 +792,29 @@ public class StreamPerfTest implements Callable<Integer> {
       shutdownService.wrap(
           closeStep("Closing environment executor", () -> envExecutor.shutdownNow()));
 
+      ExecutorService compressionExecutor;
+      if (this.compressionThreads > 0) {
+        compressionExecutor =
+            Executors.newFixedThreadPool(
+                this.compressionThreads, new NamedThreadFactory("stream-perf-test-compression-"));
+        shutdownService.wrap(
+            closeStep("Closing compression executor", () -> compressionExecutor.shutdownNow()));
+      } else {
+        compressionExecutor = null;
+      }
+
+      ExecutorService decompressionExecutor;
+      if (this.decompressionThreads > 0) {
+        decompressionExecutor =
+            Executors.newFixedThreadPool(
+                this.decompressionThreads,
+                new NamedThreadFactory("stream-perf-test-decompression-"));
+        shutdownService.wrap(
+            closeStep("Closing decompression executor", () -> decompressionExecutor.shutdownNow()));
+      } else {
+        decompressionExecutor = null;
+      }
+
       boolean tls = isTls(this.uris);
       AddressResolver addrResolver;
       if (loadBalancer) {
@@ -712,15 +847,6 @@ public class StreamPerfTest implements Callable<Integer> {
         }
       }
 
-      java.util.function.Consumer<Bootstrap> bootstrapCustomizer;
-      if (this.nativeEpoll) {
-        this.eventLoopGroup = new EpollEventLoopGroup();
-        bootstrapCustomizer = b -> b.channel(EpollSocketChannel.class);
-      } else {
-        this.eventLoopGroup = new NioEventLoopGroup();
-        bootstrapCustomizer = b -> {};
-      }
-
       EnvironmentBuilder environmentBuilder =
           Environment.builder()
               .id("stream-perf-test")
@@ -730,15 +856,16 @@ public class StreamPerfTest implements Callable<Integer> {
               .metricsCollector(metricsCollector)
               .netty()
               .byteBufAllocator(byteBufAllocator)
-              .eventLoopGroup(eventLoopGroup)
-              .bootstrapCustomizer(bootstrapCustomizer)
+              .transport(transport())
+              .busyPoll(Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(this.busyPoll)))
               .environmentBuilder()
               .codec(codec)
               .maxProducersByConnection(this.producersByConnection)
               .maxTrackingConsumersByConnection(this.trackingConsumersByConnection)
               .maxConsumersByConnection(this.consumersByConnection)
               .rpcTimeout(Duration.ofSeconds(this.rpcTimeout))
-              .requestedMaxFrameSize((int) this.requestedMaxFrameSize.toBytes());
+              .requestedMaxFrameSize((int) this.requestedMaxFrameSize.toBytes())
+              .flushPolicy(flushPolicy());
 
       java.util.function.Consumer<io.netty.channel.Channel> channelCustomizer = channel -> {};
 
@@ -771,14 +898,6 @@ public class StreamPerfTest implements Callable<Integer> {
               .environmentBuilder()
               .build();
       if (!isRunTimeLimited()) {
-        shutdownService.wrap(
-            closeStep(
-                "Closing Netty event loop group",
-                () -> {
-                  if (!eventLoopGroup.isShuttingDown() || !eventLoopGroup.isShutdown()) {
-                    eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
-                  }
-                }));
         shutdownService.wrap(closeStep("Closing environment", () -> environment.close()));
       }
 
@@ -866,7 +985,9 @@ public class StreamPerfTest implements Callable<Integer> {
                     ProducerBuilder producerBuilder =
                         environment
                             .producerBuilder()
-                            .batchPublishingDelay(ofMillis(this.batchPublishingDelay));
+                            .batchPublishingDelay(ofMillis(this.batchPublishingDelay))
+                            .linger(ofMillis(this.linger))
+                            .concurrency(this.producerConcurrency);
 
                     String producerName = this.producerNameStrategy.apply(stream, i + 1);
                     if (producerName != null && !producerName.trim().isEmpty()) {
@@ -893,7 +1014,10 @@ public class StreamPerfTest implements Callable<Integer> {
                             .batchSize(this.batchSize)
                             .compression(
                                 this.compression == Compression.NONE ? null : this.compression)
+                            .compressionExecutor(compressionExecutor)
                             .maxUnconfirmedMessages(this.confirms)
+                            .confirmMode(
+                                this.noConfirmTracking ? ConfirmMode.NONE : ConfirmMode.TRACK)
                             .build();
 
                     AtomicLong messageCount = new AtomicLong(0);
@@ -997,7 +1121,8 @@ public class StreamPerfTest implements Callable<Integer> {
                             environment
                                 .consumerBuilder()
                                 .offset(this.offset)
-                                .credits(this.credits.initial(), this.credits.additional());
+                                .flowStrategy(flowStrategy())
+                                .decompressionExecutor(decompressionExecutor);
 
                         if (this.superStreams) {
                           consumerBuilder.superStream(stream);
@@ -1218,7 +1343,6 @@ public class StreamPerfTest implements Callable<Integer> {
   void close() {
     if (this.isRunTimeLimited()) {
       this.environment.close();
-      this.eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
     }
   }
 
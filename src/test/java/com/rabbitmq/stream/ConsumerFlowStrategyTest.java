@@ -0,0 +1,122 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream;
+
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.rabbitmq.stream.ConsumerFlowStrategy.ChunkCallback;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+
+public class ConsumerFlowStrategyTest {
+
+  List<Integer> credits = new CopyOnWriteArrayList<>();
+
+  @Test
+  void creditOnChunkArrival() {
+    ConsumerFlowStrategy strategy = ConsumerFlowStrategy.creditOnChunkArrival(10, 2);
+    assertThat(strategy.initialCredits()).isEqualTo(10);
+    ChunkCallback callback = strategy.start(credits::add);
+    callback.chunkArrived(10, 100);
+    assertThat(credits).containsExactly(2);
+    callback.chunkProcessed(10, 100);
+    assertThat(credits).containsExactly(2);
+  }
+
+  @Test
+  void creditWhenChunkProcessed() {
+    ConsumerFlowStrategy strategy = ConsumerFlowStrategy.creditWhenChunkProcessed(5);
+    assertThat(strategy.initialCredits()).isEqualTo(5);
+    ChunkCallback callback = strategy.start(credits::add);
+    callback.chunkArrived(10, 100);
+    assertThat(credits).isEmpty();
+    callback.chunkProcessed(10, 100);
+    assertThat(credits).containsExactly(1);
+  }
+
+  @Test
+  void creditWhenChunkProcessedShouldBatchCredits() {
+    ConsumerFlowStrategy strategy = ConsumerFlowStrategy.creditWhenChunkProcessed(5, 3);
+    ChunkCallback callback = strategy.start(credits::add);
+    for (int i = 0; i < 7; i++) {
+      callback.chunkArrived(10, 100);
+      callback.chunkProcessed(10, 100);
+    }
+    assertThat(credits).containsExactly(3, 3);
+    // the state is not shared between subscriptions
+    List<Integer> otherCredits = new CopyOnWriteArrayList<>();
+    ChunkCallback otherCallback = strategy.start(otherCredits::add);
+    otherCallback.chunkProcessed(10, 100);
+    otherCallback.chunkProcessed(10, 100);
+    assertThat(otherCredits).isEmpty();
+    callback.chunkProcessed(10, 100);
+    callback.chunkProcessed(10, 100);
+    assertThat(credits).containsExactly(3, 3, 3);
+  }
+
+  @Test
+  void adaptiveShouldGrowWindowUpToMaximumForFastConsumer() {
+    ConsumerFlowStrategy strategy = ConsumerFlowStrategy.adaptive(2, 8);
+    assertThat(strategy.initialCredits()).isEqualTo(2);
+    ChunkCallback callback = strategy.start(credits::add);
+    callback.chunkArrived(10, 100);
+    callback.chunkProcessed(10, 100);
+    assertThat(credits).containsExactly(7);
+    callback.chunkArrived(10, 100);
+    callback.chunkProcessed(10, 100);
+    // not enough missing credits for a new batch
+    assertThat(credits).containsExactly(7);
+    callback.chunkArrived(10, 100);
+    callback.chunkProcessed(10, 100);
+    assertThat(credits).containsExactly(7, 2);
+  }
+
+  @Test
+  void adaptiveShouldBoundWindowWithPrefetchSize() {
+    ConsumerFlowStrategy strategy =
+        ConsumerFlowStrategy.adaptive(1, 100, ofSeconds(1), ByteCapacity.kB(10));
+    ChunkCallback callback = strategy.start(credits::add);
+    callback.chunkArrived(10, 5000);
+    callback.chunkProcessed(10, 5000);
+    assertThat(credits).containsExactly(2);
+  }
+
+  @Test
+  void adaptiveShouldKeepMinimumWindowForSlowConsumer() throws Exception {
+    ConsumerFlowStrategy strategy = ConsumerFlowStrategy.adaptive(1, 100, ofMillis(1), null);
+    ChunkCallback callback = strategy.start(credits::add);
+    callback.chunkArrived(10, 100);
+    Thread.sleep(20);
+    callback.chunkProcessed(10, 100);
+    assertThat(credits).containsExactly(1);
+  }
+
+  @Test
+  void invalidArgumentsShouldBeRejected() {
+    assertThatThrownBy(() -> ConsumerFlowStrategy.creditOnChunkArrival(0, 1))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> ConsumerFlowStrategy.creditWhenChunkProcessed(0))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> ConsumerFlowStrategy.creditWhenChunkProcessed(5, 6))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> ConsumerFlowStrategy.adaptive(10, 5))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> ConsumerFlowStrategy.adaptive(1, 5, ofSeconds(0), null))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
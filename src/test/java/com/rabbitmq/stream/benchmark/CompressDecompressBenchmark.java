@@ -52,11 +52,12 @@ import org.openjdk.jmh.runner.options.OptionsBuilder;
 @Fork(1)
 @Threads(1)
 public class CompressDecompressBenchmark {
-  @Param({"ZstdJniCompressionCodec"})
+  @Param({"ZstdJniCompressionCodec", "Lz4JavaCompressionCodec"})
   String codecClass;
 
   CompressionCodec codec;
   byte[] plainData;
+  ByteBuf plainDataBb;
   byte[] compressedData;
   ByteBuf compressedDataBb;
   ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
@@ -97,6 +98,24 @@ public class CompressDecompressBenchmark {
     compressedDataBb = allocator.buffer(compressedData.length);
     compressedDataBb.writeBytes(bb.array(), 0, compressedData.length);
     bb.release();
+    plainDataBb = allocator.buffer(plainData.length);
+    plainDataBb.writeBytes(plainData);
+  }
+
+  @Benchmark
+  public void compressBlock() {
+    plainDataBb.readerIndex(0);
+    ByteBuf bb = allocator.buffer(codec.maxCompressedLength(plainData.length));
+    codec.compress(plainDataBb, bb);
+    bb.release();
+  }
+
+  @Benchmark
+  public void decompressBlock() {
+    compressedDataBb.readerIndex(0);
+    ByteBuf outBb = allocator.buffer(plainData.length);
+    codec.decompress(compressedDataBb, outBb, plainData.length);
+    outBb.release();
   }
 
   @Benchmark
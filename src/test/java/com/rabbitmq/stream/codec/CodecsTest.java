@@ -27,24 +27,37 @@ import com.rabbitmq.stream.amqp.UnsignedInteger;
 import com.rabbitmq.stream.amqp.UnsignedLong;
 import com.rabbitmq.stream.amqp.UnsignedShort;
 import com.rabbitmq.stream.codec.QpidProtonCodec.QpidProtonAmqpMessageWrapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Random;
 import java.util.UUID;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.Symbol;
 import org.apache.qpid.proton.amqp.messaging.AmqpValue;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.Footer;
+import org.apache.qpid.proton.amqp.messaging.Header;
 import org.assertj.core.api.InstanceOfAssertFactories;
 import org.assertj.core.api.ThrowableAssert;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 public class CodecsTest {
 
@@ -82,6 +95,10 @@ public class CodecsTest {
     return Stream.of(new QpidProtonCodec(), new SwiftMqCodec());
   }
 
+  static Stream<Codec> allCodecs() {
+    return Stream.of(new QpidProtonCodec(), new SwiftMqCodec(), new SimpleCodec());
+  }
+
   static Stream<MessageBuilder> messageBuilders() {
     return Stream.of(
         new QpidProtonMessageBuilder(),
@@ -540,6 +557,143 @@ public class CodecsTest {
     assertThatThrownBy(() -> m2.getBodyAsBinary()).isInstanceOf(IllegalStateException.class);
   }
 
+  @ParameterizedTest
+  @MethodSource("allCodecs")
+  void decodeFromByteBufferShouldReadOnlyBetweenPositionAndLimit(Codec codec) {
+    boolean amqp = !(codec instanceof SimpleCodec);
+    MessageBuilder messageBuilder = codec.messageBuilder().addData("hello".getBytes(CHARSET));
+    if (amqp) {
+      messageBuilder
+          .properties()
+          .messageId(42)
+          .messageBuilder()
+          .applicationProperties()
+          .entry("property1", "value1")
+          .messageBuilder()
+          .messageAnnotations()
+          .entry("annotation1", "value1");
+    }
+    Message outboundMessage = messageBuilder.build();
+    EncodedMessage encoded = codec.encode(outboundMessage);
+    int padding = 10;
+    Stream.of(
+            ByteBuffer.allocate(encoded.getSize() + padding * 2),
+            ByteBuffer.allocateDirect(encoded.getSize() + padding * 2))
+        .forEach(
+            buffer -> {
+              buffer.put(new byte[padding]);
+              buffer.put(encoded.getData(), 0, encoded.getSize());
+              buffer.put(new byte[padding]);
+              buffer.position(padding).limit(padding + encoded.getSize());
+
+              Message inboundMessage = codec.decode(buffer);
+              // overwriting the buffer, the message must not reference it
+              buffer.clear();
+              buffer.put(new byte[buffer.capacity()]);
+
+              assertThat(inboundMessage.getBodyAsBinary()).isEqualTo("hello".getBytes(CHARSET));
+              if (amqp) {
+                assertThat(inboundMessage.getProperties().getMessageIdAsLong()).isEqualTo(42);
+                assertThat(inboundMessage.getApplicationProperties())
+                    .containsEntry("property1", "value1");
+                assertThat(inboundMessage.getMessageAnnotations())
+                    .containsEntry("annotation1", "value1");
+              }
+            });
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 10, 255, 256, 10_000})
+  void qpidProtonEncodingWithDataBodyShouldBeSameAsProtonEncoding(int bodySize) {
+    byte[] body = new byte[bodySize];
+    new Random().nextBytes(body);
+    org.apache.qpid.proton.message.Message nativeMessage =
+        org.apache.qpid.proton.message.Message.Factory.create();
+    nativeMessage.setHeader(new Header());
+    nativeMessage.getHeader().setDurable(true);
+    nativeMessage.setMessageId("message-id");
+    nativeMessage.setApplicationProperties(
+        new ApplicationProperties(Collections.singletonMap("key", "value")));
+    nativeMessage.setBody(new Data(new Binary(body)));
+    nativeMessage.setFooter(
+        new Footer(Collections.singletonMap(Symbol.valueOf("footer"), "value")));
+
+    byte[] expected = new byte[bodySize + 1024];
+    int expectedSize = nativeMessage.encode(expected, 0, expected.length);
+
+    EncodedMessage encoded =
+        new QpidProtonCodec().encode(new QpidProtonAmqpMessageWrapper(false, 0, nativeMessage));
+    assertThat(encoded.getSize()).isEqualTo(expectedSize);
+    assertThat(Arrays.copyOf(encoded.getData(), encoded.getSize()))
+        .isEqualTo(Arrays.copyOf(expected, expectedSize));
+    ByteBuf buffer = Unpooled.buffer(encoded.getSize());
+    encoded.write(buffer);
+    assertThat(ByteBufUtil.getBytes(buffer)).isEqualTo(Arrays.copyOf(expected, expectedSize));
+  }
+
+  @ParameterizedTest
+  @MethodSource("allCodecs")
+  void bufferBodiesShouldBeEncoded(Codec codec) {
+    byte[] body = "hello".getBytes(CHARSET);
+    ByteBuffer heapBuffer = ByteBuffer.wrap(body);
+    ByteBuffer directBuffer = ByteBuffer.allocateDirect(body.length);
+    directBuffer.put(body);
+    directBuffer.flip();
+    ByteBuf byteBuf = Unpooled.directBuffer(body.length).writeBytes(body);
+    try {
+      Stream.<Function<MessageBuilder, MessageBuilder>>of(
+              b -> b.addData(heapBuffer), b -> b.addData(directBuffer), b -> b.addData(byteBuf))
+          .forEach(
+              addData -> {
+                Message outboundMessage = addData.apply(codec.messageBuilder()).build();
+                assertThat(outboundMessage.getBodyAsBinary()).isEqualTo(body);
+                EncodedMessage encoded = codec.encode(outboundMessage);
+                Message inboundMessage =
+                    codec.decode(Arrays.copyOf(encoded.getData(), encoded.getSize()));
+                assertThat(inboundMessage.getBodyAsBinary()).isEqualTo(body);
+              });
+      assertThat(heapBuffer.position()).isZero();
+      assertThat(directBuffer.position()).isZero();
+      assertThat(byteBuf.readerIndex()).isZero();
+    } finally {
+      byteBuf.release();
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {100, 10_000})
+  void qpidProtonEncodedMessageShouldExposeLargeDirectBodyAsTail(int bodySize) {
+    byte[] body = new byte[bodySize];
+    new Random().nextBytes(body);
+    ByteBuf byteBuf = Unpooled.directBuffer(bodySize).writeBytes(body);
+    try {
+      QpidProtonCodec codec = new QpidProtonCodec();
+      EncodedMessage encoded =
+          codec.encode(
+              codec
+                  .messageBuilder()
+                  .properties()
+                  .messageId(42)
+                  .messageBuilder()
+                  .addData(byteBuf)
+                  .build());
+      ByteBuf full = Unpooled.buffer(encoded.getSize());
+      encoded.write(full);
+      ByteBuf headAndTail = Unpooled.buffer(encoded.getSize());
+      encoded.writeHead(headAndTail);
+      if (bodySize > 4096) {
+        assertThat(encoded.tail()).isSameAs(byteBuf);
+        headAndTail.writeBytes(encoded.tail(), encoded.tail().readerIndex(), bodySize);
+      } else {
+        assertThat(encoded.tail()).isNull();
+      }
+      assertThat(ByteBufUtil.getBytes(headAndTail)).isEqualTo(ByteBufUtil.getBytes(full));
+      assertThat(codec.decode(ByteBufUtil.getBytes(full)).getBodyAsBinary()).isEqualTo(body);
+    } finally {
+      byteBuf.release();
+    }
+  }
+
   @ParameterizedTest
   @MethodSource("messageBuilders")
   void publishingIdShouldBeSetOnMessageIfSetOnMessageBuilder(MessageBuilder builder) {
@@ -19,10 +19,8 @@ import com.rabbitmq.stream.ByteCapacity;
 import com.rabbitmq.stream.Environment;
 
 import com.rabbitmq.stream.EnvironmentBuilder;
+import com.rabbitmq.stream.NettyTransport;
 import io.netty.channel.Channel;
-import io.netty.channel.EventLoopGroup;
-import io.netty.channel.epoll.EpollEventLoopGroup;
-import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import java.io.FileInputStream;
@@ -143,11 +141,9 @@ public class EnvironmentUsage {
 
     void nativeEpoll() {
         // tag::native-epoll[]
-        EventLoopGroup epollEventLoopGroup = new EpollEventLoopGroup();  // <1>
         Environment environment = Environment.builder()
-            .netty()  // <2>
-                .eventLoopGroup(epollEventLoopGroup)  // <3>
-                .bootstrapCustomizer(b -> b.channel(EpollSocketChannel.class))  // <4>
+            .netty()  // <1>
+                .transport(NettyTransport.EPOLL)  // <2>
                 .environmentBuilder()
             .build();
         // end::native-epoll[]
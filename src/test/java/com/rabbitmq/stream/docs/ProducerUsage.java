@@ -14,13 +14,18 @@
 
 package com.rabbitmq.stream.docs;
 
+import com.rabbitmq.stream.ConfirmationStatus;
 import com.rabbitmq.stream.Environment;
 import com.rabbitmq.stream.Message;
 import com.rabbitmq.stream.Producer;
 import com.rabbitmq.stream.compression.Compression;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class ProducerUsage {
 
@@ -54,6 +59,25 @@ public class ProducerUsage {
         // end::producer-publish[]
     }
 
+    void producerPublishBatch() {
+        Environment environment = Environment.builder().build();
+        Producer producer = environment.producerBuilder()
+                .stream("my-stream")
+                .build();
+        // tag::producer-publish-batch[]
+        List<Message> messages = IntStream.range(0, 100)
+                .mapToObj(i -> producer.messageBuilder()
+                        .addData(String.valueOf(i).getBytes(StandardCharsets.UTF_8))
+                        .build())
+                .collect(Collectors.toList());
+        producer.send(messages, confirmationStatus -> { });  // <1>
+        CompletableFuture<ConfirmationStatus> confirmation = producer.sendAsync(
+                producer.messageBuilder().addData("hello".getBytes(StandardCharsets.UTF_8)).build()
+        );  // <2>
+        confirmation.thenAccept(confirmationStatus -> { });  // <3>
+        // end::producer-publish-batch[]
+    }
+
     void producerComplexMessage() {
         Environment environment = Environment.builder().build();
         Producer producer = environment.producerBuilder()
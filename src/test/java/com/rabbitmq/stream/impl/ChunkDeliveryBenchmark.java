@@ -0,0 +1,152 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import com.rabbitmq.stream.Chunk;
+import com.rabbitmq.stream.ChunkChecksum;
+import com.rabbitmq.stream.Codec;
+import com.rabbitmq.stream.Constants;
+import com.rabbitmq.stream.codec.QpidProtonCodec;
+import com.rabbitmq.stream.impl.ServerFrameHandler.DeliverVersion1FrameHandler;
+import com.rabbitmq.stream.metrics.NoOpMetricsCollector;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/** Compares the per-message delivery path with the chunk handler path. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(1)
+public class ChunkDeliveryBenchmark {
+
+  private static final int FRAME_HEADER_SIZE = 4; // command key + version
+
+  @Param({"100", "1000"})
+  int messageCount;
+
+  @Param({"20", "1000"})
+  int payloadSize;
+
+  Codec codec;
+  ByteBuf frame;
+
+  @Setup
+  public void setUp() {
+    codec = new QpidProtonCodec();
+    Codec.EncodedMessage encoded =
+        codec.encode(codec.messageBuilder().addData(new byte[payloadSize]).build());
+    int dataSize = messageCount * (4 + encoded.getSize());
+    frame = Unpooled.buffer(64 + dataSize);
+    frame
+        .writeShort(Utils.encodeRequestCode(Constants.COMMAND_DELIVER))
+        .writeShort(Constants.VERSION_1)
+        .writeByte(1) // subscription id
+        .writeByte(1) // magic and version
+        .writeByte(0) // chunk type
+        .writeShort(messageCount) // num entries
+        .writeInt(messageCount) // num messages
+        .writeLong(System.currentTimeMillis())
+        .writeLong(0) // epoch
+        .writeLong(0) // offset
+        .writeInt(0) // CRC
+        .writeInt(dataSize) // data size
+        .writeInt(0) // trailer size
+        .writeInt(0); // reserved
+    for (int i = 0; i < messageCount; i++) {
+      frame.writeInt(encoded.getSize()).writeBytes(encoded.getData(), 0, encoded.getSize());
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    frame.release();
+  }
+
+  @Benchmark
+  public void messageHandler(Blackhole bh) {
+    frame.readerIndex(FRAME_HEADER_SIZE);
+    DeliverVersion1FrameHandler.handleDeliverVersion1(
+        frame,
+        null,
+        (client, subscriptionId, offset, messageCount, dataSize) -> {},
+        (subscriptionId, offset, chunkTimestamp, committedChunkId, message) -> bh.consume(message),
+        (client, subscriptionId, committedChunkId, chunk) -> false,
+        codec,
+        Collections.emptyList(),
+        ChunkChecksum.NO_OP,
+        NoOpMetricsCollector.SINGLETON);
+  }
+
+  @Benchmark
+  public void chunkHandlerIterateMessages(Blackhole bh) {
+    frame.readerIndex(FRAME_HEADER_SIZE);
+    DeliverVersion1FrameHandler.handleDeliverVersion1(
+        frame,
+        null,
+        (client, subscriptionId, offset, messageCount, dataSize) -> {},
+        (subscriptionId, offset, chunkTimestamp, committedChunkId, message) -> {},
+        (client, subscriptionId, committedChunkId, chunk) -> {
+          Iterator<Chunk.Entry> entries = chunk.entries();
+          while (entries.hasNext()) {
+            Iterator<ByteBuffer> messages = entries.next().messages();
+            while (messages.hasNext()) {
+              bh.consume(messages.next());
+            }
+          }
+          return true;
+        },
+        codec,
+        Collections.emptyList(),
+        ChunkChecksum.NO_OP,
+        NoOpMetricsCollector.SINGLETON);
+  }
+
+  @Benchmark
+  public void chunkHandlerRawData(Blackhole bh) {
+    frame.readerIndex(FRAME_HEADER_SIZE);
+    DeliverVersion1FrameHandler.handleDeliverVersion1(
+        frame,
+        null,
+        (client, subscriptionId, offset, messageCount, dataSize) -> {},
+        (subscriptionId, offset, chunkTimestamp, committedChunkId, message) -> {},
+        (client, subscriptionId, committedChunkId, chunk) -> {
+          bh.consume(chunk.data());
+          return true;
+        },
+        codec,
+        Collections.emptyList(),
+        ChunkChecksum.NO_OP,
+        NoOpMetricsCollector.SINGLETON);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt =
+        new OptionsBuilder().include(ChunkDeliveryBenchmark.class.getSimpleName()).forks(1).build();
+
+    new Runner(opt).run();
+  }
+}
@@ -52,6 +52,7 @@ import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -60,8 +61,10 @@ import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -505,6 +508,38 @@ public class ClientTest {
     client.close();
   }
 
+  @Test
+  void consumeWithChunkStreaming() throws Exception {
+    int publishCount = 100000;
+    byte subscriptionId = 42;
+    TestUtils.publishAndWaitForConfirms(cf, publishCount, stream);
+
+    CountDownLatch latch = new CountDownLatch(publishCount);
+    AtomicLong lastOffset = new AtomicLong(-1);
+    AtomicInteger outOfOrder = new AtomicInteger();
+    Client client =
+        cf.get(
+            new Client.ClientParameters()
+                .chunkStreamingThreshold(128)
+                .chunkListener(
+                    (c, corr, offset, messageCountInChunk, dataSize) -> c.credit(corr, 1))
+                .messageListener(
+                    (corr, offset, chkTimestamp, committedOffset, message) -> {
+                      if (offset != lastOffset.get() + 1) {
+                        outOfOrder.incrementAndGet();
+                      }
+                      lastOffset.set(offset);
+                      latch.countDown();
+                    }));
+    Response response =
+        client.subscribe(subscriptionId, stream, OffsetSpecification.first(), credit);
+    assertThat(response.isOk()).isTrue();
+
+    assertThat(latch.await(60, SECONDS)).isTrue();
+    assertThat(outOfOrder).hasValue(0);
+    client.close();
+  }
+
   @ParameterizedTest
   @ValueSource(booleans = {true, false})
   void publishAndConsume(boolean directBuffer) throws Exception {
@@ -922,6 +957,57 @@ public class ClientTest {
     assertThat(committedOffset).hasValue(response.getInfo().get("committed_chunk_id"));
   }
 
+  @Test
+  void asyncRequestsShouldFailOnceClientIsClosing() {
+    Client client = cf.get();
+    client.close();
+    CompletableFuture<Response> subscription =
+        client.subscribeAsync(b(1), stream, OffsetSpecification.offset(10), credit, null);
+    assertThat(subscription).isCompletedExceptionally();
+    assertThat(client.metadataAsync(stream)).isCompletedExceptionally();
+    assertThat(client.subscriptionOffsets).isEmpty();
+    assertThat(client.outstandingRequests).isEmpty();
+  }
+
+  @Test
+  void asyncRequestsCanBePipelined() throws Exception {
+    int subscriptionCount = 50;
+    Client client = cf.get();
+    List<CompletableFuture<Map<String, Client.StreamMetadata>>> metadata = new ArrayList<>();
+    List<CompletableFuture<Response>> subscriptions = new ArrayList<>();
+    for (int i = 0; i < subscriptionCount; i++) {
+      metadata.add(client.metadataAsync(stream));
+      subscriptions.add(
+          client.subscribeAsync(
+              b(i), stream, OffsetSpecification.first(), credit, Collections.emptyMap()));
+    }
+    CompletableFuture<Client.QueryOffsetResponse> queryOffset =
+        client.queryOffsetAsync("does-not-exist", stream);
+    CompletableFuture<Long> publisherSequence =
+        client.queryPublisherSequenceAsync("does-not-exist", stream);
+
+    CompletableFuture.allOf(subscriptions.toArray(new CompletableFuture<?>[0])).get(10, SECONDS);
+    for (CompletableFuture<Response> subscription : subscriptions) {
+      assertThat(subscription.get().isOk()).isTrue();
+    }
+    for (CompletableFuture<Map<String, Client.StreamMetadata>> m : metadata) {
+      assertThat(m.get(10, SECONDS)).containsKey(stream);
+    }
+    assertThat(queryOffset.get(10, SECONDS).getResponseCode())
+        .isEqualTo(Constants.RESPONSE_CODE_NO_OFFSET);
+    assertThat(publisherSequence.get(10, SECONDS)).isZero();
+    assertThat(client.outstandingRequests).isEmpty();
+  }
+
+  @Test
+  void asyncRequestsShouldFailWhenConnectionIsClosed() {
+    Client client = cf.get();
+    client.close();
+    assertThatThrownBy(() -> client.metadataAsync(stream).get(10, SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(StreamException.class);
+  }
+
   @Test
   @BrokerVersionAtLeast(BrokerVersion.RABBITMQ_3_11)
   void streamStatsShouldReturnErrorWhenStreamDoesNotExist() {
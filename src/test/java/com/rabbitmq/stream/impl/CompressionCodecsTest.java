@@ -14,9 +14,13 @@
 package com.rabbitmq.stream.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.rabbitmq.stream.Codec.EncodedMessage;
+import com.rabbitmq.stream.compression.Compression;
 import com.rabbitmq.stream.compression.CompressionCodec;
+import com.rabbitmq.stream.compression.CompressionException;
+import com.rabbitmq.stream.compression.CompressionUtils;
 import com.rabbitmq.stream.compression.CompressionUtils.CommonsCompressGzipCompressionCodec;
 import com.rabbitmq.stream.compression.CompressionUtils.CommonsCompressLz4CompressionCodec;
 import com.rabbitmq.stream.compression.CompressionUtils.CommonsCompressSnappyCompressionCodec;
@@ -25,24 +29,40 @@ import com.rabbitmq.stream.compression.CompressionUtils.GzipCompressionCodec;
 import com.rabbitmq.stream.compression.CompressionUtils.Lz4JavaCompressionCodec;
 import com.rabbitmq.stream.compression.CompressionUtils.XerialSnappyCompressionCodec;
 import com.rabbitmq.stream.compression.CompressionUtils.ZstdJniCompressionCodec;
+import com.rabbitmq.stream.compression.CompressionUtils.ZstdJniDictionaryCompressionCodec;
+import com.rabbitmq.stream.compression.ZstdDictionaryCompressionCodecFactory;
 import com.rabbitmq.stream.impl.Client.CompressedEncodedMessageBatch;
 import com.rabbitmq.stream.impl.Client.EncodedMessageBatch;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.ByteBufUtil;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream.BLOCKSIZE;
+import net.jpountz.lz4.LZ4FrameOutputStream.FLG;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 public class CompressionCodecsTest {
 
+  static final byte[] DICTIONARY =
+      CompressionUtils.trainZstdDictionary(jsonMessages(2000, 1), 16 * 1024);
+
   static Stream<Arguments> compressedEncodedMessageBatch() {
     return Stream.of(
         Arguments.of(new GzipCompressionCodec(), new GzipCompressionCodec()),
@@ -62,7 +82,13 @@ public class CompressionCodecsTest {
         Arguments.of(new ZstdJniCompressionCodec(), new ZstdJniCompressionCodec()),
         Arguments.of(
             new CommonsCompressZstdCompressionCodec(), new CommonsCompressZstdCompressionCodec()),
-        Arguments.of(new ZstdJniCompressionCodec(), new CommonsCompressZstdCompressionCodec()));
+        Arguments.of(new ZstdJniCompressionCodec(), new CommonsCompressZstdCompressionCodec()),
+        Arguments.of(
+            new ZstdJniDictionaryCompressionCodec(DICTIONARY, null),
+            new ZstdJniDictionaryCompressionCodec(DICTIONARY, null)),
+        Arguments.of(
+            new ZstdJniCompressionCodec(),
+            new ZstdJniDictionaryCompressionCodec(DICTIONARY, null)));
   }
 
   @ParameterizedTest
@@ -125,4 +151,225 @@ public class CompressionCodecsTest {
     destinationBb.release();
     outBb.release();
   }
+
+  static Stream<Arguments> blockApiShouldBeInteroperableWithStreamApi() {
+    List<Arguments> arguments = new ArrayList<>();
+    for (CompressionCodec codec :
+        new CompressionCodec[] {
+          new GzipCompressionCodec(),
+          new CommonsCompressGzipCompressionCodec(),
+          new XerialSnappyCompressionCodec(),
+          new CommonsCompressSnappyCompressionCodec(),
+          new Lz4JavaCompressionCodec(),
+          new CommonsCompressLz4CompressionCodec(),
+          new ZstdJniCompressionCodec(),
+          new CommonsCompressZstdCompressionCodec(),
+          new ZstdJniDictionaryCompressionCodec(DICTIONARY, null)
+        }) {
+      for (boolean direct : new boolean[] {true, false}) {
+        for (int size : new int[] {1000, 200_000}) {
+          arguments.add(Arguments.of(codec, direct, size));
+        }
+      }
+    }
+    return arguments.stream();
+  }
+
+  @ParameterizedTest
+  @MethodSource
+  void blockApiShouldBeInteroperableWithStreamApi(CompressionCodec codec, boolean direct, int size)
+      throws IOException {
+    byte[] plain = plain(size);
+
+    ByteBuf source = buffer(direct, size).writeBytes(plain);
+    ByteBuf blockCompressed = buffer(direct, codec.maxCompressedLength(size));
+    codec.compress(source, blockCompressed);
+    assertThat(source.isReadable()).isFalse();
+    assertThat(readAll(codec.decompress(new ByteBufInputStream(blockCompressed.duplicate()))))
+        .isEqualTo(plain);
+
+    ByteBuf streamCompressed = buffer(direct, codec.maxCompressedLength(size));
+    try (OutputStream outputStream = codec.compress(new ByteBufOutputStream(streamCompressed))) {
+      for (int i = 0; i < size; i += 1024) {
+        outputStream.write(plain, i, Math.min(1024, size - i));
+      }
+    }
+
+    for (ByteBuf compressed : new ByteBuf[] {blockCompressed, streamCompressed}) {
+      ByteBuf destination = buffer(direct, size);
+      codec.decompress(compressed, destination, size);
+      assertThat(compressed.isReadable()).isFalse();
+      assertThat(ByteBufUtil.getBytes(destination)).isEqualTo(plain);
+      destination.release();
+    }
+
+    source.release();
+    blockCompressed.release();
+    streamCompressed.release();
+  }
+
+  static Stream<Arguments> lz4BlockDecompressionShouldHandleFrameOptions() {
+    return Stream.of(
+        Arguments.of((Object) new FLG.Bits[] {FLG.Bits.BLOCK_INDEPENDENCE}),
+        Arguments.of(
+            (Object)
+                new FLG.Bits[] {
+                  FLG.Bits.BLOCK_INDEPENDENCE, FLG.Bits.BLOCK_CHECKSUM, FLG.Bits.CONTENT_CHECKSUM
+                }),
+        Arguments.of((Object) new FLG.Bits[] {FLG.Bits.BLOCK_INDEPENDENCE, FLG.Bits.CONTENT_SIZE}));
+  }
+
+  @ParameterizedTest
+  @MethodSource
+  void lz4BlockDecompressionShouldHandleFrameOptions(FLG.Bits[] features) throws IOException {
+    CompressionCodec codec = new Lz4JavaCompressionCodec();
+    int size = 200_000;
+    byte[] plain = plain(size);
+    ByteBuf compressed = buffer(true, codec.maxCompressedLength(size));
+    try (OutputStream outputStream =
+        new LZ4FrameOutputStream(
+            new ByteBufOutputStream(compressed), BLOCKSIZE.SIZE_64KB, size, features)) {
+      outputStream.write(plain);
+    }
+    ByteBuf destination = buffer(true, size);
+    codec.decompress(compressed, destination, size);
+    assertThat(ByteBufUtil.getBytes(destination)).isEqualTo(plain);
+    compressed.release();
+    destination.release();
+  }
+
+  @Test
+  void zstdDictionaryShouldImproveCompressionOfSmallMessages() {
+    // messages not in the training sample
+    List<byte[]> messages = jsonMessages(10, 2);
+    ByteBuf plain = ByteBufAllocator.DEFAULT.heapBuffer();
+    messages.forEach(message -> plain.writeInt(message.length).writeBytes(message));
+    int plainSize = plain.readableBytes();
+
+    CompressionCodec dictionaryCodec =
+        new ZstdDictionaryCompressionCodecFactory(DICTIONARY).get(Compression.ZSTD);
+    CompressionCodec codec = new ZstdJniCompressionCodec();
+    ByteBuf withDictionary = ByteBufAllocator.DEFAULT.heapBuffer();
+    dictionaryCodec.compress(plain.duplicate(), withDictionary);
+    ByteBuf withoutDictionary = ByteBufAllocator.DEFAULT.heapBuffer();
+    codec.compress(plain.duplicate(), withoutDictionary);
+
+    assertThat(withDictionary.readableBytes())
+        .isLessThan(withoutDictionary.readableBytes() * 3 / 4);
+    assertThat(CompressionUtils.zstdFrameDictionaryId(withDictionary))
+        .isNotZero()
+        .isEqualTo(CompressionUtils.zstdDictionaryId(DICTIONARY));
+    assertThat(CompressionUtils.zstdFrameDictionaryId(withoutDictionary)).isZero();
+
+    ByteBuf destination = ByteBufAllocator.DEFAULT.heapBuffer(plainSize);
+    dictionaryCodec.decompress(withDictionary, destination, plainSize);
+    assertThat(ByteBufUtil.getBytes(destination)).isEqualTo(ByteBufUtil.getBytes(plain));
+
+    plain.release();
+    withDictionary.release();
+    withoutDictionary.release();
+    destination.release();
+  }
+
+  @Test
+  void zstdDictionaryCodecShouldDecompressWithDictionaryOfFrame() throws IOException {
+    byte[] newDictionary = CompressionUtils.trainZstdDictionary(jsonMessages(2000, 3), 8 * 1024);
+    assertThat(CompressionUtils.zstdDictionaryId(newDictionary))
+        .isNotEqualTo(CompressionUtils.zstdDictionaryId(DICTIONARY));
+    CompressionCodec oldCodec = new ZstdJniDictionaryCompressionCodec(DICTIONARY, null);
+    CompressionCodec newCodec =
+        new ZstdJniDictionaryCompressionCodec(newDictionary, Collections.singletonList(DICTIONARY));
+    CompressionCodec noDictionaryCodec = new ZstdJniCompressionCodec();
+
+    byte[] plain = jsonMessages(1, 4).get(0);
+    for (CompressionCodec compressionCodec : Arrays.asList(oldCodec, newCodec, noDictionaryCodec)) {
+      ByteBuf compressed = ByteBufAllocator.DEFAULT.directBuffer();
+      compressionCodec.compress(
+          ByteBufAllocator.DEFAULT.directBuffer().writeBytes(plain), compressed);
+      ByteBuf destination = ByteBufAllocator.DEFAULT.directBuffer(plain.length);
+      newCodec.decompress(compressed.duplicate(), destination, plain.length);
+      assertThat(ByteBufUtil.getBytes(destination)).isEqualTo(plain);
+      assertThat(readAll(newCodec.decompress(new ByteBufInputStream(compressed.duplicate()))))
+          .isEqualTo(plain);
+      if (compressionCodec == newCodec) {
+        // the old codec does not know about the new dictionary
+        assertThatThrownBy(
+                () ->
+                    oldCodec.decompress(compressed.duplicate(), destination.clear(), plain.length))
+            .isInstanceOf(CompressionException.class)
+            .hasMessageContaining("Unknown Zstd dictionary");
+      }
+      compressed.release();
+      destination.release();
+    }
+  }
+
+  @Test
+  void zstdDictionaryCodecShouldRejectInvalidDictionaries() {
+    assertThatThrownBy(() -> new ZstdJniDictionaryCompressionCodec(null, null))
+        .isInstanceOf(IllegalArgumentException.class);
+    byte[] raw = "not a zstd dictionary".getBytes(StandardCharsets.UTF_8);
+    assertThatThrownBy(() -> new ZstdDictionaryCompressionCodecFactory(raw))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> CompressionUtils.trainZstdDictionary(Collections.emptyList(), 1024))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static List<byte[]> jsonMessages(int count, long seed) {
+    // small JSON documents with the same structure, like a typical stream of events
+    Random random = new Random(seed);
+    String[] types = {"order.created", "order.paid", "order.shipped", "order.cancelled"};
+    String[] currencies = {"EUR", "USD", "GBP"};
+    List<byte[]> messages = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String json =
+          "{\"eventType\":\""
+              + types[random.nextInt(types.length)]
+              + "\",\"eventId\":\""
+              + new java.util.UUID(random.nextLong(), random.nextLong())
+              + "\",\"timestamp\":"
+              + (1_700_000_000_000L + random.nextInt(1_000_000_000))
+              + ",\"customer\":{\"id\":"
+              + random.nextInt(1_000_000)
+              + ",\"segment\":\"retail\",\"country\":\"FR\"}"
+              + ",\"amount\":{\"value\":"
+              + random.nextInt(100_000) / 100.0
+              + ",\"currency\":\""
+              + currencies[random.nextInt(currencies.length)]
+              + "\"},\"items\":"
+              + (1 + random.nextInt(10))
+              + ",\"source\":\"web-storefront\",\"version\":2}";
+      messages.add(json.getBytes(StandardCharsets.UTF_8));
+    }
+    return messages;
+  }
+
+  private static byte[] plain(int size) {
+    // compressible text followed by random bytes, to get both kinds of blocks
+    byte[] plain = new byte[size];
+    byte[] text = "hello world ".getBytes(StandardCharsets.UTF_8);
+    for (int i = 0; i < size / 2; i++) {
+      plain[i] = text[i % text.length];
+    }
+    byte[] random = new byte[size - size / 2];
+    new Random(42).nextBytes(random);
+    System.arraycopy(random, 0, plain, size / 2, random.length);
+    return plain;
+  }
+
+  private static ByteBuf buffer(boolean direct, int capacity) {
+    return direct
+        ? ByteBufAllocator.DEFAULT.directBuffer(capacity)
+        : ByteBufAllocator.DEFAULT.heapBuffer(capacity);
+  }
+
+  private static byte[] readAll(InputStream inputStream) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int n;
+    while ((n = inputStream.read(buffer)) != -1) {
+      out.write(buffer, 0, n);
+    }
+    return out.toByteArray();
+  }
 }
@@ -27,14 +27,17 @@ import static org.mockito.ArgumentMatchers.anyByte;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.rabbitmq.stream.BackOffDelayPolicy;
 import com.rabbitmq.stream.Constants;
+import com.rabbitmq.stream.ConsumerFlowStrategy;
 import com.rabbitmq.stream.OffsetSpecification;
 import com.rabbitmq.stream.StreamDoesNotExistException;
 import com.rabbitmq.stream.StreamException;
@@ -76,8 +79,7 @@ public class ConsumersCoordinatorTest {
 
   private static final SubscriptionListener NO_OP_SUBSCRIPTION_LISTENER = subscriptionContext -> {};
   private static final Runnable NO_OP_TRACKING_CLOSING_CALLBACK = () -> {};
-  private int initialCredits = 10;
-  private int additionalCredits = 1;
+  private ConsumerFlowStrategy flowStrategy = ConsumerFlowStrategy.creditOnChunkArrival(10, 1);
 
   @Mock StreamEnvironment environment;
   @Mock StreamConsumer consumer;
@@ -91,6 +93,7 @@ public class ConsumersCoordinatorTest {
   ScheduledExecutorService scheduledExecutorService;
   volatile Client.MetadataListener metadataListener;
   volatile Client.MessageListener messageListener;
+  volatile Client.ChunkListener chunkListener;
   List<Client.MessageListener> messageListeners = new CopyOnWriteArrayList<>();
   volatile Client.ShutdownListener shutdownListener;
   List<Client.ShutdownListener> shutdownListeners =
@@ -135,6 +138,12 @@ public class ConsumersCoordinatorTest {
             return super.messageListener(messageListener);
           }
 
+          @Override
+          public Client.ClientParameters chunkListener(Client.ChunkListener chunkListener) {
+            ConsumersCoordinatorTest.this.chunkListener = chunkListener;
+            return super.chunkListener(chunkListener);
+          }
+
           @Override
           public Client.ClientParameters shutdownListener(
               Client.ShutdownListener shutdownListener) {
@@ -205,8 +214,7 @@ public class ConsumersCoordinatorTest {
         NO_OP_TRACKING_CLOSING_CALLBACK,
         (offset, message) -> {},
         Collections.emptyMap(),
-        initialCredits,
-        additionalCredits);
+        flowStrategy);
     verify(clientFactory, times(2)).client(any());
     verify(client, times(1))
         .subscribe(anyByte(), anyString(), any(OffsetSpecification.class), anyInt(), anyMap());
@@ -247,8 +255,7 @@ public class ConsumersCoordinatorTest {
         NO_OP_TRACKING_CLOSING_CALLBACK,
         (offset, message) -> {},
         Collections.emptyMap(),
-        initialCredits,
-        additionalCredits);
+        flowStrategy);
     verify(clientFactory, times(1)).client(any());
     verify(client, times(1))
         .subscribe(anyByte(), anyString(), any(OffsetSpecification.class), anyInt(), anyMap());
@@ -278,8 +285,7 @@ public class ConsumersCoordinatorTest {
         NO_OP_TRACKING_CLOSING_CALLBACK,
         (offset, message) -> {},
         Collections.emptyMap(),
-        initialCredits,
-        additionalCredits);
+        flowStrategy);
     verify(clientFactory, times(1)).client(any());
     verify(client, times(1))
         .subscribe(anyByte(), anyString(), any(OffsetSpecification.class), anyInt(), anyMap());
@@ -300,8 +306,7 @@ public class ConsumersCoordinatorTest {
                     NO_OP_TRACKING_CLOSING_CALLBACK,
                     (offset, message) -> {},
                     Collections.emptyMap(),
-                    initialCredits,
-                    additionalCredits))
+                    flowStrategy))
         .isInstanceOf(StreamDoesNotExistException.class);
   }
 
@@ -320,8 +325,7 @@ public class ConsumersCoordinatorTest {
                     NO_OP_TRACKING_CLOSING_CALLBACK,
                     (offset, message) -> {},
                     Collections.emptyMap(),
-                    initialCredits,
-                    additionalCredits))
+                    flowStrategy))
         .isInstanceOf(StreamDoesNotExistException.class);
   }
 
@@ -350,8 +354,7 @@ public class ConsumersCoordinatorTest {
                     NO_OP_TRACKING_CLOSING_CALLBACK,
                     (offset, message) -> {},
                     Collections.emptyMap(),
-                    initialCredits,
-                    additionalCredits))
+                    flowStrategy))
         .isInstanceOf(StreamException.class)
         .hasMessage(exceptionMessage);
     assertThat(MonitoringTestUtils.extract(coordinator).isEmpty()).isTrue();
@@ -372,8 +375,7 @@ public class ConsumersCoordinatorTest {
                     NO_OP_TRACKING_CLOSING_CALLBACK,
                     (offset, message) -> {},
                     Collections.emptyMap(),
-                    initialCredits,
-                    additionalCredits))
+                    flowStrategy))
         .isInstanceOf(IllegalStateException.class);
   }
 
@@ -391,8 +393,7 @@ public class ConsumersCoordinatorTest {
                     NO_OP_TRACKING_CLOSING_CALLBACK,
                     (offset, message) -> {},
                     Collections.emptyMap(),
-                    initialCredits,
-                    additionalCredits))
+                    flowStrategy))
         .isInstanceOf(IllegalStateException.class);
   }
 
@@ -433,8 +434,7 @@ public class ConsumersCoordinatorTest {
             () -> trackingClosingCallbackCalls.incrementAndGet(),
             (offset, message) -> messageHandlerCalls.incrementAndGet(),
             Collections.emptyMap(),
-            initialCredits,
-            additionalCredits);
+            flowStrategy);
     verify(clientFactory, times(1)).client(any());
     verify(client, times(1))
         .subscribe(anyByte(), anyString(), any(OffsetSpecification.class), anyInt(), anyMap());
@@ -456,6 +456,47 @@ public class ConsumersCoordinatorTest {
     assertThat(messageHandlerCalls.get()).isEqualTo(1);
   }
 
+  @Test
+  void creditsShouldBeProvidedAccordingToFlowStrategy() {
+    when(locator.metadata("stream")).thenReturn(metadata(leader(), null));
+    when(clientFactory.client(any())).thenReturn(client);
+    when(consumer.isOpen()).thenReturn(true);
+    when(client.subscribe(
+            subscriptionIdCaptor.capture(),
+            anyString(),
+            any(OffsetSpecification.class),
+            anyInt(),
+            anyMap()))
+        .thenReturn(new Client.Response(Constants.RESPONSE_CODE_OK));
+
+    coordinator.subscribe(
+        consumer,
+        "stream",
+        OffsetSpecification.first(),
+        null,
+        NO_OP_SUBSCRIPTION_LISTENER,
+        NO_OP_TRACKING_CLOSING_CALLBACK,
+        (offset, message) -> {},
+        Collections.emptyMap(),
+        ConsumerFlowStrategy.creditWhenChunkProcessed(5, 2));
+    verify(client, times(1))
+        .subscribe(anyByte(), anyString(), any(OffsetSpecification.class), eq(5), anyMap());
+
+    byte subscriptionId = subscriptionIdCaptor.getValue();
+    chunkListener.handle(client, subscriptionId, 0, 10, 100);
+    chunkListener.handle(client, subscriptionId, 10, 10, 100);
+    verify(client, never()).credit(anyByte(), anyInt());
+    chunkListener.chunkProcessed(client, subscriptionId, 0, 10, 100);
+    verify(client, never()).credit(anyByte(), anyInt());
+    chunkListener.chunkProcessed(client, subscriptionId, 10, 10, 100);
+    verify(client, times(1)).credit(subscriptionId, 2);
+
+    when(consumer.isOpen()).thenReturn(false);
+    chunkListener.chunkProcessed(client, subscriptionId, 20, 10, 100);
+    chunkListener.chunkProcessed(client, subscriptionId, 30, 10, 100);
+    verify(client, times(1)).credit(anyByte(), anyInt());
+  }
+
   @Test
   void subscribeShouldSubscribeToStreamAndDispatchMessageWithManySubscriptions() {
     when(locator.metadata("stream")).thenReturn(metadata(leader(), null));
@@ -484,8 +525,7 @@ public class ConsumersCoordinatorTest {
               (offset, message) ->
                   messageHandlerCalls.compute(subId, (k, v) -> (v == null) ? 1 : ++v),
               Collections.emptyMap(),
-              initialCredits,
-              additionalCredits);
+              flowStrategy);
       closingRunnables.add(closingRunnable);
     }
 
@@ -560,8 +600,7 @@ public class ConsumersCoordinatorTest {
             NO_OP_TRACKING_CLOSING_CALLBACK,
             (offset, message) -> messageHandlerCalls.incrementAndGet(),
             Collections.emptyMap(),
-            initialCredits,
-            additionalCredits);
+            flowStrategy);
     verify(clientFactory, times(1)).client(any());
     verify(client, times(1))
         .subscribe(anyByte(), anyString(), any(OffsetSpecification.class), anyInt(), anyMap());
@@ -580,8 +619,7 @@ public class ConsumersCoordinatorTest {
         NO_OP_TRACKING_CLOSING_CALLBACK,
         (offset, message) -> {},
         Collections.emptyMap(),
-        initialCredits,
-        additionalCredits);
+        flowStrategy);
 
     verify(client, times(1 + 1))
         .subscribe(anyByte(), anyString(), any(OffsetSpecification.class), anyInt(), anyMap());
@@ -661,8 +699,7 @@ public class ConsumersCoordinatorTest {
         NO_OP_TRACKING_CLOSING_CALLBACK,
         (offset, message) -> messageHandlerCalls.incrementAndGet(),
         Collections.emptyMap(),
-        initialCredits,
-        additionalCredits);
+        flowStrategy);
     verify(clientFactory, times(1)).client(any());
     verify(client, times(1))
         .subscribe(anyByte(), anyString(), any(OffsetSpecification.class), anyInt(), anyMap());
@@ -717,8 +754,7 @@ public class ConsumersCoordinatorTest {
             NO_OP_TRACKING_CLOSING_CALLBACK,
             (offset, message) -> messageHandlerCalls.incrementAndGet(),
             Collections.emptyMap(),
-            initialCredits,
-            additionalCredits);
+            flowStrategy);
     verify(clientFactory, times(1)).client(any());
     verify(client, times(1))
         .subscribe(anyByte(), anyString(), any(OffsetSpecification.class), anyInt(), anyMap());
@@ -732,8 +768,7 @@ public class ConsumersCoordinatorTest {
         NO_OP_TRACKING_CLOSING_CALLBACK,
         (offset, message) -> {},
         Collections.emptyMap(),
-        initialCredits,
-        additionalCredits);
+        flowStrategy);
 
     verify(client, times(1 + 1))
         .subscribe(anyByte(), anyString(), any(OffsetSpecification.class), anyInt(), anyMap());
@@ -821,8 +856,7 @@ public class ConsumersCoordinatorTest {
             NO_OP_TRACKING_CLOSING_CALLBACK,
             (offset, message) -> messageHandlerCalls.incrementAndGet(),
             Collections.emptyMap(),
-            initialCredits,
-            additionalCredits);
+            flowStrategy);
     verify(clientFactory, times(1)).client(any());
     verify(client, times(1))
         .subscribe(anyByte(), anyString(), any(OffsetSpecification.class), anyInt(), anyMap());
@@ -887,8 +921,7 @@ public class ConsumersCoordinatorTest {
         NO_OP_TRACKING_CLOSING_CALLBACK,
         (offset, message) -> messageHandlerCalls.incrementAndGet(),
         Collections.emptyMap(),
-        initialCredits,
-        additionalCredits);
+        flowStrategy);
     verify(clientFactory, times(1)).client(any());
     verify(client, times(1))
         .subscribe(anyByte(), anyString(), any(OffsetSpecification.class), anyInt(), anyMap());
@@ -941,8 +974,7 @@ public class ConsumersCoordinatorTest {
         NO_OP_TRACKING_CLOSING_CALLBACK,
         (offset, message) -> messageHandlerCalls.incrementAndGet(),
         Collections.emptyMap(),
-        initialCredits,
-        additionalCredits);
+        flowStrategy);
     verify(clientFactory, times(1)).client(any());
     verify(client, times(1))
         .subscribe(anyByte(), anyString(), any(OffsetSpecification.class), anyInt(), anyMap());
@@ -996,8 +1028,7 @@ public class ConsumersCoordinatorTest {
                         NO_OP_TRACKING_CLOSING_CALLBACK,
                         (offset, message) -> {},
                         Collections.emptyMap(),
-                        initialCredits,
-                        additionalCredits))
+                        flowStrategy))
             .collect(Collectors.toList());
 
     verify(clientFactory, times(2)).client(any());
@@ -1058,8 +1089,7 @@ public class ConsumersCoordinatorTest {
                   NO_OP_TRACKING_CLOSING_CALLBACK,
                   (offset, message) -> {},
                   Collections.emptyMap(),
-                  initialCredits,
-                  additionalCredits);
+                  flowStrategy);
             });
     // the extra is allocated on another client from the same pool
     verify(clientFactory, times(2)).client(any());
@@ -1084,8 +1114,7 @@ public class ConsumersCoordinatorTest {
         NO_OP_TRACKING_CLOSING_CALLBACK,
         (offset, message) -> {},
         Collections.emptyMap(),
-        initialCredits,
-        additionalCredits);
+        flowStrategy);
 
     verify(clientFactory, times(2 + 1)).client(any());
     verify(client, times(subscriptionCount + ConsumersCoordinator.MAX_SUBSCRIPTIONS_PER_CLIENT + 1))
@@ -1125,8 +1154,7 @@ public class ConsumersCoordinatorTest {
                   NO_OP_TRACKING_CLOSING_CALLBACK,
                   (offset, message) -> {},
                   Collections.emptyMap(),
-                  initialCredits,
-                  additionalCredits);
+                  flowStrategy);
             });
     // the extra is allocated on another client from the same pool
     verify(clientFactory, times(2)).client(any());
@@ -1157,8 +1185,7 @@ public class ConsumersCoordinatorTest {
         NO_OP_TRACKING_CLOSING_CALLBACK,
         (offset, message) -> {},
         Collections.emptyMap(),
-        initialCredits,
-        additionalCredits);
+        flowStrategy);
 
     // no more client creation
     verify(clientFactory, times(2)).client(any());
@@ -1208,8 +1235,7 @@ public class ConsumersCoordinatorTest {
             NO_OP_TRACKING_CLOSING_CALLBACK,
             (offset, message) -> {},
             Collections.emptyMap(),
-            initialCredits,
-            additionalCredits);
+            flowStrategy);
     verify(clientFactory, times(1)).client(any());
     verify(client, times(1))
         .subscribe(anyByte(), anyString(), any(OffsetSpecification.class), anyInt(), anyMap());
@@ -1281,8 +1307,7 @@ public class ConsumersCoordinatorTest {
             NO_OP_TRACKING_CLOSING_CALLBACK,
             (offset, message) -> {},
             Collections.emptyMap(),
-            initialCredits,
-            additionalCredits);
+            flowStrategy);
     verify(clientFactory, times(1)).client(any());
     verify(client, times(1))
         .subscribe(anyByte(), anyString(), any(OffsetSpecification.class), anyInt(), anyMap());
@@ -1356,8 +1381,7 @@ public class ConsumersCoordinatorTest {
             NO_OP_TRACKING_CLOSING_CALLBACK,
             (offset, message) -> {},
             Collections.emptyMap(),
-            initialCredits,
-            additionalCredits);
+            flowStrategy);
     verify(clientFactory, times(1)).client(any());
     verify(client, times(1))
         .subscribe(anyByte(), anyString(), any(OffsetSpecification.class), anyInt(), anyMap());
@@ -1443,8 +1467,7 @@ public class ConsumersCoordinatorTest {
         NO_OP_TRACKING_CLOSING_CALLBACK,
         (offset, message) -> {},
         Collections.emptyMap(),
-        initialCredits,
-        additionalCredits);
+        flowStrategy);
     verify(clientFactory, times(1)).client(any());
     verify(client, times(1))
         .subscribe(anyByte(), anyString(), any(OffsetSpecification.class), anyInt(), anyMap());
@@ -1458,8 +1481,7 @@ public class ConsumersCoordinatorTest {
         NO_OP_TRACKING_CLOSING_CALLBACK,
         (offset, message) -> {},
         Collections.emptyMap(),
-        initialCredits,
-        additionalCredits);
+        flowStrategy);
     verify(clientFactory, times(1)).client(any());
     verify(client, times(1 + 1))
         .subscribe(anyByte(), anyString(), any(OffsetSpecification.class), anyInt(), anyMap());
@@ -1524,8 +1546,7 @@ public class ConsumersCoordinatorTest {
         NO_OP_TRACKING_CLOSING_CALLBACK,
         (offset, message) -> {},
         Collections.emptyMap(),
-        initialCredits,
-        additionalCredits);
+        flowStrategy);
     verify(clientFactory, times(1)).client(any());
     verify(client, times(1))
         .subscribe(anyByte(), anyString(), any(OffsetSpecification.class), anyInt(), anyMap());
@@ -1590,8 +1611,7 @@ public class ConsumersCoordinatorTest {
         NO_OP_TRACKING_CLOSING_CALLBACK,
         (offset, message) -> {},
         Collections.emptyMap(),
-        initialCredits,
-        additionalCredits);
+        flowStrategy);
     verify(clientFactory, times(1)).client(any());
     verify(client, times(1))
         .subscribe(anyByte(), anyString(), any(OffsetSpecification.class), anyInt(), anyMap());
@@ -1633,8 +1653,7 @@ public class ConsumersCoordinatorTest {
                     NO_OP_TRACKING_CLOSING_CALLBACK,
                     (offset, message) -> {},
                     Collections.emptyMap(),
-                    initialCredits,
-                    additionalCredits);
+                    flowStrategy);
 
             closingRunnable.run();
           };
@@ -0,0 +1,293 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import com.rabbitmq.stream.Chunk;
+import com.rabbitmq.stream.ChunkChecksumValidationException;
+import com.rabbitmq.stream.Constants;
+import com.rabbitmq.stream.Message;
+import com.rabbitmq.stream.impl.DeliverFrameDecoder.ChunkFragment;
+import com.rabbitmq.stream.impl.DeliverFrameDecoder.ChunkHeader;
+import com.rabbitmq.stream.metrics.NoOpMetricsCollector;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class DeliverFrameDecoderTest {
+
+  static final int THRESHOLD = 1024;
+  static final int DELIVER_HEADER_SIZE = 2 + 2 + 1 + 48;
+
+  Random random = new Random();
+  EmbeddedChannel channel = new EmbeddedChannel(new DeliverFrameDecoder(THRESHOLD));
+
+  @AfterEach
+  void tearDown() {
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void regularFramesShouldBeDecodedWhole() {
+    ByteBuf frame1 = frame(Constants.COMMAND_CREDIT, new byte[10]);
+    ByteBuf frame2 = frame(Constants.COMMAND_METADATA_UPDATE, new byte[THRESHOLD * 2]);
+    ByteBuf bytes = Unpooled.wrappedBuffer(frame1, frame2);
+    writeInPieces(bytes, 7);
+
+    List<Object> out = readAll();
+    assertThat(out).hasSize(2).allMatch(o -> o instanceof ByteBuf);
+    assertThat(((ByteBuf) out.get(0)).readableBytes()).isEqualTo(2 + 2 + 10);
+    assertThat(((ByteBuf) out.get(1)).readableBytes()).isEqualTo(2 + 2 + THRESHOLD * 2);
+    out.forEach(o -> ((ByteBuf) o).release());
+  }
+
+  @Test
+  void smallDeliverFramesShouldBeDecodedWhole() {
+    ByteBuf data = entries(10, 10);
+    ByteBuf frame = deliverFrame(10, data, 0);
+    int frameSize = frame.readableBytes() - 4;
+    writeInPieces(frame, 3);
+
+    List<Object> out = readAll();
+    assertThat(out).hasSize(1);
+    assertThat(((ByteBuf) out.get(0)).readableBytes()).isEqualTo(frameSize);
+    ((ByteBuf) out.get(0)).release();
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 13, 100, 4096, 100_000})
+  void largeDeliverFramesShouldBeStreamedInFragmentsOfCompleteEntries(int pieceSize) {
+    int entryCount = 200;
+    ByteBuf data = Unpooled.wrappedBuffer(entries(entryCount / 2, 100), subEntry(entryCount / 2));
+    byte[] expectedData = ByteBufUtil.getBytes(data);
+    int trailerLength = 8;
+    ByteBuf frame = deliverFrame(entryCount, data, trailerLength);
+    byte[] expectedHeader = ByteBufUtil.getBytes(frame, 4, DELIVER_HEADER_SIZE);
+
+    // a regular frame after the streamed one
+    writeInPieces(
+        Unpooled.wrappedBuffer(frame, frame(Constants.COMMAND_CREDIT, new byte[10])), pieceSize);
+
+    List<Object> out = readAll();
+    assertThat(out.get(0)).isInstanceOf(ChunkHeader.class);
+    ByteBuf header = ((ChunkHeader) out.get(0)).header();
+    assertThat(ByteBufUtil.getBytes(header)).isEqualTo(expectedHeader);
+    header.release();
+
+    ByteBuf received = Unpooled.buffer();
+    int fragmentCount = 0;
+    int index = 1;
+    while (out.get(index) instanceof ChunkFragment) {
+      ChunkFragment fragment = (ChunkFragment) out.get(index);
+      fragmentCount++;
+      ByteBuf content = fragment.content();
+      if (fragment.isLast()) {
+        assertThat(content.readableBytes()).isGreaterThanOrEqualTo(trailerLength);
+        received.writeBytes(content, content.readableBytes() - trailerLength);
+      } else {
+        assertThat(completeEntries(content)).isTrue();
+        received.writeBytes(content);
+      }
+      content.release();
+      index++;
+      if (fragment.isLast()) {
+        break;
+      }
+    }
+    assertThat(ByteBufUtil.getBytes(received)).isEqualTo(expectedData);
+    assertThat(fragmentCount).isPositive();
+    if (pieceSize < 100) {
+      assertThat(fragmentCount).isGreaterThan(1);
+    }
+    assertThat(out).hasSize(index + 1);
+    assertThat(((ByteBuf) out.get(index)).readableBytes()).isEqualTo(2 + 2 + 10);
+    ((ByteBuf) out.get(index)).release();
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  void streamedChunkShouldBeDispatchedOnlyIfChecksumIsValid(boolean validChecksum)
+      throws Exception {
+    int entryCount = 100;
+    ByteBuf data = entries(entryCount, 100);
+    CRC32 crc = new CRC32();
+    crc.update(ByteBufUtil.getBytes(data));
+    ByteBuf frame = deliverFrame(entryCount, data, 8);
+    frame.setInt(4 + DELIVER_HEADER_SIZE - 16, (int) crc.getValue() + (validChecksum ? 0 : 1));
+
+    List<Message> messages = new ArrayList<>();
+    StreamedChunkHandler handler =
+        new StreamedChunkHandler(client((subId, offset, ts, committed, m) -> messages.add(m)));
+    channel
+        .pipeline()
+        .addLast(
+            new ChannelInboundHandlerAdapter() {
+              @Override
+              public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                if (msg instanceof ChunkHeader) {
+                  handler.header(ctx, (ChunkHeader) msg);
+                } else {
+                  handler.fragment((ChunkFragment) msg);
+                }
+              }
+            });
+    if (validChecksum) {
+      writeInPieces(frame, 100);
+      assertThat(messages).hasSize(entryCount);
+    } else {
+      // the embedded channel rethrows the exception propagated in the pipeline
+      assertThatThrownBy(() -> writeInPieces(frame, 100))
+          .isInstanceOf(ChunkChecksumValidationException.class);
+      assertThat(messages).isEmpty();
+    }
+  }
+
+  void writeInPieces(ByteBuf bytes, int pieceSize) {
+    while (bytes.isReadable()) {
+      int size = Math.min(bytes.readableBytes(), 1 + random.nextInt(pieceSize));
+      channel.writeInbound(bytes.readRetainedSlice(size));
+    }
+    bytes.release();
+  }
+
+  List<Object> readAll() {
+    List<Object> out = new ArrayList<>();
+    Object o;
+    while ((o = channel.readInbound()) != null) {
+      out.add(o);
+    }
+    return out;
+  }
+
+  static Client client(Client.MessageListener messageListener) throws Exception {
+    Client client = mock(Client.class);
+    setField(client, "chunkListener", (Client.ChunkListener) (c, subId, o, count, size) -> {});
+    setField(client, "messageListener", messageListener);
+    setField(
+        client,
+        "rawChunkListener",
+        new Client.RawChunkListener() {
+          @Override
+          public boolean handle(Client c, byte subId, long committed, Chunk chunk) {
+            return false;
+          }
+
+          @Override
+          public boolean consumesChunks(byte subscriptionId) {
+            return false;
+          }
+        });
+    setField(
+        client,
+        "decompressionExecutorResolver",
+        (Client.DecompressionExecutorResolver) subId -> null);
+    setField(client, "codec", DeliveryTest.BODY_CODEC);
+    setField(client, "chunkChecksum", JdkChunkChecksum.CRC32_SINGLETON);
+    setField(client, "metricsCollector", NoOpMetricsCollector.SINGLETON);
+    setField(client, "subscriptionOffsets", new CopyOnWriteArrayList<>());
+    setField(client, "channel", new EmbeddedChannel());
+    setField(client, "compressionCodecFactory", CompressionCodecs.DEFAULT);
+    return client;
+  }
+
+  static void setField(Client client, String name, Object value) throws Exception {
+    Field field = Client.class.getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(client, value);
+  }
+
+  static ByteBuf frame(short command, byte[] content) {
+    ByteBuf bb = Unpooled.buffer();
+    bb.writeInt(2 + 2 + content.length)
+        .writeShort(command)
+        .writeShort(Constants.VERSION_1)
+        .writeBytes(content);
+    return bb;
+  }
+
+  static ByteBuf deliverFrame(int numRecords, ByteBuf data, int trailerLength) {
+    int dataLength = data.readableBytes();
+    ByteBuf bb = Unpooled.buffer();
+    bb.writeInt(DELIVER_HEADER_SIZE + dataLength + trailerLength)
+        .writeShort(Constants.COMMAND_DELIVER)
+        .writeShort(Constants.VERSION_1)
+        .writeByte(1) // subscription ID
+        .writeByte(0x50) // magic and version
+        .writeByte(0) // chunk type
+        .writeShort(numRecords) // entries, not accurate with a sub-entry, does not matter here
+        .writeInt(numRecords)
+        .writeLong(System.currentTimeMillis())
+        .writeLong(0) // epoch
+        .writeLong(0) // offset
+        .writeInt(0) // CRC
+        .writeInt(dataLength)
+        .writeInt(trailerLength)
+        .writeInt(0) // reserved
+        .writeBytes(data)
+        .writeZero(trailerLength);
+    data.release();
+    return bb;
+  }
+
+  ByteBuf entries(int count, int maxSize) {
+    ByteBuf bb = Unpooled.buffer();
+    for (int i = 0; i < count; i++) {
+      byte[] message = new byte[1 + random.nextInt(maxSize)];
+      random.nextBytes(message);
+      bb.writeInt(message.length).writeBytes(message);
+    }
+    return bb;
+  }
+
+  ByteBuf subEntry(int count) {
+    ByteBuf messages = entries(count, 50);
+    ByteBuf bb = Unpooled.buffer();
+    bb.writeByte(0x80) // sub-entry, no compression
+        .writeShort(count)
+        .writeInt(messages.readableBytes())
+        .writeInt(messages.readableBytes())
+        .writeBytes(messages);
+    messages.release();
+    return bb;
+  }
+
+  static boolean completeEntries(ByteBuf content) {
+    int index = content.readerIndex();
+    int end = content.writerIndex();
+    while (index < end) {
+      if ((content.getByte(index) & 0x80) == 0) {
+        index += 4 + content.getInt(index);
+      } else {
+        index += 11 + content.getInt(index + 7);
+      }
+    }
+    return index == end;
+  }
+}
@@ -14,17 +14,38 @@
 package com.rabbitmq.stream.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import com.rabbitmq.stream.*;
+import com.rabbitmq.stream.codec.WrapperMessageBuilder;
+import com.rabbitmq.stream.compression.Compression;
+import com.rabbitmq.stream.compression.CompressionCodec;
 import com.rabbitmq.stream.impl.ServerFrameHandler.DeliverVersion1FrameHandler;
+import com.rabbitmq.stream.impl.ServerFrameHandler.DeliverVersion1FrameHandler.ChunkEntries;
 import com.rabbitmq.stream.metrics.NoOpMetricsCollector;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 
@@ -139,6 +160,7 @@ public class DeliveryTest {
                   },
                   (subscriptionId, offset, chunkTimestamp, committedOffset, message) ->
                       messageCountInCallback.incrementAndGet(),
+                  (client, subscriptionId, committedChunkId, chunk) -> false,
                   NO_OP_CODEC,
                   subscriptionOffsets,
                   ChunkChecksum.NO_OP,
@@ -150,4 +172,309 @@ public class DeliveryTest {
               bb.release();
             });
   }
+
+  @Test
+  void chunkEntriesCanBeReadInSeveralPasses() {
+    int nbMessages = 100;
+    long chunkOffset = 10;
+    long subscriptionOffset = 20;
+    List<byte[]> messages = new ArrayList<>();
+    generateMessages(nbMessages).forEach(messages::add);
+    ByteBuf firstPart = ByteBufAllocator.DEFAULT.buffer();
+    ByteBuf secondPart = ByteBufAllocator.DEFAULT.buffer();
+    for (int i = 0; i < nbMessages; i++) {
+      ByteBuf part = i < nbMessages / 3 ? firstPart : secondPart;
+      part.writeInt(messages.get(i).length).writeBytes(messages.get(i));
+    }
+
+    List<Long> offsets = new ArrayList<>();
+    ChunkEntries entries =
+        new ChunkEntries(
+            null,
+            (subscriptionId, offset, chunkTimestamp, committedOffset, message) ->
+                offsets.add(offset),
+            NO_OP_CODEC,
+            (byte) 1,
+            0,
+            System.currentTimeMillis(),
+            chunkOffset,
+            nbMessages,
+            subscriptionOffset,
+            null);
+    entries.read(firstPart, 0);
+    assertThat(firstPart.isReadable()).isFalse();
+    entries.read(secondPart, 0);
+    assertThat(secondPart.isReadable()).isFalse();
+
+    assertThat(offsets)
+        .containsExactlyElementsOf(
+            LongStream.range(subscriptionOffset, chunkOffset + nbMessages)
+                .boxed()
+                .collect(Collectors.toList()));
+    assertThat(entries.messagesRead()).isEqualTo(nbMessages - (subscriptionOffset - chunkOffset));
+    firstPart.release();
+    secondPart.release();
+  }
+
+  @Test
+  void handleDeliveryShouldNotDispatchMessagesIfRawChunkListenerHandlesChunk() {
+    int nbMessages = 10;
+    long chunkOffset = 42;
+    List<byte[]> messages = new ArrayList<>();
+    for (int i = 0; i < nbMessages; i++) {
+      messages.add(("message " + i).getBytes(StandardCharsets.UTF_8));
+    }
+    int dataSize = computeDataSize(messages);
+    ByteBuf bb = generateFrameBuffer(nbMessages, chunkOffset, dataSize, messages);
+    bb.readShort(); // read command key
+    bb.readShort(); // read command version
+
+    AtomicLong messageCountInCallback = new AtomicLong();
+    List<String> messagesInChunk = new ArrayList<>();
+    List<Long> offsetsInChunk = new ArrayList<>();
+    AtomicLong lastOffset = new AtomicLong();
+    AtomicInteger chunkDataSize = new AtomicInteger();
+    int read =
+        DeliverVersion1FrameHandler.handleDeliverVersion1(
+            bb,
+            null,
+            (client, subscriptionId, offset, messageCount, sizeOfData) -> {},
+            (subscriptionId, offset, chunkTimestamp, committedOffset, message) ->
+                messageCountInCallback.incrementAndGet(),
+            (client, subscriptionId, committedChunkId, chunk) -> {
+              lastOffset.set(chunk.lastOffset());
+              chunkDataSize.set(chunk.data().remaining());
+              Iterator<Chunk.Entry> entries = chunk.entries();
+              while (entries.hasNext()) {
+                Chunk.Entry entry = entries.next();
+                offsetsInChunk.add(entry.offset());
+                Iterator<ByteBuffer> entryMessages = entry.messages();
+                while (entryMessages.hasNext()) {
+                  ByteBuffer message = entryMessages.next();
+                  byte[] data = new byte[message.remaining()];
+                  message.get(data);
+                  messagesInChunk.add(new String(data, StandardCharsets.UTF_8));
+                }
+              }
+              return true;
+            },
+            NO_OP_CODEC,
+            new ArrayList<>(),
+            ChunkChecksum.NO_OP,
+            NoOpMetricsCollector.SINGLETON);
+
+    assertThat(messageCountInCallback).hasValue(0);
+    assertThat(lastOffset).hasValue(chunkOffset + nbMessages - 1);
+    assertThat(chunkDataSize).hasValue(dataSize);
+    assertThat(offsetsInChunk)
+        .containsExactlyElementsOf(
+            LongStream.range(chunkOffset, chunkOffset + nbMessages)
+                .boxed()
+                .collect(Collectors.toList()));
+    assertThat(messagesInChunk)
+        .containsExactlyElementsOf(
+            messages.stream()
+                .map(m -> new String(m, StandardCharsets.UTF_8))
+                .collect(Collectors.toList()));
+    assertThat(bb.isReadable()).isFalse();
+    assertThat(read).isEqualTo(bb.readerIndex() - 4);
+    bb.release();
+  }
+
+  @Test
+  void compressedSubEntriesDecompressedInParallelShouldBeDispatchedInOrder() throws Exception {
+    Compression[] compressions = {
+      Compression.GZIP,
+      Compression.ZSTD,
+      Compression.NONE,
+      Compression.LZ4,
+      Compression.SNAPPY,
+      Compression.GZIP,
+      Compression.ZSTD,
+      Compression.LZ4,
+      Compression.SNAPPY,
+      Compression.GZIP,
+      Compression.ZSTD,
+      Compression.LZ4,
+      Compression.SNAPPY
+    };
+    List<byte[]> messages = new ArrayList<>();
+    ByteBuf chunk = ByteBufAllocator.DEFAULT.buffer();
+    byte[] simpleEntry = "simple entry".getBytes(StandardCharsets.UTF_8);
+    chunk.writeInt(simpleEntry.length).writeBytes(simpleEntry);
+    messages.add(simpleEntry);
+    // rank of the compressed sub-entry of each message, to know the dispatching position
+    List<Integer> compressedRanks = new ArrayList<>();
+    compressedRanks.add(-1);
+    int compressedCount = 0;
+    for (Compression compression : compressions) {
+      List<byte[]> subEntryMessages = new ArrayList<>();
+      int count = ThreadLocalRandom.current().nextInt(1, 50);
+      for (int i = 0; i < count; i++) {
+        subEntryMessages.add(("message " + messages.size() + i).getBytes(StandardCharsets.UTF_8));
+      }
+      writeSubEntry(chunk, compression, subEntryMessages);
+      messages.addAll(subEntryMessages);
+      int rank = compression == Compression.NONE ? -1 : compressedCount++;
+      subEntryMessages.forEach(m -> compressedRanks.add(rank));
+    }
+    long chunkOffset = 10;
+    Client client = client();
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    AtomicInteger submitted = new AtomicInteger();
+    AtomicInteger dispatchedRank = new AtomicInteger(-1);
+    AtomicInteger maxAhead = new AtomicInteger();
+    try {
+      // delays make decompressions complete out of order
+      Executor delayingExecutor =
+          task -> {
+            // sub-entries are submitted in order, from the second compressed one
+            int rank = submitted.incrementAndGet();
+            maxAhead.accumulateAndGet(rank - dispatchedRank.get(), Math::max);
+            executorService.execute(
+                () -> {
+                  try {
+                    Thread.sleep(ThreadLocalRandom.current().nextInt(20));
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                  }
+                  task.run();
+                });
+          };
+      Executor rejectingExecutor =
+          task -> {
+            throw new RejectedExecutionException();
+          };
+      for (Executor executor : Arrays.asList(null, delayingExecutor, rejectingExecutor)) {
+        List<Long> offsets = new ArrayList<>();
+        List<byte[]> bodies = new ArrayList<>();
+        ChunkEntries entries =
+            new ChunkEntries(
+                client,
+                (subscriptionId, offset, chunkTimestamp, committedOffset, message) -> {
+                  dispatchedRank.accumulateAndGet(
+                      compressedRanks.get((int) (offset - chunkOffset)), Math::max);
+                  offsets.add(offset);
+                  bodies.add(message.getBodyAsBinary());
+                },
+                BODY_CODEC,
+                (byte) 1,
+                0,
+                System.currentTimeMillis(),
+                chunkOffset,
+                messages.size(),
+                -1,
+                executor);
+        chunk.readerIndex(0);
+        entries.read(chunk, 0);
+        assertThat(chunk.isReadable()).isFalse();
+        assertThat(offsets)
+            .containsExactlyElementsOf(
+                LongStream.range(chunkOffset, chunkOffset + messages.size())
+                    .boxed()
+                    .collect(Collectors.toList()));
+        assertThat(bodies).containsExactlyElementsOf(messages);
+      }
+      // the first compressed sub-entry is decompressed by the dispatching thread
+      assertThat(submitted).hasValue(compressions.length - 2);
+      // only a few sub-entries are submitted ahead of the one being dispatched
+      assertThat(maxAhead).hasValueLessThanOrEqualTo(ChunkEntries.DECOMPRESSION_WINDOW + 1);
+    } finally {
+      executorService.shutdownNow();
+      executorService.awaitTermination(10, TimeUnit.SECONDS);
+      chunk.release();
+    }
+  }
+
+  @Test
+  void subEntryDecompressionFailureOnExecutorShouldFailRead() throws Exception {
+    ByteBuf chunk = ByteBufAllocator.DEFAULT.buffer();
+    List<byte[]> subEntryMessages =
+        Arrays.asList(
+            "hello".getBytes(StandardCharsets.UTF_8), "world".getBytes(StandardCharsets.UTF_8));
+    writeSubEntry(chunk, Compression.GZIP, subEntryMessages);
+    int corruptedIndex = chunk.writerIndex();
+    writeSubEntry(chunk, Compression.GZIP, subEntryMessages);
+    // corrupts the data of the second sub-entry
+    for (int i = corruptedIndex + 11; i < chunk.writerIndex(); i++) {
+      chunk.setByte(i, 0);
+    }
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try {
+      ChunkEntries entries =
+          new ChunkEntries(
+              client(),
+              (subscriptionId, offset, chunkTimestamp, committedOffset, message) -> {},
+              BODY_CODEC,
+              (byte) 1,
+              0,
+              System.currentTimeMillis(),
+              0,
+              subEntryMessages.size() * 2,
+              -1,
+              executorService);
+      assertThatThrownBy(() -> entries.read(chunk, 0)).isInstanceOf(StreamException.class);
+    } finally {
+      executorService.shutdownNow();
+      chunk.release();
+    }
+  }
+
+  static final Codec BODY_CODEC =
+      new Codec() {
+        @Override
+        public EncodedMessage encode(Message message) {
+          return null;
+        }
+
+        @Override
+        public Message decode(byte[] data) {
+          return new WrapperMessageBuilder().addData(data).build();
+        }
+
+        @Override
+        public MessageBuilder messageBuilder() {
+          return null;
+        }
+      };
+
+  static Client client() throws Exception {
+    Client client = mock(Client.class);
+    Channel channel = mock(Channel.class);
+    when(channel.alloc()).thenReturn(ByteBufAllocator.DEFAULT);
+    Field channelField = Client.class.getDeclaredField("channel");
+    channelField.setAccessible(true);
+    channelField.set(client, channel);
+    Field factoryField = Client.class.getDeclaredField("compressionCodecFactory");
+    factoryField.setAccessible(true);
+    factoryField.set(client, CompressionCodecs.DEFAULT);
+    return client;
+  }
+
+  static void writeSubEntry(ByteBuf chunk, Compression compression, List<byte[]> messages) {
+    /*
+    %%   |1| Cmp | Rsvd  | Number of records             | Length  (...) |
+    %%   | Length                                        | Body          |
+     */
+    ByteBuf plain = ByteBufAllocator.DEFAULT.buffer();
+    for (byte[] message : messages) {
+      plain.writeInt(message.length).writeBytes(message);
+    }
+    int uncompressedSize = plain.readableBytes();
+    chunk
+        .writeByte(0x80 | (compression.code() << 4))
+        .writeShort(messages.size())
+        .writeInt(uncompressedSize);
+    if (compression == Compression.NONE) {
+      chunk.writeInt(uncompressedSize).writeBytes(plain);
+    } else {
+      CompressionCodec codec = CompressionCodecs.DEFAULT.get(compression);
+      ByteBuf compressed =
+          ByteBufAllocator.DEFAULT.buffer(codec.maxCompressedLength(uncompressedSize));
+      codec.compress(plain, compressed);
+      chunk.writeInt(compressed.readableBytes()).writeBytes(compressed);
+      compressed.release();
+    }
+    plain.release();
+  }
 }
@@ -0,0 +1,96 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import static com.rabbitmq.stream.impl.TestUtils.latchAssert;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.rabbitmq.stream.DispatchingMode;
+import com.rabbitmq.stream.impl.Dispatchers.Dispatcher;
+import com.rabbitmq.stream.impl.Dispatchers.DispatcherPool;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class DispatchersTest {
+
+  @Test
+  void eventLoopDispatcherShouldRunTasksInCallingThread() {
+    Dispatcher dispatcher = Dispatchers.dispatcher(DispatchingMode.EVENT_LOOP, null);
+    AtomicReference<Thread> thread = new AtomicReference<>();
+    dispatcher.dispatch(() -> thread.set(Thread.currentThread()));
+    assertThat(thread).hasValue(Thread.currentThread());
+    dispatcher.close();
+    thread.set(null);
+    dispatcher.dispatch(() -> thread.set(Thread.currentThread()));
+    assertThat(thread).hasValue(null);
+  }
+
+  @Test
+  void eventLoopDispatcherShouldRunBlockingTasksInOtherThread() {
+    Dispatcher dispatcher = Dispatchers.dispatcher(DispatchingMode.EVENT_LOOP, null);
+    AtomicReference<Thread> thread = new AtomicReference<>();
+    CountDownLatch latch = new CountDownLatch(1);
+    dispatcher.dispatchBlocking(
+        () -> {
+          thread.set(Thread.currentThread());
+          latch.countDown();
+        });
+    latchAssert(latch).completes();
+    assertThat(thread.get()).isNotNull().isNotEqualTo(Thread.currentThread());
+  }
+
+  @Test
+  void dispatcherPoolShouldKeepOrderingAndCapThreads() {
+    int poolSize = 2;
+    int connectionCount = 6;
+    int taskCount = 1000;
+    try (DispatcherPool pool = new DispatcherPool(poolSize)) {
+      List<Dispatcher> dispatchers =
+          IntStream.range(0, connectionCount)
+              .mapToObj(i -> Dispatchers.dispatcher(DispatchingMode.SHARED_POOL, pool))
+              .collect(Collectors.toList());
+      Set<Thread> threads = ConcurrentHashMap.newKeySet();
+      List<List<Integer>> results =
+          IntStream.range(0, connectionCount)
+              .mapToObj(i -> new CopyOnWriteArrayList<Integer>())
+              .collect(Collectors.toList());
+      CountDownLatch latch = new CountDownLatch(connectionCount * taskCount);
+      for (int i = 0; i < taskCount; i++) {
+        for (int j = 0; j < connectionCount; j++) {
+          int task = i;
+          List<Integer> result = results.get(j);
+          dispatchers
+              .get(j)
+              .dispatch(
+                  () -> {
+                    threads.add(Thread.currentThread());
+                    result.add(task);
+                    latch.countDown();
+                  });
+        }
+      }
+      latchAssert(latch).completes();
+      assertThat(threads).hasSize(poolSize);
+      List<Integer> expected = IntStream.range(0, taskCount).boxed().collect(Collectors.toList());
+      results.forEach(result -> assertThat(result).isEqualTo(expected));
+    }
+  }
+}
@@ -0,0 +1,185 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import static com.rabbitmq.stream.impl.TestUtils.waitAtMost;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.rabbitmq.stream.FlushPolicy;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.ReferenceCountUtil;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FlushCoalescerTest {
+
+  EventLoopGroup eventLoopGroup;
+  Channel server;
+  Channel channel;
+  FlushCountingHandler handler;
+
+  @BeforeEach
+  void init() throws Exception {
+    eventLoopGroup = new DefaultEventLoopGroup(2);
+    LocalAddress address = new LocalAddress("flush-coalescer-" + UUID.randomUUID());
+    server =
+        new ServerBootstrap()
+            .group(eventLoopGroup)
+            .channel(LocalServerChannel.class)
+            .childHandler(
+                new ChannelInboundHandlerAdapter() {
+                  @Override
+                  public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                    ReferenceCountUtil.release(msg);
+                  }
+                })
+            .bind(address)
+            .sync()
+            .channel();
+    handler = new FlushCountingHandler();
+    channel =
+        new Bootstrap()
+            .group(eventLoopGroup)
+            .channel(LocalChannel.class)
+            .handler(handler)
+            .connect(address)
+            .sync()
+            .channel();
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    channel.close().sync();
+    server.close().sync();
+    eventLoopGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+  }
+
+  @Test
+  void everyFrameShouldFlushEachWrite() throws Exception {
+    FlushCoalescer coalescer = FlushCoalescer.create(FlushPolicy.everyFrame());
+    inEventLoop(() -> IntStream.range(0, 3).forEach(i -> coalescer.write(channel, frame())));
+    waitAtMost(() -> handler.flushes.size() == 3);
+    assertThat(handler.flushes).containsExactly(1, 1, 1);
+  }
+
+  @Test
+  void endOfEventLoopBatchShouldFlushOnceAfterQueuedWrites() throws Exception {
+    FlushCoalescer coalescer = FlushCoalescer.create(FlushPolicy.endOfEventLoopBatch());
+    inEventLoop(
+        () -> {
+          IntStream.range(0, 5).forEach(i -> coalescer.write(channel, frame()));
+          assertThat(handler.flushes).isEmpty();
+        });
+    waitAtMost(() -> handler.flushes.size() == 1);
+    assertThat(handler.flushes).containsExactly(5);
+    assertThat(coalescer.write(channel, frame()).sync().isSuccess()).isTrue();
+    waitAtMost(() -> handler.flushes.size() == 2);
+    assertThat(handler.flushes).containsExactly(5, 1);
+  }
+
+  @Test
+  void afterFramesShouldFlushWhenFrameCountIsReached() throws Exception {
+    FlushCoalescer coalescer =
+        FlushCoalescer.create(FlushPolicy.afterFrames(3, Duration.ofHours(1)));
+    inEventLoop(() -> IntStream.range(0, 7).forEach(i -> coalescer.write(channel, frame())));
+    assertThat(handler.flushes).containsExactly(3, 3);
+    assertThat(handler.writes).isEqualTo(1);
+  }
+
+  @Test
+  void afterFramesShouldFlushWhenMaxDelayIsReached() throws Exception {
+    FlushCoalescer coalescer =
+        FlushCoalescer.create(FlushPolicy.afterFrames(10, Duration.ofMillis(10)));
+    inEventLoop(
+        () -> {
+          coalescer.write(channel, frame());
+          coalescer.write(channel, frame());
+          assertThat(handler.flushes).isEmpty();
+        });
+    waitAtMost(() -> handler.flushes.size() == 1);
+    assertThat(handler.flushes).containsExactly(2);
+  }
+
+  @Test
+  void framesWrittenOutsideOfEventLoopShouldAllBeFlushed() throws Exception {
+    FlushCoalescer coalescer =
+        FlushCoalescer.create(FlushPolicy.afterFrames(10, Duration.ofMillis(10)));
+    for (int i = 0; i < 25; i++) {
+      coalescer.write(channel, frame());
+    }
+    waitAtMost(() -> handler.flushes.stream().mapToInt(Integer::intValue).sum() == 25);
+    assertThat(handler.flushes).allMatch(frames -> frames <= 10);
+  }
+
+  @Test
+  void invalidAfterFramesArgumentsShouldBeRejected() {
+    assertThatThrownBy(() -> FlushPolicy.afterFrames(0, Duration.ofMillis(1)))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> FlushPolicy.afterFrames(10, null))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> FlushPolicy.afterFrames(10, Duration.ZERO))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private void inEventLoop(Runnable action) throws Exception {
+    channel.eventLoop().submit(action).get();
+  }
+
+  private static ByteBuf frame() {
+    return Unpooled.wrappedBuffer(new byte[] {1, 2, 3});
+  }
+
+  private static class FlushCountingHandler extends ChannelOutboundHandlerAdapter {
+
+    private final List<Integer> flushes = new CopyOnWriteArrayList<>();
+    private volatile int writes = 0;
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+        throws Exception {
+      writes++;
+      super.write(ctx, msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+      if (writes > 0) {
+        flushes.add(writes);
+        writes = 0;
+      }
+      super.flush(ctx);
+    }
+  }
+}
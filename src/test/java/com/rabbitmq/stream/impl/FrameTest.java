@@ -23,8 +23,12 @@ import static org.mockito.Mockito.verify;
 import com.rabbitmq.stream.Codec;
 import com.rabbitmq.stream.Message;
 import com.rabbitmq.stream.Properties;
+import com.rabbitmq.stream.codec.QpidProtonCodec;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import java.io.ByteArrayOutputStream;
@@ -173,6 +177,46 @@ public class FrameTest {
     }
   }
 
+  @Test
+  void messageTailsShouldBeAddedToFrameWithoutCopy() {
+    QpidProtonCodec codec = new QpidProtonCodec();
+    ByteBuf body = Unpooled.directBuffer(10_000).writeBytes(new byte[10_000]);
+    try (Client client = cf.get()) {
+      List<Object> messages =
+          Arrays.asList(
+              codec.encode(codec.messageBuilder().addData(new byte[10]).build()),
+              codec.encode(codec.messageBuilder().addData(body).build()),
+              codec.encode(codec.messageBuilder().addData(new byte[10]).build()));
+      assertThat(((Codec.EncodedMessage) messages.get(1)).tail()).isNotNull();
+      List<Object> copiedMessages =
+          messages.stream()
+              .map(m -> (Codec.EncodedMessage) m)
+              .map(m -> new Codec.EncodedMessage(m.getSize(), m.getData()))
+              .collect(Collectors.toList());
+
+      ArgumentCaptor<ByteBuf> bbCaptor = ArgumentCaptor.forClass(ByteBuf.class);
+      Channel channel = Mockito.mock(Channel.class);
+      Mockito.when(channel.alloc()).thenReturn(ByteBufAllocator.DEFAULT);
+      Mockito.when(channel.writeAndFlush(bbCaptor.capture()))
+          .thenReturn(Mockito.mock(ChannelFuture.class));
+      client.publishInternal(
+          channel, b(1), messages, Client.OUTBOUND_MESSAGE_WRITE_CALLBACK, m -> 0);
+      client.publishInternal(
+          channel, b(1), copiedMessages, Client.OUTBOUND_MESSAGE_WRITE_CALLBACK, m -> 0);
+
+      ByteBuf composite = bbCaptor.getAllValues().get(0);
+      ByteBuf copy = bbCaptor.getAllValues().get(1);
+      assertThat(composite).isInstanceOf(CompositeByteBuf.class);
+      assertThat(copy).isNotInstanceOf(CompositeByteBuf.class);
+      assertThat(ByteBufUtil.getBytes(composite)).isEqualTo(ByteBufUtil.getBytes(copy));
+      composite.release();
+      copy.release();
+      assertThat(body.refCnt()).isEqualTo(1);
+    } finally {
+      body.release();
+    }
+  }
+
   static ToLongFunction<Object> publishSequenceFunction() {
     return new ToLongFunction<Object>() {
       private final AtomicLong publishSequence = new AtomicLong(0);
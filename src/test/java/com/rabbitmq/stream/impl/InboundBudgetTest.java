@@ -0,0 +1,108 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class InboundBudgetTest {
+
+  @Test
+  void budgetMustBePositive() {
+    assertThatThrownBy(() -> new InboundBudget(0)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new InboundBudget(-1)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void readerShouldBePausedWhenBudgetIsExceededAndResumedAtHalf() {
+    InboundBudget budget = new InboundBudget(100);
+    CountingReader reader = new CountingReader();
+    budget.acquire(reader, 60);
+    budget.acquire(reader, 40);
+    assertThat(reader.paused).hasValue(0);
+    budget.acquire(reader, 10);
+    assertThat(reader.paused).hasValue(1);
+    assertThat(budget.backlog()).isEqualTo(110);
+    budget.acquire(reader, 10);
+    assertThat(reader.paused).hasValue(1);
+    budget.release(60);
+    assertThat(reader.resumed).hasValue(0);
+    budget.release(10);
+    assertThat(reader.resumed).hasValue(1);
+    assertThat(budget.backlog()).isEqualTo(50);
+    budget.release(50);
+    assertThat(reader.resumed).hasValue(1);
+    assertThat(budget.backlog()).isZero();
+  }
+
+  @Test
+  void sharedBudgetShouldPauseAndResumeAllOffendingReaders() {
+    InboundBudget budget = new InboundBudget(100);
+    CountingReader reader1 = new CountingReader();
+    CountingReader reader2 = new CountingReader();
+    CountingReader reader3 = new CountingReader();
+    budget.acquire(reader1, 80);
+    budget.acquire(reader2, 30);
+    budget.acquire(reader3, 10);
+    budget.acquire(reader1, 10);
+    assertThat(reader1.paused).hasValue(1);
+    assertThat(reader2.paused).hasValue(1);
+    assertThat(reader3.paused).hasValue(1);
+    budget.release(130);
+    assertThat(reader1.resumed).hasValue(1);
+    assertThat(reader2.resumed).hasValue(1);
+    assertThat(reader3.resumed).hasValue(1);
+  }
+
+  @Test
+  void readerShouldBeResumedIfBacklogDrainedWhilePausing() {
+    InboundBudget budget = new InboundBudget(100);
+    AtomicInteger resumed = new AtomicInteger(0);
+    InboundBudget.Reader reader =
+        new InboundBudget.Reader() {
+          @Override
+          public void pauseReading() {
+            // the dispatching thread handles the whole backlog in the meantime
+            budget.release(150);
+          }
+
+          @Override
+          public void resumeReading() {
+            resumed.incrementAndGet();
+          }
+        };
+    budget.acquire(reader, 150);
+    assertThat(resumed).hasValue(1);
+    assertThat(budget.backlog()).isZero();
+  }
+
+  private static class CountingReader implements InboundBudget.Reader {
+
+    private final AtomicInteger paused = new AtomicInteger(0);
+    private final AtomicInteger resumed = new AtomicInteger(0);
+
+    @Override
+    public void pauseReading() {
+      paused.incrementAndGet();
+    }
+
+    @Override
+    public void resumeReading() {
+      resumed.incrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,113 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class MpscArrayQueueTest {
+
+  @Test
+  void capacityMustBePositive() {
+    assertThatThrownBy(() -> new MpscArrayQueue<>(0)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void offerShouldFailWhenFullAndPollShouldKeepOrder() {
+    MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(4);
+    assertThat(queue.isEmpty()).isTrue();
+    assertThat(queue.poll()).isNull();
+    for (int round = 0; round < 10; round++) {
+      for (int i = 0; i < 4; i++) {
+        assertThat(queue.offer(round * 4 + i)).isTrue();
+      }
+      assertThat(queue.offer(-1)).isFalse();
+      assertThat(queue.size()).isEqualTo(4);
+      for (int i = 0; i < 4; i++) {
+        assertThat(queue.poll()).isEqualTo(round * 4 + i);
+      }
+      assertThat(queue.poll()).isNull();
+      assertThat(queue.isEmpty()).isTrue();
+    }
+  }
+
+  @Test
+  void capacityShouldBeRoundedUpToPowerOfTwo() {
+    MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(3);
+    for (int i = 0; i < 4; i++) {
+      assertThat(queue.offer(i)).isTrue();
+    }
+    assertThat(queue.offer(4)).isFalse();
+  }
+
+  @Test
+  void concurrentProducersShouldNotLoseElements() throws Exception {
+    int producerCount = 4;
+    int elementsByProducer = 100_000;
+    MpscArrayQueue<long[]> queue = new MpscArrayQueue<>(64);
+    ExecutorService executorService = Executors.newFixedThreadPool(producerCount);
+    try {
+      CountDownLatch startLatch = new CountDownLatch(1);
+      List<Future<?>> futures = new ArrayList<>();
+      for (int p = 0; p < producerCount; p++) {
+        long producer = p;
+        futures.add(
+            executorService.submit(
+                () -> {
+                  startLatch.await();
+                  for (long i = 0; i < elementsByProducer; i++) {
+                    long[] element = new long[] {producer, i};
+                    while (!queue.offer(element)) {
+                      Thread.yield();
+                    }
+                  }
+                  return null;
+                }));
+      }
+      startLatch.countDown();
+      long[] lastByProducer = new long[producerCount];
+      Arrays.fill(lastByProducer, -1);
+      int received = 0;
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+      while (received != producerCount * elementsByProducer && System.nanoTime() < deadline) {
+        long[] element = queue.poll();
+        if (element == null) {
+          Thread.yield();
+        } else {
+          // elements of a given producer are in order
+          assertThat(element[1]).isEqualTo(lastByProducer[(int) element[0]] + 1);
+          lastByProducer[(int) element[0]] = element[1];
+          received++;
+        }
+      }
+      assertThat(received).isEqualTo(producerCount * elementsByProducer);
+      for (Future<?> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+      assertThat(queue.isEmpty()).isTrue();
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+}
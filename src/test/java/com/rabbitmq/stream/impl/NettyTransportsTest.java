@@ -0,0 +1,96 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.rabbitmq.stream.NettyTransport;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+public class NettyTransportsTest {
+
+  @Test
+  void nioShouldAlwaysBeAvailable() throws Exception {
+    assertThat(NettyTransports.resolve(NettyTransport.NIO)).isEqualTo(NettyTransport.NIO);
+    EventLoopGroup eventLoopGroup = NettyTransports.eventLoopGroup(NettyTransport.NIO);
+    try {
+      assertThat(eventLoopGroup).isInstanceOf(NioEventLoopGroup.class);
+      assertThat(NettyTransports.channelClass(eventLoopGroup)).isEqualTo(NioSocketChannel.class);
+    } finally {
+      eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    }
+  }
+
+  @Test
+  void autoShouldUseEpollIfAvailable() {
+    assertThat(NettyTransports.resolve(NettyTransport.AUTO))
+        .isEqualTo(Epoll.isAvailable() ? NettyTransport.EPOLL : NettyTransport.NIO);
+    assertThat(NettyTransports.resolve(NettyTransport.EPOLL))
+        .isEqualTo(Epoll.isAvailable() ? NettyTransport.EPOLL : NettyTransport.NIO);
+  }
+
+  @Test
+  void ioUringShouldFallBackToAutoIfNotAvailable() {
+    // the io_uring transport is not on the classpath
+    assertThat(NettyTransports.resolve(NettyTransport.IO_URING))
+        .isEqualTo(NettyTransports.resolve(NettyTransport.AUTO));
+  }
+
+  @Test
+  void nativeOptionsShouldNotBeSetForNio() {
+    Bootstrap bootstrap = new Bootstrap();
+    NettyTransports.configureNativeOptions(bootstrap, NioSocketChannel.class, Duration.ofMillis(1));
+    assertThat(bootstrap.config().options()).isEmpty();
+  }
+
+  @Test
+  @EnabledOnOs(OS.LINUX)
+  void epollGroupShouldUseEpollChannelAndOptions() throws Exception {
+    if (!Epoll.isAvailable()) {
+      return;
+    }
+    EventLoopGroup eventLoopGroup = new EpollEventLoopGroup(1);
+    try {
+      assertThat(NettyTransports.channelClass(eventLoopGroup)).isEqualTo(EpollSocketChannel.class);
+      Bootstrap bootstrap = new Bootstrap();
+      bootstrap.option(EpollChannelOption.TCP_QUICKACK, false);
+      NettyTransports.configureNativeOptions(
+          bootstrap, EpollSocketChannel.class, Duration.ofMillis(1));
+      assertThat(bootstrap.config().options())
+          .containsEntry(EpollChannelOption.TCP_QUICKACK, false)
+          .containsEntry(EpollChannelOption.SO_BUSY_POLL, 1000);
+      bootstrap = new Bootstrap();
+      NettyTransports.configureNativeOptions(bootstrap, EpollSocketChannel.class, null);
+      assertThat(bootstrap.config().options())
+          .containsEntry(EpollChannelOption.TCP_QUICKACK, true)
+          .doesNotContainKey(EpollChannelOption.SO_BUSY_POLL)
+          .doesNotContainKey(ChannelOption.SO_KEEPALIVE);
+    } finally {
+      eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    }
+  }
+}
@@ -0,0 +1,107 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.rabbitmq.stream.metrics.MetricsCollector;
+import com.rabbitmq.stream.metrics.NoOpMetricsCollector;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+public class OutboundBudgetTest {
+
+  @Test
+  void budgetMustBePositive() {
+    assertThatThrownBy(() -> new OutboundBudget(0, NoOpMetricsCollector.SINGLETON))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new OutboundBudget(-1, NoOpMetricsCollector.SINGLETON))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void acquireShouldFailWhenBudgetIsExhausted() {
+    OutboundBudget budget = new OutboundBudget(100, NoOpMetricsCollector.SINGLETON);
+    assertThat(budget.tryAcquire(60)).isTrue();
+    assertThat(budget.tryAcquire(40)).isTrue();
+    assertThat(budget.tryAcquire(1)).isFalse();
+    assertThat(budget.used()).isEqualTo(100);
+    budget.release(30);
+    assertThat(budget.tryAcquire(30)).isTrue();
+    assertThat(budget.used()).isEqualTo(100);
+  }
+
+  @Test
+  void amountGreaterThanLimitShouldBeAcceptedWhenBudgetIsNotUsed() {
+    OutboundBudget budget = new OutboundBudget(100, NoOpMetricsCollector.SINGLETON);
+    assertThat(budget.tryAcquire(150)).isTrue();
+    assertThat(budget.tryAcquire(1)).isFalse();
+    budget.release(150);
+    assertThat(budget.used()).isZero();
+  }
+
+  @Test
+  void acquireShouldTimeOutIfBytesAreNotReleased() throws Exception {
+    OutboundBudget budget = new OutboundBudget(100, NoOpMetricsCollector.SINGLETON);
+    budget.acquire(100, 0);
+    long start = System.nanoTime();
+    assertThat(budget.acquire(10, 100)).isFalse();
+    assertThat(System.nanoTime() - start)
+        .isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    assertThat(budget.used()).isEqualTo(100);
+  }
+
+  @Test
+  void waitingAcquireShouldSucceedWhenBytesAreReleased() throws Exception {
+    OutboundBudget budget = new OutboundBudget(100, NoOpMetricsCollector.SINGLETON);
+    budget.acquire(100, 0);
+    CountDownLatch acquiredLatch = new CountDownLatch(1);
+    AtomicBoolean acquired = new AtomicBoolean(false);
+    Thread thread =
+        new Thread(
+            () -> {
+              try {
+                acquired.set(budget.acquire(50, 0));
+                acquiredLatch.countDown();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            });
+    thread.start();
+    assertThat(acquiredLatch.await(200, TimeUnit.MILLISECONDS)).isFalse();
+    budget.release(60);
+    assertThat(acquiredLatch.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(acquired).isTrue();
+    assertThat(budget.used()).isEqualTo(90);
+  }
+
+  @Test
+  void backlogShouldBeReportedToMetricsCollector() {
+    MetricsCollector metricsCollector = mock(MetricsCollector.class);
+    OutboundBudget budget = new OutboundBudget(100, metricsCollector);
+    budget.tryAcquire(70);
+    budget.tryAcquire(50);
+    budget.release(20);
+    verify(metricsCollector, times(1)).outboundBacklog(70);
+    verify(metricsCollector, never()).outboundBacklog(50);
+    verify(metricsCollector, times(1)).outboundBacklog(-20);
+  }
+}
@@ -172,6 +172,25 @@ public class ProducersCoordinatorTest {
     cleanTask.run();
   }
 
+  @Test
+  void producersOfSameConnectionGroupShouldUseDifferentConnections() {
+    when(locator.metadata("stream")).thenReturn(metadata(leader(), replicas()));
+    when(clientFactory.client(any())).thenReturn(client);
+    Object group = new Object();
+    List<Runnable> cleanTasks = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      StreamProducer p = mock(StreamProducer.class);
+      when(p.connectionGroup()).thenReturn(group);
+      cleanTasks.add(coordinator.registerProducer(p, null, "stream"));
+    }
+    assertThat(coordinator.clientCount()).isEqualTo(3);
+
+    // producers without a connection group share the connections
+    cleanTasks.add(coordinator.registerProducer(producer, null, "stream"));
+    assertThat(coordinator.clientCount()).isEqualTo(3);
+    cleanTasks.forEach(Runnable::run);
+  }
+
   @Test
   void
       shouldRetryUntilGettingExactNodeWithAdvertisedHostNameClientFactoryAndNotExactNodeOnFirstTime() {
@@ -0,0 +1,210 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import com.rabbitmq.stream.Codec;
+import com.rabbitmq.stream.ConfirmationHandler;
+import com.rabbitmq.stream.ConfirmationStatus;
+import com.rabbitmq.stream.Message;
+import com.rabbitmq.stream.codec.SimpleCodec;
+import com.rabbitmq.stream.impl.MessageAccumulator.AccumulatedEntity;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Several threads sending to one producer: permit accounting, accumulation, and batch draining
+ * under the producer lock.
+ *
+ * <p>The "previous" benchmark reproduces the former path: fair semaphore, linked blocking queue,
+ * entity and confirmation callback objects, and a new list for each batch. The "current" benchmark
+ * uses {@link SimpleMessageAccumulator} and a non-fair semaphore. Drained entities are confirmed
+ * right away, the network is not involved.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+public class SendPathBenchmark {
+
+  private static final ConfirmationHandler NO_OP_HANDLER = status -> {};
+
+  int batchSize = 100;
+  int maxUnconfirmed = 10_000;
+
+  Codec codec = new SimpleCodec();
+  Message message;
+  Clock clock = new Clock();
+  AtomicLong sequence = new AtomicLong();
+
+  Semaphore previousSemaphore;
+  BlockingQueue<AccumulatedEntity> previousQueue;
+
+  Semaphore currentSemaphore;
+  SimpleMessageAccumulator currentAccumulator;
+  List<Object> currentBatch;
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt =
+        new OptionsBuilder().include(SendPathBenchmark.class.getSimpleName()).forks(1).build();
+
+    new Runner(opt).run();
+  }
+
+  @Setup
+  public void setUp() {
+    message = codec.messageBuilder().addData(new byte[20]).build();
+    previousSemaphore = new Semaphore(maxUnconfirmed, true);
+    previousQueue = new LinkedBlockingQueue<>(batchSize);
+    currentSemaphore = new Semaphore(maxUnconfirmed, false);
+    currentAccumulator =
+        new SimpleMessageAccumulator(
+            batchSize, codec, Integer.MAX_VALUE, m -> sequence.getAndIncrement(), clock, 0);
+    currentBatch = new ArrayList<>(batchSize);
+  }
+
+  @Benchmark
+  public void previous() throws Exception {
+    previousSemaphore.acquire();
+    Codec.EncodedMessage encodedMessage = codec.encode(message);
+    long publishingId = sequence.getAndIncrement();
+    StreamProducer.ConfirmationCallback callback =
+        new PreviousConfirmationCallback(message, NO_OP_HANDLER);
+    previousQueue.offer(
+        new PreviousEntity(clock.time(), publishingId, encodedMessage, callback),
+        60,
+        TimeUnit.SECONDS);
+    if (previousQueue.size() == batchSize) {
+      synchronized (this) {
+        List<Object> batch = new ArrayList<>(batchSize);
+        List<Long> sequences = new ArrayList<>(batchSize);
+        AccumulatedEntity entity;
+        while (batch.size() != batchSize && (entity = previousQueue.poll()) != null) {
+          batch.add(entity);
+          sequences.add(entity.publishindId());
+        }
+        confirm(batch, previousSemaphore);
+      }
+    }
+  }
+
+  @Benchmark
+  public void current() throws Exception {
+    currentSemaphore.acquire();
+    if (currentAccumulator.add(message, NO_OP_HANDLER)) {
+      synchronized (this) {
+        try {
+          AccumulatedEntity entity;
+          while (currentBatch.size() != batchSize && (entity = currentAccumulator.get()) != null) {
+            currentBatch.add(entity);
+          }
+          confirm(currentBatch, currentSemaphore);
+        } finally {
+          currentBatch.clear();
+        }
+      }
+    }
+  }
+
+  private static void confirm(List<Object> batch, Semaphore semaphore) {
+    int permits = 0;
+    for (Object entity : batch) {
+      permits += ((AccumulatedEntity) entity).confirmationCallback().handle(true, (short) 1);
+    }
+    semaphore.release(permits);
+  }
+
+  @TearDown(Level.Iteration)
+  public void tearDown() {
+    // messages left in the accumulators do not get their permits back
+    previousQueue.clear();
+    previousSemaphore.release(maxUnconfirmed - previousSemaphore.availablePermits());
+    while (currentAccumulator.get() != null) {}
+    currentSemaphore.release(maxUnconfirmed - currentSemaphore.availablePermits());
+  }
+
+  private static final class PreviousEntity implements AccumulatedEntity {
+
+    private final long time;
+    private final long publishingId;
+    private final Codec.EncodedMessage encodedMessage;
+    private final StreamProducer.ConfirmationCallback confirmationCallback;
+
+    private PreviousEntity(
+        long time,
+        long publishingId,
+        Codec.EncodedMessage encodedMessage,
+        StreamProducer.ConfirmationCallback confirmationCallback) {
+      this.time = time;
+      this.publishingId = publishingId;
+      this.encodedMessage = encodedMessage;
+      this.confirmationCallback = confirmationCallback;
+    }
+
+    @Override
+    public long time() {
+      return time;
+    }
+
+    @Override
+    public long publishindId() {
+      return publishingId;
+    }
+
+    @Override
+    public Object encodedEntity() {
+      return encodedMessage;
+    }
+
+    @Override
+    public int encodedSize() {
+      return encodedMessage.getSize();
+    }
+
+    @Override
+    public StreamProducer.ConfirmationCallback confirmationCallback() {
+      return confirmationCallback;
+    }
+  }
+
+  private static final class PreviousConfirmationCallback
+      implements StreamProducer.ConfirmationCallback {
+
+    private final Message message;
+    private final ConfirmationHandler confirmationHandler;
+
+    private PreviousConfirmationCallback(Message message, ConfirmationHandler confirmationHandler) {
+      this.message = message;
+      this.confirmationHandler = confirmationHandler;
+    }
+
+    @Override
+    public int handle(boolean confirmed, short code) {
+      confirmationHandler.handle(new ConfirmationStatus(message, confirmed, code));
+      return 1;
+    }
+  }
+}
@@ -0,0 +1,128 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.rabbitmq.stream.Codec;
+import com.rabbitmq.stream.ConfirmationStatus;
+import com.rabbitmq.stream.Constants;
+import com.rabbitmq.stream.codec.SimpleCodec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SpillStoreTest {
+
+  private static final Codec CODEC = new SimpleCodec();
+
+  @TempDir Path directory;
+
+  @Test
+  void messagesShouldBeReadInAppendOrderAcrossSegments() throws Exception {
+    // 3 records of 12 + 10 bytes per segment
+    try (SpillStore store = new SpillStore(directory, "test", CODEC, 1000, 70)) {
+      for (int i = 0; i < 10; i++) {
+        assertThat(store.append(i, message("message-" + i))).isTrue();
+      }
+      assertThat(store.size()).isEqualTo(10);
+      assertThat(segmentCount()).isEqualTo(4);
+      for (int i = 0; i < 10; i++) {
+        SpillStore.SpilledMessage spilledMessage = store.poll();
+        assertThat(spilledMessage.publishingId()).isEqualTo(i);
+        assertThat(content(spilledMessage)).isEqualTo("message-" + i);
+      }
+      assertThat(store.poll()).isNull();
+      assertThat(store.isEmpty()).isTrue();
+      // read segments are deleted, the last one is reused
+      assertThat(segmentCount()).isEqualTo(1);
+      assertThat(store.append(10, message("message-10"))).isTrue();
+      assertThat(content(store.poll())).isEqualTo("message-10");
+    }
+  }
+
+  @Test
+  void appendShouldFailWhenStoreIsFull() throws Exception {
+    try (SpillStore store = new SpillStore(directory, "test", CODEC, 140, 70)) {
+      for (int i = 0; i < 6; i++) {
+        assertThat(store.append(i, message("message-" + i))).isTrue();
+      }
+      assertThat(store.append(6, message("message-6"))).isFalse();
+      // a message larger than a segment cannot be stored
+      assertThat(store.poll().publishingId()).isZero();
+      assertThat(store.append(6, message(new String(new byte[100])))).isFalse();
+      assertThat(store.size()).isEqualTo(5);
+    }
+  }
+
+  @Test
+  void closeShouldDeleteSegments() throws Exception {
+    SpillStore store = new SpillStore(directory, "test", CODEC, 1000, 70);
+    for (int i = 0; i < 5; i++) {
+      store.append(i, message("message-" + i));
+    }
+    assertThat(segmentCount()).isEqualTo(2);
+    store.close();
+    assertThat(segmentCount()).isZero();
+    assertThat(store.append(5, message("message-5"))).isFalse();
+    assertThat(store.poll()).isNull();
+  }
+
+  @Test
+  void closeShouldFailHandlersOfRemainingMessages() {
+    List<ConfirmationStatus> statuses = new ArrayList<>();
+    // 2 segments
+    SpillStore store = new SpillStore(directory, "test", CODEC, 1000, 70);
+    for (int i = 0; i < 4; i++) {
+      store.append(i, message("message-" + i), statuses::add);
+    }
+    store.append(4, message("message-4"));
+    assertThat(store.peekSize()).isEqualTo("message-0".length());
+    SpillStore.SpilledMessage spilledMessage = store.poll();
+    assertThat(spilledMessage.confirmationHandler()).isNotNull();
+    // the message is decoded from the record
+    assertThat(spilledMessage.message().getBodyAsBinary())
+        .isEqualTo("message-0".getBytes(StandardCharsets.UTF_8));
+    store.close(Constants.RESPONSE_CODE_STREAM_NOT_AVAILABLE);
+    assertThat(statuses)
+        .hasSize(3)
+        .allMatch(s -> s.getCode() == Constants.RESPONSE_CODE_STREAM_NOT_AVAILABLE);
+    assertThat(statuses)
+        .extracting(s -> new String(s.getMessage().getBodyAsBinary(), StandardCharsets.UTF_8))
+        .containsExactly("message-1", "message-2", "message-3");
+  }
+
+  private long segmentCount() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+
+  private static Codec.EncodedMessage message(String content) {
+    byte[] data = content.getBytes(StandardCharsets.UTF_8);
+    return new Codec.EncodedMessage(data.length, data);
+  }
+
+  private static String content(SpillStore.SpilledMessage spilledMessage) {
+    Codec.EncodedMessage encodedMessage = spilledMessage.encodedMessage();
+    return new String(
+        encodedMessage.getData(), 0, encodedMessage.getSize(), StandardCharsets.UTF_8);
+  }
+}
@@ -24,6 +24,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.rabbitmq.stream.BackOffDelayPolicy;
+import com.rabbitmq.stream.Chunk;
 import com.rabbitmq.stream.ConfirmationHandler;
 import com.rabbitmq.stream.Consumer;
 import com.rabbitmq.stream.ConsumerBuilder;
@@ -40,9 +41,11 @@ import com.rabbitmq.stream.impl.TestUtils.BrokerVersion;
 import com.rabbitmq.stream.impl.TestUtils.BrokerVersionAtLeast;
 import com.rabbitmq.stream.impl.TestUtils.DisabledIfRabbitMqCtlNotSet;
 import io.netty.channel.EventLoopGroup;
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -168,6 +171,61 @@ public class StreamConsumerTest {
     consumer.close();
   }
 
+  @Test
+  void chunkHandlerCannotBeCombinedWithMessageHandlerOrAutoTracking() {
+    List<UnaryOperator<ConsumerBuilder>> configurers =
+        Arrays.asList(
+            consumerBuilder ->
+                consumerBuilder
+                    .messageHandler((context, message) -> {})
+                    .chunkHandler((context, chunk) -> {}),
+            consumerBuilder ->
+                consumerBuilder
+                    .name("foo")
+                    .chunkHandler((context, chunk) -> {})
+                    .autoTrackingStrategy()
+                    .builder());
+    configurers.forEach(
+        configurer -> {
+          assertThatThrownBy(
+                  () -> configurer.apply(environment.consumerBuilder().stream(stream)).build())
+              .isInstanceOf(IllegalArgumentException.class);
+        });
+  }
+
+  @Test
+  void consumeWithChunkHandler() throws Exception {
+    int messageCount = 100_000;
+    TestUtils.publishAndWaitForConfirms(cf, messageCount, this.stream);
+
+    AtomicLong receivedMessages = new AtomicLong();
+    AtomicLong lastOffset = new AtomicLong();
+    CountDownLatch consumeLatch = new CountDownLatch(1);
+    Consumer consumer =
+        environment.consumerBuilder().stream(stream)
+            .offset(OffsetSpecification.first())
+            .chunkHandler(
+                (context, chunk) -> {
+                  lastOffset.set(chunk.lastOffset());
+                  Iterator<Chunk.Entry> entries = chunk.entries();
+                  while (entries.hasNext()) {
+                    Iterator<ByteBuffer> messages = entries.next().messages();
+                    while (messages.hasNext()) {
+                      messages.next();
+                      if (receivedMessages.incrementAndGet() == messageCount) {
+                        consumeLatch.countDown();
+                      }
+                    }
+                  }
+                })
+            .build();
+
+    assertThat(consumeLatch.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(lastOffset.get()).isEqualTo(messageCount - 1);
+
+    consumer.close();
+  }
+
   @Test
   void consume() throws Exception {
     int messageCount = 100_000;
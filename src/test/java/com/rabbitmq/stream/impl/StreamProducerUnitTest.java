@@ -20,35 +20,63 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyByte;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.rabbitmq.stream.ConfirmMode;
 import com.rabbitmq.stream.ConfirmationHandler;
+import com.rabbitmq.stream.ConfirmationStatus;
 import com.rabbitmq.stream.Constants;
+import com.rabbitmq.stream.FlushPolicy;
+import com.rabbitmq.stream.Message;
 import com.rabbitmq.stream.StreamException;
 import com.rabbitmq.stream.codec.SimpleCodec;
 import com.rabbitmq.stream.compression.Compression;
 import com.rabbitmq.stream.impl.Client.OutboundEntityWriteCallback;
+import com.rabbitmq.stream.metrics.NoOpMetricsCollector;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -73,8 +101,12 @@ public class StreamProducerUnitTest {
 
   @BeforeEach
   @SuppressWarnings("unchecked")
-  void init() {
+  void init() throws Exception {
     mocks = MockitoAnnotations.openMocks(this);
+    // the client is a mock, its write path needs a flush coalescer
+    Field flushCoalescerField = Client.class.getDeclaredField("flushCoalescer");
+    flushCoalescerField.setAccessible(true);
+    flushCoalescerField.set(client, FlushCoalescer.create(FlushPolicy.everyFrame()));
     executorService = Executors.newScheduledThreadPool(2);
     when(channel.alloc()).thenReturn(ByteBufAllocator.DEFAULT);
     when(channel.writeAndFlush(Mockito.any())).thenReturn(channelFuture);
@@ -89,27 +121,32 @@ public class StreamProducerUnitTest {
                   return buffer;
                 });
     when(client.maxFrameSize()).thenReturn(Integer.MAX_VALUE);
-    when(client.publishInternal(
+    when(client.awaitWritable(anyLong())).thenReturn(true);
+    doAnswer(
+            invocation -> {
+              client.publishEntities(
+                  channel,
+                  invocation.getArgument(0),
+                  invocation.getArgument(1),
+                  invocation.getArgument(2),
+                  invocation.getArgument(3));
+              return null;
+            })
+        .when(client)
+        .publishEntities(
             anyByte(),
             anyList(),
             any(OutboundEntityWriteCallback.class),
-            any(ToLongFunction.class)))
-        .thenAnswer(
-            invocation ->
-                client.publishInternal(
-                    channel,
-                    invocation.getArgument(0),
-                    invocation.getArgument(1),
-                    invocation.getArgument(2),
-                    invocation.getArgument(3)));
-
-    when(client.publishInternal(
+            any(ToLongFunction.class));
+
+    doCallRealMethod()
+        .when(client)
+        .publishEntities(
             any(Channel.class),
             anyByte(),
             anyList(),
             any(OutboundEntityWriteCallback.class),
-            any(ToLongFunction.class)))
-        .thenCallRealMethod();
+            any(ToLongFunction.class));
     when(env.scheduledExecutorService()).thenReturn(executorService);
     when(env.locatorOperation(any())).thenCallRealMethod();
     when(env.clock()).thenReturn(clock);
@@ -172,10 +209,19 @@ public class StreamProducerUnitTest {
             subEntrySize,
             10,
             Compression.NONE,
+            null,
             Duration.ofMillis(100),
+            Duration.ZERO,
+            0,
             messageCount * 10,
+            0,
             confirmTimeout,
             Duration.ofSeconds(10),
+            null,
+            ConfirmMode.TRACK,
+            null,
+            0,
+            null,
             env);
 
     IntStream.range(0, messageCount)
@@ -213,10 +259,19 @@ public class StreamProducerUnitTest {
             subEntrySize,
             10,
             Compression.NONE,
+            null,
+            Duration.ZERO,
             Duration.ZERO,
+            0,
             2,
+            0,
             Duration.ofMinutes(1),
             enqueueTimeout,
+            null,
+            ConfirmMode.TRACK,
+            null,
+            0,
+            null,
             env);
 
     AtomicBoolean confirmCalled = new AtomicBoolean(false);
@@ -251,10 +306,19 @@ public class StreamProducerUnitTest {
             subEntrySize,
             10,
             Compression.NONE,
+            null,
+            Duration.ZERO,
             Duration.ZERO,
+            0,
             2,
+            0,
             Duration.ofMinutes(1),
             enqueueTimeout,
+            null,
+            ConfirmMode.TRACK,
+            null,
+            0,
+            null,
             env);
 
     AtomicBoolean confirmCalled = new AtomicBoolean(false);
@@ -288,6 +352,854 @@ public class StreamProducerUnitTest {
     assertThat(confirmCalled).isFalse();
   }
 
+  @ParameterizedTest
+  @ValueSource(ints = {1, 7})
+  void confirmFrameShouldConfirmMessagesAndReleasePermits(int subEntrySize) {
+    int maxUnconfirmed = 70;
+    StreamProducer producer =
+        new StreamProducer(
+            null,
+            "stream",
+            subEntrySize,
+            10,
+            Compression.NONE,
+            null,
+            Duration.ZERO,
+            Duration.ZERO,
+            0,
+            maxUnconfirmed,
+            0,
+            Duration.ZERO,
+            Duration.ofMillis(10),
+            null,
+            ConfirmMode.TRACK,
+            null,
+            0,
+            null,
+            env);
+
+    AtomicInteger confirmedCount = new AtomicInteger();
+    ConfirmationHandler confirmationHandler =
+        status -> {
+          // a failing handler must not prevent the confirmation of the other messages
+          if (status.isConfirmed() && confirmedCount.incrementAndGet() % 3 == 0) {
+            throw new IllegalStateException();
+          }
+        };
+    IntStream.range(0, maxUnconfirmed)
+        .forEach(
+            i ->
+                producer.send(
+                    producer.messageBuilder().addData("".getBytes()).build(), confirmationHandler));
+    AtomicBoolean enqueueingFailed = new AtomicBoolean(false);
+    producer.send(
+        producer.messageBuilder().addData("".getBytes()).build(),
+        status -> enqueueingFailed.set(!status.isConfirmed()));
+    assertThat(enqueueingFailed).isTrue();
+
+    // a sub-entry has the publishing ID of its last message
+    producer.confirm(
+        LongStream.range(0, maxUnconfirmed / subEntrySize)
+            .map(i -> i * subEntrySize + subEntrySize - 1)
+            .toArray());
+    assertThat(confirmedCount).hasValue(maxUnconfirmed);
+
+    // permits have been released
+    enqueueingFailed.set(false);
+    producer.send(
+        producer.messageBuilder().addData("".getBytes()).build(),
+        status -> enqueueingFailed.set(!status.isConfirmed()));
+    assertThat(enqueueingFailed).isFalse();
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 7})
+  @SuppressWarnings("unchecked")
+  void sendBatchShouldPublishMessagesAsAUnit(int subEntrySize) {
+    int messageCount = 28;
+    StreamProducer producer =
+        new StreamProducer(
+            null,
+            "stream",
+            subEntrySize,
+            10,
+            Compression.NONE,
+            null,
+            Duration.ZERO,
+            Duration.ZERO,
+            0,
+            100,
+            0,
+            Duration.ZERO,
+            Duration.ofMillis(10),
+            null,
+            ConfirmMode.TRACK,
+            null,
+            0,
+            null,
+            env);
+
+    AtomicInteger confirmedCount = new AtomicInteger();
+    List<Message> messages =
+        IntStream.range(0, messageCount)
+            .mapToObj(i -> producer.messageBuilder().addData("".getBytes()).build())
+            .collect(Collectors.toList());
+    producer.send(
+        messages,
+        status -> {
+          if (status.isConfirmed()) {
+            confirmedCount.incrementAndGet();
+          }
+        });
+
+    if (subEntrySize == 1) {
+      // the batch goes straight to the client, in one call
+      verify(client, times(1))
+          .publishEntities(
+              anyByte(),
+              argThat(entities -> entities.size() == messageCount),
+              any(OutboundEntityWriteCallback.class),
+              any(ToLongFunction.class));
+    }
+
+    producer.confirm(
+        LongStream.range(0, messageCount / subEntrySize)
+            .map(i -> i * subEntrySize + subEntrySize - 1)
+            .toArray());
+    assertThat(confirmedCount).hasValue(messageCount);
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  @SuppressWarnings("unchecked")
+  void concurrentBatchesShouldBePublishedInPublishingIdOrder(boolean trackBytes) throws Exception {
+    List<Long> publishedIds = new CopyOnWriteArrayList<>();
+    doAnswer(
+            invocation -> {
+              List<Object> entities = invocation.getArgument(1);
+              ToLongFunction<Object> publishingIdFunction = invocation.getArgument(3);
+              entities.forEach(e -> publishedIds.add(publishingIdFunction.applyAsLong(e)));
+              return null;
+            })
+        .when(client)
+        .publishEntities(
+            anyByte(),
+            anyList(),
+            any(OutboundEntityWriteCallback.class),
+            any(ToLongFunction.class));
+    if (trackBytes) {
+      when(env.outboundBudget())
+          .thenReturn(new OutboundBudget(1024 * 1024, NoOpMetricsCollector.SINGLETON));
+    }
+    int threadCount = 4;
+    int batchCount = 200;
+    int batchSize = 5;
+    StreamProducer producer =
+        new StreamProducer(
+            null,
+            "stream",
+            1,
+            10,
+            Compression.NONE,
+            null,
+            Duration.ZERO,
+            Duration.ZERO,
+            0,
+            threadCount * batchCount * batchSize,
+            0,
+            Duration.ZERO,
+            Duration.ofSeconds(10),
+            null,
+            ConfirmMode.TRACK,
+            null,
+            0,
+            null,
+            env);
+
+    ExecutorService senders = Executors.newFixedThreadPool(threadCount);
+    try {
+      CountDownLatch startLatch = new CountDownLatch(1);
+      CompletableFuture<?>[] futures =
+          IntStream.range(0, threadCount)
+              .mapToObj(
+                  t ->
+                      CompletableFuture.runAsync(
+                          () -> {
+                            try {
+                              startLatch.await();
+                            } catch (InterruptedException e) {
+                              Thread.currentThread().interrupt();
+                              return;
+                            }
+                            for (int b = 0; b < batchCount; b++) {
+                              List<Message> messages =
+                                  IntStream.range(0, batchSize)
+                                      .mapToObj(
+                                          i ->
+                                              producer
+                                                  .messageBuilder()
+                                                  .addData("hello".getBytes())
+                                                  .build())
+                                      .collect(Collectors.toList());
+                              producer.send(messages, status -> {});
+                            }
+                          },
+                          senders))
+              .toArray(CompletableFuture[]::new);
+      startLatch.countDown();
+      CompletableFuture.allOf(futures).get(10, TimeUnit.SECONDS);
+    } finally {
+      senders.shutdownNow();
+    }
+
+    // the broker drops a message with a publishing ID lower than the last one it got
+    assertThat(publishedIds)
+        .hasSize(threadCount * batchCount * batchSize)
+        .isSorted()
+        .doesNotHaveDuplicates();
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 7})
+  void batchConfirmationHandlerShouldBeCalledOncePerConfirmFrame(int subEntrySize) {
+    int messageCount = 28;
+    List<Object[]> calls = new CopyOnWriteArrayList<>();
+    StreamProducer producer =
+        new StreamProducer(
+            null,
+            "stream",
+            subEntrySize,
+            10,
+            Compression.NONE,
+            null,
+            Duration.ZERO,
+            Duration.ZERO,
+            0,
+            100,
+            0,
+            Duration.ZERO,
+            Duration.ofMillis(10),
+            (confirmed, code, publishingIds, count) ->
+                calls.add(new Object[] {confirmed, code, publishingIds, count}),
+            ConfirmMode.TRACK,
+            null,
+            0,
+            null,
+            env);
+
+    // batch sending publishes everything, there is no background publishing task in this test
+    producer.send(
+        IntStream.range(0, messageCount + 1)
+            .mapToObj(i -> producer.messageBuilder().addData("".getBytes()).build())
+            .collect(Collectors.toList()),
+        null);
+
+    long[] publishingIds =
+        LongStream.range(0, messageCount / subEntrySize)
+            .map(i -> i * subEntrySize + subEntrySize - 1)
+            .toArray();
+    // the handler does not get the unknown publishing IDs of the frame
+    long[] frame = Arrays.copyOf(publishingIds, publishingIds.length + 1);
+    frame[publishingIds.length] = 1000;
+    producer.confirm(frame);
+    assertThat(calls).hasSize(1);
+    assertThat(calls.get(0)).containsExactly(true, Constants.RESPONSE_CODE_OK, publishingIds, 28);
+
+    producer.error(messageCount, Constants.CODE_PRODUCER_NOT_AVAILABLE);
+    assertThat(calls).hasSize(2);
+    assertThat(calls.get(1))
+        .containsExactly(
+            false, Constants.CODE_PRODUCER_NOT_AVAILABLE, new long[] {messageCount}, 1);
+
+    // unknown publishing IDs do not trigger the handler
+    producer.confirm(new long[] {messageCount + 1});
+    assertThat(calls).hasSize(2);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void lingerShouldFlushWhenConnectionIsWritableAndWaitWhenItIsNot() throws Exception {
+    EventLoop eventLoop = new DefaultEventLoop();
+    try {
+      when(client.channel()).thenReturn(channel);
+      when(channel.eventLoop()).thenReturn(eventLoop);
+      when(channel.isWritable()).thenReturn(true);
+      // the producer reuses its batch list, sizes must be recorded at call time
+      List<Integer> publishedBatchSizes = new CopyOnWriteArrayList<>();
+      doAnswer(
+              invocation -> {
+                List<Object> entities = invocation.getArgument(1);
+                publishedBatchSizes.add(entities.size());
+                return null;
+              })
+          .when(client)
+          .publishEntities(
+              anyByte(),
+              anyList(),
+              any(OutboundEntityWriteCallback.class),
+              any(ToLongFunction.class));
+      Duration linger = Duration.ofMillis(500);
+      StreamProducer producer =
+          new StreamProducer(
+              null,
+              "stream",
+              1,
+              100,
+              Compression.NONE,
+              null,
+              Duration.ofHours(1),
+              linger,
+              0,
+              100,
+              0,
+              Duration.ZERO,
+              Duration.ofMillis(10),
+              null,
+              ConfirmMode.TRACK,
+              null,
+              0,
+              null,
+              env);
+
+      // the connection is idle, no need to wait for a full batch or a timer
+      producer.send(producer.messageBuilder().addData("".getBytes()).build(), null);
+      waitAtMost(() -> publishedBatchSizes.size() == 1);
+      assertThat(publishedBatchSizes).containsExactly(1);
+
+      // the connection is busy, the batch grows until the linger is reached
+      when(channel.isWritable()).thenReturn(false);
+      long start = System.nanoTime();
+      IntStream.range(0, 3)
+          .forEach(
+              i -> producer.send(producer.messageBuilder().addData("".getBytes()).build(), null));
+      waitAtMost(() -> publishedBatchSizes.size() == 2);
+      assertThat(publishedBatchSizes).containsExactly(1, 3);
+      assertThat(Duration.ofNanos(System.nanoTime() - start))
+          .isGreaterThanOrEqualTo(linger.minusMillis(50));
+    } finally {
+      eventLoop.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void lingerFlushShouldNotBlockEventLoopWhenProducerLockIsHeld() throws Exception {
+    EventLoop eventLoop = new DefaultEventLoop();
+    try {
+      when(client.channel()).thenReturn(channel);
+      when(channel.eventLoop()).thenReturn(eventLoop);
+      when(channel.isWritable()).thenReturn(true);
+      AtomicInteger publishCount = new AtomicInteger();
+      doAnswer(
+              invocation -> {
+                publishCount.incrementAndGet();
+                return null;
+              })
+          .when(client)
+          .publishEntities(
+              anyByte(),
+              anyList(),
+              any(OutboundEntityWriteCallback.class),
+              any(ToLongFunction.class));
+      StreamProducer producer =
+          new StreamProducer(
+              null,
+              "stream",
+              1,
+              100,
+              Compression.NONE,
+              null,
+              Duration.ofHours(1),
+              Duration.ofMillis(100),
+              0,
+              100,
+              0,
+              Duration.ZERO,
+              Duration.ofMillis(10),
+              null,
+              ConfirmMode.TRACK,
+              null,
+              0,
+              null,
+              env);
+
+      CountDownLatch eventLoopLatch = new CountDownLatch(1);
+      synchronized (producer) {
+        // the linger flush does not wait for the producer lock on the event loop
+        producer.send(producer.messageBuilder().addData("".getBytes()).build(), null);
+        Thread.sleep(100);
+        eventLoop.execute(eventLoopLatch::countDown);
+        assertThat(eventLoopLatch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(publishCount).hasValue(0);
+      }
+      waitAtMost(() -> publishCount.get() == 1);
+    } finally {
+      eventLoop.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  void sendAsyncShouldCompleteWithConfirmationStatus() throws Exception {
+    StreamProducer producer =
+        new StreamProducer(
+            null,
+            "stream",
+            1,
+            1,
+            Compression.NONE,
+            null,
+            Duration.ZERO,
+            Duration.ZERO,
+            0,
+            10,
+            0,
+            Duration.ZERO,
+            Duration.ofMillis(10),
+            null,
+            ConfirmMode.TRACK,
+            null,
+            0,
+            null,
+            env);
+
+    CompletableFuture<ConfirmationStatus> confirmed =
+        producer.sendAsync(producer.messageBuilder().addData("".getBytes()).build());
+    CompletableFuture<ConfirmationStatus> failed =
+        producer.sendAsync(producer.messageBuilder().addData("".getBytes()).build());
+    assertThat(confirmed).isNotDone();
+    producer.confirm(0);
+    producer.error(1, Constants.CODE_PUBLISH_CONFIRM_TIMEOUT);
+    assertThat(confirmed.get(10, TimeUnit.SECONDS).isConfirmed()).isTrue();
+    ConfirmationStatus failedStatus = failed.get(10, TimeUnit.SECONDS);
+    assertThat(failedStatus.isConfirmed()).isFalse();
+    assertThat(failedStatus.getCode()).isEqualTo(Constants.CODE_PUBLISH_CONFIRM_TIMEOUT);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 7})
+  @SuppressWarnings("unchecked")
+  void sendShouldFailWhenConnectionDoesNotBecomeWritable(int subEntrySize) throws Exception {
+    Duration enqueueTimeout = Duration.ofMillis(10);
+    when(client.awaitWritable(enqueueTimeout.toMillis())).thenReturn(false);
+    StreamProducer producer =
+        new StreamProducer(
+            null,
+            "stream",
+            subEntrySize,
+            10,
+            Compression.NONE,
+            null,
+            Duration.ZERO,
+            Duration.ZERO,
+            0,
+            100,
+            0,
+            Duration.ZERO,
+            enqueueTimeout,
+            null,
+            ConfirmMode.TRACK,
+            null,
+            0,
+            null,
+            env);
+
+    List<Short> codes = new CopyOnWriteArrayList<>();
+    ConfirmationHandler confirmationHandler = status -> codes.add(status.getCode());
+    producer.send(message(), confirmationHandler);
+    producer.send(Arrays.asList(message(), message()), confirmationHandler);
+    assertThat(codes).hasSize(3).containsOnly(Constants.CODE_MESSAGE_ENQUEUEING_FAILED);
+    verify(client, never())
+        .publishEntities(
+            anyByte(),
+            anyList(),
+            any(OutboundEntityWriteCallback.class),
+            any(ToLongFunction.class));
+
+    when(client.awaitWritable(enqueueTimeout.toMillis())).thenReturn(true);
+    producer.send(Arrays.asList(message(), message()), confirmationHandler);
+    producer.confirm(LongStream.range(0, 2).toArray());
+    assertThat(codes).hasSize(5).endsWith(Constants.RESPONSE_CODE_OK, Constants.RESPONSE_CODE_OK);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 7})
+  void confirmModeNoneShouldOnlyLimitUnconfirmedPublishingIds(int subEntrySize) {
+    StreamProducer producer =
+        new StreamProducer(
+            null,
+            "stream",
+            subEntrySize,
+            10,
+            Compression.NONE,
+            null,
+            Duration.ZERO,
+            Duration.ZERO,
+            0,
+            2,
+            0,
+            Duration.ofSeconds(1),
+            Duration.ofMillis(10),
+            (confirmed, code, publishingIds, count) -> {
+              throw new IllegalStateException("the batch handler should not be called");
+            },
+            ConfirmMode.NONE,
+            null,
+            0,
+            null,
+            env);
+
+    List<Short> codes = new CopyOnWriteArrayList<>();
+    ConfirmationHandler confirmationHandler = status -> codes.add(status.getCode());
+    // 2 publishing IDs, one per message or one per sub-entry
+    producer.send(
+        IntStream.range(0, 2 * subEntrySize).mapToObj(i -> message()).collect(Collectors.toList()),
+        confirmationHandler);
+    assertThat(codes).isEmpty();
+    producer.send(message(), confirmationHandler);
+    assertThat(codes).containsExactly(Constants.CODE_MESSAGE_ENQUEUEING_FAILED);
+
+    // confirms are only counted
+    producer.confirm(new long[] {subEntrySize - 1, 2 * subEntrySize - 1});
+    producer.send(message(), confirmationHandler);
+    assertThat(codes).containsExactly(Constants.CODE_MESSAGE_ENQUEUEING_FAILED);
+
+    // no confirm timeout task
+    verify(env, never()).scheduledExecutorService();
+
+    // the future would never complete
+    assertThatThrownBy(() -> producer.sendAsync(message()))
+        .isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 3})
+  @SuppressWarnings("unchecked")
+  void messagesSentWhileUnavailableShouldBeSpilledAndPublishedOnRecovery(
+      int subEntrySize, @TempDir Path spillDirectory) throws Exception {
+    List<Long> publishedIds = new CopyOnWriteArrayList<>();
+    doAnswer(
+            invocation -> {
+              List<Object> entities = invocation.getArgument(1);
+              ToLongFunction<Object> publishingIdFunction = invocation.getArgument(3);
+              entities.forEach(e -> publishedIds.add(publishingIdFunction.applyAsLong(e)));
+              client.publishEntities(
+                  channel,
+                  invocation.getArgument(0),
+                  entities,
+                  invocation.getArgument(2),
+                  publishingIdFunction);
+              return null;
+            })
+        .when(client)
+        .publishEntities(
+            anyByte(),
+            anyList(),
+            any(OutboundEntityWriteCallback.class),
+            any(ToLongFunction.class));
+    OutboundBudget environmentBudget =
+        new OutboundBudget(1024 * 1024, NoOpMetricsCollector.SINGLETON);
+    when(env.outboundBudget()).thenReturn(environmentBudget);
+    List<Object[]> batchConfirms = new CopyOnWriteArrayList<>();
+    StreamProducer producer =
+        new StreamProducer(
+            null,
+            "stream",
+            subEntrySize,
+            10,
+            Compression.NONE,
+            null,
+            Duration.ZERO,
+            Duration.ZERO,
+            0,
+            100,
+            0,
+            Duration.ZERO,
+            Duration.ofMillis(10),
+            (confirmed, code, publishingIds, count) ->
+                batchConfirms.add(new Object[] {confirmed, publishingIds, count}),
+            ConfirmMode.TRACK,
+            spillDirectory,
+            1024 * 1024,
+            null,
+            env);
+
+    producer.unavailable();
+    List<Short> codes = new CopyOnWriteArrayList<>();
+    ConfirmationHandler confirmationHandler = status -> codes.add(status.getCode());
+    IntStream.range(0, 6).forEach(i -> producer.send(message(), confirmationHandler));
+    producer.send(Arrays.asList(message(), message(), message()), confirmationHandler);
+    // the messages are spilled, their handlers are not called yet
+    assertThat(codes).isEmpty();
+    assertThat(environmentBudget.used()).isZero();
+    assertThat(publishedIds).isEmpty();
+    try (Stream<Path> files = Files.list(spillDirectory)) {
+      assertThat(files.count()).isEqualTo(1);
+    }
+
+    producer.running();
+    if (subEntrySize == 1) {
+      assertThat(publishedIds).containsExactly(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L);
+    } else {
+      // a sub-entry has the publishing ID of its last message
+      assertThat(publishedIds).containsExactly(2L, 5L, 8L);
+    }
+    assertThat(environmentBudget.used()).isPositive();
+    producer.confirm(publishedIds.stream().mapToLong(Long::longValue).toArray());
+    assertThat(batchConfirms).hasSize(1);
+    assertThat(batchConfirms.get(0)[2]).isEqualTo(9);
+    assertThat(codes).hasSize(9).containsOnly(Constants.RESPONSE_CODE_OK);
+    // the re-published messages acquired the bytes the confirms released
+    assertThat(environmentBudget.used()).isZero();
+
+    producer.closeFromEnvironment();
+    try (Stream<Path> files = Files.list(spillDirectory)) {
+      assertThat(files.count()).isZero();
+    }
+  }
+
+  @Test
+  void spilledMessagesShouldBeFailedOnClosing(@TempDir Path spillDirectory) {
+    StreamProducer producer =
+        new StreamProducer(
+            null,
+            "stream",
+            1,
+            10,
+            Compression.NONE,
+            null,
+            Duration.ZERO,
+            Duration.ZERO,
+            0,
+            100,
+            0,
+            Duration.ZERO,
+            Duration.ofMillis(10),
+            null,
+            ConfirmMode.TRACK,
+            spillDirectory,
+            1024 * 1024,
+            null,
+            env);
+
+    producer.unavailable();
+    List<Short> codes = new CopyOnWriteArrayList<>();
+    ConfirmationHandler confirmationHandler = status -> codes.add(status.getCode());
+    IntStream.range(0, 3).forEach(i -> producer.send(message(), confirmationHandler));
+    CompletableFuture<ConfirmationStatus> future = producer.sendAsync(message());
+    assertThat(codes).isEmpty();
+    assertThat(future).isNotDone();
+
+    producer.closeFromEnvironment();
+    assertThat(codes).hasSize(3).containsOnly(Constants.CODE_PRODUCER_CLOSED);
+    assertThat(future).isDone();
+    assertThat(future.getNow(null).getCode()).isEqualTo(Constants.CODE_PRODUCER_CLOSED);
+    // only the handlers stay in memory, the messages are decoded from the spilled bytes
+    assertThat(future.getNow(null).getMessage().getBodyAsBinary()).isEqualTo("hello".getBytes());
+  }
+
+  @Test
+  void unconfirmedBytesShouldBeLimitedByProducerAndEnvironmentBudgets() {
+    int messageSize = new SimpleCodec().encode(message()).getSize();
+    OutboundBudget environmentBudget =
+        new OutboundBudget(3 * messageSize, NoOpMetricsCollector.SINGLETON);
+    when(env.outboundBudget()).thenReturn(environmentBudget);
+    StreamProducer producer =
+        new StreamProducer(
+            null,
+            "stream",
+            1,
+            10,
+            Compression.NONE,
+            null,
+            Duration.ZERO,
+            Duration.ZERO,
+            0,
+            100,
+            2 * messageSize,
+            Duration.ZERO,
+            Duration.ofMillis(10),
+            null,
+            ConfirmMode.TRACK,
+            null,
+            0,
+            null,
+            env);
+
+    List<Short> codes = new CopyOnWriteArrayList<>();
+    ConfirmationHandler confirmationHandler = status -> codes.add(status.getCode());
+    producer.send(Arrays.asList(message(), message()), confirmationHandler);
+    assertThat(environmentBudget.used()).isEqualTo(2 * messageSize);
+    // the producer limit is reached
+    producer.send(message(), confirmationHandler);
+    assertThat(codes).containsExactly(Constants.CODE_MESSAGE_ENQUEUEING_FAILED);
+
+    producer.confirm(new long[] {0, 1});
+    assertThat(environmentBudget.used()).isZero();
+
+    // the environment limit is reached, it is shared with the other producer
+    environmentBudget.tryAcquire(2 * messageSize);
+    producer.send(message(), confirmationHandler);
+    producer.send(message(), confirmationHandler);
+    assertThat(codes)
+        .containsExactly(
+            Constants.CODE_MESSAGE_ENQUEUEING_FAILED,
+            Constants.RESPONSE_CODE_OK,
+            Constants.RESPONSE_CODE_OK,
+            Constants.CODE_MESSAGE_ENQUEUEING_FAILED);
+    assertThat(environmentBudget.used()).isEqualTo(3 * messageSize);
+
+    // accumulated bytes go back to the environment when the producer closes
+    producer.closeFromEnvironment();
+    assertThat(environmentBudget.used()).isEqualTo(2 * messageSize);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 3})
+  @SuppressWarnings("unchecked")
+  void batchShouldBeSentWhenMaxBatchBytesIsReached(int subEntrySize) {
+    int messageSize = new SimpleCodec().encode(message()).getSize();
+    // the producer reuses its batch list, sizes must be recorded at call time
+    List<Integer> publishedBatchSizes = new CopyOnWriteArrayList<>();
+    doAnswer(
+            invocation -> {
+              List<Object> entities = invocation.getArgument(1);
+              publishedBatchSizes.add(entities.size());
+              return null;
+            })
+        .when(client)
+        .publishEntities(
+            anyByte(),
+            anyList(),
+            any(OutboundEntityWriteCallback.class),
+            any(ToLongFunction.class));
+    StreamProducer producer =
+        new StreamProducer(
+            null,
+            "stream",
+            subEntrySize,
+            10,
+            Compression.NONE,
+            null,
+            Duration.ZERO,
+            Duration.ZERO,
+            3 * subEntrySize * messageSize,
+            100,
+            0,
+            Duration.ZERO,
+            Duration.ofMillis(10),
+            null,
+            ConfirmMode.TRACK,
+            null,
+            0,
+            null,
+            env);
+
+    IntStream.range(0, 3 * subEntrySize).forEach(i -> producer.send(message(), null));
+    assertThat(publishedBatchSizes).containsExactly(3);
+
+    producer.send(
+        IntStream.range(0, 6 * subEntrySize).mapToObj(i -> message()).collect(Collectors.toList()),
+        null);
+    assertThat(publishedBatchSizes).containsExactly(3, 3, 3);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void subEntriesCompressedInParallelShouldBePublishedInOrder() throws Exception {
+    when(env.compressionCodecFactory()).thenReturn(CompressionCodecs.DEFAULT);
+    when(env.byteBufAllocator()).thenReturn(ByteBufAllocator.DEFAULT);
+    List<Long> publishedIds = new CopyOnWriteArrayList<>();
+    doAnswer(
+            invocation -> {
+              List<Object> entities = invocation.getArgument(1);
+              ToLongFunction<Object> publishingIdFunction = invocation.getArgument(3);
+              entities.forEach(e -> publishedIds.add(publishingIdFunction.applyAsLong(e)));
+              client.publishEntities(
+                  channel,
+                  invocation.getArgument(0),
+                  entities,
+                  invocation.getArgument(2),
+                  publishingIdFunction);
+              return null;
+            })
+        .when(client)
+        .publishEntities(
+            anyByte(),
+            anyList(),
+            any(OutboundEntityWriteCallback.class),
+            any(ToLongFunction.class));
+    // compression tasks wait for the latch, then complete in random order
+    CountDownLatch compressionLatch = new CountDownLatch(1);
+    ExecutorService compressionExecutorService = Executors.newFixedThreadPool(4);
+    Executor compressionExecutor =
+        task ->
+            compressionExecutorService.execute(
+                () -> {
+                  try {
+                    compressionLatch.await();
+                    Thread.sleep(ThreadLocalRandom.current().nextInt(5));
+                  } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                  }
+                  task.run();
+                });
+    int subEntrySize = 2;
+    int batchSize = 2;
+    try {
+      StreamProducer producer =
+          new StreamProducer(
+              null,
+              "stream",
+              subEntrySize,
+              batchSize,
+              Compression.GZIP,
+              compressionExecutor,
+              Duration.ZERO,
+              Duration.ZERO,
+              0,
+              100,
+              0,
+              Duration.ZERO,
+              Duration.ofMillis(10),
+              null,
+              ConfirmMode.TRACK,
+              null,
+              0,
+              null,
+              env);
+
+      List<Short> codes = new CopyOnWriteArrayList<>();
+      ConfirmationHandler confirmationHandler = status -> codes.add(status.getCode());
+      // the stage takes 2 x batch size sub-entries
+      int messageCount = 2 * batchSize * subEntrySize;
+      IntStream.range(0, messageCount).forEach(i -> producer.send(message(), confirmationHandler));
+      assertThat(publishedIds).isEmpty();
+      // the stage is full
+      producer.send(message(), confirmationHandler);
+      assertThat(codes).containsExactly(Constants.CODE_MESSAGE_ENQUEUEING_FAILED);
+
+      compressionLatch.countDown();
+      waitAtMost(() -> publishedIds.size() == messageCount / subEntrySize);
+      assertThat(publishedIds)
+          .containsExactlyElementsOf(
+              LongStream.range(0, messageCount / subEntrySize)
+                  .map(i -> i * subEntrySize + subEntrySize - 1)
+                  .boxed()
+                  .collect(Collectors.toList()));
+
+      producer.confirm(publishedIds.stream().mapToLong(Long::longValue).toArray());
+      assertThat(codes).hasSize(messageCount + 1);
+      assertThat(codes.subList(1, codes.size())).containsOnly(Constants.RESPONSE_CODE_OK);
+      producer.closeFromEnvironment();
+    } finally {
+      compressionExecutorService.shutdownNow();
+    }
+  }
+
+  private static Message message() {
+    return new SimpleCodec().messageBuilder().addData("hello".getBytes()).build();
+  }
+
   @ParameterizedTest
   @CsvSource({"-1,false", "0,true", "500,false", "1000,true", "5000,true"})
   void confirmTimeoutCanZeroAndLongerThanOneSecond(int timeoutInMs, boolean ok) throws Throwable {
@@ -0,0 +1,153 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.rabbitmq.stream.ConfirmationStatus;
+import com.rabbitmq.stream.Constants;
+import com.rabbitmq.stream.Message;
+import com.rabbitmq.stream.Producer;
+import com.rabbitmq.stream.codec.SimpleCodec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+public class StripedProducerTest {
+
+  SimpleCodec codec = new SimpleCodec();
+
+  static List<Producer> producers(int count) {
+    return IntStream.range(0, count)
+        .mapToObj(i -> mock(Producer.class))
+        .collect(Collectors.toList());
+  }
+
+  Message message(String key) {
+    return codec.messageBuilder().addData(key.getBytes()).build();
+  }
+
+  static String key(Message message) {
+    return new String(message.getBodyAsBinary());
+  }
+
+  @Test
+  void sendShouldUseSameProducerForSameThread() {
+    List<Producer> producers = producers(3);
+    StripedProducer producer = new StripedProducer(producers, null, codec);
+    for (int i = 0; i < 10; i++) {
+      producer.send(message("a"), null);
+    }
+    List<Integer> counts = new ArrayList<>();
+    for (Producer p : producers) {
+      ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+      verify(p, atLeast(0)).send(captor.capture(), any());
+      counts.add(captor.getAllValues().size());
+    }
+    assertThat(counts).containsExactlyInAnyOrder(10, 0, 0);
+  }
+
+  @Test
+  void threadsShouldBeSpreadEvenlyOverProducers() throws Exception {
+    List<Producer> producers = producers(3);
+    StripedProducer producer = new StripedProducer(producers, null, codec);
+    for (int i = 0; i < 6; i++) {
+      Thread thread = new Thread(() -> producer.send(message("a"), null));
+      thread.start();
+      thread.join();
+    }
+    for (Producer p : producers) {
+      verify(p, times(2)).send(any(Message.class), any());
+    }
+  }
+
+  @Test
+  void sendShouldUseSameProducerForSameRoutingKey() {
+    List<Producer> producers = producers(4);
+    StripedProducer producer = new StripedProducer(producers, StripedProducerTest::key, codec);
+    List<String> keys = Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h");
+    for (int i = 0; i < 3; i++) {
+      keys.forEach(key -> producer.send(message(key), null));
+    }
+    Map<String, Producer> producerByKey = new ConcurrentHashMap<>();
+    for (Producer p : producers) {
+      ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+      verify(p, atLeast(0)).send(captor.capture(), any());
+      for (Message message : captor.getAllValues()) {
+        Producer previous = producerByKey.putIfAbsent(key(message), p);
+        assertThat(previous == null || previous == p).isTrue();
+      }
+    }
+    assertThat(producerByKey).hasSize(keys.size());
+    assertThat(producerByKey.values().stream().distinct().count()).isGreaterThan(1);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void sendBatchShouldGroupMessagesByProducerAndKeepOrder() {
+    List<Producer> producers = producers(4);
+    StripedProducer producer = new StripedProducer(producers, StripedProducerTest::key, codec);
+    List<Message> messages = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      for (String key : Arrays.asList("a", "b", "c", "d", "e", "f")) {
+        messages.add(message(key));
+      }
+    }
+    producer.send(messages, null);
+    List<Message> sent = new ArrayList<>();
+    for (Producer p : producers) {
+      verify(p, never()).send(any(Message.class), any());
+      ArgumentCaptor<List<Message>> captor = ArgumentCaptor.forClass(List.class);
+      verify(p, atMost(1)).send(captor.capture(), any());
+      captor.getAllValues().forEach(sent::addAll);
+      for (List<Message> batch : captor.getAllValues()) {
+        // messages of a publisher keep their relative order
+        List<Message> expected =
+            messages.stream().filter(batch::contains).collect(Collectors.toList());
+        assertThat(batch).containsExactlyElementsOf(expected);
+      }
+    }
+    assertThat(sent).containsExactlyInAnyOrderElementsOf(messages);
+  }
+
+  @Test
+  void closeShouldCloseAllProducersAndFailSubsequentSends() {
+    List<Producer> producers = producers(3);
+    StripedProducer producer = new StripedProducer(producers, null, codec);
+    producer.close();
+    producer.close();
+    producers.forEach(p -> verify(p, times(1)).close());
+    AtomicReference<ConfirmationStatus> status = new AtomicReference<>();
+    producer.send(message("a"), status::set);
+    assertThat(status.get().isConfirmed()).isFalse();
+    assertThat(status.get().getCode()).isEqualTo(Constants.CODE_PRODUCER_CLOSED);
+    producers.forEach(p -> verify(p, never()).send(any(Message.class), any()));
+    producers.forEach(p -> verify(p, never()).send(anyList(), any()));
+  }
+}
@@ -0,0 +1,136 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import com.rabbitmq.stream.Codec;
+import com.rabbitmq.stream.codec.QpidProtonCodec;
+import com.rabbitmq.stream.compression.Compression;
+import com.rabbitmq.stream.impl.ServerFrameHandler.DeliverVersion1FrameHandler.ChunkEntries;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Replay throughput of a chunk of compressed sub-entries depending on the number of decompression
+ * threads (0 means decompression on the dispatching thread).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(1)
+public class SubEntryDecompressionBenchmark {
+
+  private static final String[] WORDS = {
+    "stream", "chunk", "offset", "consumer", "producer", "broker", "message", "sub-entry"
+  };
+
+  @Param({"ZSTD", "LZ4", "GZIP"})
+  Compression compression;
+
+  @Param({"0", "1", "2", "4"})
+  int threads;
+
+  @Param({"32"})
+  int subEntryCount;
+
+  @Param({"100"})
+  int subEntrySize;
+
+  Codec codec;
+  Client client;
+  ExecutorService executorService;
+  ByteBuf chunk;
+  int messageCount;
+
+  @Setup
+  public void setUp() throws Exception {
+    codec = new QpidProtonCodec();
+    client = DeliveryTest.client();
+    executorService = threads == 0 ? null : Executors.newFixedThreadPool(threads);
+    Random random = new Random(42);
+    chunk = ByteBufAllocator.DEFAULT.directBuffer();
+    for (int i = 0; i < subEntryCount; i++) {
+      List<byte[]> messages = new ArrayList<>(subEntrySize);
+      for (int j = 0; j < subEntrySize; j++) {
+        StringBuilder body = new StringBuilder();
+        for (int k = 0; k < 20; k++) {
+          body.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        Codec.EncodedMessage encoded =
+            codec.encode(
+                codec
+                    .messageBuilder()
+                    .addData(body.toString().getBytes(StandardCharsets.UTF_8))
+                    .build());
+        byte[] data = new byte[encoded.getSize()];
+        System.arraycopy(encoded.getData(), 0, data, 0, encoded.getSize());
+        messages.add(data);
+      }
+      DeliveryTest.writeSubEntry(chunk, compression, messages);
+    }
+    messageCount = subEntryCount * subEntrySize;
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    chunk.release();
+    if (executorService != null) {
+      executorService.shutdownNow();
+      executorService.awaitTermination(10, TimeUnit.SECONDS);
+    }
+  }
+
+  @Benchmark
+  public void replay(Blackhole bh) {
+    chunk.readerIndex(0);
+    new ChunkEntries(
+            client,
+            (subscriptionId, offset, chunkTimestamp, committedChunkId, message) ->
+                bh.consume(message),
+            codec,
+            (byte) 1,
+            0,
+            0,
+            0,
+            messageCount,
+            -1,
+            executorService)
+        .read(chunk, 0);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt =
+        new OptionsBuilder()
+            .include(SubEntryDecompressionBenchmark.class.getSimpleName())
+            .forks(1)
+            .build();
+
+    new Runner(opt).run();
+  }
+}
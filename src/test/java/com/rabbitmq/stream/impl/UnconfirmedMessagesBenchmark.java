@@ -0,0 +1,148 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import com.rabbitmq.stream.impl.MessageAccumulator.AccumulatedEntity;
+import com.rabbitmq.stream.impl.StreamProducer.ConfirmationCallback;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the map of unconfirmed messages with the ring of {@link UnconfirmedMessages}, on the
+ * publish-then-confirm path.
+ *
+ * <p>Each invocation registers a batch of entities and confirms them like a confirm frame would:
+ * one ID at a time for the map, the whole frame at once for the ring.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(1)
+public class UnconfirmedMessagesBenchmark {
+
+  private static final ConfirmationCallback CALLBACK = (confirmed, code) -> 1;
+
+  @Param({"10", "100"})
+  int confirmFrameSize;
+
+  int maxUnconfirmed = 10_000;
+
+  ConcurrentMap<Long, AccumulatedEntity> map;
+  UnconfirmedMessages ring;
+  UnconfirmedMessages fullRing;
+  long[] publishingIds;
+  AccumulatedEntity[] removed;
+  long sequence = 0;
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt =
+        new OptionsBuilder()
+            .include(UnconfirmedMessagesBenchmark.class.getSimpleName())
+            .forks(1)
+            .build();
+
+    new Runner(opt).run();
+  }
+
+  @Setup
+  public void setUp() {
+    map = new ConcurrentHashMap<>(maxUnconfirmed, 0.75f, 2);
+    ring = new UnconfirmedMessages(maxUnconfirmed);
+    // a full producer, with no expired entry, as on most confirm timeout task runs
+    fullRing = new UnconfirmedMessages(maxUnconfirmed);
+    for (long i = 0; i < maxUnconfirmed; i++) {
+      fullRing.put(i, new Entity(i));
+    }
+    publishingIds = new long[confirmFrameSize];
+    removed = new AccumulatedEntity[confirmFrameSize];
+  }
+
+  @Benchmark
+  public void concurrentHashMap(Blackhole bh) {
+    for (int i = 0; i < confirmFrameSize; i++) {
+      map.put(sequence + i, new Entity(sequence + i));
+    }
+    int confirmed = 0;
+    for (int i = 0; i < confirmFrameSize; i++) {
+      AccumulatedEntity entity = map.remove(sequence + i);
+      confirmed += entity.confirmationCallback().handle(true, (short) 1);
+    }
+    sequence += confirmFrameSize;
+    bh.consume(confirmed);
+  }
+
+  @Benchmark
+  public void ringWholeFrame(Blackhole bh) {
+    for (int i = 0; i < confirmFrameSize; i++) {
+      ring.put(sequence + i, new Entity(sequence + i));
+      publishingIds[i] = sequence + i;
+    }
+    ring.remove(publishingIds, removed);
+    int confirmed = 0;
+    for (AccumulatedEntity entity : removed) {
+      confirmed += entity.confirmationCallback().handle(true, (short) 1);
+    }
+    sequence += confirmFrameSize;
+    bh.consume(confirmed);
+  }
+
+  @Benchmark
+  public void confirmTimeoutCheck(Blackhole bh) {
+    bh.consume(fullRing.publishingIdsOlderThan(0));
+  }
+
+  private static final class Entity implements AccumulatedEntity {
+
+    private final long publishingId;
+
+    private Entity(long publishingId) {
+      this.publishingId = publishingId;
+    }
+
+    @Override
+    public long time() {
+      return 0;
+    }
+
+    @Override
+    public long publishindId() {
+      return publishingId;
+    }
+
+    @Override
+    public Object encodedEntity() {
+      return null;
+    }
+
+    @Override
+    public int encodedSize() {
+      return 0;
+    }
+
+    @Override
+    public ConfirmationCallback confirmationCallback() {
+      return CALLBACK;
+    }
+  }
+}
@@ -0,0 +1,194 @@
+// Copyright (c) 2023 VMware, Inc. or its affiliates.  All rights reserved.
+//
+// This software, the RabbitMQ Stream Java client library, is dual-licensed under the
+// Mozilla Public License 2.0 ("MPL"), and the Apache License version 2 ("ASL").
+// For the MPL, please see LICENSE-MPL-RabbitMQ. For the ASL,
+// please see LICENSE-APACHE2.
+//
+// This software is distributed on an "AS IS" basis, WITHOUT WARRANTY OF ANY KIND,
+// either express or implied. See the LICENSE file for specific language governing
+// rights and limitations of this software.
+//
+// If you have any questions regarding licensing, please contact us at
+// info@rabbitmq.com.
+package com.rabbitmq.stream.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.rabbitmq.stream.impl.MessageAccumulator.AccumulatedEntity;
+import com.rabbitmq.stream.impl.StreamProducer.ConfirmationCallback;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+public class UnconfirmedMessagesTest {
+
+  @Test
+  void capacityMustBePositive() {
+    assertThatThrownBy(() -> new UnconfirmedMessages(0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void contiguousPublishingIdsShouldBeStoredAndRemoved() {
+    UnconfirmedMessages messages = new UnconfirmedMessages(10);
+    for (long round = 0; round < 5; round++) {
+      LongStream.range(round * 10, round * 10 + 10).forEach(id -> messages.put(id, entity(id)));
+      assertThat(messages.size()).isEqualTo(10);
+      for (long id = round * 10; id < round * 10 + 10; id++) {
+        assertThat(messages.remove(id).publishindId()).isEqualTo(id);
+      }
+      assertThat(messages.isEmpty()).isTrue();
+    }
+    assertThat(messages.remove(1)).isNull();
+  }
+
+  @Test
+  void sparsePublishingIdsShouldGoToFallback() {
+    UnconfirmedMessages messages = new UnconfirmedMessages(4);
+    long[] ids = new long[] {0, 4, 8, 1_000_000, 5, 1};
+    for (long id : ids) {
+      messages.put(id, entity(id));
+    }
+    assertThat(messages.size()).isEqualTo(ids.length);
+    assertThat(messages.remove(0).publishindId()).isEqualTo(0);
+    assertThat(messages.remove(8).publishindId()).isEqualTo(8);
+    assertThat(messages.remove(9)).isNull();
+    assertThat(messages.size()).isEqualTo(ids.length - 2);
+    // slot of 0 is free, 4 is still in the fallback, it must not be stored twice
+    messages.put(4, entity(4));
+    assertThat(messages.size()).isEqualTo(ids.length - 2);
+    assertThat(messages.remove(4).publishindId()).isEqualTo(4);
+    assertThat(messages.remove(4)).isNull();
+    assertThat(drainedIds(messages)).containsExactly(1L, 5L, 1_000_000L);
+    assertThat(messages.isEmpty()).isTrue();
+  }
+
+  @Test
+  void putWithSamePublishingIdShouldReplaceEntry() {
+    UnconfirmedMessages messages = new UnconfirmedMessages(4);
+    AccumulatedEntity entity = entity(2);
+    messages.put(2, entity(2));
+    messages.put(2, entity);
+    assertThat(messages.size()).isEqualTo(1);
+    assertThat(messages.remove(2)).isSameAs(entity);
+  }
+
+  @Test
+  void removeSeveralShouldReturnEntriesAtSameIndex() {
+    UnconfirmedMessages messages = new UnconfirmedMessages(8);
+    LongStream.range(0, 8).forEach(id -> messages.put(id, entity(id)));
+    AccumulatedEntity[] removed = new AccumulatedEntity[4];
+    messages.remove(new long[] {2, 3, 42, 7}, removed);
+    assertThat(removed[0].publishindId()).isEqualTo(2);
+    assertThat(removed[1].publishindId()).isEqualTo(3);
+    assertThat(removed[2]).isNull();
+    assertThat(removed[3].publishindId()).isEqualTo(7);
+    assertThat(messages.size()).isEqualTo(5);
+  }
+
+  @Test
+  void publishingIdsOlderThanShouldReturnSortedExpiredIds() {
+    UnconfirmedMessages messages = new UnconfirmedMessages(4);
+    // wraps around the ring and uses the fallback, entries are put in time order
+    long[] ids = new long[] {6, 8, 10, 7, 9, 13};
+    for (long id : ids) {
+      messages.put(id, entity(id, id % 2 == 0 ? 10 : 100));
+    }
+    assertThat(messages.publishingIdsOlderThan(50)).containsExactly(6, 8, 10);
+    assertThat(messages.publishingIdsOlderThan(5)).isEmpty();
+    assertThat(messages.publishingIdsOlderThan(1000)).containsExactly(6, 7, 8, 9, 10, 13);
+    assertThat(messages.size()).isEqualTo(ids.length);
+  }
+
+  @Test
+  void publishingIdsOlderThanShouldSkipRemovedEntries() {
+    UnconfirmedMessages messages = new UnconfirmedMessages(8);
+    LongStream.range(0, 8).forEach(id -> messages.put(id, entity(id, id)));
+    messages.remove(0);
+    messages.remove(2);
+    assertThat(messages.publishingIdsOlderThan(4)).containsExactly(1, 3);
+    // the removed head is trimmed, the removed entry behind an unconfirmed one is not
+    assertThat(messages.fifoSize()).isEqualTo(7);
+    messages.remove(1);
+    messages.remove(3);
+    assertThat(messages.publishingIdsOlderThan(4)).isEmpty();
+    assertThat(messages.fifoSize()).isEqualTo(4);
+  }
+
+  @Test
+  void publishingIdsOlderThanShouldReturnLateEntryOnceMoreRecentOneIsRemoved() {
+    UnconfirmedMessages messages = new UnconfirmedMessages(4);
+    messages.put(0, entity(0, 100));
+    messages.put(1, entity(1, 10));
+    assertThat(messages.publishingIdsOlderThan(50)).isEmpty();
+    messages.remove(0);
+    assertThat(messages.publishingIdsOlderThan(50)).containsExactly(1);
+  }
+
+  @Test
+  void fifoShouldBeCompactedWhenRemovedEntriesPileUpBehindUnconfirmedOne() {
+    UnconfirmedMessages messages = new UnconfirmedMessages(4);
+    messages.put(0, entity(0));
+    for (long id = 1; id < 1000; id++) {
+      messages.put(id, entity(id));
+      messages.remove(id);
+    }
+    assertThat(messages.size()).isEqualTo(1);
+    assertThat(messages.fifoSize()).isLessThanOrEqualTo(2 * 4 + 1);
+    assertThat(messages.publishingIdsOlderThan(1)).containsExactly(0);
+  }
+
+  @Test
+  void drainShouldReturnEntriesInPublishingIdOrder() {
+    UnconfirmedMessages messages = new UnconfirmedMessages(4);
+    long[] ids = new long[] {6, 7, 8, 9, 13, 10};
+    for (long id : ids) {
+      messages.put(id, entity(id));
+    }
+    assertThat(drainedIds(messages)).containsExactly(6L, 7L, 8L, 9L, 10L, 13L);
+    assertThat(messages.isEmpty()).isTrue();
+    assertThat(messages.drain()).isEmpty();
+  }
+
+  private static List<Long> drainedIds(UnconfirmedMessages messages) {
+    return messages.drain().stream()
+        .map(AccumulatedEntity::publishindId)
+        .collect(Collectors.toList());
+  }
+
+  private static AccumulatedEntity entity(long publishingId) {
+    return entity(publishingId, 0);
+  }
+
+  private static AccumulatedEntity entity(long publishingId, long time) {
+    return new AccumulatedEntity() {
+      @Override
+      public long time() {
+        return time;
+      }
+
+      @Override
+      public long publishindId() {
+        return publishingId;
+      }
+
+      @Override
+      public Object encodedEntity() {
+        return null;
+      }
+
+      @Override
+      public int encodedSize() {
+        return 0;
+      }
+
+      @Override
+      public ConfirmationCallback confirmationCallback() {
+        return (confirmed, code) -> 1;
+      }
+    };
+  }
+}
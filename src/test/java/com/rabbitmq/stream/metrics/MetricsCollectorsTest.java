@@ -17,6 +17,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import com.codahale.metrics.MetricRegistry;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 
 public class MetricsCollectorsTest {
@@ -38,6 +39,17 @@ public class MetricsCollectorsTest {
     assertThat(registry.get("rabbitmq.stream.published").counter().count()).isEqualTo(10.0);
     assertThat(registry.get("rabbitmq.stream.outstanding_publish_confirm").gauge().value())
         .isEqualTo(10.0);
+
+    collector.outboundBacklog(2000);
+    collector.outboundBacklog(-500);
+    assertThat(registry.get("rabbitmq.stream.outbound_backlog").gauge().value()).isEqualTo(1500.0);
+    collector.outboundUnwritable(TimeUnit.MILLISECONDS.toNanos(20));
+    assertThat(
+            registry
+                .get("rabbitmq.stream.outbound_unwritable")
+                .timer()
+                .totalTime(TimeUnit.MILLISECONDS))
+        .isEqualTo(20.0);
     collector.publishConfirm(5);
     assertThat(registry.get("rabbitmq.stream.confirmed").counter().count()).isEqualTo(5.0);
     assertThat(registry.get("rabbitmq.stream.outstanding_publish_confirm").gauge().value())
@@ -50,6 +62,20 @@ public class MetricsCollectorsTest {
     collector.chunk(100);
     assertThat(registry.get("rabbitmq.stream.chunk").counter().count()).isEqualTo(1);
     assertThat(registry.get("rabbitmq.stream.chunk_size").summary().totalAmount()).isEqualTo(100.0);
+
+    collector.inboundBacklog(1000);
+    collector.inboundBacklog(-400);
+    assertThat(registry.get("rabbitmq.stream.inbound_backlog").gauge().value()).isEqualTo(600.0);
+    collector.inboundPaused(TimeUnit.MILLISECONDS.toNanos(10));
+    assertThat(registry.get("rabbitmq.stream.inbound_paused").timer().count()).isEqualTo(1);
+    assertThat(
+            registry.get("rabbitmq.stream.inbound_paused").timer().totalTime(TimeUnit.MILLISECONDS))
+        .isEqualTo(10.0);
+
+    collector.flush(10);
+    collector.flush(30);
+    assertThat(registry.get("rabbitmq.stream.flushed_frames").summary().count()).isEqualTo(2);
+    assertThat(registry.get("rabbitmq.stream.flushed_frames").summary().mean()).isEqualTo(20.0);
   }
 
   @Test
@@ -82,5 +108,23 @@ public class MetricsCollectorsTest {
     assertThat(registry.meter("rabbitmq.stream.chunk").getCount()).isEqualTo(1);
     assertThat(registry.histogram("rabbitmq.stream.chunk_size").getSnapshot().getMax())
         .isEqualTo(100);
+
+    collector.inboundBacklog(1000);
+    collector.inboundBacklog(-400);
+    assertThat(registry.counter("rabbitmq.stream.inbound_backlog").getCount()).isEqualTo(600);
+    collector.inboundPaused(TimeUnit.MILLISECONDS.toNanos(10));
+    assertThat(registry.timer("rabbitmq.stream.inbound_paused").getCount()).isEqualTo(1);
+
+    collector.outboundBacklog(2000);
+    collector.outboundBacklog(-500);
+    assertThat(registry.counter("rabbitmq.stream.outbound_backlog").getCount()).isEqualTo(1500);
+    collector.outboundUnwritable(TimeUnit.MILLISECONDS.toNanos(20));
+    assertThat(registry.timer("rabbitmq.stream.outbound_unwritable").getCount()).isEqualTo(1);
+
+    collector.flush(10);
+    collector.flush(30);
+    assertThat(registry.histogram("rabbitmq.stream.flushed_frames").getCount()).isEqualTo(2);
+    assertThat(registry.histogram("rabbitmq.stream.flushed_frames").getSnapshot().getMax())
+        .isEqualTo(30);
   }
 }